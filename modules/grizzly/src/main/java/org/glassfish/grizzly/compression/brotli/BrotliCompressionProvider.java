@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.brotli;
+
+import org.glassfish.grizzly.compression.spi.CompressionProvider;
+import org.glassfish.grizzly.compression.spi.Compressor;
+import org.glassfish.grizzly.compression.spi.Decompressor;
+
+/**
+ * The built-in pure Java brotli {@link CompressionProvider}, which is used unless a provider with a higher priority, for
+ * example the one backed by the native brotli library, is registered.
+ * <p>
+ * The built-in provider only compresses: a brotli decoder has to carry the 122K static dictionary of the format, so the
+ * decompression is available through the additional providers only.
+ */
+public final class BrotliCompressionProvider implements CompressionProvider {
+    /**
+     * The content-encoding name of brotli.
+     */
+    public static final String ENCODING = "br";
+
+    /**
+     * The default compression level, the levels above <tt>5</tt> search for the longer matches.
+     */
+    public static final int DEFAULT_LEVEL = 5;
+
+    @Override
+    public String getEncoding() {
+        return ENCODING;
+    }
+
+    @Override
+    public int getPriority() {
+        return 0;
+    }
+
+    @Override
+    public Compressor createCompressor(final int level) {
+        return new BrotliCompressor(level < 0 ? DEFAULT_LEVEL : level);
+    }
+
+    @Override
+    public Decompressor createDecompressor() {
+        return null;
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.brotli;
+
+import java.util.Arrays;
+
+import org.glassfish.grizzly.compression.impl.BitWriter;
+import org.glassfish.grizzly.compression.impl.HuffmanLengths;
+import org.glassfish.grizzly.compression.impl.MatchFinder;
+import org.glassfish.grizzly.compression.impl.Sequences;
+import org.glassfish.grizzly.compression.spi.Compressor;
+
+/**
+ * The pure Java brotli compressor, RFC 7932.
+ * <p>
+ * The input is split into 64K meta-blocks, which are parsed by the {@link MatchFinder}. Each meta-block uses a single
+ * block type and a single prefix code per category, so there is no context modeling, and the distances are always
+ * coded explicitly, without the distance cache or the static dictionary. The meta-blocks, which don't compress, are
+ * stored uncompressed.
+ */
+final class BrotliCompressor implements Compressor {
+    private static final int WINDOW_BITS = 18;
+    private static final int WINDOW_SIZE = (1 << WINDOW_BITS) - 16;
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int LITERAL_ALPHABET_SIZE = 256;
+    private static final int COMMAND_ALPHABET_SIZE = 704;
+    // 16 + NDIRECT + (48 << NPOSTFIX) with NDIRECT = 0 and NPOSTFIX = 0
+    private static final int DISTANCE_ALPHABET_SIZE = 64;
+    private static final int MAX_CODE_LENGTH = 15;
+
+    private static final int[] INSERT_LENGTH_BASE = { 0, 1, 2, 3, 4, 5, 6, 8, 10, 14, 18, 26, 34, 50, 66, 98, 130, 194, 322, 578, 1090, 2114, 6210,
+            22594 };
+    private static final int[] INSERT_LENGTH_BITS = { 0, 0, 0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 7, 8, 9, 10, 12, 14, 24 };
+    private static final int[] COPY_LENGTH_BASE = { 2, 3, 4, 5, 6, 7, 8, 9, 10, 12, 14, 18, 22, 30, 38, 54, 70, 102, 134, 198, 326, 582, 1094, 2118 };
+    private static final int[] COPY_LENGTH_BITS = { 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 7, 8, 9, 10, 24 };
+
+    // the first insert-and-copy length code of the (insert length code >> 3, copy length code >> 3) cells, which read
+    // the distance code explicitly
+    private static final int[][] COMMAND_CELL_BASE = { { 128, 192, 384 }, { 256, 320, 512 }, { 448, 576, 640 } };
+
+    // the order of the code length code lengths and their fixed code, RFC 7932 section 3.5
+    private static final int[] CODE_LENGTH_ORDER = { 1, 2, 3, 4, 0, 5, 17, 6, 16, 7, 8, 9, 10, 11, 12, 13, 14, 15 };
+    private static final int[] CODE_LENGTH_LENGTH_CODES = { 0, 7, 3, 2, 1, 15 };
+    private static final int[] CODE_LENGTH_LENGTH_BITS = { 2, 4, 3, 2, 2, 4 };
+
+    private final MatchFinder matchFinder;
+    private final Sequences sequences = new Sequences();
+
+    private BitWriter out = new BitWriter(BLOCK_SIZE);
+    private BitWriter block = new BitWriter(BLOCK_SIZE);
+
+    private final PrefixCode literalCode = new PrefixCode(LITERAL_ALPHABET_SIZE);
+    private final PrefixCode commandCode = new PrefixCode(COMMAND_ALPHABET_SIZE);
+    private final PrefixCode distanceCode = new PrefixCode(DISTANCE_ALPHABET_SIZE);
+    private final PrefixCode codeLengthCode = new PrefixCode(CODE_LENGTH_ORDER.length);
+
+    private int[] commands = new int[1024];
+    private int[] distanceCodes = new int[1024];
+
+    private boolean headerWritten;
+
+    BrotliCompressor(final int level) {
+        final int searchDepth;
+        if (level <= 1) {
+            searchDepth = 1;
+        } else if (level <= 5) {
+            searchDepth = 4;
+        } else if (level <= 8) {
+            searchDepth = 16;
+        } else {
+            searchDepth = 64;
+        }
+
+        matchFinder = new MatchFinder(WINDOW_SIZE, BLOCK_SIZE, searchDepth);
+    }
+
+    @Override
+    public byte[] compress(final byte[] input, int offset, int length) {
+        writeHeader();
+        while (length > 0) {
+            final int n = matchFinder.write(input, offset, length);
+            offset += n;
+            length -= n;
+            if (matchFinder.isBlockFull()) {
+                writeMetaBlock();
+            }
+        }
+
+        return out.drain();
+    }
+
+    @Override
+    public byte[] finish() {
+        writeHeader();
+        if (matchFinder.getPending() > 0) {
+            writeMetaBlock();
+        }
+
+        // ISLAST, ISLASTEMPTY
+        out.writeBits(3, 2);
+        out.alignToByte();
+        return out.drain();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void writeHeader() {
+        if (headerWritten) {
+            return;
+        }
+
+        headerWritten = true;
+        // WBITS = 17 + 1
+        out.writeBits(1, 1);
+        out.writeBits(WINDOW_BITS - 17, 3);
+    }
+
+    private void writeMetaBlock() {
+        final int length = matchFinder.getPending();
+        final byte[] buffer = matchFinder.getBuffer();
+        final int start = matchFinder.getBlockStart();
+        matchFinder.parseBlock(sequences);
+
+        block.set(out);
+        writeCompressedMetaBlock(block, length);
+
+        // the uncompressed meta-block header takes up to 4 bytes, then the data is byte aligned
+        final long uncompressedBits = 32 + 8 + length * 8L;
+        if (block.bitLength() - out.bitLength() < uncompressedBits) {
+            final BitWriter writer = out;
+            out = block;
+            block = writer;
+            return;
+        }
+
+        writeMetaBlockHeader(out, length);
+        // ISUNCOMPRESSED
+        out.writeBits(1, 1);
+        out.alignToByte();
+        out.writeBytes(buffer, start, length);
+    }
+
+    private static void writeMetaBlockHeader(final BitWriter writer, final int length) {
+        final int nibbles = length - 1 < 1 << 16 ? 4 : length - 1 < 1 << 20 ? 5 : 6;
+        // ISLAST
+        writer.writeBits(0, 1);
+        writer.writeBits(nibbles - 4, 2);
+        writer.writeBits(length - 1, nibbles * 4);
+    }
+
+    private void writeCompressedMetaBlock(final BitWriter writer, final int length) {
+        writeMetaBlockHeader(writer, length);
+        // ISUNCOMPRESSED
+        writer.writeBits(0, 1);
+        // NBLTYPESL, NBLTYPESI, NBLTYPESD are 1
+        writer.writeBits(0, 3);
+        // NPOSTFIX, NDIRECT
+        writer.writeBits(0, 6);
+        // the context mode of the single literal block type
+        writer.writeBits(0, 2);
+        // NTREESL, NTREESD are 1, so there are no context maps
+        writer.writeBits(0, 2);
+
+        final int n = sequences.size();
+        if (commands.length < n + 1) {
+            commands = new int[Math.max(n + 1, commands.length << 1)];
+            distanceCodes = new int[commands.length];
+        }
+
+        literalCode.clear();
+        commandCode.clear();
+        distanceCode.clear();
+
+        final byte[] literals = sequences.getLiterals();
+        for (int i = 0, len = sequences.getLiteralsLength(); i < len; i++) {
+            literalCode.counts[literals[i] & 0xFF]++;
+        }
+
+        for (int i = 0; i < n; i++) {
+            commands[i] = commandSymbol(insertLengthCode(sequences.getLiteralLength(i)), copyLengthCode(sequences.getMatchLength(i)));
+            commandCode.counts[commands[i]]++;
+
+            final int x = sequences.getDistance(i) + 3;
+            final int nbBits = highBit(x) - 1;
+            distanceCodes[i] = 16 + 2 * (nbBits - 1) + (x >>> nbBits & 1);
+            distanceCode.counts[distanceCodes[i]]++;
+        }
+
+        final int lastLiterals = sequences.getLastLiteralsLength();
+        if (lastLiterals > 0) {
+            // the meta-block ends after the literals, so the copy length is not used
+            commands[n] = commandSymbol(insertLengthCode(lastLiterals), 0);
+            commandCode.counts[commands[n]]++;
+        }
+
+        writePrefixCode(writer, literalCode, 8);
+        writePrefixCode(writer, commandCode, 10);
+        writePrefixCode(writer, distanceCode, 6);
+
+        int literal = 0;
+        for (int i = 0; i < n; i++) {
+            final int literalLength = sequences.getLiteralLength(i);
+            final int matchLength = sequences.getMatchLength(i);
+            writeCommand(writer, commands[i], literalLength, matchLength);
+            literal = writeLiterals(writer, literals, literal, literalLength);
+
+            final int code = distanceCodes[i];
+            final int nbBits = 1 + (code - 16 >> 1);
+            final int x = sequences.getDistance(i) + 3;
+            distanceCode.write(writer, code);
+            writer.writeBits(x - ((2 + (code - 16 & 1)) << nbBits), nbBits);
+        }
+
+        if (lastLiterals > 0) {
+            writeCommand(writer, commands[n], lastLiterals, COPY_LENGTH_BASE[0]);
+            writeLiterals(writer, literals, literal, lastLiterals);
+        }
+    }
+
+    private void writeCommand(final BitWriter writer, final int command, final int insertLength, final int copyLength) {
+        commandCode.write(writer, command);
+
+        final int insertCode = insertLengthCode(insertLength);
+        writer.writeBits(insertLength - INSERT_LENGTH_BASE[insertCode], INSERT_LENGTH_BITS[insertCode]);
+        final int copyCode = copyLengthCode(copyLength);
+        writer.writeBits(copyLength - COPY_LENGTH_BASE[copyCode], COPY_LENGTH_BITS[copyCode]);
+    }
+
+    private int writeLiterals(final BitWriter writer, final byte[] literals, final int offset, final int length) {
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            literalCode.write(writer, literals[i] & 0xFF);
+        }
+
+        return end;
+    }
+
+    /**
+     * Writes the prefix code, RFC 7932 section 3.4 and 3.5. The run length codes <tt>16</tt> and <tt>17</tt> are not
+     * used, the trailing zero code lengths are implied.
+     */
+    private void writePrefixCode(final BitWriter writer, final PrefixCode code, final int alphabetBits) {
+        final int used = code.build(MAX_CODE_LENGTH);
+        if (used <= 1) {
+            // the simple prefix code with a single symbol, which takes no bits
+            int symbol = 0;
+            while (symbol < code.alphabetSize && code.counts[symbol] == 0) {
+                symbol++;
+            }
+            if (symbol == code.alphabetSize) {
+                symbol = 0;
+            } else {
+                code.lengths[symbol] = 0;
+            }
+
+            writer.writeBits(1, 2);
+            writer.writeBits(0, 2);
+            writer.writeBits(symbol, alphabetBits);
+            return;
+        }
+
+        int last = code.alphabetSize - 1;
+        while (code.lengths[last] == 0) {
+            last--;
+        }
+
+        final PrefixCode lengthCode = codeLengthCode;
+        lengthCode.clear();
+        for (int i = 0; i <= last; i++) {
+            lengthCode.counts[code.lengths[i]]++;
+        }
+
+        final int lengthCodeUsed = lengthCode.build(5);
+        int stored = CODE_LENGTH_ORDER.length;
+        if (lengthCodeUsed > 1) {
+            while (lengthCode.lengths[CODE_LENGTH_ORDER[stored - 1]] == 0) {
+                stored--;
+            }
+        }
+
+        // HSKIP
+        writer.writeBits(0, 2);
+        for (int i = 0; i < stored; i++) {
+            final int length = lengthCode.lengths[CODE_LENGTH_ORDER[i]];
+            writer.writeBits(CODE_LENGTH_LENGTH_CODES[length], CODE_LENGTH_LENGTH_BITS[length]);
+        }
+
+        if (lengthCodeUsed == 1) {
+            // all the code lengths are the same, the decoder reads them without any bits
+            return;
+        }
+
+        for (int i = 0; i <= last; i++) {
+            lengthCode.write(writer, code.lengths[i]);
+        }
+    }
+
+    private static int commandSymbol(final int insertCode, final int copyCode) {
+        return COMMAND_CELL_BASE[insertCode >>> 3][copyCode >>> 3] + ((insertCode & 7) << 3) + (copyCode & 7);
+    }
+
+    private static int insertLengthCode(final int length) {
+        if (length < 6) {
+            return length;
+        } else if (length < 130) {
+            final int nbBits = highBit(length - 2) - 1;
+            return (nbBits << 1) + (length - 2 >>> nbBits) + 2;
+        } else if (length < 2114) {
+            return highBit(length - 66) + 10;
+        } else if (length < 6210) {
+            return 21;
+        } else if (length < 22594) {
+            return 22;
+        }
+
+        return 23;
+    }
+
+    private static int copyLengthCode(final int length) {
+        if (length < 10) {
+            return length - 2;
+        } else if (length < 134) {
+            final int nbBits = highBit(length - 6) - 1;
+            return (nbBits << 1) + (length - 6 >>> nbBits) + 4;
+        } else if (length < 2118) {
+            return highBit(length - 70) + 12;
+        }
+
+        return 23;
+    }
+
+    private static int highBit(final int value) {
+        return 31 - Integer.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * The canonical prefix code, the codes are kept bit reversed, because the brotli bitstream is written starting from
+     * the least significant bit.
+     */
+    private static final class PrefixCode {
+        final int alphabetSize;
+        final int[] counts;
+        final byte[] lengths;
+        final int[] codes;
+
+        PrefixCode(final int alphabetSize) {
+            this.alphabetSize = alphabetSize;
+            counts = new int[alphabetSize];
+            lengths = new byte[alphabetSize];
+            codes = new int[alphabetSize];
+        }
+
+        void clear() {
+            Arrays.fill(counts, 0);
+        }
+
+        /**
+         * @return the number of the used symbols.
+         */
+        int build(final int maxLength) {
+            final int used = HuffmanLengths.build(counts, alphabetSize, maxLength, lengths);
+
+            final int[] lengthCounts = new int[maxLength + 1];
+            for (int s = 0; s < alphabetSize; s++) {
+                lengthCounts[lengths[s]]++;
+            }
+            lengthCounts[0] = 0;
+
+            final int[] next = new int[maxLength + 1];
+            int code = 0;
+            for (int len = 1; len <= maxLength; len++) {
+                code = code + lengthCounts[len - 1] << 1;
+                next[len] = code;
+            }
+
+            for (int s = 0; s < alphabetSize; s++) {
+                final int len = lengths[s];
+                if (len != 0) {
+                    codes[s] = Integer.reverse(next[len]++) >>> (32 - len);
+                }
+            }
+
+            return used;
+        }
+
+        void write(final BitWriter writer, final int symbol) {
+            writer.writeBits(codes[symbol], lengths[symbol]);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.impl;
+
+import java.util.Arrays;
+
+/**
+ * Writes the bits to a growable byte array, starting from the least significant bit of each byte, which is the bit
+ * order of both the brotli and zstd formats.
+ */
+public final class BitWriter {
+    private byte[] buffer;
+    private int position;
+
+    private long container;
+    private int bitCount;
+
+    public BitWriter(final int initialCapacity) {
+        buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * Writes the <tt>n</tt> (up to 32) low bits of the value.
+     */
+    public void writeBits(final int value, final int n) {
+        container |= (value & ((1L << n) - 1)) << bitCount;
+        bitCount += n;
+        if (bitCount >= 32) {
+            ensureCapacity(4);
+            final long c = container;
+            buffer[position] = (byte) c;
+            buffer[position + 1] = (byte) (c >>> 8);
+            buffer[position + 2] = (byte) (c >>> 16);
+            buffer[position + 3] = (byte) (c >>> 24);
+            position += 4;
+            container = c >>> 32;
+            bitCount -= 32;
+        }
+    }
+
+    /**
+     * Pads the current byte with zero bits.
+     */
+    public void alignToByte() {
+        flushBytes();
+        if (bitCount > 0) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) container;
+            container = 0;
+            bitCount = 0;
+        }
+    }
+
+    /**
+     * Writes the bytes, the writer has to be byte aligned.
+     */
+    public void writeBytes(final byte[] src, final int offset, final int length) {
+        assert (bitCount & 7) == 0;
+        flushBytes();
+        ensureCapacity(length);
+        System.arraycopy(src, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * Terminates the stream, which is read backwards, with the end mark bit and pads the last byte.
+     */
+    public void closeBackwardStream() {
+        writeBits(1, 1);
+        alignToByte();
+    }
+
+    /**
+     * @return the number of the bits written so far.
+     */
+    public long bitLength() {
+        return position * 8L + bitCount;
+    }
+
+    /**
+     * @return the number of the complete bytes written so far.
+     */
+    public int size() {
+        flushBytes();
+        return position;
+    }
+
+    /**
+     * @return the internal array, which holds the {@link #size() complete bytes}.
+     */
+    public byte[] array() {
+        flushBytes();
+        return buffer;
+    }
+
+    /**
+     * Returns the complete bytes and removes them from the writer, the bits of the incomplete byte are kept.
+     */
+    public byte[] drain() {
+        flushBytes();
+        final byte[] result = Arrays.copyOf(buffer, position);
+        position = 0;
+        return result;
+    }
+
+    /**
+     * Copies the pending bits and the written bytes of another writer.
+     */
+    public void set(final BitWriter writer) {
+        position = 0;
+        ensureCapacity(writer.position);
+        System.arraycopy(writer.buffer, 0, buffer, 0, writer.position);
+        position = writer.position;
+        container = writer.container;
+        bitCount = writer.bitCount;
+    }
+
+    public void reset() {
+        position = 0;
+        container = 0;
+        bitCount = 0;
+    }
+
+    private void flushBytes() {
+        while (bitCount >= 8) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) container;
+            container >>>= 8;
+            bitCount -= 8;
+        }
+    }
+
+    private void ensureCapacity(final int length) {
+        if (position + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + length));
+        }
+    }
+}
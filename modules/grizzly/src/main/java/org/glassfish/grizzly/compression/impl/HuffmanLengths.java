@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.impl;
+
+import java.util.Arrays;
+
+/**
+ * Computes the length limited Huffman code lengths.
+ */
+public final class HuffmanLengths {
+
+    private HuffmanLengths() {
+    }
+
+    /**
+     * Computes the Huffman code lengths of the symbols, so no code is longer than <tt>maxBits</tt>. If the optimal code is
+     * too long, the frequencies are scaled down until the code fits, which costs a negligible part of the compression
+     * ratio.
+     *
+     * @param frequencies the symbol frequencies.
+     * @param alphabetSize the number of the symbols.
+     * @param maxBits the maximum code length.
+     * @param lengths the computed code lengths, <tt>0</tt> for the unused symbols. A single used symbol gets the length
+     * <tt>1</tt>.
+     * @return the number of the used symbols.
+     */
+    public static int build(final int[] frequencies, final int alphabetSize, final int maxBits, final byte[] lengths) {
+        Arrays.fill(lengths, 0, alphabetSize, (byte) 0);
+
+        int used = 0;
+        for (int i = 0; i < alphabetSize; i++) {
+            if (frequencies[i] != 0) {
+                used++;
+            }
+        }
+
+        if (used == 0) {
+            return 0;
+        }
+
+        // the leaf is encoded as (frequency << 16 | symbol), so the leaves are sorted by the frequency, then by the symbol
+        final long[] leaves = new long[used];
+        final int[] scaled = new int[alphabetSize];
+        System.arraycopy(frequencies, 0, scaled, 0, alphabetSize);
+
+        // the nodes 0..used-1 are the leaves, used..2*used-2 are the internal nodes
+        final int[] parents = new int[2 * used];
+        final long[] weights = new long[2 * used];
+
+        for (;;) {
+            int n = 0;
+            for (int i = 0; i < alphabetSize; i++) {
+                if (scaled[i] != 0) {
+                    leaves[n++] = (long) scaled[i] << 16 | i;
+                }
+            }
+
+            if (used == 1) {
+                lengths[(int) (leaves[0] & 0xFFFF)] = 1;
+                return 1;
+            }
+
+            Arrays.sort(leaves);
+            for (int i = 0; i < used; i++) {
+                weights[i] = leaves[i] >>> 16;
+            }
+
+            // the two-queue algorithm: the leaves and the internal nodes are both created in the ascending weight order
+            int leaf = 0;
+            int node = used;
+            int next = used;
+            while (next < 2 * used - 1) {
+                final int first = leaf < used && (node >= next || weights[leaf] <= weights[node]) ? leaf++ : node++;
+                final int second = leaf < used && (node >= next || weights[leaf] <= weights[node]) ? leaf++ : node++;
+                weights[next] = weights[first] + weights[second];
+                parents[first] = next;
+                parents[second] = next;
+                next++;
+            }
+
+            // the root has the depth 0, the parents are always created after their children
+            final int root = 2 * used - 2;
+            final int[] depths = new int[2 * used - 1];
+            int maxDepth = 0;
+            for (int i = root - 1; i >= 0; i--) {
+                depths[i] = depths[parents[i]] + 1;
+                if (i < used && depths[i] > maxDepth) {
+                    maxDepth = depths[i];
+                }
+            }
+
+            if (maxDepth <= maxBits) {
+                for (int i = 0; i < used; i++) {
+                    lengths[(int) (leaves[i] & 0xFFFF)] = (byte) depths[i];
+                }
+
+                return used;
+            }
+
+            for (int i = 0; i < alphabetSize; i++) {
+                if (scaled[i] != 0) {
+                    scaled[i] = Math.max(1, scaled[i] >>> 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.impl;
+
+import java.util.Arrays;
+
+/**
+ * The LZ77 match finder, which splits the stream into blocks and parses each block into the {@link Sequences}, the
+ * matches may refer to the previous blocks within the window.
+ * <p>
+ * With the search depth <tt>1</tt> each position is looked up in the hash table only, and the first match is taken.
+ * The bigger search depths follow the hash chains up to the given number of candidates, and the match is deferred by
+ * one byte, if the next position has a longer match.
+ */
+public final class MatchFinder {
+    /**
+     * The minimum length of a match.
+     */
+    public static final int MIN_MATCH = 4;
+
+    private static final int HASH_LOG = 15;
+    private static final int CHAIN_LOG = 15;
+    private static final int CHAIN_MASK = (1 << CHAIN_LOG) - 1;
+
+    // the last bytes of a block are always literals, so the match search can read a few bytes ahead
+    private static final int LAST_LITERALS = 8;
+
+    private final int windowSize;
+    private final int blockSize;
+    private final int searchDepth;
+
+    private final byte[] buffer;
+    private int length;
+    private int blockStart;
+
+    private final int[] head = new int[1 << HASH_LOG];
+    private final int[] chain;
+
+    // the result of the last match search
+    private int matchLength;
+    private int matchPosition;
+
+    /**
+     * @param windowSize the maximum distance of a match.
+     * @param blockSize the maximum size of a block.
+     * @param searchDepth the maximum number of the match candidates checked per position.
+     */
+    public MatchFinder(final int windowSize, final int blockSize, final int searchDepth) {
+        this.windowSize = windowSize;
+        this.blockSize = blockSize;
+        this.searchDepth = Math.max(1, searchDepth);
+
+        buffer = new byte[windowSize + blockSize];
+        chain = this.searchDepth > 1 ? new int[1 << CHAIN_LOG] : null;
+        reset();
+    }
+
+    /**
+     * Appends the input to the current block.
+     *
+     * @return the number of the appended bytes, which is less than <tt>length</tt>, if the block is full.
+     */
+    public int write(final byte[] src, final int offset, final int len) {
+        final int n = Math.min(len, blockSize - (length - blockStart));
+        if (length + n > buffer.length) {
+            slide();
+        }
+
+        System.arraycopy(src, offset, buffer, length, n);
+        length += n;
+        return n;
+    }
+
+    /**
+     * @return the number of the bytes in the current block.
+     */
+    public int getPending() {
+        return length - blockStart;
+    }
+
+    /**
+     * @return <tt>true</tt>, if the current block has reached the maximum block size.
+     */
+    public boolean isBlockFull() {
+        return length - blockStart == blockSize;
+    }
+
+    /**
+     * @return the buffer, which holds the data of the current block, starting at {@link #getBlockStart()}.
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getBlockStart() {
+        return blockStart;
+    }
+
+    /**
+     * Parses the current block, which becomes the part of the window, and starts the next one.
+     */
+    public void parseBlock(final Sequences sequences) {
+        sequences.reset();
+
+        final int end = length;
+        final int limit = end - LAST_LITERALS;
+        final int skipStrength = searchDepth > 1 ? 8 : 6;
+
+        int anchor = blockStart;
+        int ip = blockStart;
+
+        while (ip < limit) {
+            findMatch(ip, end);
+            if (matchLength < MIN_MATCH) {
+                ip += 1 + ((ip - anchor) >> skipStrength);
+                continue;
+            }
+
+            if (searchDepth > 1) {
+                // the lazy evaluation: prefer the longer match at the next position
+                while (ip + 1 < limit) {
+                    final int length = matchLength;
+                    final int position = matchPosition;
+                    findMatch(ip + 1, end);
+                    if (matchLength > length) {
+                        ip++;
+                    } else {
+                        matchLength = length;
+                        matchPosition = position;
+                        break;
+                    }
+                }
+            }
+
+            int matchStart = ip;
+            int position = matchPosition;
+            int len = matchLength;
+            while (matchStart > anchor && position > 0 && buffer[matchStart - 1] == buffer[position - 1]) {
+                matchStart--;
+                position--;
+                len++;
+            }
+
+            sequences.add(buffer, anchor, matchStart - anchor, len, matchStart - position);
+
+            ip = matchStart + len;
+            anchor = ip;
+
+            if (ip < limit) {
+                if (chain != null) {
+                    // index a few positions within the match, so the following data could refer to them
+                    final int last = Math.min(ip, limit);
+                    for (int p = Math.max(matchStart + 1, last - 8); p < last; p++) {
+                        insert(p);
+                    }
+                } else {
+                    insert(ip - 2);
+                }
+            }
+        }
+
+        sequences.addLastLiterals(buffer, anchor, end - anchor);
+        blockStart = end;
+    }
+
+    /**
+     * Discards all the data, so the finder could be reused for a new stream.
+     */
+    public void reset() {
+        length = 0;
+        blockStart = 0;
+        Arrays.fill(head, -1);
+        if (chain != null) {
+            Arrays.fill(chain, -1);
+        }
+    }
+
+    private void findMatch(final int ip, final int end) {
+        matchLength = 0;
+        matchPosition = 0;
+
+        final int h = hash(ip);
+        int candidate = head[h];
+        head[h] = ip;
+        if (chain != null) {
+            chain[ip & CHAIN_MASK] = candidate;
+        }
+
+        final int minPosition = ip - windowSize;
+        final int first = readInt(ip);
+        int depth = searchDepth;
+
+        while (candidate >= 0 && candidate >= minPosition && depth-- > 0) {
+            final int bestEnd = ip + matchLength;
+            if ((bestEnd >= end || buffer[candidate + matchLength] == buffer[bestEnd]) && readInt(candidate) == first) {
+                int len = MIN_MATCH;
+                while (ip + len < end && buffer[candidate + len] == buffer[ip + len]) {
+                    len++;
+                }
+
+                if (len > matchLength) {
+                    matchLength = len;
+                    matchPosition = candidate;
+                }
+            }
+
+            if (chain == null) {
+                break;
+            }
+
+            final int next = chain[candidate & CHAIN_MASK];
+            if (next >= candidate) {
+                // the chain entry has been overwritten by a newer position
+                break;
+            }
+            candidate = next;
+        }
+    }
+
+    private void insert(final int position) {
+        final int h = hash(position);
+        if (chain != null) {
+            chain[position & CHAIN_MASK] = head[h];
+        }
+        head[h] = position;
+    }
+
+    /**
+     * Discards the data beyond the window before the current block.
+     */
+    private void slide() {
+        final int shift = blockStart - Math.min(windowSize, blockStart);
+        System.arraycopy(buffer, shift, buffer, 0, length - shift);
+        length -= shift;
+        blockStart -= shift;
+
+        rebase(head, shift);
+        if (chain != null) {
+            rebase(chain, shift);
+        }
+    }
+
+    private int hash(final int position) {
+        return readInt(position) * 0x9E3779B1 >>> 32 - HASH_LOG;
+    }
+
+    private int readInt(final int position) {
+        final byte[] b = buffer;
+        return b[position] & 0xFF | (b[position + 1] & 0xFF) << 8 | (b[position + 2] & 0xFF) << 16 | b[position + 3] << 24;
+    }
+
+    private static void rebase(final int[] positions, final int shift) {
+        for (int i = 0; i < positions.length; i++) {
+            final int position = positions[i] - shift;
+            positions[i] = position >= 0 ? position : -1;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.impl;
+
+import java.util.Arrays;
+
+/**
+ * The LZ77 parse of a block: the sequences of the literal runs, each followed by a match, and the literal bytes. The
+ * literals after the last match are counted by {@link #getLastLiteralsLength()}.
+ */
+public final class Sequences {
+    private int size;
+    private int[] literalLengths = new int[256];
+    private int[] matchLengths = new int[256];
+    private int[] distances = new int[256];
+
+    private byte[] literals = new byte[1024];
+    private int literalsLength;
+    private int lastLiteralsLength;
+
+    private int blockLength;
+
+    /**
+     * @return the number of the sequences.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getLiteralLength(final int index) {
+        return literalLengths[index];
+    }
+
+    public int getMatchLength(final int index) {
+        return matchLengths[index];
+    }
+
+    public int getDistance(final int index) {
+        return distances[index];
+    }
+
+    /**
+     * @return the literal bytes of all the sequences and the last literals.
+     */
+    public byte[] getLiterals() {
+        return literals;
+    }
+
+    /**
+     * @return the number of the {@link #getLiterals() literal bytes}.
+     */
+    public int getLiteralsLength() {
+        return literalsLength;
+    }
+
+    /**
+     * @return the number of the literals after the last sequence.
+     */
+    public int getLastLiteralsLength() {
+        return lastLiteralsLength;
+    }
+
+    /**
+     * @return the number of bytes the sequences decode to.
+     */
+    public int getBlockLength() {
+        return blockLength;
+    }
+
+    void reset() {
+        size = 0;
+        literalsLength = 0;
+        lastLiteralsLength = 0;
+        blockLength = 0;
+    }
+
+    void add(final byte[] buffer, final int literalsStart, final int literalLength, final int matchLength, final int distance) {
+        if (size == literalLengths.length) {
+            final int capacity = size << 1;
+            literalLengths = Arrays.copyOf(literalLengths, capacity);
+            matchLengths = Arrays.copyOf(matchLengths, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+        }
+
+        literalLengths[size] = literalLength;
+        matchLengths[size] = matchLength;
+        distances[size] = distance;
+        size++;
+
+        addLiterals(buffer, literalsStart, literalLength);
+        blockLength += literalLength + matchLength;
+    }
+
+    void addLastLiterals(final byte[] buffer, final int literalsStart, final int literalLength) {
+        addLiterals(buffer, literalsStart, literalLength);
+        lastLiteralsLength = literalLength;
+        blockLength += literalLength;
+    }
+
+    private void addLiterals(final byte[] buffer, final int start, final int length) {
+        if (literalsLength + length > literals.length) {
+            literals = Arrays.copyOf(literals, Math.max(literals.length << 1, literalsLength + length));
+        }
+
+        System.arraycopy(buffer, start, literals, literalsLength, length);
+        literalsLength += length;
+    }
+}
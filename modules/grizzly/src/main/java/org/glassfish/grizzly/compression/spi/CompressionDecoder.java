@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.spi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.glassfish.grizzly.AbstractTransformer;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.TransformationException;
+import org.glassfish.grizzly.TransformationResult;
+import org.glassfish.grizzly.attributes.AttributeStorage;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.ByteBufferArray;
+import org.glassfish.grizzly.memory.MemoryManager;
+
+/**
+ * The {@link org.glassfish.grizzly.Transformer}, which decompresses the data with the {@link Decompressor} of the
+ * {@link CompressionProvider} registered for the encoding, see {@link CompressionProviders}.
+ */
+public class CompressionDecoder extends AbstractTransformer<Buffer, Buffer> {
+    private final CompressionProvider provider;
+    private final boolean supported;
+
+    /**
+     * @param encoding the encoding name, for example <tt>zstd</tt>.
+     * @throws IllegalArgumentException if there is no provider for the encoding.
+     */
+    public CompressionDecoder(final String encoding) {
+        provider = CompressionProviders.get(encoding);
+        if (provider == null) {
+            throw new IllegalArgumentException("Unsupported encoding: " + encoding);
+        }
+
+        final Decompressor decompressor = provider.createDecompressor();
+        supported = decompressor != null;
+        if (supported) {
+            decompressor.close();
+        }
+    }
+
+    /**
+     * @return <tt>true</tt>, if the provider of the encoding is able to decompress.
+     */
+    public boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return provider.getEncoding() + "-decoder";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasInputRemaining(final AttributeStorage storage, final Buffer input) {
+        return input.hasRemaining();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DecompressorState createStateObject() {
+        return new DecompressorState();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected TransformationResult<Buffer, Buffer> transformImpl(final AttributeStorage storage, final Buffer input) throws TransformationException {
+        final MemoryManager memoryManager = obtainMemoryManager(storage);
+        final DecompressorState state = (DecompressorState) obtainStateObject(storage);
+
+        if (state.decompressor == null) {
+            state.decompressor = provider.createDecompressor();
+            if (state.decompressor == null) {
+                throw new TransformationException("Decompression is not supported: " + provider.getEncoding());
+            }
+        }
+
+        Buffer decodedBuffer = null;
+        if (input.hasRemaining()) {
+            final ByteBufferArray byteBufferArray = input.toByteBufferArray();
+            final ByteBuffer[] buffers = byteBufferArray.getArray();
+            final int size = byteBufferArray.size();
+
+            try {
+                for (int i = 0; i < size; i++) {
+                    final ByteBuffer byteBuffer = buffers[i];
+                    final int len = byteBuffer.remaining();
+                    if (len > 0) {
+                        final byte[] decompressed;
+                        if (byteBuffer.hasArray()) {
+                            decompressed = state.decompressor.decompress(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), len);
+                        } else {
+                            final byte[] buf = new byte[len];
+                            byteBuffer.get(buf);
+                            byteBuffer.position(byteBuffer.position() - len);
+                            decompressed = state.decompressor.decompress(buf, 0, len);
+                        }
+
+                        if (decompressed.length > 0) {
+                            decodedBuffer = Buffers.appendBuffers(memoryManager, decodedBuffer, Buffers.wrap(memoryManager, decompressed));
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new TransformationException(e);
+            } finally {
+                byteBufferArray.restore();
+                byteBufferArray.recycle();
+            }
+
+            input.position(input.limit());
+
+            if (state.decompressor.isFinished()) {
+                finish(storage);
+            }
+        }
+
+        if (decodedBuffer == null) {
+            return TransformationResult.createIncompletedResult(null);
+        }
+
+        return TransformationResult.createCompletedResult(decodedBuffer, null);
+    }
+
+    /**
+     * Releases the decompressor of the stream.
+     */
+    public void finish(final AttributeStorage storage) {
+        final DecompressorState state = (DecompressorState) obtainStateObject(storage);
+        if (state.decompressor != null) {
+            state.decompressor.close();
+            state.decompressor = null;
+        }
+    }
+
+    protected static final class DecompressorState extends LastResultAwareState<Buffer, Buffer> {
+        private Decompressor decompressor;
+    }
+}
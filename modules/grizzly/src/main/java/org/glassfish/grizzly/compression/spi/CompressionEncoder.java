@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.spi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.glassfish.grizzly.AbstractTransformer;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.TransformationException;
+import org.glassfish.grizzly.TransformationResult;
+import org.glassfish.grizzly.attributes.AttributeStorage;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.ByteBufferArray;
+import org.glassfish.grizzly.memory.MemoryManager;
+
+/**
+ * The {@link org.glassfish.grizzly.Transformer}, which compresses the data with the {@link Compressor} of the
+ * {@link CompressionProvider} registered for the encoding, see {@link CompressionProviders}.
+ */
+public class CompressionEncoder extends AbstractTransformer<Buffer, Buffer> {
+    private final CompressionProvider provider;
+    private final int level;
+
+    /**
+     * @param encoding the encoding name, for example <tt>br</tt>.
+     * @param level the format specific compression level, or <tt>-1</tt> for the default level.
+     * @throws IllegalArgumentException if there is no provider for the encoding.
+     */
+    public CompressionEncoder(final String encoding, final int level) {
+        provider = CompressionProviders.get(encoding);
+        if (provider == null) {
+            throw new IllegalArgumentException("Unsupported encoding: " + encoding);
+        }
+
+        this.level = level;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return provider.getEncoding() + "-encoder";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasInputRemaining(final AttributeStorage storage, final Buffer input) {
+        return input.hasRemaining();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected CompressorState createStateObject() {
+        return new CompressorState();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected TransformationResult<Buffer, Buffer> transformImpl(final AttributeStorage storage, final Buffer input) throws TransformationException {
+        final MemoryManager memoryManager = obtainMemoryManager(storage);
+        final CompressorState state = (CompressorState) obtainStateObject(storage);
+
+        if (state.compressor == null) {
+            state.compressor = provider.createCompressor(level);
+        }
+
+        Buffer encodedBuffer = null;
+        if (input != null && input.hasRemaining()) {
+            final ByteBufferArray byteBufferArray = input.toByteBufferArray();
+            final ByteBuffer[] buffers = byteBufferArray.getArray();
+            final int size = byteBufferArray.size();
+
+            try {
+                for (int i = 0; i < size; i++) {
+                    final ByteBuffer byteBuffer = buffers[i];
+                    final int len = byteBuffer.remaining();
+                    if (len > 0) {
+                        final byte[] compressed;
+                        if (byteBuffer.hasArray()) {
+                            compressed = state.compressor.compress(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), len);
+                        } else {
+                            final byte[] buf = new byte[len];
+                            byteBuffer.get(buf);
+                            byteBuffer.position(byteBuffer.position() - len);
+                            compressed = state.compressor.compress(buf, 0, len);
+                        }
+
+                        encodedBuffer = append(memoryManager, encodedBuffer, compressed);
+                    }
+                }
+            } catch (IOException e) {
+                throw new TransformationException(e);
+            } finally {
+                byteBufferArray.restore();
+                byteBufferArray.recycle();
+            }
+
+            input.position(input.limit());
+        }
+
+        if (encodedBuffer == null) {
+            return TransformationResult.createIncompletedResult(null);
+        }
+
+        return TransformationResult.createCompletedResult(encodedBuffer, null);
+    }
+
+    /**
+     * @return <tt>true</tt>, if some data of the stream associated with the storage has been compressed, but the stream
+     * has not been {@link #finish(AttributeStorage) finished} yet.
+     */
+    public boolean isStarted(final AttributeStorage storage) {
+        final CompressorState state = (CompressorState) stateAttr.get(storage);
+        return state != null && state.compressor != null;
+    }
+
+    /**
+     * Terminates the compressed stream.
+     *
+     * @return {@link Buffer} with the last compressed data to be sent.
+     */
+    public Buffer finish(final AttributeStorage storage) {
+        final MemoryManager memoryManager = obtainMemoryManager(storage);
+        final CompressorState state = (CompressorState) obtainStateObject(storage);
+
+        final Compressor compressor = state.compressor;
+        if (compressor == null) {
+            return null;
+        }
+
+        state.compressor = null;
+        try {
+            return append(memoryManager, null, compressor.finish());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            compressor.close();
+        }
+    }
+
+    private static Buffer append(final MemoryManager memoryManager, final Buffer buffer, final byte[] data) {
+        if (data == null || data.length == 0) {
+            return buffer;
+        }
+
+        return Buffers.appendBuffers(memoryManager, buffer, Buffers.wrap(memoryManager, data));
+    }
+
+    protected static final class CompressorState extends LastResultAwareState<Buffer, Buffer> {
+        private Compressor compressor;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.spi;
+
+/**
+ * The provider of the {@link Compressor}s and {@link Decompressor}s of a compression format, for example a binding to
+ * a native compression library.
+ * <p>
+ * The providers are registered in the <tt>META-INF/services/org.glassfish.grizzly.compression.spi.CompressionProvider</tt>
+ * file, and Grizzly uses the provider with the highest {@link #getPriority() priority} for each encoding, see
+ * {@link CompressionProviders}. The built-in pure Java providers have the priority <tt>0</tt>.
+ */
+public interface CompressionProvider {
+
+    /**
+     * @return the name of the compression format, which is the HTTP content-encoding name, for example <tt>br</tt>.
+     */
+    String getEncoding();
+
+    /**
+     * @return the priority of the provider, the provider with the highest priority is used.
+     */
+    int getPriority();
+
+    /**
+     * Creates the {@link Compressor}.
+     *
+     * @param level the format specific compression level, or <tt>-1</tt> for the default level.
+     */
+    Compressor createCompressor(int level);
+
+    /**
+     * Creates the {@link Decompressor}.
+     *
+     * @return the {@link Decompressor}, or <tt>null</tt> if the provider can't decompress.
+     */
+    Decompressor createDecompressor();
+}
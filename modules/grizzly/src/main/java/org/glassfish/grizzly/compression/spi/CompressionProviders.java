@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.spi;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.compression.brotli.BrotliCompressionProvider;
+import org.glassfish.grizzly.compression.zstd.ZstdCompressionProvider;
+import org.glassfish.grizzly.utils.ServiceFinder;
+
+/**
+ * The registry of the {@link CompressionProvider}s: the built-in pure Java providers and the providers found by the
+ * {@link ServiceFinder}. The providers are looked up once, when the class is initialized.
+ */
+public final class CompressionProviders {
+    private static final Logger LOGGER = Grizzly.logger(CompressionProviders.class);
+
+    private static final Map<String, CompressionProvider> PROVIDERS = load();
+
+    private CompressionProviders() {
+    }
+
+    /**
+     * Returns the {@link CompressionProvider} with the highest priority for the encoding.
+     *
+     * @param encoding the encoding name, for example <tt>br</tt>.
+     * @return the {@link CompressionProvider}, or <tt>null</tt> if the encoding is not supported.
+     */
+    public static CompressionProvider get(final String encoding) {
+        return PROVIDERS.get(encoding);
+    }
+
+    private static Map<String, CompressionProvider> load() {
+        final Map<String, CompressionProvider> providers = new HashMap<>();
+        register(providers, new BrotliCompressionProvider());
+        register(providers, new ZstdCompressionProvider());
+
+        try {
+            final Iterator<CompressionProvider> it = ServiceFinder.find(CompressionProvider.class).iterator();
+            while (it.hasNext()) {
+                try {
+                    register(providers, it.next());
+                } catch (Throwable t) {
+                    // the provider is not usable, for example its native library is missing
+                    LOGGER.log(Level.WARNING, "Unable to load the compression provider", t);
+                }
+            }
+        } catch (Throwable t) {
+            LOGGER.log(Level.WARNING, "Unable to look up the compression providers", t);
+        }
+
+        return providers;
+    }
+
+    private static void register(final Map<String, CompressionProvider> providers, final CompressionProvider provider) {
+        final CompressionProvider current = providers.get(provider.getEncoding());
+        if (current == null || provider.getPriority() > current.getPriority()) {
+            providers.put(provider.getEncoding(), provider);
+
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Using {0} for the {1} encoding", new Object[] { provider.getClass().getName(), provider.getEncoding() });
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.spi;
+
+import java.io.IOException;
+
+/**
+ * The streaming compressor, which produces a single compressed stream. The instances are not thread safe.
+ */
+public interface Compressor {
+
+    /**
+     * Compresses the input.
+     *
+     * @return the compressed data available so far, which might be empty, if the compressor keeps buffering the input.
+     */
+    byte[] compress(byte[] input, int offset, int length) throws IOException;
+
+    /**
+     * Compresses the buffered input and terminates the stream.
+     *
+     * @return the rest of the compressed stream.
+     */
+    byte[] finish() throws IOException;
+
+    /**
+     * Releases the compressor resources, the compressor must not be used afterwards.
+     */
+    void close();
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.spi;
+
+import java.io.IOException;
+
+/**
+ * The streaming decompressor of a compressed stream. The instances are not thread safe.
+ */
+public interface Decompressor {
+
+    /**
+     * Decompresses the next part of the compressed stream.
+     *
+     * @return the decompressed data available so far, which might be empty, if the decompressor needs more input.
+     * @throws IOException if the stream is corrupted.
+     */
+    byte[] decompress(byte[] input, int offset, int length) throws IOException;
+
+    /**
+     * @return <tt>true</tt>, if the end of the compressed stream has been reached.
+     */
+    boolean isFinished();
+
+    /**
+     * Releases the decompressor resources, the decompressor must not be used afterwards.
+     */
+    void close();
+}
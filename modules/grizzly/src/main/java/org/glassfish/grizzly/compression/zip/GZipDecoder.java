@@ -109,6 +109,10 @@ public class GZipDecoder extends AbstractTransformer<Buffer, Buffer> {
             if (decodeTrailer(input, state)) {
                 state.setDecodeStatus(DecodeStatus.DONE);
                 state.setInitialized(false);
+
+                // the member is complete, let other streams reuse the inflater
+                ZlibPool.getDefault().releaseInflater(state.getInflater());
+                state.setInflater(null);
             }
         }
 
@@ -202,16 +206,15 @@ public class GZipDecoder extends AbstractTransformer<Buffer, Buffer> {
 
     private boolean initializeInput(final Buffer buffer, final GZipInputState state) {
 
-        Inflater inflater = state.getInflater();
-        if (inflater == null) {
-            inflater = new Inflater(true);
-            final CRC32 crc32 = new CRC32();
-            crc32.reset();
-            state.setInflater(inflater);
-            state.setCrc32(crc32);
-        } else if (state.getDecodeStatus() == DecodeStatus.DONE) {
+        if (state.getInflater() == null) {
+            state.setInflater(ZlibPool.getDefault().acquireInflater());
+            if (state.getCrc32() == null) {
+                state.setCrc32(new CRC32());
+            }
+        }
+
+        if (state.getDecodeStatus() == DecodeStatus.DONE) {
             state.setDecodeStatus(DecodeStatus.INITIAL);
-            inflater.reset();
             state.getCrc32().reset();
         }
         if (!parseHeader(buffer, state)) {
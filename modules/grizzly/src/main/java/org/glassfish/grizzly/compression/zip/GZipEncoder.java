@@ -17,6 +17,7 @@
 package org.glassfish.grizzly.compression.zip;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.CRC32;
 import java.util.zip.Deflater;
 
@@ -31,10 +32,26 @@ import org.glassfish.grizzly.memory.MemoryManager;
 
 /**
  * This class implements a {@link org.glassfish.grizzly.Transformer} which encodes plain data to the GZIP format.
+ * <p>
+ * Optionally the large streams could be compressed in parallel: once the stream exceeds the parallel compression
+ * threshold, the rest of the data is split into blocks, which are compressed independently on the
+ * {@link ForkJoinPool#commonPool() common fork-join pool} and emitted in order, so the result is still a single valid
+ * GZIP member.
  *
  * @author Alexey Stashok
  */
 public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
+    /**
+     * The default size of the blocks, which are compressed in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_BLOCK_SIZE = 128 * 1024;
+
+    /**
+     * The minimum size of the blocks, which are compressed in parallel, so each block fills the deflate dictionary of
+     * the next one.
+     */
+    public static final int MIN_PARALLEL_BLOCK_SIZE = 32 * 1024;
+
     private static final int GZIP_MAGIC = 0x8b1f;
 
     /*
@@ -44,6 +61,9 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
 
     private final int bufferSize;
 
+    private final long parallelThreshold;
+    private final int parallelBlockSize;
+
     private static final Buffer header;
 
     static {
@@ -67,7 +87,25 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
     }
 
     public GZipEncoder(int bufferSize) {
+        this(bufferSize, -1, DEFAULT_PARALLEL_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs the <tt>GZipEncoder</tt>, which compresses the large streams in parallel.
+     *
+     * @param bufferSize the size of the buffers the compressed data is written to.
+     * @param parallelThreshold the number of bytes of the stream, after which the rest of the stream is compressed in
+     * parallel, or <tt>-1</tt> to always compress on the calling thread.
+     * @param parallelBlockSize the size of the blocks, which are compressed in parallel, must be at least 32K.
+     */
+    public GZipEncoder(int bufferSize, long parallelThreshold, int parallelBlockSize) {
+        if (parallelThreshold >= 0 && parallelBlockSize < MIN_PARALLEL_BLOCK_SIZE) {
+            throw new IllegalArgumentException("The parallel block size must be at least 32K");
+        }
+
         this.bufferSize = bufferSize;
+        this.parallelThreshold = parallelThreshold;
+        this.parallelBlockSize = parallelBlockSize;
     }
 
     /**
@@ -126,6 +164,15 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
         return TransformationResult.createCompletedResult(encodedBuffer, null);
     }
 
+    /**
+     * @return <tt>true</tt>, if some data of the stream associated with the storage has been compressed, but the stream
+     * has not been {@link #finish(AttributeStorage) finished} yet.
+     */
+    public boolean isStarted(AttributeStorage storage) {
+        final GZipOutputState state = (GZipOutputState) stateAttr.get(storage);
+        return state != null && state.isInitialized;
+    }
+
     /**
      * Finishes to compress data to the output stream without closing the underlying stream. Use this method when applying
      * multiple filters in succession to the same output stream.
@@ -141,10 +188,14 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
         if (state.isInitialized) {
             final Deflater deflater = state.deflater;
             if (!deflater.finished()) {
-                deflater.finish();
+                if (state.parallelDeflater != null) {
+                    resultBuffer = state.parallelDeflater.finish(memoryManager);
+                } else {
+                    deflater.finish();
 
-                while (!deflater.finished()) {
-                    resultBuffer = Buffers.appendBuffers(memoryManager, resultBuffer, deflate(deflater, memoryManager));
+                    while (!deflater.finished()) {
+                        resultBuffer = Buffers.appendBuffers(memoryManager, resultBuffer, deflate(deflater, memoryManager));
+                    }
                 }
 
                 // Put GZIP header if needed
@@ -158,7 +209,7 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
                 final Buffer trailer = memoryManager.allocate(TRAILER_SIZE);
                 final CRC32 crc32 = state.crc32;
                 putUInt(trailer, (int) crc32.getValue());
-                putUInt(trailer, deflater.getTotalIn());
+                putUInt(trailer, (int) state.totalIn);
                 trailer.flip();
 
                 resultBuffer = Buffers.appendBuffers(memoryManager, resultBuffer, trailer);
@@ -188,6 +239,14 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
         // excess copying in deflateBytes (see Deflater.c)
         int stride = bufferSize;
         Buffer resultBuffer = null;
+
+        if (state.parallelDeflater == null && parallelThreshold >= 0 && state.totalIn + buffer.remaining() > parallelThreshold) {
+            // the serially compressed part of the stream has to be byte aligned to be followed by the parallel blocks
+            resultBuffer = syncFlush(deflater, memoryManager);
+            state.parallelDeflater = new ParallelDeflater(ForkJoinPool.commonPool(), Deflater.DEFAULT_COMPRESSION, parallelBlockSize,
+                    ForkJoinPool.getCommonPoolParallelism() * 2);
+        }
+
         final ByteBufferArray byteBufferArray = buffer.toByteBufferArray();
         final ByteBuffer[] buffers = byteBufferArray.getArray();
         final int size = byteBufferArray.size();
@@ -209,17 +268,25 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
                     byteBuffer.position(byteBuffer.position() - len);
                 }
 
-                for (int j = 0; j < len; j += stride) {
-                    deflater.setInput(buf, off + j, Math.min(stride, len - j));
-                    while (!deflater.needsInput()) {
-                        final Buffer deflated = deflate(deflater, memoryManager);
-                        if (deflated != null) {
-                            resultBuffer = Buffers.appendBuffers(memoryManager, resultBuffer, deflated);
+                if (state.parallelDeflater != null) {
+                    final Buffer deflated = state.parallelDeflater.write(buf, off, len, memoryManager);
+                    if (deflated != null) {
+                        resultBuffer = Buffers.appendBuffers(memoryManager, resultBuffer, deflated);
+                    }
+                } else {
+                    for (int j = 0; j < len; j += stride) {
+                        deflater.setInput(buf, off + j, Math.min(stride, len - j));
+                        while (!deflater.needsInput()) {
+                            final Buffer deflated = deflate(deflater, memoryManager);
+                            if (deflated != null) {
+                                resultBuffer = Buffers.appendBuffers(memoryManager, resultBuffer, deflated);
+                            }
                         }
                     }
                 }
 
                 crc32.update(buf, off, len);
+                state.totalIn += len;
             }
         }
 
@@ -235,12 +302,30 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
      * Writes next block of compressed data to the output stream.
      */
     protected Buffer deflate(Deflater deflater, MemoryManager memoryManager) {
+        return deflate(deflater, memoryManager, Deflater.NO_FLUSH);
+    }
+
+    /**
+     * Flushes all the pending compressed data, so the output ends at a byte boundary.
+     */
+    private Buffer syncFlush(final Deflater deflater, final MemoryManager memoryManager) {
+        Buffer resultBuffer = null;
+        Buffer deflated;
+        do {
+            deflated = deflate(deflater, memoryManager, Deflater.SYNC_FLUSH);
+            resultBuffer = Buffers.appendBuffers(memoryManager, resultBuffer, deflated);
+        } while (deflated != null && deflated.remaining() == bufferSize);
+
+        return resultBuffer;
+    }
+
+    private Buffer deflate(final Deflater deflater, final MemoryManager memoryManager, final int flush) {
         final Buffer buffer = memoryManager.allocate(bufferSize);
         final ByteBuffer byteBuffer = buffer.toByteBuffer();
         final byte[] array = byteBuffer.array();
         final int offset = byteBuffer.arrayOffset() + byteBuffer.position();
 
-        int len = deflater.deflate(array, offset, bufferSize);
+        int len = deflater.deflate(array, offset, bufferSize, flush);
         if (len <= 0) {
             buffer.dispose();
             return null;
@@ -282,8 +367,18 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
          */
         private Deflater deflater;
 
+        /**
+         * The number of uncompressed bytes.
+         */
+        private long totalIn;
+
+        /**
+         * Compressor of the part of this stream beyond the parallel compression threshold.
+         */
+        private ParallelDeflater parallelDeflater;
+
         private void initialize() {
-            final Deflater newDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            final Deflater newDeflater = ZlibPool.getDefault().acquireDeflater(Deflater.DEFAULT_COMPRESSION);
             final CRC32 newCrc32 = new CRC32();
             newCrc32.reset();
             deflater = newDeflater;
@@ -294,9 +389,12 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
         private void reset() {
             isInitialized = false;
             isHeaderWritten = false;
-            deflater.end(); // ensure we don't leak memory in native compression library
+            // let other streams reuse the native compression library state
+            ZlibPool.getDefault().releaseDeflater(Deflater.DEFAULT_COMPRESSION, deflater);
             crc32 = null;
             deflater = null;
+            totalIn = 0;
+            parallelDeflater = null;
         }
     }
 }
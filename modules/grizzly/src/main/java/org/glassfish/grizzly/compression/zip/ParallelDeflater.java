@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.zip;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.Deflater;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+
+/**
+ * Produces a raw deflate stream, compressing the input in fixed size blocks in parallel, the same way pigz does.
+ * <p>
+ * Each block is compressed by a {@link Deflater} from the {@link ZlibPool}, primed with the last 32K of the previous
+ * block as the dictionary, so the compression ratio is close to the one of a single {@link Deflater}. The blocks,
+ * except the last one, are terminated with a sync flush, so they are byte aligned and their concatenation is a valid
+ * deflate stream. The compressed blocks are returned in order: the blocks, which are not compressed yet, are kept
+ * pending until the number of pending blocks reaches the limit, then the caller waits for the oldest one.
+ */
+final class ParallelDeflater {
+    // the deflate window size
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private final Executor executor;
+    private final int level;
+    private final int blockSize;
+    private final int maxPendingBlocks;
+
+    private final ArrayDeque<FutureTask<CompressedBlock>> pendingBlocks = new ArrayDeque<>();
+
+    // the block being filled
+    private byte[] block;
+    private int blockLength;
+
+    // the previous block, whose tail is the dictionary of the next one
+    private byte[] previousBlock;
+
+    ParallelDeflater(final Executor executor, final int level, final int blockSize, final int maxPendingBlocks) {
+        this.executor = executor;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.maxPendingBlocks = maxPendingBlocks;
+    }
+
+    /**
+     * Adds the input to the stream.
+     *
+     * @return the compressed data available so far, or <tt>null</tt>.
+     */
+    Buffer write(final byte[] input, int offset, int length, final MemoryManager memoryManager) {
+        while (length > 0) {
+            if (block == null) {
+                block = new byte[blockSize];
+            }
+
+            final int chunk = Math.min(length, blockSize - blockLength);
+            System.arraycopy(input, offset, block, blockLength, chunk);
+            blockLength += chunk;
+            offset += chunk;
+            length -= chunk;
+
+            if (blockLength == blockSize) {
+                submitBlock(false);
+            }
+        }
+
+        return collect(memoryManager, false);
+    }
+
+    /**
+     * Compresses the remaining input and terminates the stream.
+     *
+     * @return the rest of the compressed stream.
+     */
+    Buffer finish(final MemoryManager memoryManager) {
+        submitBlock(true);
+        return collect(memoryManager, true);
+    }
+
+    private void submitBlock(final boolean isLast) {
+        final byte[] input = block != null ? block : new byte[0];
+        final int inputLength = blockLength;
+        final byte[] dictionary = previousBlock;
+
+        final FutureTask<CompressedBlock> task = new FutureTask<>(new Callable<CompressedBlock>() {
+            @Override
+            public CompressedBlock call() {
+                return compress(input, inputLength, dictionary, isLast);
+            }
+        });
+
+        pendingBlocks.add(task);
+        executor.execute(task);
+
+        previousBlock = inputLength == blockSize ? input : null;
+        block = null;
+        blockLength = 0;
+    }
+
+    /**
+     * Returns the compressed blocks in order, waiting for them if there are too many pending or all of them are
+     * requested.
+     */
+    private Buffer collect(final MemoryManager memoryManager, final boolean waitAll) {
+        Buffer result = null;
+
+        FutureTask<CompressedBlock> head;
+        while ((head = pendingBlocks.peek()) != null && (waitAll || head.isDone() || pendingBlocks.size() > maxPendingBlocks)) {
+            pendingBlocks.poll();
+
+            final CompressedBlock compressed = await(head);
+            if (compressed.length > 0) {
+                result = Buffers.appendBuffers(memoryManager, result, Buffers.wrap(memoryManager, compressed.data, 0, compressed.length));
+            }
+        }
+
+        return result;
+    }
+
+    private CompressedBlock compress(final byte[] input, final int inputLength, final byte[] dictionary, final boolean isLast) {
+        final Deflater deflater = ZlibPool.getDefault().acquireDeflater(level);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary, dictionary.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+            }
+
+            deflater.setInput(input, 0, inputLength);
+            if (isLast) {
+                deflater.finish();
+            }
+
+            byte[] output = new byte[(inputLength >> 1) + 64];
+            int outputLength = 0;
+            for (;;) {
+                if (outputLength == output.length) {
+                    output = Arrays.copyOf(output, output.length << 1);
+                }
+
+                final int space = output.length - outputLength;
+                final int deflated = isLast ? deflater.deflate(output, outputLength, space) : deflater.deflate(output, outputLength, space, Deflater.SYNC_FLUSH);
+                outputLength += deflated;
+
+                // the sync flush is complete once the output buffer is not filled up
+                if (isLast ? deflater.finished() : deflated < space) {
+                    break;
+                }
+            }
+
+            return new CompressedBlock(output, outputLength);
+        } finally {
+            ZlibPool.getDefault().releaseDeflater(level, deflater);
+        }
+    }
+
+    private static CompressedBlock await(final FutureTask<CompressedBlock> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the compressed block", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Block compression failed", e.getCause());
+        }
+    }
+
+    private static final class CompressedBlock {
+        private final byte[] data;
+        private final int length;
+
+        private CompressedBlock(final byte[] data, final int length) {
+            this.data = data;
+            this.length = length;
+        }
+    }
+}
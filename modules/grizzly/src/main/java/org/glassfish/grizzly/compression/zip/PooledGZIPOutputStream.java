@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.zip;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * The {@link java.util.zip.GZIPOutputStream} equivalent, which borrows its {@link Deflater} from the
+ * {@link ZlibPool} and returns it, when the stream is closed.
+ */
+public class PooledGZIPOutputStream extends DeflaterOutputStream {
+    private static final byte[] HEADER = { (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    private final ZlibPool pool;
+    private final int level;
+    private final CRC32 crc = new CRC32();
+
+    private boolean isFinished;
+    private boolean isClosed;
+
+    public PooledGZIPOutputStream(final OutputStream out) throws IOException {
+        this(out, ZlibPool.getDefault(), Deflater.DEFAULT_COMPRESSION, 512);
+    }
+
+    public PooledGZIPOutputStream(final OutputStream out, final ZlibPool pool, final int level, final int bufferSize) throws IOException {
+        super(out, pool.acquireDeflater(level), bufferSize);
+        this.pool = pool;
+        this.level = level;
+
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(final byte[] buf, final int off, final int len) throws IOException {
+        super.write(buf, off, len);
+        crc.update(buf, off, len);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (isFinished) {
+            return;
+        }
+
+        super.finish();
+
+        final long size = def.getBytesRead();
+        final byte[] trailer = new byte[8];
+        putInt(trailer, 0, (int) crc.getValue());
+        putInt(trailer, 4, (int) size);
+        out.write(trailer);
+
+        isFinished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (isClosed) {
+            return;
+        }
+
+        isClosed = true;
+        try {
+            finish();
+        } finally {
+            try {
+                out.close();
+            } finally {
+                pool.releaseDeflater(level, def);
+            }
+        }
+    }
+
+    private static void putInt(final byte[] buf, final int offset, final int value) {
+        buf[offset] = (byte) value;
+        buf[offset + 1] = (byte) (value >> 8);
+        buf[offset + 2] = (byte) (value >> 16);
+        buf[offset + 3] = (byte) (value >> 24);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.zip;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The bounded pool of the raw (<tt>nowrap</tt>) {@link Deflater}s and {@link Inflater}s.
+ * <p>
+ * Each {@link Deflater} and {@link Inflater} holds native zlib state, which is relatively expensive to allocate and is
+ * freed only when <tt>end()</tt> is called or the object is finalized. Instead of allocating new instances for each
+ * compressed stream, the streams borrow the instances from the pool and return them, once the stream is complete. The
+ * returned instances are reset and kept for the reuse, unless the pool is full, in which case they are ended right away.
+ * The {@link Deflater}s are pooled per compression level.
+ * <p>
+ * The instances, which are not returned (for example the stream was abandoned because the connection was closed), are
+ * just garbage collected as usual.
+ */
+public final class ZlibPool {
+    /**
+     * The default maximum number of the pooled {@link Inflater}s and the pooled {@link Deflater}s per compression level.
+     */
+    public static final int DEFAULT_MAX_POOLED = Integer.getInteger(ZlibPool.class.getName() + ".max-pooled", 32);
+
+    private static final ZlibPool DEFAULT = new ZlibPool(DEFAULT_MAX_POOLED);
+
+    // Deflater.DEFAULT_COMPRESSION (-1) .. Deflater.BEST_COMPRESSION (9)
+    private static final int LEVELS = Deflater.BEST_COMPRESSION + 2;
+
+    private final ArrayBlockingQueue<Deflater>[] deflaters;
+    private final ArrayBlockingQueue<Inflater> inflaters;
+
+    private final AtomicLong deflatersCreated = new AtomicLong();
+    private final AtomicLong deflatersReused = new AtomicLong();
+    private final AtomicLong deflatersDiscarded = new AtomicLong();
+    private final AtomicLong inflatersCreated = new AtomicLong();
+    private final AtomicLong inflatersReused = new AtomicLong();
+    private final AtomicLong inflatersDiscarded = new AtomicLong();
+
+    /**
+     * @return the pool shared by the Grizzly compression {@link org.glassfish.grizzly.Transformer}s.
+     */
+    public static ZlibPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Constructs the pool.
+     *
+     * @param maxPooled the maximum number of the pooled {@link Inflater}s and the pooled {@link Deflater}s per
+     * compression level.
+     */
+    @SuppressWarnings("unchecked")
+    public ZlibPool(final int maxPooled) {
+        if (maxPooled <= 0) {
+            throw new IllegalArgumentException("maxPooled has to be positive");
+        }
+
+        deflaters = new ArrayBlockingQueue[LEVELS];
+        for (int i = 0; i < LEVELS; i++) {
+            deflaters[i] = new ArrayBlockingQueue<>(maxPooled);
+        }
+        inflaters = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    /**
+     * Borrows the raw {@link Deflater} with the given compression level, which has to be
+     * {@link #releaseDeflater(int, Deflater) returned} to the pool, once the stream is complete.
+     */
+    public Deflater acquireDeflater(final int level) {
+        final Deflater deflater = deflaters[index(level)].poll();
+        if (deflater != null) {
+            deflatersReused.incrementAndGet();
+            return deflater;
+        }
+
+        deflatersCreated.incrementAndGet();
+        return new Deflater(level, true);
+    }
+
+    /**
+     * Returns the {@link Deflater} to the pool. The {@link Deflater} must not be used by the caller anymore.
+     *
+     * @param level the compression level the {@link Deflater} was acquired with.
+     * @param deflater the {@link Deflater}.
+     */
+    public void releaseDeflater(final int level, final Deflater deflater) {
+        deflater.reset();
+        if (!deflaters[index(level)].offer(deflater)) {
+            deflatersDiscarded.incrementAndGet();
+            deflater.end();
+        }
+    }
+
+    /**
+     * Borrows the raw {@link Inflater}, which has to be {@link #releaseInflater(Inflater) returned} to the pool, once the
+     * stream is complete.
+     */
+    public Inflater acquireInflater() {
+        final Inflater inflater = inflaters.poll();
+        if (inflater != null) {
+            inflatersReused.incrementAndGet();
+            return inflater;
+        }
+
+        inflatersCreated.incrementAndGet();
+        return new Inflater(true);
+    }
+
+    /**
+     * Returns the {@link Inflater} to the pool. The {@link Inflater} must not be used by the caller anymore.
+     */
+    public void releaseInflater(final Inflater inflater) {
+        inflater.reset();
+        if (!inflaters.offer(inflater)) {
+            inflatersDiscarded.incrementAndGet();
+            inflater.end();
+        }
+    }
+
+    /**
+     * @return the number of {@link Deflater}s, which had to be created, because the pool was empty.
+     */
+    public long getDeflatersCreated() {
+        return deflatersCreated.get();
+    }
+
+    /**
+     * @return the number of times a pooled {@link Deflater} has been reused.
+     */
+    public long getDeflatersReused() {
+        return deflatersReused.get();
+    }
+
+    /**
+     * @return the number of returned {@link Deflater}s, which have been ended, because the pool was full.
+     */
+    public long getDeflatersDiscarded() {
+        return deflatersDiscarded.get();
+    }
+
+    /**
+     * @return the number of {@link Deflater}s currently in the pool.
+     */
+    public int getPooledDeflaters() {
+        int pooled = 0;
+        for (ArrayBlockingQueue<Deflater> queue : deflaters) {
+            pooled += queue.size();
+        }
+
+        return pooled;
+    }
+
+    /**
+     * @return the number of {@link Inflater}s, which had to be created, because the pool was empty.
+     */
+    public long getInflatersCreated() {
+        return inflatersCreated.get();
+    }
+
+    /**
+     * @return the number of times a pooled {@link Inflater} has been reused.
+     */
+    public long getInflatersReused() {
+        return inflatersReused.get();
+    }
+
+    /**
+     * @return the number of returned {@link Inflater}s, which have been ended, because the pool was full.
+     */
+    public long getInflatersDiscarded() {
+        return inflatersDiscarded.get();
+    }
+
+    /**
+     * @return the number of {@link Inflater}s currently in the pool.
+     */
+    public int getPooledInflaters() {
+        return inflaters.size();
+    }
+
+    private static int index(final int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+
+        return level + 1;
+    }
+
+    @Override
+    public String toString() {
+        return "ZlibPool{deflaters(created=" + deflatersCreated + ", reused=" + deflatersReused + ", discarded=" + deflatersDiscarded + ", pooled="
+                + getPooledDeflaters() + "), inflaters(created=" + inflatersCreated + ", reused=" + inflatersReused + ", discarded=" + inflatersDiscarded
+                + ", pooled=" + getPooledInflaters() + ")}";
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.zstd;
+
+import java.io.IOException;
+
+/**
+ * Reads the bitstream, which is written forward and read backward, starting from the end mark bit of the last byte.
+ * The bits beyond the beginning of the stream are read as zeros, see {@link #isOverflow()}.
+ */
+final class BackwardBitReader {
+    private byte[] src;
+    private int start;
+    private int end;
+
+    // the number of the unread bits
+    private long position;
+
+    void init(final byte[] src, final int start, final int end) throws IOException {
+        if (end <= start) {
+            throw new IOException("Empty bitstream");
+        }
+
+        final int last = src[end - 1] & 0xFF;
+        if (last == 0) {
+            throw new IOException("Bitstream end mark is missing");
+        }
+
+        this.src = src;
+        this.start = start;
+        this.end = end;
+        position = (end - start) * 8L - (Integer.numberOfLeadingZeros(last) - 24) - 1;
+    }
+
+    int readBits(final int n) {
+        if (n == 0) {
+            return 0;
+        }
+
+        position -= n;
+        return extract(position, n);
+    }
+
+    int peekBits(final int n) {
+        return extract(position - n, n);
+    }
+
+    void skipBits(final int n) {
+        position -= n;
+    }
+
+    /**
+     * @return <tt>true</tt>, if all the bits have been read.
+     */
+    boolean isComplete() {
+        return position == 0;
+    }
+
+    /**
+     * @return <tt>true</tt>, if more bits have been read, than the stream contains.
+     */
+    boolean isOverflow() {
+        return position < 0;
+    }
+
+    private int extract(final long bitPosition, final int n) {
+        if (bitPosition < 0) {
+            final int available = n + (int) bitPosition;
+            return available <= 0 ? 0 : extract(0, available) << -bitPosition;
+        }
+
+        final int first = start + (int) (bitPosition >>> 3);
+        long value = 0;
+        for (int i = 0, len = Math.min(5, end - first); i < len; i++) {
+            value |= (long) (src[first + i] & 0xFF) << (i << 3);
+        }
+
+        return (int) (value >>> (bitPosition & 7) & ((1L << n) - 1));
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.zstd;
+
+import java.io.IOException;
+
+import org.glassfish.grizzly.compression.impl.BitWriter;
+
+/**
+ * The finite state entropy coding (tANS) of the zstd format, RFC 8878 section 4.1.
+ */
+final class Fse {
+    static final int MIN_TABLE_LOG = 5;
+
+    static final int LITERALS_LENGTH_MAX_LOG = 9;
+    static final int MATCH_LENGTH_MAX_LOG = 9;
+    static final int OFFSET_MAX_LOG = 8;
+
+    static final short[] LITERALS_LENGTH_DEFAULT = { 4, 3, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 1, 1, 1, 2, 2, 2, 2, 2, 2, 2, 2, 2, 3, 2, 1, 1, 1, 1, 1, -1, -1,
+            -1, -1 };
+    static final int LITERALS_LENGTH_DEFAULT_LOG = 6;
+
+    static final short[] MATCH_LENGTH_DEFAULT = { 1, 4, 3, 2, 2, 2, 2, 2, 2, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+            1, 1, 1, 1, 1, 1, 1, 1, 1, 1, -1, -1, -1, -1, -1, -1, -1 };
+    static final int MATCH_LENGTH_DEFAULT_LOG = 6;
+
+    static final short[] OFFSET_DEFAULT = { 1, 1, 1, 1, 1, 1, 2, 2, 2, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, -1, -1, -1, -1, -1 };
+    static final int OFFSET_DEFAULT_LOG = 5;
+
+    private Fse() {
+    }
+
+    /**
+     * Spreads the symbols over the table cells, the same way the encoder and the decoder do.
+     *
+     * @return the symbols of the table cells.
+     */
+    private static byte[] spread(final short[] normalized, final int maxSymbol, final int tableLog) {
+        final int tableSize = 1 << tableLog;
+        final byte[] cells = new byte[tableSize];
+
+        // the symbols with the "less than 1" probability occupy the last cells
+        int highThreshold = tableSize - 1;
+        for (int s = 0; s <= maxSymbol; s++) {
+            if (normalized[s] == -1) {
+                cells[highThreshold--] = (byte) s;
+            }
+        }
+
+        final int mask = tableSize - 1;
+        final int step = (tableSize >>> 1) + (tableSize >>> 3) + 3;
+        int position = 0;
+        for (int s = 0; s <= maxSymbol; s++) {
+            for (int i = 0; i < normalized[s]; i++) {
+                cells[position] = (byte) s;
+                do {
+                    position = position + step & mask;
+                } while (position > highThreshold);
+            }
+        }
+
+        return cells;
+    }
+
+    static DecodingTable buildDecodingTable(final short[] normalized, final int maxSymbol, final int tableLog) {
+        final int tableSize = 1 << tableLog;
+        final byte[] cells = spread(normalized, maxSymbol, tableLog);
+
+        final int[] next = new int[maxSymbol + 1];
+        for (int s = 0; s <= maxSymbol; s++) {
+            next[s] = normalized[s] == -1 ? 1 : normalized[s];
+        }
+
+        final DecodingTable table = new DecodingTable(tableLog);
+        for (int u = 0; u < tableSize; u++) {
+            final int s = cells[u] & 0xFF;
+            final int state = next[s]++;
+            final int nbBits = tableLog - highBit(state);
+            table.symbols[u] = (byte) s;
+            table.nbBits[u] = (byte) nbBits;
+            table.newStates[u] = (state << nbBits) - tableSize;
+        }
+
+        return table;
+    }
+
+    /**
+     * Builds the decoding table, which always decodes the given symbol without reading any bits.
+     */
+    static DecodingTable buildRleDecodingTable(final int symbol) {
+        final DecodingTable table = new DecodingTable(0);
+        table.symbols[0] = (byte) symbol;
+        return table;
+    }
+
+    static EncodingTable buildEncodingTable(final short[] normalized, final int maxSymbol, final int tableLog) {
+        final int tableSize = 1 << tableLog;
+        final byte[] cells = spread(normalized, maxSymbol, tableLog);
+
+        final int[] cumulative = new int[maxSymbol + 2];
+        for (int s = 0; s <= maxSymbol; s++) {
+            cumulative[s + 1] = cumulative[s] + (normalized[s] == -1 ? 1 : normalized[s]);
+        }
+
+        final EncodingTable table = new EncodingTable(tableLog, maxSymbol);
+        for (int u = 0; u < tableSize; u++) {
+            final int s = cells[u] & 0xFF;
+            table.states[cumulative[s]++] = (short) (tableSize + u);
+        }
+
+        int total = 0;
+        for (int s = 0; s <= maxSymbol; s++) {
+            final int n = normalized[s];
+            if (n == 0) {
+                table.deltaNbBits[s] = ((tableLog + 1) << 16) - tableSize;
+            } else if (n == -1 || n == 1) {
+                table.deltaNbBits[s] = (tableLog << 16) - tableSize;
+                table.deltaFindState[s] = total - 1;
+                total++;
+            } else {
+                final int maxBitsOut = tableLog - highBit(n - 1);
+                final int minStatePlus = n << maxBitsOut;
+                table.deltaNbBits[s] = (maxBitsOut << 16) - minStatePlus;
+                table.deltaFindState[s] = total - n;
+                total += n;
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Chooses the table log for the given number of symbols to encode.
+     */
+    static int optimalTableLog(final int maxTableLog, final int count, final int maxSymbol) {
+        final int maxBitsSrc = highBit(count - 1) - 2;
+        final int minBits = Math.min(highBit(count - 1) + 1, highBit(maxSymbol) + 2);
+
+        int tableLog = Math.min(maxTableLog, maxBitsSrc);
+        tableLog = Math.max(tableLog, minBits);
+        return Math.max(MIN_TABLE_LOG, Math.min(maxTableLog, tableLog));
+    }
+
+    /**
+     * Scales the symbol counts, so they sum up to the table size, each present symbol gets at least <tt>1</tt>.
+     */
+    static void normalize(final int[] counts, final int maxSymbol, final int total, final int tableLog, final short[] normalized) {
+        final int tableSize = 1 << tableLog;
+        int sum = 0;
+        for (int s = 0; s <= maxSymbol; s++) {
+            final int count = counts[s];
+            if (count == 0) {
+                normalized[s] = 0;
+                continue;
+            }
+
+            final int n = Math.max(1, (int) ((long) count * tableSize / total));
+            normalized[s] = (short) n;
+            sum += n;
+        }
+
+        // the rounding error goes to the most probable symbols
+        while (sum != tableSize) {
+            int largest = -1;
+            for (int s = 0; s <= maxSymbol; s++) {
+                if (largest == -1 || normalized[s] > normalized[largest]) {
+                    largest = s;
+                }
+            }
+
+            if (sum < tableSize) {
+                normalized[largest] += (short) (tableSize - sum);
+                sum = tableSize;
+            } else {
+                final int excess = Math.min(sum - tableSize, normalized[largest] - 1 - (normalized[largest] >> 1));
+                normalized[largest] -= (short) Math.max(excess, 1);
+                sum -= Math.max(excess, 1);
+            }
+        }
+    }
+
+    /**
+     * Writes the table description, RFC 8878 section 4.1.1.
+     */
+    static void writeNormalizedCounts(final BitWriter writer, final short[] normalized, final int maxSymbol, final int tableLog) {
+        final int tableSize = 1 << tableLog;
+        writer.writeBits(tableLog - MIN_TABLE_LOG, 4);
+
+        int remaining = tableSize + 1;
+        int threshold = tableSize;
+        int nbBits = tableLog + 1;
+        int symbol = 0;
+        boolean previousIsZero = false;
+
+        while (symbol <= maxSymbol && remaining > 1) {
+            if (previousIsZero) {
+                int start = symbol;
+                while (symbol <= maxSymbol && normalized[symbol] == 0) {
+                    symbol++;
+                }
+
+                while (symbol >= start + 24) {
+                    start += 24;
+                    writer.writeBits(0xFFFF, 16);
+                }
+                while (symbol >= start + 3) {
+                    start += 3;
+                    writer.writeBits(3, 2);
+                }
+                writer.writeBits(symbol - start, 2);
+            }
+
+            int count = normalized[symbol++];
+            final int max = 2 * threshold - 1 - remaining;
+            remaining -= count < 0 ? -count : count;
+            count++;
+            if (count >= threshold) {
+                count += max;
+            }
+
+            writer.writeBits(count, count < max ? nbBits - 1 : nbBits);
+            previousIsZero = count == 1;
+
+            while (remaining < threshold) {
+                nbBits--;
+                threshold >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Reads the table description, RFC 8878 section 4.1.1.
+     *
+     * @return the number of bytes read.
+     */
+    static int readNormalizedCounts(final byte[] src, final int offset, final int end, final int maxTableLog, final int maxSymbolLimit,
+            final NormalizedCounts result) throws IOException {
+        final ForwardBitReader reader = new ForwardBitReader(src, offset, end);
+        final int tableLog = reader.readBits(4) + MIN_TABLE_LOG;
+        if (tableLog > maxTableLog) {
+            throw new IOException("FSE table log too large: " + tableLog);
+        }
+
+        final short[] normalized = result.normalized;
+        int remaining = (1 << tableLog) + 1;
+        int threshold = 1 << tableLog;
+        int nbBits = tableLog + 1;
+        int symbol = 0;
+        boolean previousIsZero = false;
+
+        while (remaining > 1) {
+            if (previousIsZero) {
+                int repeat;
+                do {
+                    repeat = reader.readBits(2);
+                    for (int i = 0; i < repeat; i++) {
+                        if (symbol > maxSymbolLimit) {
+                            throw new IOException("FSE symbol out of range");
+                        }
+                        normalized[symbol++] = 0;
+                    }
+                } while (repeat == 3);
+            }
+
+            if (symbol > maxSymbolLimit) {
+                throw new IOException("FSE symbol out of range");
+            }
+
+            final int max = 2 * threshold - 1 - remaining;
+            int count;
+            final int low = reader.peekBits(nbBits - 1);
+            if (low < max) {
+                count = low;
+                reader.skipBits(nbBits - 1);
+            } else {
+                count = reader.readBits(nbBits);
+                if (count >= threshold) {
+                    count -= max;
+                }
+            }
+
+            count--;
+            remaining -= count < 0 ? -count : count;
+            if (remaining < 1) {
+                throw new IOException("Corrupted FSE table description");
+            }
+            normalized[symbol++] = (short) count;
+            previousIsZero = count == 0;
+
+            while (remaining < threshold) {
+                nbBits--;
+                threshold >>= 1;
+            }
+        }
+
+        if (remaining != 1) {
+            throw new IOException("Corrupted FSE table description");
+        }
+
+        result.tableLog = tableLog;
+        result.maxSymbol = symbol - 1;
+        return reader.bytesRead();
+    }
+
+    static int highBit(final int value) {
+        return 31 - Integer.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * The result of {@link #readNormalizedCounts}.
+     */
+    static final class NormalizedCounts {
+        final short[] normalized = new short[256];
+        int tableLog;
+        int maxSymbol;
+    }
+
+    static final class DecodingTable {
+        final int tableLog;
+        final byte[] symbols;
+        final byte[] nbBits;
+        final int[] newStates;
+
+        private DecodingTable(final int tableLog) {
+            this.tableLog = tableLog;
+            final int tableSize = 1 << tableLog;
+            symbols = new byte[tableSize];
+            nbBits = new byte[tableSize];
+            newStates = new int[tableSize];
+        }
+    }
+
+    static final class EncodingTable {
+        final int tableLog;
+        final short[] states;
+        final int[] deltaNbBits;
+        final int[] deltaFindState;
+
+        private EncodingTable(final int tableLog, final int maxSymbol) {
+            this.tableLog = tableLog;
+            states = new short[1 << tableLog];
+            deltaNbBits = new int[maxSymbol + 1];
+            deltaFindState = new int[maxSymbol + 1];
+        }
+
+        /**
+         * @return the initial state, which encodes the symbol with the smallest number of bits.
+         */
+        int initialState(final int symbol) {
+            final int nbBitsOut = deltaNbBits[symbol] + (1 << 15) >>> 16;
+            final int value = (nbBitsOut << 16) - deltaNbBits[symbol];
+            return states[(value >> nbBitsOut) + deltaFindState[symbol]];
+        }
+
+        /**
+         * Writes the bits of the state and returns the new state, which encodes the symbol.
+         */
+        int encode(final BitWriter writer, final int state, final int symbol) {
+            final int nbBitsOut = state + deltaNbBits[symbol] >>> 16;
+            writer.writeBits(state, nbBitsOut);
+            return states[(state >> nbBitsOut) + deltaFindState[symbol]];
+        }
+
+        void flush(final BitWriter writer, final int state) {
+            writer.writeBits(state, tableLog);
+        }
+    }
+
+    /**
+     * Reads the bits forward, starting from the least significant bit of each byte.
+     */
+    static final class ForwardBitReader {
+        private final byte[] src;
+        private final int offset;
+        private final int end;
+        private long bitPosition;
+
+        ForwardBitReader(final byte[] src, final int offset, final int end) {
+            this.src = src;
+            this.offset = offset;
+            this.end = end;
+        }
+
+        int peekBits(final int n) throws IOException {
+            final int firstByte = offset + (int) (bitPosition >>> 3);
+            if (firstByte >= end) {
+                throw new IOException("Truncated FSE table description");
+            }
+
+            // the description may end in the middle of a byte, the bits beyond the end are zeros
+            long value = 0;
+            for (int i = 0; i < 4 && firstByte + i < end; i++) {
+                value |= (long) (src[firstByte + i] & 0xFF) << (i << 3);
+            }
+
+            return (int) (value >>> (bitPosition & 7) & ((1L << n) - 1));
+        }
+
+        int readBits(final int n) throws IOException {
+            final int value = peekBits(n);
+            bitPosition += n;
+            return value;
+        }
+
+        void skipBits(final int n) {
+            bitPosition += n;
+        }
+
+        int bytesRead() throws IOException {
+            final int read = (int) (bitPosition + 7 >>> 3);
+            if (offset + read > end) {
+                throw new IOException("Truncated FSE table description");
+            }
+            return read;
+        }
+    }
+}
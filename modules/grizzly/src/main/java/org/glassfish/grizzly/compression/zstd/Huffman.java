@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.zstd;
+
+import java.io.IOException;
+
+import org.glassfish.grizzly.compression.impl.BitWriter;
+import org.glassfish.grizzly.compression.impl.HuffmanLengths;
+
+/**
+ * The Huffman coding of the zstd literals, RFC 8878 section 4.2.
+ */
+final class Huffman {
+    static final int MAX_BITS = 11;
+
+    private static final int MAX_WEIGHTS_TABLE_LOG = 6;
+    // the decoder accepts at most 255 weights, see RFC 8878 section 4.2.1.2
+    private static final int MAX_WEIGHTS = 255;
+
+    private Huffman() {
+    }
+
+    /**
+     * Builds the code of the literals, which use at least two different symbols.
+     */
+    static Encoding buildEncoding(final int[] counts, final int maxSymbol) {
+        final Encoding encoding = new Encoding(maxSymbol);
+        HuffmanLengths.build(counts, maxSymbol + 1, MAX_BITS, encoding.nbBits);
+
+        int maxBits = 0;
+        for (int s = 0; s <= maxSymbol; s++) {
+            maxBits = Math.max(maxBits, encoding.nbBits[s]);
+        }
+        encoding.maxBits = maxBits;
+
+        for (int s = 0; s <= maxSymbol; s++) {
+            encoding.weights[s] = (byte) (encoding.nbBits[s] == 0 ? 0 : maxBits + 1 - encoding.nbBits[s]);
+        }
+
+        // the codes are distributed in the ascending weight order, then in the symbol order
+        int position = 0;
+        for (int w = 1; w <= maxBits; w++) {
+            for (int s = 0; s <= maxSymbol; s++) {
+                if (encoding.weights[s] == w) {
+                    encoding.codes[s] = position >>> (w - 1);
+                    position += 1 << (w - 1);
+                }
+            }
+        }
+
+        return encoding;
+    }
+
+    /**
+     * Writes the tree description, RFC 8878 section 4.2.1.
+     *
+     * @return <tt>false</tt>, if the tree can't be described, so the literals have to be written raw.
+     */
+    static boolean writeDescription(final BitWriter writer, final Encoding encoding) {
+        final int count = encoding.maxSymbol;
+        if (count > MAX_WEIGHTS) {
+            return false;
+        }
+
+        final byte[] compressed = compressWeights(encoding.weights, count);
+        if (compressed != null && (count > 128 || compressed.length < (count + 1) / 2)) {
+            writer.writeBits(compressed.length, 8);
+            writer.writeBytes(compressed, 0, compressed.length);
+            return true;
+        }
+
+        if (count > 128) {
+            return false;
+        }
+
+        writer.writeBits(127 + count, 8);
+        for (int i = 0; i < count; i += 2) {
+            final int second = i + 1 < count ? encoding.weights[i + 1] : 0;
+            writer.writeBits(encoding.weights[i] << 4 | second, 8);
+        }
+        return true;
+    }
+
+    /**
+     * Encodes the literals in a single stream.
+     */
+    static void encodeStream(final BitWriter writer, final Encoding encoding, final byte[] literals, final int offset, final int length) {
+        final byte[] nbBits = encoding.nbBits;
+        final int[] codes = encoding.codes;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            final int s = literals[i] & 0xFF;
+            writer.writeBits(codes[s], nbBits[s]);
+        }
+        writer.closeBackwardStream();
+    }
+
+    /**
+     * Compresses the weights with FSE, RFC 8878 section 4.2.1.2.
+     *
+     * @return the compressed weights, or <tt>null</tt>, if the weights can't be compressed.
+     */
+    private static byte[] compressWeights(final byte[] weights, final int count) {
+        if (count < 2) {
+            return null;
+        }
+
+        final int[] counts = new int[MAX_BITS + 1];
+        int maxWeight = 0;
+        for (int i = 0; i < count; i++) {
+            counts[weights[i]]++;
+            maxWeight = Math.max(maxWeight, weights[i]);
+        }
+
+        for (int w = 0; w <= maxWeight; w++) {
+            if (counts[w] == count) {
+                return null;
+            }
+        }
+
+        final int tableLog = Fse.optimalTableLog(MAX_WEIGHTS_TABLE_LOG, count, maxWeight);
+        final short[] normalized = new short[maxWeight + 1];
+        Fse.normalize(counts, maxWeight, count, tableLog, normalized);
+
+        final BitWriter writer = new BitWriter(64);
+        Fse.writeNormalizedCounts(writer, normalized, maxWeight, tableLog);
+        writer.alignToByte();
+        final int descriptionLength = writer.size();
+
+        // the even weights go to the first state, the odd weights go to the second one
+        final Fse.EncodingTable table = Fse.buildEncodingTable(normalized, maxWeight, tableLog);
+        final int[] states = new int[2];
+        states[(count - 1) & 1] = table.initialState(weights[count - 1]);
+        states[(count - 2) & 1] = table.initialState(weights[count - 2]);
+        for (int i = count - 3; i >= 0; i--) {
+            states[i & 1] = table.encode(writer, states[i & 1], weights[i]);
+        }
+        table.flush(writer, states[1]);
+        table.flush(writer, states[0]);
+        writer.closeBackwardStream();
+
+        final int length = writer.size();
+        if (length >= 128) {
+            return null;
+        }
+
+        final byte[] result = new byte[length];
+        System.arraycopy(writer.array(), 0, result, 0, length);
+
+        // the decoder stops, when it reads past the stream start, so make sure the weights decode back as written
+        try {
+            final Fse.NormalizedCounts description = new Fse.NormalizedCounts();
+            description.tableLog = tableLog;
+            description.maxSymbol = maxWeight;
+            System.arraycopy(normalized, 0, description.normalized, 0, maxWeight + 1);
+
+            final byte[] decoded = new byte[MAX_WEIGHTS];
+            final int n = decodeWeights(result, descriptionLength, length, description, decoded);
+            if (n != count) {
+                return null;
+            }
+            for (int i = 0; i < count; i++) {
+                if (decoded[i] != weights[i]) {
+                    return null;
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads the tree description, RFC 8878 section 4.2.1.
+     *
+     * @return the number of bytes read.
+     */
+    static int readDescription(final byte[] src, final int offset, final int end, final DecodingTable table) throws IOException {
+        if (offset >= end) {
+            throw new IOException("Truncated Huffman tree description");
+        }
+
+        final byte[] weights = table.weights;
+        final int header = src[offset] & 0xFF;
+        final int count;
+        final int length;
+        if (header < 128) {
+            length = 1 + header;
+            if (offset + length > end) {
+                throw new IOException("Truncated Huffman tree description");
+            }
+
+            final Fse.NormalizedCounts description = new Fse.NormalizedCounts();
+            final int descriptionLength = Fse.readNormalizedCounts(src, offset + 1, offset + length, MAX_WEIGHTS_TABLE_LOG, MAX_BITS, description);
+            count = decodeWeights(src, offset + 1 + descriptionLength, offset + length, description, weights);
+        } else {
+            count = header - 127;
+            length = 1 + (count + 1) / 2;
+            if (offset + length > end) {
+                throw new IOException("Truncated Huffman tree description");
+            }
+
+            for (int i = 0; i < count; i += 2) {
+                final int b = src[offset + 1 + i / 2] & 0xFF;
+                weights[i] = (byte) (b >>> 4);
+                weights[i + 1] = (byte) (b & 0xF);
+            }
+        }
+
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            if (weights[i] > MAX_BITS + 1) {
+                throw new IOException("Corrupted Huffman tree description");
+            }
+            if (weights[i] != 0) {
+                sum += 1 << (weights[i] - 1);
+            }
+        }
+
+        if (sum == 0) {
+            throw new IOException("Corrupted Huffman tree description");
+        }
+
+        final int maxBits = Fse.highBit(sum) + 1;
+        final int rest = (1 << maxBits) - sum;
+        if (maxBits > MAX_BITS || Integer.bitCount(rest) != 1) {
+            throw new IOException("Corrupted Huffman tree description");
+        }
+        weights[count] = (byte) (Fse.highBit(rest) + 1);
+
+        table.build(count + 1, maxBits);
+        return length;
+    }
+
+    /**
+     * Decodes the FSE compressed weights with the two interleaved states.
+     *
+     * @return the number of the weights.
+     */
+    private static int decodeWeights(final byte[] src, final int start, final int end, final Fse.NormalizedCounts description, final byte[] weights)
+            throws IOException {
+        final Fse.DecodingTable table = Fse.buildDecodingTable(description.normalized, description.maxSymbol, description.tableLog);
+        final BackwardBitReader reader = new BackwardBitReader();
+        reader.init(src, start, end);
+
+        int state1 = reader.readBits(table.tableLog);
+        int state2 = reader.readBits(table.tableLog);
+        int n = 0;
+        for (;;) {
+            if (n > MAX_WEIGHTS - 2) {
+                throw new IOException("Too many Huffman weights");
+            }
+            weights[n++] = table.symbols[state1];
+            state1 = table.newStates[state1] + reader.readBits(table.nbBits[state1]);
+            if (reader.isOverflow()) {
+                weights[n++] = table.symbols[state2];
+                break;
+            }
+
+            if (n > MAX_WEIGHTS - 2) {
+                throw new IOException("Too many Huffman weights");
+            }
+            weights[n++] = table.symbols[state2];
+            state2 = table.newStates[state2] + reader.readBits(table.nbBits[state2]);
+            if (reader.isOverflow()) {
+                weights[n++] = table.symbols[state1];
+                break;
+            }
+        }
+
+        return n;
+    }
+
+    static final class Encoding {
+        final int maxSymbol;
+        final byte[] nbBits = new byte[256];
+        final int[] codes = new int[256];
+        final byte[] weights = new byte[256];
+        int maxBits;
+
+        private Encoding(final int maxSymbol) {
+            this.maxSymbol = maxSymbol;
+        }
+    }
+
+    static final class DecodingTable {
+        final byte[] weights = new byte[256];
+        final byte[] symbols = new byte[1 << MAX_BITS];
+        final byte[] nbBits = new byte[1 << MAX_BITS];
+        int maxBits;
+
+        private boolean initialized;
+
+        boolean isInitialized() {
+            return initialized;
+        }
+
+        private void build(final int count, final int maxBits) {
+            this.maxBits = maxBits;
+
+            int position = 0;
+            for (int w = 1; w <= maxBits; w++) {
+                final int n = 1 << (w - 1);
+                final byte bits = (byte) (maxBits + 1 - w);
+                for (int s = 0; s < count; s++) {
+                    if (weights[s] == w) {
+                        for (int i = 0; i < n; i++) {
+                            symbols[position + i] = (byte) s;
+                            nbBits[position + i] = bits;
+                        }
+                        position += n;
+                    }
+                }
+            }
+
+            initialized = true;
+        }
+
+        /**
+         * Decodes a single stream of the literals.
+         */
+        void decodeStream(final BackwardBitReader reader, final byte[] src, final int start, final int end, final byte[] dst, final int offset,
+                final int length) throws IOException {
+            reader.init(src, start, end);
+            for (int i = offset, last = offset + length; i < last; i++) {
+                final int index = reader.peekBits(maxBits);
+                dst[i] = symbols[index];
+                reader.skipBits(nbBits[index]);
+            }
+
+            if (!reader.isComplete()) {
+                throw new IOException("Corrupted Huffman stream");
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.zstd;
+
+import org.glassfish.grizzly.compression.spi.CompressionProvider;
+import org.glassfish.grizzly.compression.spi.Compressor;
+import org.glassfish.grizzly.compression.spi.Decompressor;
+
+/**
+ * The built-in pure Java zstd {@link CompressionProvider}, which is used unless a provider with a higher priority, for
+ * example the one backed by the native zstd library, is registered.
+ */
+public final class ZstdCompressionProvider implements CompressionProvider {
+    /**
+     * The content-encoding name of zstd.
+     */
+    public static final String ENCODING = "zstd";
+
+    /**
+     * The default compression level, the levels above <tt>3</tt> search for the longer matches.
+     */
+    public static final int DEFAULT_LEVEL = 3;
+
+    @Override
+    public String getEncoding() {
+        return ENCODING;
+    }
+
+    @Override
+    public int getPriority() {
+        return 0;
+    }
+
+    @Override
+    public Compressor createCompressor(final int level) {
+        return new ZstdCompressor(level < 0 ? DEFAULT_LEVEL : level);
+    }
+
+    @Override
+    public Decompressor createDecompressor() {
+        return new ZstdDecompressor();
+    }
+}
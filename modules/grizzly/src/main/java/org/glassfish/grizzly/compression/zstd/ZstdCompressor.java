@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.zstd;
+
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.BLOCK_COMPRESSED;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.BLOCK_RAW;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.LITERALS_COMPRESSED;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.LITERALS_LENGTH_BASE;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.LITERALS_LENGTH_BITS;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.LITERALS_RAW;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.LITERALS_RLE;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.MATCH_LENGTH_BASE;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.MATCH_LENGTH_BITS;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.MAX_DEFAULT_OFFSET_CODE;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.MODE_FSE;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.MODE_PREDEFINED;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.MODE_RLE;
+
+import java.util.Arrays;
+
+import org.glassfish.grizzly.compression.impl.BitWriter;
+import org.glassfish.grizzly.compression.impl.MatchFinder;
+import org.glassfish.grizzly.compression.impl.Sequences;
+import org.glassfish.grizzly.compression.spi.Compressor;
+
+/**
+ * The pure Java zstd compressor.
+ * <p>
+ * The compressor produces a single frame without the content size and the checksum. The input is split into 64K
+ * blocks, which are parsed by the {@link MatchFinder}, the literals are Huffman coded and the sequences are FSE coded,
+ * the repeated offsets are not used. The blocks, which don't compress, are stored raw.
+ */
+final class ZstdCompressor implements Compressor {
+    private static final int WINDOW_LOG = 17;
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    // the literals shorter than that are stored raw
+    private static final int MIN_HUFFMAN_LITERALS = 32;
+    // the literals shorter than that are Huffman coded in a single stream
+    private static final int MIN_FOUR_STREAMS_LITERALS = 256;
+
+    private static final Fse.EncodingTable LITERALS_LENGTH_DEFAULT_TABLE = Fse.buildEncodingTable(Fse.LITERALS_LENGTH_DEFAULT,
+            ZstdFormat.MAX_LITERALS_LENGTH_CODE, Fse.LITERALS_LENGTH_DEFAULT_LOG);
+    private static final Fse.EncodingTable MATCH_LENGTH_DEFAULT_TABLE = Fse.buildEncodingTable(Fse.MATCH_LENGTH_DEFAULT,
+            ZstdFormat.MAX_MATCH_LENGTH_CODE, Fse.MATCH_LENGTH_DEFAULT_LOG);
+    private static final Fse.EncodingTable OFFSET_DEFAULT_TABLE = Fse.buildEncodingTable(Fse.OFFSET_DEFAULT, MAX_DEFAULT_OFFSET_CODE,
+            Fse.OFFSET_DEFAULT_LOG);
+
+    private final MatchFinder matchFinder;
+    private final Sequences sequences = new Sequences();
+
+    private final BitWriter out = new BitWriter(BLOCK_SIZE);
+    private final BitWriter block = new BitWriter(BLOCK_SIZE);
+    private final BitWriter stream = new BitWriter(BLOCK_SIZE);
+    private final BitWriter description = new BitWriter(256);
+
+    private final int[] counts = new int[256];
+    private final short[] normalized = new short[256];
+
+    private byte[] literalsLengthCodes = new byte[1024];
+    private byte[] matchLengthCodes = new byte[1024];
+    private byte[] offsetCodes = new byte[1024];
+
+    private final SymbolEncoding literalsLengthEncoding = new SymbolEncoding();
+    private final SymbolEncoding matchLengthEncoding = new SymbolEncoding();
+    private final SymbolEncoding offsetEncoding = new SymbolEncoding();
+
+    private boolean headerWritten;
+
+    ZstdCompressor(final int level) {
+        final int searchDepth;
+        if (level <= 1) {
+            searchDepth = 1;
+        } else if (level <= 3) {
+            searchDepth = 4;
+        } else if (level <= 6) {
+            searchDepth = 16;
+        } else {
+            searchDepth = 64;
+        }
+
+        matchFinder = new MatchFinder(1 << WINDOW_LOG, BLOCK_SIZE, searchDepth);
+    }
+
+    @Override
+    public byte[] compress(final byte[] input, int offset, int length) {
+        writeHeader();
+        while (length > 0) {
+            final int n = matchFinder.write(input, offset, length);
+            offset += n;
+            length -= n;
+            if (matchFinder.isBlockFull()) {
+                writeBlock(false);
+            }
+        }
+
+        return out.drain();
+    }
+
+    @Override
+    public byte[] finish() {
+        writeHeader();
+        writeBlock(true);
+        return out.drain();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void writeHeader() {
+        if (headerWritten) {
+            return;
+        }
+
+        headerWritten = true;
+        out.writeBits(ZstdFormat.MAGIC, 32);
+        // no content size, no checksum, no dictionary
+        out.writeBits(0, 8);
+        out.writeBits(WINDOW_LOG - 10 << 3, 8);
+    }
+
+    private void writeBlock(final boolean last) {
+        final int length = matchFinder.getPending();
+        final byte[] buffer = matchFinder.getBuffer();
+        final int start = matchFinder.getBlockStart();
+        if (length == 0) {
+            writeBlockHeader(last, BLOCK_RAW, 0);
+            return;
+        }
+
+        matchFinder.parseBlock(sequences);
+
+        block.reset();
+        writeLiterals(sequences.getLiterals(), sequences.getLiteralsLength());
+        writeSequences();
+
+        final int compressedLength = block.size();
+        if (compressedLength < length) {
+            writeBlockHeader(last, BLOCK_COMPRESSED, compressedLength);
+            out.writeBytes(block.array(), 0, compressedLength);
+        } else {
+            writeBlockHeader(last, BLOCK_RAW, length);
+            out.writeBytes(buffer, start, length);
+        }
+    }
+
+    private void writeBlockHeader(final boolean last, final int type, final int size) {
+        out.writeBits(size << 3 | type << 1 | (last ? 1 : 0), 24);
+    }
+
+    private void writeLiterals(final byte[] literals, final int length) {
+        Arrays.fill(counts, 0);
+        int maxSymbol = 0;
+        for (int i = 0; i < length; i++) {
+            final int s = literals[i] & 0xFF;
+            counts[s]++;
+            maxSymbol = Math.max(maxSymbol, s);
+        }
+
+        if (length > 0 && counts[literals[0] & 0xFF] == length) {
+            writeLiteralsHeader(LITERALS_RLE, length);
+            block.writeBits(literals[0], 8);
+            return;
+        }
+
+        if (length >= MIN_HUFFMAN_LITERALS && writeCompressedLiterals(literals, length, maxSymbol)) {
+            return;
+        }
+
+        writeLiteralsHeader(LITERALS_RAW, length);
+        block.writeBytes(literals, 0, length);
+    }
+
+    private void writeLiteralsHeader(final int type, final int length) {
+        if (length < 32) {
+            block.writeBits(type | length << 3, 8);
+        } else if (length < 4096) {
+            block.writeBits(type | 1 << 2 | length << 4, 16);
+        } else {
+            block.writeBits(type | 3 << 2 | length << 4, 24);
+        }
+    }
+
+    private boolean writeCompressedLiterals(final byte[] literals, final int length, final int maxSymbol) {
+        final Huffman.Encoding encoding = Huffman.buildEncoding(counts, maxSymbol);
+
+        description.reset();
+        if (!Huffman.writeDescription(description, encoding)) {
+            return false;
+        }
+
+        stream.reset();
+        final boolean fourStreams = length >= MIN_FOUR_STREAMS_LITERALS;
+        final int[] sizes = new int[4];
+        if (fourStreams) {
+            final int segment = (length + 3) / 4;
+            int offset = 0;
+            for (int i = 0; i < 4; i++) {
+                final int before = stream.size();
+                final int n = Math.min(segment, length - offset);
+                Huffman.encodeStream(stream, encoding, literals, offset, n);
+                sizes[i] = stream.size() - before;
+                offset += n;
+            }
+        } else {
+            Huffman.encodeStream(stream, encoding, literals, 0, length);
+        }
+
+        final int compressedLength = description.size() + (fourStreams ? 6 : 0) + stream.size();
+        if (compressedLength + 5 >= length + 3) {
+            // the header of the compressed literals is up to 2 bytes longer
+            return false;
+        }
+
+        if (!fourStreams) {
+            block.writeBits(LITERALS_COMPRESSED | length << 4 | compressedLength << 14, 24);
+        } else if (length < 1024 && compressedLength < 1024) {
+            block.writeBits(LITERALS_COMPRESSED | 1 << 2 | length << 4 | compressedLength << 14, 24);
+        } else if (length < 16384 && compressedLength < 16384) {
+            block.writeBits(LITERALS_COMPRESSED | 2 << 2 | length << 4 | compressedLength << 18, 32);
+        } else {
+            block.writeBits(LITERALS_COMPRESSED | 3 << 2 | length << 4, 22);
+            block.writeBits(compressedLength, 18);
+        }
+
+        block.writeBytes(description.array(), 0, description.size());
+        if (fourStreams) {
+            for (int i = 0; i < 3; i++) {
+                block.writeBits(sizes[i], 16);
+            }
+        }
+        block.writeBytes(stream.array(), 0, stream.size());
+        return true;
+    }
+
+    private void writeSequences() {
+        final int n = sequences.size();
+        if (n < 128) {
+            block.writeBits(n, 8);
+        } else if (n < 0x7F00) {
+            block.writeBits((n >>> 8) + 128, 8);
+            block.writeBits(n, 8);
+        } else {
+            block.writeBits(255, 8);
+            block.writeBits(n - 0x7F00, 16);
+        }
+
+        if (n == 0) {
+            return;
+        }
+
+        if (literalsLengthCodes.length < n) {
+            final int capacity = Math.max(n, literalsLengthCodes.length << 1);
+            literalsLengthCodes = new byte[capacity];
+            matchLengthCodes = new byte[capacity];
+            offsetCodes = new byte[capacity];
+        }
+
+        for (int i = 0; i < n; i++) {
+            literalsLengthCodes[i] = (byte) ZstdFormat.literalsLengthCode(sequences.getLiteralLength(i));
+            matchLengthCodes[i] = (byte) ZstdFormat.matchLengthCode(sequences.getMatchLength(i));
+            offsetCodes[i] = (byte) Fse.highBit(sequences.getDistance(i) + 3);
+        }
+
+        description.reset();
+        final int literalsLengthMode = chooseEncoding(literalsLengthCodes, n, ZstdFormat.MAX_LITERALS_LENGTH_CODE, LITERALS_LENGTH_DEFAULT_TABLE,
+                Fse.LITERALS_LENGTH_DEFAULT, Fse.LITERALS_LENGTH_MAX_LOG, literalsLengthEncoding);
+        final int offsetMode = chooseEncoding(offsetCodes, n, MAX_DEFAULT_OFFSET_CODE, OFFSET_DEFAULT_TABLE, Fse.OFFSET_DEFAULT, Fse.OFFSET_MAX_LOG,
+                offsetEncoding);
+        final int matchLengthMode = chooseEncoding(matchLengthCodes, n, ZstdFormat.MAX_MATCH_LENGTH_CODE, MATCH_LENGTH_DEFAULT_TABLE,
+                Fse.MATCH_LENGTH_DEFAULT, Fse.MATCH_LENGTH_MAX_LOG, matchLengthEncoding);
+
+        block.writeBits(literalsLengthMode << 6 | offsetMode << 4 | matchLengthMode << 2, 8);
+        block.writeBytes(description.array(), 0, description.size());
+
+        // the sequences are encoded backwards, so the decoder reads them forward
+        final BitWriter writer = block;
+        final int last = n - 1;
+        int literalsLengthState = literalsLengthEncoding.initialState(literalsLengthCodes[last]);
+        int matchLengthState = matchLengthEncoding.initialState(matchLengthCodes[last]);
+        int offsetState = offsetEncoding.initialState(offsetCodes[last]);
+        writeExtraBits(writer, last);
+
+        for (int i = last - 1; i >= 0; i--) {
+            offsetState = offsetEncoding.encode(writer, offsetState, offsetCodes[i]);
+            matchLengthState = matchLengthEncoding.encode(writer, matchLengthState, matchLengthCodes[i]);
+            literalsLengthState = literalsLengthEncoding.encode(writer, literalsLengthState, literalsLengthCodes[i]);
+            writeExtraBits(writer, i);
+        }
+
+        matchLengthEncoding.flush(writer, matchLengthState);
+        offsetEncoding.flush(writer, offsetState);
+        literalsLengthEncoding.flush(writer, literalsLengthState);
+        writer.closeBackwardStream();
+    }
+
+    private void writeExtraBits(final BitWriter writer, final int i) {
+        final int literalsLengthCode = literalsLengthCodes[i];
+        final int matchLengthCode = matchLengthCodes[i];
+        final int offsetCode = offsetCodes[i];
+
+        writer.writeBits(sequences.getLiteralLength(i) - LITERALS_LENGTH_BASE[literalsLengthCode], LITERALS_LENGTH_BITS[literalsLengthCode]);
+        writer.writeBits(sequences.getMatchLength(i) - MATCH_LENGTH_BASE[matchLengthCode], MATCH_LENGTH_BITS[matchLengthCode]);
+        writer.writeBits(sequences.getDistance(i) + 3, offsetCode);
+    }
+
+    /**
+     * Chooses the cheapest of the RLE, predefined and FSE compressed encodings of the codes, writes the table description,
+     * if any, to the {@link #description}.
+     *
+     * @return the encoding mode.
+     */
+    private int chooseEncoding(final byte[] codes, final int n, final int maxDefaultSymbol, final Fse.EncodingTable defaultTable,
+            final short[] defaultNormalized, final int maxTableLog, final SymbolEncoding result) {
+        Arrays.fill(counts, 0);
+        int maxSymbol = 0;
+        for (int i = 0; i < n; i++) {
+            counts[codes[i]]++;
+            maxSymbol = Math.max(maxSymbol, codes[i]);
+        }
+
+        if (counts[maxSymbol] == n) {
+            description.writeBits(maxSymbol, 8);
+            result.table = null;
+            return MODE_RLE;
+        }
+
+        double defaultCost = Double.MAX_VALUE;
+        if (maxSymbol <= maxDefaultSymbol) {
+            defaultCost = cost(defaultNormalized, maxSymbol, defaultTable.tableLog);
+        }
+
+        final int tableLog = Fse.optimalTableLog(maxTableLog, n, maxSymbol);
+        Fse.normalize(counts, maxSymbol, n, tableLog, normalized);
+
+        final BitWriter tableDescription = stream;
+        tableDescription.reset();
+        Fse.writeNormalizedCounts(tableDescription, normalized, maxSymbol, tableLog);
+        tableDescription.alignToByte();
+
+        final double compressedCost = cost(normalized, maxSymbol, tableLog) + tableDescription.size() * 8;
+        if (defaultCost <= compressedCost) {
+            result.table = defaultTable;
+            return MODE_PREDEFINED;
+        }
+
+        description.writeBytes(tableDescription.array(), 0, tableDescription.size());
+        result.table = Fse.buildEncodingTable(normalized, maxSymbol, tableLog);
+        return MODE_FSE;
+    }
+
+    /**
+     * Estimates the number of bits the {@link #counts} take with the given distribution.
+     */
+    private double cost(final short[] distribution, final int maxSymbol, final int tableLog) {
+        double bits = 0;
+        for (int s = 0; s <= maxSymbol; s++) {
+            if (counts[s] != 0) {
+                final int probability = distribution[s] == -1 ? 1 : distribution[s];
+                bits += counts[s] * (tableLog - Math.log(probability) / Math.log(2));
+            }
+        }
+
+        return bits;
+    }
+
+    /**
+     * The FSE encoding of the sequence codes, the <tt>null</tt> table stands for the RLE mode, which doesn't write any bits.
+     */
+    private static final class SymbolEncoding {
+        Fse.EncodingTable table;
+
+        int initialState(final int symbol) {
+            return table == null ? 0 : table.initialState(symbol);
+        }
+
+        int encode(final BitWriter writer, final int state, final int symbol) {
+            return table == null ? 0 : table.encode(writer, state, symbol);
+        }
+
+        void flush(final BitWriter writer, final int state) {
+            if (table != null) {
+                table.flush(writer, state);
+            }
+        }
+    }
+}
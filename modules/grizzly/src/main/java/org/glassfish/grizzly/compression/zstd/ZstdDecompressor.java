@@ -0,0 +1,641 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.zstd;
+
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.BLOCK_COMPRESSED;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.BLOCK_RAW;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.BLOCK_RLE;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.LITERALS_COMPRESSED;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.LITERALS_LENGTH_BASE;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.LITERALS_LENGTH_BITS;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.LITERALS_RAW;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.LITERALS_RLE;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.MATCH_LENGTH_BASE;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.MATCH_LENGTH_BITS;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.MAX_BLOCK_SIZE;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.MODE_FSE;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.MODE_PREDEFINED;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.MODE_REPEAT;
+import static org.glassfish.grizzly.compression.zstd.ZstdFormat.MODE_RLE;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.glassfish.grizzly.compression.spi.Decompressor;
+
+/**
+ * The pure Java zstd decompressor, which supports all the frames produced by the zstd library, except the ones, which
+ * require a dictionary or a window bigger than {@link #MAX_WINDOW_SIZE}. The content checksum is not verified.
+ */
+final class ZstdDecompressor implements Decompressor {
+    /**
+     * The maximum window size, the frames, which require a bigger window are rejected.
+     */
+    static final int MAX_WINDOW_SIZE = Integer.getInteger(ZstdDecompressor.class.getName() + ".max-window-size", 8 * 1024 * 1024);
+
+    private static final Fse.DecodingTable LITERALS_LENGTH_DEFAULT_TABLE = Fse.buildDecodingTable(Fse.LITERALS_LENGTH_DEFAULT,
+            ZstdFormat.MAX_LITERALS_LENGTH_CODE, Fse.LITERALS_LENGTH_DEFAULT_LOG);
+    private static final Fse.DecodingTable MATCH_LENGTH_DEFAULT_TABLE = Fse.buildDecodingTable(Fse.MATCH_LENGTH_DEFAULT,
+            ZstdFormat.MAX_MATCH_LENGTH_CODE, Fse.MATCH_LENGTH_DEFAULT_LOG);
+    private static final Fse.DecodingTable OFFSET_DEFAULT_TABLE = Fse.buildDecodingTable(Fse.OFFSET_DEFAULT, ZstdFormat.MAX_DEFAULT_OFFSET_CODE,
+            Fse.OFFSET_DEFAULT_LOG);
+
+    private enum State {
+        FRAME_HEADER, BLOCK_HEADER, BLOCK, CHECKSUM, SKIPPABLE_FRAME
+    }
+
+    private State state = State.FRAME_HEADER;
+    private boolean frameComplete;
+
+    // the input, which hasn't been consumed yet
+    private byte[] input = new byte[1024];
+    private int inputStart;
+    private int inputEnd;
+
+    // the output of the current decompress() call
+    private byte[] output = new byte[1024];
+    private int outputLength;
+
+    private int windowSize;
+    private int blockMaximumSize;
+    private boolean hasChecksum;
+    private long skipRemaining;
+
+    private boolean lastBlock;
+    private int blockType;
+    private int blockSize;
+
+    // the decoded data, the history precedes the current block
+    private byte[] window;
+    private int windowLength;
+
+    private final int[] repeatedOffsets = new int[3];
+    private final byte[] literals = new byte[MAX_BLOCK_SIZE];
+    private final Huffman.DecodingTable huffmanTable = new Huffman.DecodingTable();
+    private final BackwardBitReader reader = new BackwardBitReader();
+    private final Fse.NormalizedCounts normalizedCounts = new Fse.NormalizedCounts();
+
+    private Fse.DecodingTable literalsLengthTable;
+    private Fse.DecodingTable offsetTable;
+    private Fse.DecodingTable matchLengthTable;
+    // the end of the last table description read by readTable
+    private int tableEnd;
+
+    @Override
+    public byte[] decompress(final byte[] src, final int offset, final int length) throws IOException {
+        append(src, offset, length);
+        outputLength = 0;
+
+        for (;;) {
+            final int available = inputEnd - inputStart;
+            switch (state) {
+            case FRAME_HEADER:
+                if (available < 4) {
+                    return output();
+                }
+                final int magic = readInt(inputStart);
+                if ((magic & ZstdFormat.SKIPPABLE_MAGIC_MASK) == ZstdFormat.SKIPPABLE_MAGIC) {
+                    if (available < 8) {
+                        return output();
+                    }
+                    skipRemaining = readInt(inputStart + 4) & 0xFFFFFFFFL;
+                    inputStart += 8;
+                    frameComplete = false;
+                    state = State.SKIPPABLE_FRAME;
+                    break;
+                }
+                if (magic != ZstdFormat.MAGIC) {
+                    throw new IOException("Unknown zstd frame magic number: " + Integer.toHexString(magic));
+                }
+                if (!readFrameHeader()) {
+                    return output();
+                }
+                frameComplete = false;
+                state = State.BLOCK_HEADER;
+                break;
+            case SKIPPABLE_FRAME:
+                final int skipped = (int) Math.min(skipRemaining, available);
+                inputStart += skipped;
+                skipRemaining -= skipped;
+                if (skipRemaining > 0) {
+                    return output();
+                }
+                frameComplete = true;
+                state = State.FRAME_HEADER;
+                break;
+            case BLOCK_HEADER:
+                if (available < 3) {
+                    return output();
+                }
+                final int header = readInt24(inputStart);
+                inputStart += 3;
+                lastBlock = (header & 1) != 0;
+                blockType = header >>> 1 & 3;
+                blockSize = header >>> 3;
+                if (blockType == 3) {
+                    throw new IOException("Reserved zstd block type");
+                }
+                if (blockSize > blockMaximumSize) {
+                    throw new IOException("zstd block is too large: " + blockSize);
+                }
+                state = State.BLOCK;
+                break;
+            case BLOCK:
+                final int required = blockType == BLOCK_RLE ? 1 : blockSize;
+                if (available < required) {
+                    return output();
+                }
+                final int start = prepareWindow();
+                decodeBlock(inputStart, inputStart + required);
+                inputStart += required;
+                appendOutput(start, windowLength - start);
+                if (lastBlock) {
+                    state = hasChecksum ? State.CHECKSUM : State.FRAME_HEADER;
+                    frameComplete = !hasChecksum;
+                } else {
+                    state = State.BLOCK_HEADER;
+                }
+                break;
+            case CHECKSUM:
+                if (available < 4) {
+                    return output();
+                }
+                inputStart += 4;
+                frameComplete = true;
+                state = State.FRAME_HEADER;
+                break;
+            default:
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    @Override
+    public boolean isFinished() {
+        return frameComplete && inputStart == inputEnd;
+    }
+
+    @Override
+    public void close() {
+        window = null;
+    }
+
+    /**
+     * Reads the frame header, RFC 8878 section 3.1.1.1.
+     *
+     * @return <tt>false</tt>, if more input is needed.
+     */
+    private boolean readFrameHeader() throws IOException {
+        final int available = inputEnd - inputStart;
+        if (available < 5) {
+            return false;
+        }
+
+        final int descriptor = input[inputStart + 4] & 0xFF;
+        final int contentSizeFlag = descriptor >>> 6;
+        final boolean singleSegment = (descriptor & 0x20) != 0;
+        final int dictionaryIdFlag = descriptor & 3;
+        if ((descriptor & 0x08) != 0) {
+            throw new IOException("Reserved zstd frame header bit is set");
+        }
+
+        final int dictionaryIdLength = dictionaryIdFlag == 3 ? 4 : dictionaryIdFlag;
+        final int contentSizeLength = contentSizeFlag == 0 ? (singleSegment ? 1 : 0) : 1 << contentSizeFlag;
+        final int headerLength = 5 + (singleSegment ? 0 : 1) + dictionaryIdLength + contentSizeLength;
+        if (available < headerLength) {
+            return false;
+        }
+
+        int p = inputStart + 5;
+        long size = 0;
+        if (!singleSegment) {
+            final int windowDescriptor = input[p++] & 0xFF;
+            final int exponent = windowDescriptor >>> 3;
+            final long base = 1L << (10 + exponent);
+            size = base + (base >>> 3) * (windowDescriptor & 7);
+        }
+
+        if (dictionaryIdLength > 0) {
+            long dictionaryId = 0;
+            for (int i = 0; i < dictionaryIdLength; i++) {
+                dictionaryId |= (long) (input[p++] & 0xFF) << (i << 3);
+            }
+            if (dictionaryId != 0) {
+                throw new IOException("zstd dictionaries are not supported");
+            }
+        }
+
+        if (singleSegment) {
+            for (int i = 0; i < contentSizeLength; i++) {
+                size |= (long) (input[p + i] & 0xFF) << (i << 3);
+            }
+            if (contentSizeLength == 2) {
+                size += 256;
+            }
+        }
+
+        if (size > MAX_WINDOW_SIZE) {
+            throw new IOException("zstd window is too large: " + size);
+        }
+
+        windowSize = (int) size;
+        blockMaximumSize = Math.min(MAX_BLOCK_SIZE, Math.max(windowSize, 1));
+        hasChecksum = (descriptor & 0x04) != 0;
+        inputStart += headerLength;
+
+        final int capacity = windowSize + MAX_BLOCK_SIZE;
+        if (window == null || window.length < capacity) {
+            window = new byte[capacity];
+        }
+        windowLength = 0;
+        repeatedOffsets[0] = 1;
+        repeatedOffsets[1] = 4;
+        repeatedOffsets[2] = 8;
+        literalsLengthTable = null;
+        offsetTable = null;
+        matchLengthTable = null;
+        return true;
+    }
+
+    /**
+     * Discards the history beyond the window, so the next block fits.
+     *
+     * @return the position of the next block in the window.
+     */
+    private int prepareWindow() {
+        if (windowLength + blockMaximumSize > window.length) {
+            final int keep = Math.min(windowSize, windowLength);
+            System.arraycopy(window, windowLength - keep, window, 0, keep);
+            windowLength = keep;
+        }
+
+        return windowLength;
+    }
+
+    private void decodeBlock(final int start, final int end) throws IOException {
+        switch (blockType) {
+        case BLOCK_RAW:
+            System.arraycopy(input, start, window, windowLength, end - start);
+            windowLength += end - start;
+            break;
+        case BLOCK_RLE:
+            Arrays.fill(window, windowLength, windowLength + blockSize, input[start]);
+            windowLength += blockSize;
+            break;
+        case BLOCK_COMPRESSED:
+            decodeCompressedBlock(start, end);
+            break;
+        default:
+            throw new IllegalStateException();
+        }
+    }
+
+    private void decodeCompressedBlock(final int start, final int end) throws IOException {
+        final byte[] src = input;
+        int p = start;
+
+        // the literals section, RFC 8878 section 3.1.1.3.1
+        final int literalsType = src[p] & 3;
+        final int sizeFormat = src[p] >>> 2 & 3;
+        int literalsLength;
+        if (literalsType == LITERALS_RAW || literalsType == LITERALS_RLE) {
+            switch (sizeFormat) {
+            case 0:
+            case 2:
+                literalsLength = (src[p] & 0xFF) >>> 3;
+                p += 1;
+                break;
+            case 1:
+                checkAvailable(p, 2, end);
+                literalsLength = readInt16(p) >>> 4;
+                p += 2;
+                break;
+            default:
+                checkAvailable(p, 3, end);
+                literalsLength = readInt24(p) >>> 4;
+                p += 3;
+            }
+
+            if (literalsLength > blockMaximumSize) {
+                throw new IOException("Corrupted zstd literals section");
+            }
+
+            if (literalsType == LITERALS_RAW) {
+                checkAvailable(p, literalsLength, end);
+                System.arraycopy(src, p, literals, 0, literalsLength);
+                p += literalsLength;
+            } else {
+                checkAvailable(p, 1, end);
+                Arrays.fill(literals, 0, literalsLength, src[p]);
+                p += 1;
+            }
+        } else {
+            final int compressedLength;
+            final boolean fourStreams = sizeFormat != 0;
+            switch (sizeFormat) {
+            case 0:
+            case 1:
+                checkAvailable(p, 3, end);
+                final int header3 = readInt24(p);
+                literalsLength = header3 >>> 4 & 0x3FF;
+                compressedLength = header3 >>> 14 & 0x3FF;
+                p += 3;
+                break;
+            case 2:
+                checkAvailable(p, 4, end);
+                final int header4 = readInt(p);
+                literalsLength = header4 >>> 4 & 0x3FFF;
+                compressedLength = header4 >>> 18 & 0x3FFF;
+                p += 4;
+                break;
+            default:
+                checkAvailable(p, 5, end);
+                final long header5 = readInt(p) & 0xFFFFFFFFL | (long) (src[p + 4] & 0xFF) << 32;
+                literalsLength = (int) (header5 >>> 4 & 0x3FFFF);
+                compressedLength = (int) (header5 >>> 22 & 0x3FFFF);
+                p += 5;
+            }
+
+            if (literalsLength > blockMaximumSize) {
+                throw new IOException("Corrupted zstd literals section");
+            }
+            checkAvailable(p, compressedLength, end);
+
+            final int literalsEnd = p + compressedLength;
+            if (literalsType == LITERALS_COMPRESSED) {
+                p += Huffman.readDescription(src, p, literalsEnd, huffmanTable);
+            } else if (!huffmanTable.isInitialized()) {
+                throw new IOException("zstd treeless literals without the previous Huffman table");
+            }
+
+            if (fourStreams) {
+                decodeFourStreams(p, literalsEnd, literalsLength);
+            } else {
+                huffmanTable.decodeStream(reader, src, p, literalsEnd, literals, 0, literalsLength);
+            }
+            p = literalsEnd;
+        }
+
+        decodeSequences(p, end, literalsLength);
+    }
+
+    private void decodeFourStreams(final int start, final int end, final int literalsLength) throws IOException {
+        checkAvailable(start, 6, end);
+        final int size1 = readInt16(start);
+        final int size2 = readInt16(start + 2);
+        final int size3 = readInt16(start + 4);
+        final int start1 = start + 6;
+        final int start2 = start1 + size1;
+        final int start3 = start2 + size2;
+        final int start4 = start3 + size3;
+        if (start4 > end) {
+            throw new IOException("Corrupted zstd literals jump table");
+        }
+
+        final int segment = (literalsLength + 3) / 4;
+        final int last = literalsLength - 3 * segment;
+        if (last < 0) {
+            throw new IOException("Corrupted zstd literals section");
+        }
+
+        huffmanTable.decodeStream(reader, input, start1, start2, literals, 0, segment);
+        huffmanTable.decodeStream(reader, input, start2, start3, literals, segment, segment);
+        huffmanTable.decodeStream(reader, input, start3, start4, literals, 2 * segment, segment);
+        huffmanTable.decodeStream(reader, input, start4, end, literals, 3 * segment, last);
+    }
+
+    /**
+     * Decodes the sequences section and executes the sequences, RFC 8878 sections 3.1.1.3.2 and 3.1.1.4.
+     */
+    private void decodeSequences(final int start, final int end, final int literalsLength) throws IOException {
+        final byte[] src = input;
+        int p = start;
+
+        checkAvailable(p, 1, end);
+        int n = src[p++] & 0xFF;
+        if (n >= 128) {
+            if (n < 255) {
+                checkAvailable(p, 1, end);
+                n = (n - 128 << 8) + (src[p++] & 0xFF);
+            } else {
+                checkAvailable(p, 2, end);
+                n = readInt16(p) + 0x7F00;
+                p += 2;
+            }
+        }
+
+        final int blockStart = windowLength;
+        if (n == 0) {
+            if (p != end) {
+                throw new IOException("Corrupted zstd sequences section");
+            }
+            copyLiterals(0, literalsLength, blockStart);
+            return;
+        }
+
+        checkAvailable(p, 1, end);
+        final int modes = src[p++] & 0xFF;
+        if ((modes & 3) != 0) {
+            throw new IOException("Reserved zstd sequences section bits are set");
+        }
+
+        literalsLengthTable = readTable(modes >>> 6, literalsLengthTable, LITERALS_LENGTH_DEFAULT_TABLE, Fse.LITERALS_LENGTH_MAX_LOG,
+                ZstdFormat.MAX_LITERALS_LENGTH_CODE, p, end);
+        p = tableEnd;
+        offsetTable = readTable(modes >>> 4 & 3, offsetTable, OFFSET_DEFAULT_TABLE, Fse.OFFSET_MAX_LOG, ZstdFormat.MAX_OFFSET_CODE, p, end);
+        p = tableEnd;
+        matchLengthTable = readTable(modes >>> 2 & 3, matchLengthTable, MATCH_LENGTH_DEFAULT_TABLE, Fse.MATCH_LENGTH_MAX_LOG,
+                ZstdFormat.MAX_MATCH_LENGTH_CODE, p, end);
+        p = tableEnd;
+
+        final Fse.DecodingTable llTable = literalsLengthTable;
+        final Fse.DecodingTable ofTable = offsetTable;
+        final Fse.DecodingTable mlTable = matchLengthTable;
+        final BackwardBitReader bits = reader;
+        bits.init(src, p, end);
+
+        int llState = bits.readBits(llTable.tableLog);
+        int ofState = bits.readBits(ofTable.tableLog);
+        int mlState = bits.readBits(mlTable.tableLog);
+
+        final byte[] out = window;
+        final int[] rep = repeatedOffsets;
+        final int limit = blockStart + blockMaximumSize;
+        int literalsPosition = 0;
+        int position = blockStart;
+
+        for (int i = 0; i < n; i++) {
+            final int llCode = llTable.symbols[llState] & 0xFF;
+            final int ofCode = ofTable.symbols[ofState] & 0xFF;
+            final int mlCode = mlTable.symbols[mlState] & 0xFF;
+            if (llCode > ZstdFormat.MAX_LITERALS_LENGTH_CODE || mlCode > ZstdFormat.MAX_MATCH_LENGTH_CODE
+                    || ofCode > ZstdFormat.MAX_OFFSET_CODE) {
+                throw new IOException("Corrupted zstd sequence");
+            }
+
+            final int offsetValue = (1 << ofCode) + bits.readBits(ofCode);
+            final int matchLength = MATCH_LENGTH_BASE[mlCode] + bits.readBits(MATCH_LENGTH_BITS[mlCode]);
+            final int literalLength = LITERALS_LENGTH_BASE[llCode] + bits.readBits(LITERALS_LENGTH_BITS[llCode]);
+
+            // the repeated offsets, RFC 8878 section 3.1.2.5
+            final int offset;
+            if (offsetValue > 3) {
+                offset = offsetValue - 3;
+                rep[2] = rep[1];
+                rep[1] = rep[0];
+                rep[0] = offset;
+            } else {
+                final int index = literalLength == 0 ? offsetValue : offsetValue - 1;
+                if (index == 0) {
+                    offset = rep[0];
+                } else {
+                    offset = index == 3 ? rep[0] - 1 : rep[index];
+                    if (offset <= 0) {
+                        throw new IOException("Corrupted zstd repeated offset");
+                    }
+                    if (index != 1) {
+                        rep[2] = rep[1];
+                    }
+                    rep[1] = rep[0];
+                    rep[0] = offset;
+                }
+            }
+
+            if (i != n - 1) {
+                llState = llTable.newStates[llState] + bits.readBits(llTable.nbBits[llState]);
+                mlState = mlTable.newStates[mlState] + bits.readBits(mlTable.nbBits[mlState]);
+                ofState = ofTable.newStates[ofState] + bits.readBits(ofTable.nbBits[ofState]);
+            }
+
+            if (literalsPosition + literalLength > literalsLength || position + literalLength + matchLength > limit) {
+                throw new IOException("Corrupted zstd sequence");
+            }
+            System.arraycopy(literals, literalsPosition, out, position, literalLength);
+            literalsPosition += literalLength;
+            position += literalLength;
+
+            if (offset > position || offset > windowSize) {
+                throw new IOException("Corrupted zstd match offset: " + offset);
+            }
+
+            // the match may overlap the data it produces
+            int from = position - offset;
+            if (offset >= matchLength) {
+                System.arraycopy(out, from, out, position, matchLength);
+                position += matchLength;
+            } else {
+                for (int j = 0; j < matchLength; j++) {
+                    out[position++] = out[from++];
+                }
+            }
+        }
+
+        if (!bits.isComplete()) {
+            throw new IOException("Corrupted zstd sequences bitstream");
+        }
+
+        windowLength = position;
+        if (position + literalsLength - literalsPosition > limit) {
+            throw new IOException("Corrupted zstd sequence");
+        }
+        copyLiterals(literalsPosition, literalsLength - literalsPosition, position);
+    }
+
+    private Fse.DecodingTable readTable(final int mode, final Fse.DecodingTable previous, final Fse.DecodingTable defaultTable, final int maxTableLog,
+            final int maxSymbol, final int start, final int end) throws IOException {
+        tableEnd = start;
+        switch (mode) {
+        case MODE_PREDEFINED:
+            return defaultTable;
+        case MODE_RLE:
+            checkAvailable(start, 1, end);
+            final int symbol = input[start] & 0xFF;
+            if (symbol > maxSymbol) {
+                throw new IOException("Corrupted zstd RLE sequence code");
+            }
+            tableEnd = start + 1;
+            return Fse.buildRleDecodingTable(symbol);
+        case MODE_FSE:
+            tableEnd = start + Fse.readNormalizedCounts(input, start, end, maxTableLog, maxSymbol, normalizedCounts);
+            return Fse.buildDecodingTable(normalizedCounts.normalized, normalizedCounts.maxSymbol, normalizedCounts.tableLog);
+        case MODE_REPEAT:
+            if (previous == null) {
+                throw new IOException("zstd repeat mode without the previous table");
+            }
+            return previous;
+        default:
+            throw new IllegalStateException();
+        }
+    }
+
+    private void copyLiterals(final int from, final int length, final int position) {
+        System.arraycopy(literals, from, window, position, length);
+        windowLength = position + length;
+    }
+
+    private void append(final byte[] src, final int offset, final int length) {
+        if (inputStart == inputEnd) {
+            inputStart = 0;
+            inputEnd = 0;
+        }
+
+        if (inputEnd + length > input.length) {
+            final int pending = inputEnd - inputStart;
+            if (pending + length > input.length) {
+                input = Arrays.copyOfRange(input, inputStart, inputStart + Math.max(pending + length, input.length << 1));
+            } else {
+                System.arraycopy(input, inputStart, input, 0, pending);
+            }
+            inputStart = 0;
+            inputEnd = pending;
+        }
+
+        System.arraycopy(src, offset, input, inputEnd, length);
+        inputEnd += length;
+    }
+
+    private static void checkAvailable(final int position, final int length, final int end) throws IOException {
+        if (position + length > end) {
+            throw new IOException("Truncated zstd block");
+        }
+    }
+
+    private int readInt16(final int p) {
+        return input[p] & 0xFF | (input[p + 1] & 0xFF) << 8;
+    }
+
+    private int readInt24(final int p) {
+        return readInt16(p) | (input[p + 2] & 0xFF) << 16;
+    }
+
+    private int readInt(final int p) {
+        return readInt24(p) | (input[p + 3] & 0xFF) << 24;
+    }
+
+    private void appendOutput(final int offset, final int length) {
+        if (outputLength + length > output.length) {
+            output = Arrays.copyOf(output, Math.max(output.length << 1, outputLength + length));
+        }
+
+        System.arraycopy(window, offset, output, outputLength, length);
+        outputLength += length;
+    }
+
+    private byte[] output() {
+        return Arrays.copyOf(output, outputLength);
+    }
+}
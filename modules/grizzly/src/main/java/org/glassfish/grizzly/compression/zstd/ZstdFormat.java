@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.compression.zstd;
+
+/**
+ * The constants of the zstd format, RFC 8878.
+ */
+final class ZstdFormat {
+    static final int MAGIC = 0xFD2FB528;
+    static final int SKIPPABLE_MAGIC = 0x184D2A50;
+    static final int SKIPPABLE_MAGIC_MASK = 0xFFFFFFF0;
+
+    static final int MAX_BLOCK_SIZE = 128 * 1024;
+
+    static final int BLOCK_RAW = 0;
+    static final int BLOCK_RLE = 1;
+    static final int BLOCK_COMPRESSED = 2;
+
+    static final int LITERALS_RAW = 0;
+    static final int LITERALS_RLE = 1;
+    static final int LITERALS_COMPRESSED = 2;
+    static final int LITERALS_TREELESS = 3;
+
+    static final int MODE_PREDEFINED = 0;
+    static final int MODE_RLE = 1;
+    static final int MODE_FSE = 2;
+    static final int MODE_REPEAT = 3;
+
+    static final int MAX_LITERALS_LENGTH_CODE = 35;
+    static final int MAX_MATCH_LENGTH_CODE = 52;
+    static final int MAX_OFFSET_CODE = 31;
+    // the highest offset code the predefined distribution can encode
+    static final int MAX_DEFAULT_OFFSET_CODE = 28;
+
+    static final int MIN_MATCH = 3;
+
+    static final int[] LITERALS_LENGTH_BASE = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 18, 20, 22, 24, 28, 32, 40, 48, 64, 128, 256, 512,
+            1024, 2048, 4096, 8192, 16384, 32768, 65536 };
+    static final int[] LITERALS_LENGTH_BITS = { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 3, 3, 4, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15,
+            16 };
+
+    static final int[] MATCH_LENGTH_BASE = { 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32,
+            33, 34, 35, 37, 39, 41, 43, 47, 51, 59, 67, 83, 99, 131, 259, 515, 1027, 2051, 4099, 8195, 16387, 32771, 65539 };
+    static final int[] MATCH_LENGTH_BITS = { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2,
+            3, 3, 4, 4, 5, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 };
+
+    private static final byte[] LITERALS_LENGTH_CODES = codes(LITERALS_LENGTH_BASE, 0, 64);
+    private static final byte[] MATCH_LENGTH_CODES = codes(MATCH_LENGTH_BASE, MIN_MATCH, 128);
+
+    private ZstdFormat() {
+    }
+
+    static int literalsLengthCode(final int literalsLength) {
+        return literalsLength < 64 ? LITERALS_LENGTH_CODES[literalsLength] : Fse.highBit(literalsLength) + 19;
+    }
+
+    static int matchLengthCode(final int matchLength) {
+        final int value = matchLength - MIN_MATCH;
+        return value < 128 ? MATCH_LENGTH_CODES[value] : Fse.highBit(value) + 36;
+    }
+
+    private static byte[] codes(final int[] base, final int min, final int size) {
+        final byte[] codes = new byte[size];
+        int code = 0;
+        for (int value = 0; value < size; value++) {
+            while (code + 1 < base.length && base[code + 1] - min <= value) {
+                code++;
+            }
+            codes[value] = (byte) code;
+        }
+
+        return codes;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.glassfish.grizzly.compression.brotli.BrotliCompressionProvider;
+import org.glassfish.grizzly.compression.spi.CompressionDecoder;
+import org.glassfish.grizzly.compression.spi.CompressionProvider;
+import org.glassfish.grizzly.compression.spi.CompressionProviders;
+import org.junit.Test;
+
+/**
+ * Test the built-in brotli {@link CompressionProvider}. The expected streams were verified with the reference decoder.
+ */
+public class BrotliTest {
+
+    private static final String EXPECTED_JSON = "03bf030000b08b0110000060002eda56550f00000090f055120a7a20517a020000000000000000000000000000000000000000000000507b38020000"
+            + "00000000000000000c5627000020e36afffbc3b523358127df0712ae72dc758340c9e78b342323b022b061f9a34240641910085988c0c83222689145"
+            + "083a649910f4c862040332714d8cccd2229a9e48738a72a78eb9ec4e5c54f43bf5cc25b8d576194eb9898adb4897e3149c28b96d74494ec989965373"
+            + "92e4169d643955477de0b4aa64396527596ed9499a537692e6b6d2a5b95db84b731be9d29cb29335a78d64cb293bd972ca4e96dcb2932da7ece87f9c"
+            + "56952da7ece84bdd66bd34a7ec64cd8f2b0d";
+
+    @Test
+    public void testEmptyStream() throws Exception {
+        assertArrayEquals(new byte[] { 0x33 }, ZstdTest.compress(BrotliCompressionProvider.ENCODING, -1, new byte[0], 1024));
+    }
+
+    @Test
+    public void testExpectedStream() throws Exception {
+        final byte[] content = ZstdTest.createContent(40);
+        assertArrayEquals(ZstdTest.fromHex(EXPECTED_JSON), ZstdTest.compress(BrotliCompressionProvider.ENCODING, 5, content, 65536));
+        // the chunks are buffered up to the meta-block size, so the chunking doesn't change the stream
+        assertArrayEquals(ZstdTest.fromHex(EXPECTED_JSON), ZstdTest.compress(BrotliCompressionProvider.ENCODING, 5, content, 100));
+    }
+
+    @Test
+    public void testIncompressibleContent() throws Exception {
+        final byte[] content = new byte[300 * 1024];
+        new Random(42).nextBytes(content);
+
+        // the meta-blocks are stored uncompressed
+        assertTrue(ZstdTest.compress(BrotliCompressionProvider.ENCODING, 5, content, 65536).length < content.length + 100);
+    }
+
+    @Test
+    public void testProvider() throws Exception {
+        final CompressionProvider provider = CompressionProviders.get(BrotliCompressionProvider.ENCODING);
+        assertEquals(BrotliCompressionProvider.ENCODING, provider.getEncoding());
+        assertNull(provider.createDecompressor());
+        assertFalse(new CompressionDecoder(BrotliCompressionProvider.ENCODING).isSupported());
+        assertNull(CompressionProviders.get("unknown"));
+    }
+}
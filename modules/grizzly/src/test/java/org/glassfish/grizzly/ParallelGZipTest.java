@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.glassfish.grizzly.attributes.AttributeHolder;
+import org.glassfish.grizzly.attributes.AttributeStorage;
+import org.glassfish.grizzly.compression.zip.GZipEncoder;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.junit.Test;
+
+/**
+ * Test the parallel compression mode of the {@link GZipEncoder}.
+ */
+public class ParallelGZipTest {
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    @Test
+    public void testParallelStreamIsValidGZip() throws Exception {
+        final byte[] content = createContent(3 * 1024 * 1024 + 123);
+
+        // the first 100K are compressed serially, the rest in parallel
+        final GZipEncoder encoder = new GZipEncoder(512, 100 * 1024, BLOCK_SIZE);
+        assertArrayEquals(content, gunzip(encode(encoder, content, 8192)));
+        // the same encoder is reusable for the next stream
+        assertArrayEquals(content, gunzip(encode(encoder, content, 1024 * 1024)));
+    }
+
+    @Test
+    public void testParallelFromTheStart() throws Exception {
+        final GZipEncoder encoder = new GZipEncoder(512, 0, BLOCK_SIZE);
+
+        final byte[] content = createContent(5 * BLOCK_SIZE);
+        assertArrayEquals(content, gunzip(encode(encoder, content, BLOCK_SIZE)));
+
+        // the last block is empty
+        final byte[] exactBlock = createContent(BLOCK_SIZE);
+        assertArrayEquals(exactBlock, gunzip(encode(encoder, exactBlock, 1000)));
+    }
+
+    @Test
+    public void testCompressionRatio() throws Exception {
+        final byte[] content = createContent(4 * 1024 * 1024);
+        final byte[] serial = encode(new GZipEncoder(8192), content, 65536);
+        final byte[] parallel = encode(new GZipEncoder(8192, 0, GZipEncoder.DEFAULT_PARALLEL_BLOCK_SIZE), content, 65536);
+
+        assertArrayEquals(content, gunzip(parallel));
+        // the dictionary keeps the compression ratio close to the serial one
+        assertTrue(parallel.length < serial.length * 1.05);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooSmallBlockSize() {
+        new GZipEncoder(512, 0, GZipEncoder.MIN_PARALLEL_BLOCK_SIZE - 1);
+    }
+
+    private static byte[] encode(final GZipEncoder encoder, final byte[] content, final int chunkSize) {
+        final AttributeStorage storage = new AttributeStorage() {
+            private final AttributeHolder holder = Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createUnsafeAttributeHolder();
+
+            @Override
+            public AttributeHolder getAttributes() {
+                return holder;
+            }
+        };
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < content.length; offset += chunkSize) {
+            final Buffer input = Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, content, offset, Math.min(chunkSize, content.length - offset));
+            final TransformationResult<Buffer, Buffer> result = encoder.transform(storage, input);
+            write(out, result.getMessage());
+            result.recycle();
+        }
+
+        write(out, encoder.finish(storage));
+        return out.toByteArray();
+    }
+
+    private static void write(final ByteArrayOutputStream out, final Buffer buffer) {
+        if (buffer != null) {
+            final byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static byte[] gunzip(final byte[] gzip) throws IOException {
+        final GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buf = new byte[8192];
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            out.write(buf, 0, len);
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Creates the JSON-like content, which is compressible, but not trivially.
+     */
+    private static byte[] createContent(final int size) {
+        final Random random = new Random(size);
+        final StringBuilder sb = new StringBuilder(size + 64);
+        while (sb.length() < size) {
+            sb.append("{\"id\":").append(random.nextInt(100000)).append(",\"name\":\"item-").append(Long.toHexString(random.nextLong()))
+                    .append("\",\"price\":").append(random.nextInt(1000)).append("},\n");
+        }
+        sb.setLength(size);
+
+        return sb.toString().getBytes();
+    }
+}
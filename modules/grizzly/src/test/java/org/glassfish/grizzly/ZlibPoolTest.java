@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.glassfish.grizzly.attributes.AttributeHolder;
+import org.glassfish.grizzly.attributes.AttributeStorage;
+import org.glassfish.grizzly.compression.zip.GZipDecoder;
+import org.glassfish.grizzly.compression.zip.GZipEncoder;
+import org.glassfish.grizzly.compression.zip.PooledGZIPOutputStream;
+import org.glassfish.grizzly.compression.zip.ZlibPool;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.CompositeBuffer;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.junit.Test;
+
+/**
+ * Test the {@link ZlibPool}.
+ */
+public class ZlibPoolTest {
+
+    @Test
+    public void testReuseAndBounds() {
+        final ZlibPool pool = new ZlibPool(1);
+
+        final Deflater deflater = pool.acquireDeflater(Deflater.BEST_SPEED);
+        final Deflater deflater2 = pool.acquireDeflater(Deflater.BEST_SPEED);
+        pool.releaseDeflater(Deflater.BEST_SPEED, deflater);
+        // the pool is full
+        pool.releaseDeflater(Deflater.BEST_SPEED, deflater2);
+
+        assertEquals(2, pool.getDeflatersCreated());
+        assertEquals(1, pool.getDeflatersDiscarded());
+        assertEquals(1, pool.getPooledDeflaters());
+
+        // the deflaters are pooled per level
+        pool.releaseDeflater(Deflater.BEST_COMPRESSION, pool.acquireDeflater(Deflater.BEST_COMPRESSION));
+        assertEquals(3, pool.getDeflatersCreated());
+        assertSame(deflater, pool.acquireDeflater(Deflater.BEST_SPEED));
+        assertEquals(1, pool.getDeflatersReused());
+
+        final Inflater inflater = pool.acquireInflater();
+        pool.releaseInflater(inflater);
+        assertSame(inflater, pool.acquireInflater());
+        assertEquals(1, pool.getInflatersCreated());
+        assertEquals(1, pool.getInflatersReused());
+    }
+
+    @Test
+    public void testGZipTransformersReturnInstances() throws Exception {
+        final ZlibPool pool = ZlibPool.getDefault();
+        final byte[] content = new byte[10000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 31);
+        }
+
+        final GZipEncoder encoder = new GZipEncoder();
+        final GZipDecoder decoder = new GZipDecoder();
+        final AttributeStorage storage = newStorage();
+
+        // the first round might create the instances, the next ones have to reuse them
+        roundTrip(encoder, decoder, storage, content);
+        final long deflatersCreated = pool.getDeflatersCreated();
+        final long inflatersCreated = pool.getInflatersCreated();
+
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(content, roundTrip(encoder, decoder, storage, content));
+        }
+
+        assertEquals(deflatersCreated, pool.getDeflatersCreated());
+        assertEquals(inflatersCreated, pool.getInflatersCreated());
+        assertTrue(pool.getDeflatersReused() >= 3);
+        assertTrue(pool.getInflatersReused() >= 3);
+    }
+
+    @Test
+    public void testPooledGZIPOutputStream() throws Exception {
+        final ZlibPool pool = new ZlibPool(4);
+        final byte[] content = "Hello, compressed world! Hello, compressed world!".getBytes();
+
+        for (int i = 0; i < 2; i++) {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (PooledGZIPOutputStream out = new PooledGZIPOutputStream(baos, pool, Deflater.DEFAULT_COMPRESSION, 512)) {
+                out.write(content, 0, 10);
+                out.write(content[10]);
+                out.write(content, 11, content.length - 11);
+            }
+
+            final GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(baos.toByteArray()));
+            final byte[] decoded = new byte[content.length + 1];
+            int read = 0;
+            int len;
+            while ((len = in.read(decoded, read, decoded.length - read)) > 0) {
+                read += len;
+            }
+
+            assertArrayEquals(content, Arrays.copyOf(decoded, read));
+        }
+
+        assertEquals(1, pool.getDeflatersCreated());
+        assertEquals(1, pool.getDeflatersReused());
+    }
+
+    private static byte[] roundTrip(final GZipEncoder encoder, final GZipDecoder decoder, final AttributeStorage storage, final byte[] content)
+            throws Exception {
+        final MemoryManager mm = MemoryManager.DEFAULT_MEMORY_MANAGER;
+
+        final TransformationResult<Buffer, Buffer> encoded = encoder.transform(storage, Buffers.wrap(mm, content));
+        final Buffer gzip = Buffers.appendBuffers(mm, encoded.getMessage(), encoder.finish(storage));
+        encoded.recycle();
+
+        final TransformationResult<Buffer, Buffer> decoded = decoder.transform(storage, gzip);
+        Buffer result = decoded.getMessage();
+        final Buffer remainder = decoded.getExternalRemainder();
+        decoded.recycle();
+        if (remainder != null && remainder.hasRemaining()) {
+            // the trailer
+            final TransformationResult<Buffer, Buffer> last = decoder.transform(storage, remainder);
+            if (last.getMessage() != null) {
+                result = CompositeBuffer.newBuffer(mm, result, last.getMessage());
+            }
+            last.recycle();
+        }
+
+        final byte[] bytes = new byte[result.remaining()];
+        result.get(bytes);
+        return bytes;
+    }
+
+    private static AttributeStorage newStorage() {
+        return new AttributeStorage() {
+            private final AttributeHolder holder = Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createUnsafeAttributeHolder();
+
+            @Override
+            public AttributeHolder getAttributes() {
+                return holder;
+            }
+        };
+    }
+}
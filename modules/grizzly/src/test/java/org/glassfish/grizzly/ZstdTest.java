@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.glassfish.grizzly.attributes.AttributeHolder;
+import org.glassfish.grizzly.attributes.AttributeStorage;
+import org.glassfish.grizzly.compression.spi.CompressionDecoder;
+import org.glassfish.grizzly.compression.spi.CompressionEncoder;
+import org.glassfish.grizzly.compression.spi.CompressionProviders;
+import org.glassfish.grizzly.compression.spi.Compressor;
+import org.glassfish.grizzly.compression.spi.Decompressor;
+import org.glassfish.grizzly.compression.zstd.ZstdCompressionProvider;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.junit.Test;
+
+/**
+ * Test the built-in zstd {@link org.glassfish.grizzly.compression.spi.CompressionProvider}.
+ */
+public class ZstdTest {
+    // 1919 bytes of JSON compressed by the reference implementation (level 19), uses the repeat offsets and FSE tables
+    private static final String REFERENCE_FRAME = "28b52ffd607f06bd050052c81716903b07d7e96bd77783dc8d2dbbbbfd651e8c59cf8e200f1d3664b85040c4a351e1bb7bbb6267eb"
+            + "e9afdb179e3efaf976b69b9599d35e4e3fc1a51bb2b72e38f49b8114113d9a6a34b5e8907594e269aa0a98e4599a4d98a269525964291442a811e076fb7f0650292af"
+            + "9127010782c9ee05f5adc04f9f122c4afdc75b1c7d5efed0a6ee709b8ca8a83587d239754e64d39209e20278e2f8813c317c089be59547473e576a75cd04dbd0b2ed"
+            + "4cb3dd52e01b10a";
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final Random random = new Random(42);
+        final byte[] randomContent = new byte[300 * 1024];
+        random.nextBytes(randomContent);
+        final byte[] zeros = new byte[200 * 1024];
+
+        final byte[][] contents = { new byte[0], "a".getBytes(), zeros, randomContent, createContent(10), createContent(1000),
+                createContent(20000) };
+
+        for (int level : new int[] { 1, 3, 7, 19 }) {
+            for (byte[] content : contents) {
+                for (int chunkSize : new int[] { 1000, 64 * 1024, 1024 * 1024 }) {
+                    final byte[] compressed = compress(ZstdCompressionProvider.ENCODING, level, content, chunkSize);
+                    assertArrayEquals("level=" + level + " length=" + content.length + " chunk=" + chunkSize, content,
+                            decompress(compressed, chunkSize));
+                    // the compressed stream is parsed correctly, when it arrives byte by byte
+                    if (content.length < 2000) {
+                        assertArrayEquals(content, decompress(compressed, 1));
+                    }
+                }
+            }
+        }
+
+        // the incompressible content is stored, so it doesn't grow much
+        assertTrue(compress(ZstdCompressionProvider.ENCODING, 3, randomContent, 65536).length < randomContent.length + 100);
+        assertTrue(compress(ZstdCompressionProvider.ENCODING, 3, zeros, 65536).length < 100);
+    }
+
+    @Test
+    public void testReferenceFrame() throws Exception {
+        final byte[] frame = fromHex(REFERENCE_FRAME);
+        assertArrayEquals(createContent(40), decompress(frame, 65536));
+        assertArrayEquals(createContent(40), decompress(frame, 7));
+
+        // the concatenated frames are decompressed as one stream
+        final byte[] twoFrames = Arrays.copyOf(frame, frame.length * 2);
+        System.arraycopy(frame, 0, twoFrames, frame.length, frame.length);
+        final byte[] content = createContent(40);
+        final byte[] twoContents = Arrays.copyOf(content, content.length * 2);
+        System.arraycopy(content, 0, twoContents, content.length, content.length);
+        assertArrayEquals(twoContents, decompress(twoFrames, 65536));
+    }
+
+    @Test
+    public void testCorruptedFrame() throws Exception {
+        final byte[] frame = fromHex(REFERENCE_FRAME);
+        frame[0] = 0;
+        try {
+            decompress(frame, 65536);
+            fail("The invalid magic number is expected to be detected");
+        } catch (IOException expected) {
+        }
+
+        final byte[] truncated = Arrays.copyOf(fromHex(REFERENCE_FRAME), 100);
+        final Decompressor decompressor = CompressionProviders.get(ZstdCompressionProvider.ENCODING).createDecompressor();
+        decompressor.decompress(truncated, 0, truncated.length);
+        assertFalse(decompressor.isFinished());
+        decompressor.close();
+    }
+
+    @Test
+    public void testTransformers() throws Exception {
+        final CompressionEncoder encoder = new CompressionEncoder(ZstdCompressionProvider.ENCODING, -1);
+        final CompressionDecoder decoder = new CompressionDecoder(ZstdCompressionProvider.ENCODING);
+        assertTrue(decoder.isSupported());
+
+        final AttributeStorage storage = createStorage();
+        final byte[] content = createContent(5000);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < content.length; offset += 8192) {
+            final Buffer input = Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, content, offset, Math.min(8192, content.length - offset));
+            final TransformationResult<Buffer, Buffer> result = encoder.transform(storage, input);
+            write(out, result.getMessage());
+            result.recycle();
+        }
+        write(out, encoder.finish(storage));
+        // the finished stream is not terminated twice
+        assertNull(encoder.finish(storage));
+
+        final TransformationResult<Buffer, Buffer> result = decoder.transform(storage, Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, out.toByteArray()));
+        final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        write(decoded, result.getMessage());
+        result.recycle();
+        assertArrayEquals(content, decoded.toByteArray());
+    }
+
+    static byte[] compress(final String encoding, final int level, final byte[] content, final int chunkSize) throws IOException {
+        final Compressor compressor = CompressionProviders.get(encoding).createCompressor(level);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < content.length; offset += chunkSize) {
+            out.write(compressor.compress(content, offset, Math.min(chunkSize, content.length - offset)));
+        }
+        out.write(compressor.finish());
+        compressor.close();
+
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(final byte[] compressed, final int chunkSize) throws IOException {
+        final Decompressor decompressor = CompressionProviders.get(ZstdCompressionProvider.ENCODING).createDecompressor();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < compressed.length; offset += chunkSize) {
+            out.write(decompressor.decompress(compressed, offset, Math.min(chunkSize, compressed.length - offset)));
+        }
+        assertTrue(decompressor.isFinished());
+        decompressor.close();
+
+        return out.toByteArray();
+    }
+
+    private static AttributeStorage createStorage() {
+        return new AttributeStorage() {
+            private final AttributeHolder holder = Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createUnsafeAttributeHolder();
+
+            @Override
+            public AttributeHolder getAttributes() {
+                return holder;
+            }
+        };
+    }
+
+    private static void write(final ByteArrayOutputStream out, final Buffer buffer) {
+        if (buffer != null) {
+            final byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Creates the JSON-like content with the given number of records.
+     */
+    static byte[] createContent(final int records) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < records; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"item-").append(i * 7 % 13).append("\",\"tags\":[\"a\",\"b\",\"c\"]},\n");
+        }
+
+        return sb.toString().getBytes();
+    }
+
+    static byte[] fromHex(final String hex) {
+        final byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+
+        return bytes;
+    }
+}
@@ -19,6 +19,7 @@ package org.glassfish.grizzly.http.ajp;
 import java.util.Properties;
 
 import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.http.HeaderTemplate;
 import org.glassfish.grizzly.http.HttpCodecFilter;
 import org.glassfish.grizzly.http.server.AddOn;
 import org.glassfish.grizzly.http.server.HttpServerFilter;
@@ -96,8 +97,13 @@ public class AjpAddOn implements AddOn {
         final int httpServerFilterIdx = builder.indexOfType(HttpServerFilter.class);
 
         int idx;
+        HeaderTemplate defaultResponseHeaderTemplate = null;
 
         if (httpCodecFilterIdx >= 0) {
+            final HttpCodecFilter httpCodecFilter = (HttpCodecFilter) builder.get(httpCodecFilterIdx);
+            if (httpCodecFilter instanceof org.glassfish.grizzly.http.HttpServerFilter) {
+                defaultResponseHeaderTemplate = ((org.glassfish.grizzly.http.HttpServerFilter) httpCodecFilter).getDefaultResponseHeaderTemplate();
+            }
             builder.remove(httpCodecFilterIdx);
             idx = httpCodecFilterIdx;
         } else {
@@ -110,6 +116,7 @@ public class AjpAddOn implements AddOn {
             final AjpHandlerFilter ajpHandlerFilter = createAjpHandlerFilter();
             ajpHandlerFilter.setSecret(secret);
             ajpHandlerFilter.setTomcatAuthentication(isTomcatAuthentication);
+            ajpHandlerFilter.setDefaultResponseHeaderTemplate(defaultResponseHeaderTemplate);
 
             builder.add(idx + 1, ajpHandlerFilter);
         }
@@ -32,6 +32,7 @@ import org.glassfish.grizzly.filterchain.BaseFilter;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.filterchain.FilterChainEvent;
 import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.http.HeaderTemplate;
 import org.glassfish.grizzly.http.HttpContent;
 import org.glassfish.grizzly.http.HttpContext;
 import org.glassfish.grizzly.http.HttpHeader;
@@ -56,6 +57,7 @@ public class AjpHandlerFilter extends BaseFilter {
 
     private String secret;
     private boolean isTomcatAuthentication = true;
+    private HeaderTemplate defaultResponseHeaderTemplate;
 
     private final Buffer NEED_MORE_DATA_MESSAGE = Buffers.cloneBuffer(Buffers.EMPTY_BUFFER);
 
@@ -119,6 +121,24 @@ public class AjpHandlerFilter extends BaseFilter {
         this.secret = requiredSecret;
     }
 
+    /**
+     * @return the {@link HeaderTemplate}, which is sent with every response, which doesn't have its own template, or
+     * <tt>null</tt>.
+     */
+    public HeaderTemplate getDefaultResponseHeaderTemplate() {
+        return defaultResponseHeaderTemplate;
+    }
+
+    /**
+     * Sets the {@link HeaderTemplate}, which is sent with every response, which doesn't have its own template set with
+     * {@link HttpHeader#setHeaderTemplate(HeaderTemplate)}.
+     *
+     * @param defaultResponseHeaderTemplate the {@link HeaderTemplate}, or <tt>null</tt>.
+     */
+    public void setDefaultResponseHeaderTemplate(final HeaderTemplate defaultResponseHeaderTemplate) {
+        this.defaultResponseHeaderTemplate = defaultResponseHeaderTemplate;
+    }
+
     /**
      * Add the {@link ShutdownHandler}, which will be called, when shutdown request received.
      *
@@ -209,6 +229,9 @@ public class AjpHandlerFilter extends BaseFilter {
         final HttpResponsePacket httpResponsePacket = (HttpResponsePacket) httpHeader;
         Buffer encodedBuffer = null;
         if (!httpHeader.isCommitted()) {
+            if (defaultResponseHeaderTemplate != null && httpResponsePacket.getHeaderTemplate() == null) {
+                httpResponsePacket.setHeaderTemplate(defaultResponseHeaderTemplate);
+            }
             encodedBuffer = AjpMessageUtils.encodeHeaders(memoryManager, httpResponsePacket);
             if (httpResponsePacket.isAcknowledgement()) {
                 encodedBuffer.trim();
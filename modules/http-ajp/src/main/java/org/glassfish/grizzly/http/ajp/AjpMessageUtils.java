@@ -23,6 +23,7 @@ import static org.glassfish.grizzly.http.util.HttpCodecUtils.resizeBuffer;
 import java.io.IOException;
 
 import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.HeaderTemplate;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
 import org.glassfish.grizzly.http.util.Ascii;
@@ -401,6 +402,10 @@ final class AjpMessageUtils {
                 final Buffer contentLengthBuffer = getLongAsBuffer(mm, contentLength);
                 headers.setValue("Content-Length").setBuffer(contentLengthBuffer, contentLengthBuffer.position(), contentLengthBuffer.limit());
             }
+            final HeaderTemplate headerTemplate = httpResponsePacket.getHeaderTemplate();
+            if (headerTemplate != null) {
+                headerTemplate.copyTo(headers);
+            }
 
             final int numHeaders = headers.size();
 
@@ -133,6 +133,13 @@ public class CompressionEncodingFilter implements EncodingFilter {
             return false;
         }
 
+        // If the client accepts several of the configured encodings,
+        // leave the response to the negotiated one
+        if (compressionConfig.isCompressionEncoding(aliases)
+                && !contains(aliases, compressionConfig.selectCompressionEncoding(response.getRequest()))) {
+            return false;
+        }
+
         // If force mode, always compress (test purposes only)
         if (compressionConfig.getCompressionMode() == CompressionMode.FORCE) {
             response.setChunked(true);
@@ -182,4 +189,14 @@ public class CompressionEncodingFilter implements EncodingFilter {
         }
         return false;
     }
+
+    private static boolean contains(final String[] aliases, final String encoding) {
+        for (String alias : aliases) {
+            if (alias.equals(encoding)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
 }
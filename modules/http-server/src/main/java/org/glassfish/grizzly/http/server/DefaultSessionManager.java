@@ -16,23 +16,38 @@
 
 package org.glassfish.grizzly.http.server;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Random;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.glassfish.grizzly.http.Cookie;
 import org.glassfish.grizzly.http.server.util.Globals;
 
 /**
  * Default {@link SessionManager} implementation.
+ * <p>
+ * The sessions are expired by the background thread, which keeps the sessions in the buckets ordered by the expiration
+ * time, so each tick it checks only the sessions, which might have expired. A session, which has been accessed since it
+ * was put into the bucket, is moved to the bucket of its new expiration time, so the access itself costs nothing. The
+ * expired session is also discarded, when it is looked up, even if the background thread hasn't got to it yet.
  */
 public class DefaultSessionManager implements SessionManager {
 
+    /**
+     * The expiration tick in milliseconds.
+     */
+    private static final long EXPIRATION_TICK = Long.getLong(DefaultSessionManager.class.getName() + ".expiration-tick", 1000);
+
     /**
      * @return <tt>DefaultSessionManager</tt> singleton
      */
@@ -50,6 +65,18 @@ public class DefaultSessionManager implements SessionManager {
      */
     private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
 
+    /**
+     * The sessions, which have been created or have changed their timeout, and have to be (re)scheduled.
+     */
+    private final Queue<ManagedSession> scheduleQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The sessions by the expiration tick, accessed by {@link #expireSessions(long)} only.
+     */
+    private final TreeMap<Long, List<ManagedSession>> expirationBuckets = new TreeMap<>();
+
+    private final AtomicLong expiredSessions = new AtomicLong();
+
     private final Random rnd = new Random();
 
     private String sessionCookieName = Globals.SESSION_COOKIE_NAME;
@@ -71,23 +98,12 @@ public class DefaultSessionManager implements SessionManager {
 
             @Override
             public void run() {
-                long currentTime = System.currentTimeMillis();
-                Iterator<Map.Entry<String, Session>> iterator = sessions.entrySet().iterator();
-                Map.Entry<String, Session> entry;
-                while (iterator.hasNext()) {
-                    entry = iterator.next();
-                    final Session session = entry.getValue();
-
-                    if (!session.isValid() || session.getSessionTimeout() > 0 && currentTime - session.getTimestamp() > session.getSessionTimeout()) {
-                        session.setValid(false);
-                        iterator.remove();
-                    }
-                }
+                expireSessions(System.currentTimeMillis());
             }
-        }, 5, 5, TimeUnit.SECONDS);
+        }, EXPIRATION_TICK, EXPIRATION_TICK, TimeUnit.MILLISECONDS);
     }
 
-    private DefaultSessionManager() {
+    DefaultSessionManager() {
     }
 
     @Override
@@ -96,7 +112,11 @@ public class DefaultSessionManager implements SessionManager {
         if (requestedSessionId != null) {
             final Session session = sessions.get(requestedSessionId);
             if (session != null && session.isValid()) {
-                return session;
+                if (!isExpired(session, System.currentTimeMillis())) {
+                    return session;
+                }
+
+                expire(session);
             }
         }
 
@@ -106,7 +126,7 @@ public class DefaultSessionManager implements SessionManager {
 
     @Override
     public Session createSession(final Request request) {
-        final Session session = new Session();
+        final ManagedSession session = new ManagedSession();
 
         String requestedSessionId;
         do {
@@ -114,6 +134,8 @@ public class DefaultSessionManager implements SessionManager {
             session.setIdInternal(requestedSessionId);
         } while (sessions.putIfAbsent(requestedSessionId, session) != null);
 
+        // the timeout is set after the session is created, so the session is scheduled by the expirer thread
+        scheduleQueue.add(session);
         return session;
     }
 
@@ -145,10 +167,121 @@ public class DefaultSessionManager implements SessionManager {
         return sessionCookieName;
     }
 
+    /**
+     * @return the number of the sessions.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return the number of the sessions, which have expired so far.
+     */
+    public long getExpiredSessionCount() {
+        return expiredSessions.get();
+    }
+
+    /**
+     * Expires the sessions, which have been scheduled to expire by the given time and haven't been accessed since.
+     */
+    synchronized void expireSessions(final long currentTime) {
+        ManagedSession session;
+        while ((session = scheduleQueue.poll()) != null) {
+            schedule(session);
+        }
+
+        final long currentTick = currentTime / EXPIRATION_TICK;
+        Map.Entry<Long, List<ManagedSession>> bucket;
+        while ((bucket = expirationBuckets.firstEntry()) != null && bucket.getKey() <= currentTick) {
+            expirationBuckets.remove(bucket.getKey());
+
+            for (ManagedSession s : bucket.getValue()) {
+                if (s.expirationTick != bucket.getKey()) {
+                    // the session has been rescheduled to the earlier tick
+                    continue;
+                }
+
+                s.expirationTick = -1;
+                if (!s.isValid()) {
+                    sessions.remove(s.getIdInternal(), s);
+                } else if (isExpired(s, currentTime)) {
+                    expire(s);
+                } else {
+                    // the session has been accessed since it was scheduled
+                    schedule(s);
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts the session into the bucket of its expiration tick, the sessions without timeout are not scheduled.
+     */
+    private void schedule(final ManagedSession session) {
+        final long timeout = session.getSessionTimeout();
+        if (timeout <= 0 || !session.isValid()) {
+            return;
+        }
+
+        // round up, so the session is checked once it has expired
+        final long tick = (session.getTimestamp() + timeout + EXPIRATION_TICK) / EXPIRATION_TICK;
+        if (session.expirationTick != -1 && session.expirationTick <= tick) {
+            // the session will be checked and rescheduled anyway
+            return;
+        }
+
+        session.expirationTick = tick;
+        List<ManagedSession> bucket = expirationBuckets.get(tick);
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            expirationBuckets.put(tick, bucket);
+        }
+        bucket.add(session);
+    }
+
+    private void expire(final Session session) {
+        if (sessions.remove(session.getIdInternal(), session)) {
+            expiredSessions.incrementAndGet();
+        }
+        session.setValid(false);
+    }
+
+    private static boolean isExpired(final Session session, final long currentTime) {
+        final long timeout = session.getSessionTimeout();
+        return timeout > 0 && currentTime - session.getTimestamp() > timeout;
+    }
+
     /**
      * Returns pseudorandom positive long value.
      */
     private long generateRandomLong() {
         return rnd.nextLong() & 0x7FFFFFFFFFFFFFFFL;
     }
+
+    /**
+     * The {@link Session}, which notifies the manager about the changes of its timeout and validity.
+     */
+    private final class ManagedSession extends Session {
+        /**
+         * The tick of the expiration bucket the session is in, or <tt>-1</tt>, accessed by {@link #expireSessions(long)} only.
+         */
+        private long expirationTick = -1;
+
+        @Override
+        public void setSessionTimeout(final long sessionTimeout) {
+            final long oldSessionTimeout = getSessionTimeout();
+            super.setSessionTimeout(sessionTimeout);
+            if (sessionTimeout != oldSessionTimeout && sessionTimeout > 0) {
+                scheduleQueue.add(this);
+            }
+        }
+
+        @Override
+        public void setValid(final boolean isValid) {
+            super.setValid(isValid);
+            if (!isValid) {
+                sessions.remove(getIdInternal(), this);
+            }
+        }
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import org.glassfish.grizzly.http.Method;
+import org.glassfish.grizzly.http.io.OutputBuffer;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HttpStatus;
+
+/**
+ * Generates the ETag of the {@link Response} content, when the response is committed, and turns the response into
+ * <tt>304 Not Modified</tt>, if the ETag matches the request <tt>If-None-Match</tt> header.
+ * <p>
+ * The ETag is known only if the whole content has been buffered by the {@link OutputBuffer}, i.e. the response is
+ * committed, because the {@link OutputBuffer} is being closed. The content, which doesn't fit the buffer, is sent
+ * without ETag.
+ */
+final class ETagGenerator implements OutputBuffer.LifeCycleListener {
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+
+    private final Response response;
+    private final MessageDigest digest;
+
+    ETagGenerator(final Response response) {
+        this.response = response;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void onCommit() throws IOException {
+        final ETagMode mode = response.getETagMode();
+        final OutputBuffer outputBuffer = response.getOutputBuffer();
+        // the ETag of the content, which is being streamed, is not known, when the headers are sent
+        if (mode == ETagMode.NONE || !outputBuffer.isClosed() || response.getStatus() != HttpStatus.OK_200.getStatusCode()) {
+            return;
+        }
+
+        // the ETag set by the application wins
+        String eTag = response.getHeader(Header.ETag.toString());
+        if (eTag == null) {
+            digest.reset();
+            outputBuffer.digestBufferedContent(digest);
+
+            final String hash = ENCODER.encodeToString(digest.digest());
+            eTag = mode == ETagMode.WEAK ? "W/\"" + hash + '"' : '"' + hash + '"';
+            response.setHeader(Header.ETag, eTag);
+        }
+
+        final Method method = response.getRequest().getMethod();
+        if ((Method.GET.equals(method) || Method.HEAD.equals(method)) && matches(response.getRequest().getHeader(Header.IfNoneMatch), eTag)) {
+            // the client has the content already
+            response.setStatus(HttpStatus.NOT_MODIFIED_304);
+            outputBuffer.reset();
+        }
+    }
+
+    /**
+     * Returns <tt>true</tt>, if one of the <tt>If-None-Match</tt> header ETags matches the given ETag according to the
+     * weak comparison.
+     */
+    static boolean matches(final String ifNoneMatch, final String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        final int eTagStart = isWeak(eTag, 0) ? 2 : 0;
+        final int eTagLength = eTag.length() - eTagStart;
+
+        final int length = ifNoneMatch.length();
+        int start = 0;
+        while (start < length) {
+            int end = ifNoneMatch.indexOf(',', start);
+            if (end == -1) {
+                end = length;
+            }
+
+            int tokenStart = start;
+            int tokenEnd = end;
+            while (tokenStart < tokenEnd && ifNoneMatch.charAt(tokenStart) == ' ') {
+                tokenStart++;
+            }
+            while (tokenEnd > tokenStart && ifNoneMatch.charAt(tokenEnd - 1) == ' ') {
+                tokenEnd--;
+            }
+
+            if (tokenEnd - tokenStart == 1 && ifNoneMatch.charAt(tokenStart) == '*') {
+                return true;
+            }
+
+            if (isWeak(ifNoneMatch, tokenStart)) {
+                tokenStart += 2;
+            }
+            if (tokenEnd - tokenStart == eTagLength && ifNoneMatch.regionMatches(tokenStart, eTag, eTagStart, eTagLength)) {
+                return true;
+            }
+
+            start = end + 1;
+        }
+
+        return false;
+    }
+
+    private static boolean isWeak(final String s, final int start) {
+        return s.startsWith("W/", start);
+    }
+}
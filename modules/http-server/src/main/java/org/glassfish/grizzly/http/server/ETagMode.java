@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+/**
+ * The ETag generation mode of the {@link Response}.
+ *
+ * @see Response#setETagMode(ETagMode)
+ * @see HttpHandler#setETagMode(ETagMode)
+ */
+public enum ETagMode {
+    /**
+     * The ETag is not generated.
+     */
+    NONE,
+    /**
+     * The strong ETag, for example <tt>"rL0Y20zC+Fzt72VPzMSk2A"</tt>, is generated, which means the responses with the
+     * same ETag are byte-for-byte identical. Please note the ETag is computed over the uncompressed content, so the
+     * {@link #WEAK} mode suits the compressed responses better.
+     */
+    STRONG,
+    /**
+     * The weak ETag, for example <tt>W/"rL0Y20zC+Fzt72VPzMSk2A"</tt>, is generated, which means the responses with the
+     * same ETag are semantically equivalent.
+     */
+    WEAK
+}
@@ -19,7 +19,10 @@ package org.glassfish.grizzly.http.server;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,8 +44,13 @@ import org.glassfish.grizzly.http.Method;
 import org.glassfish.grizzly.http.server.filecache.FileCache;
 import org.glassfish.grizzly.http.server.filecache.FileCache.CacheType;
 import org.glassfish.grizzly.http.server.filecache.FileCacheEntry;
+import org.glassfish.grizzly.http.server.util.ByteRange;
 import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HeaderValue;
+import org.glassfish.grizzly.http.util.HttpStatus;
 import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.CompositeBuffer;
+import org.glassfish.grizzly.memory.MemoryManager;
 
 /**
  *
@@ -80,6 +88,11 @@ public class FileCacheFilter extends BaseFilter {
                     return flush(ctx);
                 }
 
+                final List<ByteRange> ranges = getRequestedRanges(cacheEntry, request);
+                if (ranges != null) {
+                    return sendRanges(ctx, response, cacheEntry, ranges);
+                }
+
                 // check if we can send plain or compressed data back.
                 // depends on client request headers and file cache entry
                 final boolean isServeCompressed = cacheEntry.canServeCompressed(request);
@@ -89,12 +102,13 @@ public class FileCacheFilter extends BaseFilter {
                 prepareResponseWithPayload(cacheEntry, response, isServeCompressed);
 
                 if (cacheEntry.type != CacheType.FILE) {
-                    // the payload is available in a ByteBuffer
-                    final Buffer buffer = Buffers.wrap(ctx.getMemoryManager(), cacheEntry.getByteBuffer(isServeCompressed).duplicate());
-
-                    ctx.write(HttpContent.builder(response).content(buffer).last(true).build());
+                    // the payload is available in memory, unless the entry has just been removed
+                    final Buffer buffer = cacheEntry.getBuffer(ctx.getMemoryManager(), isServeCompressed, 0, cacheEntry.getFileSize(isServeCompressed));
+                    if (buffer != null) {
+                        ctx.write(HttpContent.builder(response).content(buffer).last(true).build());
 
-                    return flush(ctx);
+                        return flush(ctx);
+                    }
                 }
 
                 return fileCache.isFileSendEnabled() && !request.isSecure() ? sendFileZeroCopy(ctx, response, cacheEntry, isServeCompressed)
@@ -119,6 +133,10 @@ public class FileCacheFilter extends BaseFilter {
         if (entry.server != null) {
             response.addHeader(Header.Server, entry.server);
         }
+
+        if (entry.hasCompressedVariant()) {
+            response.addHeader(Header.Vary, Header.AcceptEncoding.toString());
+        }
     }
 
     /**
@@ -127,6 +145,7 @@ public class FileCacheFilter extends BaseFilter {
     private void prepareResponseWithPayload(final FileCacheEntry entry, final HttpResponsePacket response, final boolean isServeCompressed) throws IOException {
         response.addHeader(Header.ETag, entry.Etag);
         response.addHeader(Header.LastModified, entry.lastModifiedHeader);
+        response.addHeader(Header.AcceptRanges, ByteRange.BYTES_UNIT);
 
         response.setContentLengthLong(entry.getFileSize(isServeCompressed));
 
@@ -135,11 +154,149 @@ public class FileCacheFilter extends BaseFilter {
         }
     }
 
+    /**
+     * @return the byte ranges requested by the client, or <tt>null</tt> if the entire resource has to be served.
+     */
+    private static List<ByteRange> getRequestedRanges(final FileCacheEntry entry, final HttpRequestPacket request) {
+        final String rangeHeader = request.getHeader(Header.Range);
+        if (rangeHeader == null || !ByteRange.isIfRangeSatisfied(request.getHeader(Header.IfRange), entry.Etag, entry.lastModified)) {
+            return null;
+        }
+
+        return ByteRange.parse(rangeHeader, entry.getFileSize(false));
+    }
+
+    /**
+     * Serves the requested ranges of the plain (not compressed) representation of the entry, as a single part or a
+     * <tt>multipart/byteranges</tt> response. The cached buffers are sliced, not copied.
+     */
+    private NextAction sendRanges(final FilterChainContext ctx, final HttpResponsePacket response, final FileCacheEntry cacheEntry,
+            final List<ByteRange> ranges) throws IOException {
+        final long resourceLength = cacheEntry.getFileSize(false);
+
+        response.addHeader(Header.AcceptRanges, ByteRange.BYTES_UNIT);
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpStatus.REQUEST_RANGE_NOT_SATISFIABLE_416);
+            response.setHeader(Header.ContentRange, ByteRange.BYTES_UNIT + " */" + resourceLength);
+            response.setContentLengthLong(0);
+            ctx.write(HttpContent.builder(response).content(Buffers.EMPTY_BUFFER).last(true).build());
+
+            return flush(ctx);
+        }
+
+        response.setStatus(HttpStatus.PARTIAL_CONTENT_206);
+        response.addHeader(Header.ETag, cacheEntry.Etag);
+        response.addHeader(Header.LastModified, cacheEntry.lastModifiedHeader);
+        // the ranges are served as they are, prevent compression
+        response.setHeader(Header.ContentEncoding, HeaderValue.IDENTITY);
+
+        final byte[][] partHeaders;
+        final byte[] trailer;
+        if (ranges.size() == 1) {
+            final ByteRange range = ranges.get(0);
+            response.setHeader(Header.ContentRange, range.toContentRange(resourceLength));
+            response.setContentLengthLong(range.getLength());
+            partHeaders = null;
+            trailer = null;
+        } else {
+            final String boundary = ByteRange.generateBoundary();
+            final String contentType = response.getContentType();
+            partHeaders = new byte[ranges.size()][];
+            trailer = ByteRange.multipartTrailer(boundary);
+
+            long contentLength = trailer.length;
+            for (int i = 0; i < partHeaders.length; i++) {
+                final ByteRange range = ranges.get(i);
+                partHeaders[i] = ByteRange.multipartPartHeader(boundary, contentType, range, resourceLength, i == 0);
+                contentLength += partHeaders[i].length + range.getLength();
+            }
+
+            response.setContentType(ByteRange.multipartContentType(boundary));
+            response.setContentLengthLong(contentLength);
+        }
+
+        if (cacheEntry.type != CacheType.FILE) {
+            final Buffer content = slice(ctx.getMemoryManager(), cacheEntry, ranges, partHeaders, trailer);
+            if (content != null) {
+                ctx.write(HttpContent.builder(response).content(content).last(true).build());
+
+                return flush(ctx);
+            }
+        }
+
+        final File file = cacheEntry.getFile(false);
+        if (fileCache.isFileSendEnabled() && !response.getRequest().isSecure()) {
+            ctx.write(response);
+
+            for (int i = 0; i < ranges.size(); i++) {
+                final ByteRange range = ranges.get(i);
+                if (partHeaders != null) {
+                    ctx.write(HttpContent.builder(response).content(Buffers.wrap(ctx.getMemoryManager(), partHeaders[i])).build());
+                }
+                ctx.write(new FileTransfer(file, range.getStart(), range.getLength()), new EmptyCompletionHandler<WriteResult>() {
+                    @Override
+                    public void failed(Throwable throwable) {
+                        LOGGER.log(Level.FINE, "Error reported during file-send entry: " + cacheEntry, throwable);
+                    }
+                });
+            }
+
+            if (trailer != null) {
+                ctx.write(HttpContent.builder(response).content(Buffers.wrap(ctx.getMemoryManager(), trailer)).last(true).build());
+            }
+
+            return flush(ctx);
+        }
+
+        try {
+            final FileSendEntry sendEntry = FileSendEntry.create(ctx, response, file, ranges, partHeaders, trailer);
+
+            ctx.suspend();
+            sendEntry.send();
+            return ctx.getSuspendAction();
+        } catch (IOException e) {
+        }
+
+        // FAILURE
+        return ctx.getInvokeAction();
+    }
+
+    /**
+     * @return the ranges of the cached content along with the multipart framing, or <tt>null</tt> if the content is
+     * not in memory anymore.
+     */
+    private static Buffer slice(final MemoryManager mm, final FileCacheEntry cacheEntry, final List<ByteRange> ranges, final byte[][] partHeaders,
+            final byte[] trailer) throws IOException {
+        if (partHeaders == null) {
+            final ByteRange range = ranges.get(0);
+            return cacheEntry.getBuffer(mm, false, range.getStart(), range.getLength());
+        }
+
+        final CompositeBuffer composite = CompositeBuffer.newBuffer(mm);
+        composite.allowBufferDispose(true);
+        composite.allowInternalBuffersDispose(true);
+        for (int i = 0; i < partHeaders.length; i++) {
+            final ByteRange range = ranges.get(i);
+            final Buffer part = cacheEntry.getBuffer(mm, false, range.getStart(), range.getLength());
+            if (part == null) {
+                composite.dispose();
+                return null;
+            }
+
+            composite.append(Buffers.wrap(mm, partHeaders[i]));
+            composite.append(part);
+        }
+        composite.append(Buffers.wrap(mm, trailer));
+
+        return composite;
+    }
+
     private NextAction sendFileUsingBuffers(final FilterChainContext ctx, final HttpResponsePacket response, final FileCacheEntry cacheEntry,
             final boolean isServeCompressed) {
         try {
-            final FileSendEntry sendEntry = FileSendEntry.create(ctx, response, cacheEntry.getFile(isServeCompressed),
-                    cacheEntry.getFileSize(isServeCompressed));
+            final long size = cacheEntry.getFileSize(isServeCompressed);
+            final List<ByteRange> wholeFile = size > 0 ? Collections.singletonList(new ByteRange(0, size - 1)) : Collections.<ByteRange>emptyList();
+            final FileSendEntry sendEntry = FileSendEntry.create(ctx, response, cacheEntry.getFile(isServeCompressed), wholeFile, null, null);
 
             ctx.suspend();
             sendEntry.send();
@@ -204,31 +361,42 @@ public class FileCacheFilter extends BaseFilter {
     }
 
     private static class FileSendEntry implements WriteHandler {
+        private static final int CHUNK_SIZE = 8192;
+
         private final FilterChainContext ctx;
         private final FileChannel fc;
         private final FileInputStream fis;
         private final HttpResponsePacket response;
         private final OutputSink output;
 
+        // the file regions to be sent
+        private final List<ByteRange> ranges;
+        // multipart/byteranges framing, null if the response is not multipart
+        private final byte[][] partHeaders;
+        private final byte[] trailer;
+
+        private int rangeIdx;
         private long remaining;
 
-        public static FileSendEntry create(final FilterChainContext ctx, final HttpResponsePacket response, final File file, final long size)
-                throws IOException {
+        public static FileSendEntry create(final FilterChainContext ctx, final HttpResponsePacket response, final File file, final List<ByteRange> ranges,
+                final byte[][] partHeaders, final byte[] trailer) throws IOException {
 
             final FileInputStream fis = new FileInputStream(file);
             final FileChannel fc = fis.getChannel();
 
-            return new FileSendEntry(ctx, response, fis, fc, size);
+            return new FileSendEntry(ctx, response, fis, fc, ranges, partHeaders, trailer);
         }
 
         public FileSendEntry(final FilterChainContext ctx, final HttpResponsePacket response, final FileInputStream fis, final FileChannel fc,
-                final long size) {
+                final List<ByteRange> ranges, final byte[][] partHeaders, final byte[] trailer) {
 
             this.ctx = ctx;
             this.response = response;
             this.fis = fis;
             this.fc = fc;
-            this.remaining = size;
+            this.ranges = ranges;
+            this.partHeaders = partHeaders;
+            this.trailer = trailer;
 
             final HttpContext httpContext = response.getProcessingState().getHttpContext();
             assert httpContext != null;
@@ -243,32 +411,67 @@ public class FileCacheFilter extends BaseFilter {
         }
 
         private void send() {
-            final int chunkSize = 8192;
-
             try {
-                boolean isLast;
                 do {
-                    final Buffer buffer = ctx.getMemoryManager().allocate(chunkSize);
+                    if (remaining <= 0 && !nextRange()) {
+                        final Buffer last = trailer != null ? Buffers.wrap(ctx.getMemoryManager(), trailer) : Buffers.EMPTY_BUFFER;
+                        ctx.write(HttpContent.builder(response).content(last).last(true).build());
+                        done();
+                        return;
+                    }
+
+                    final Buffer buffer = ctx.getMemoryManager().allocate((int) Math.min(CHUNK_SIZE, remaining));
                     buffer.allowBufferDispose(true);
 
                     final long readNow = Buffers.readFromFileChannel(fc, buffer);
-                    isLast = readNow <= 0 || (remaining -= readNow) <= 0;
+                    if (readNow <= 0) {
+                        // the file has been truncated
+                        buffer.tryDispose();
+                        ctx.write(HttpContent.builder(response).content(Buffers.EMPTY_BUFFER).last(true).build());
+                        done();
+                        return;
+                    }
+
+                    remaining -= readNow;
+                    final boolean isLast = remaining <= 0 && rangeIdx == ranges.size() && trailer == null;
 
                     buffer.trim();
                     ctx.write(HttpContent.builder(response).content(buffer).last(isLast).build());
 
-                } while (!isLast && output.canWrite());
+                    if (isLast) {
+                        done();
+                        return;
+                    }
+                } while (output.canWrite());
 
-                if (isLast) {
-                    done();
-                } else {
-                    output.notifyCanWrite(this);
-                }
+                output.notifyCanWrite(this);
             } catch (IOException e) {
                 done();
             }
         }
 
+        /**
+         * Moves on to the next file region, writing its multipart header if needed.
+         *
+         * @return <tt>false</tt> if all the regions have been sent.
+         */
+        private boolean nextRange() throws IOException {
+            if (rangeIdx == ranges.size()) {
+                return false;
+            }
+
+            final ByteRange range = ranges.get(rangeIdx);
+            fc.position(range.getStart());
+            remaining = range.getLength();
+
+            if (partHeaders != null) {
+                ctx.write(HttpContent.builder(response).content(Buffers.wrap(ctx.getMemoryManager(), partHeaders[rangeIdx])).build());
+            }
+
+            rangeIdx++;
+            return true;
+        }
+
         private void done() {
             close();
             ctx.resume(ctx.getStopAction());
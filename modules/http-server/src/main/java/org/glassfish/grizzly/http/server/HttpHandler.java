@@ -74,6 +74,11 @@ public abstract class HttpHandler {
      */
     private boolean allowCustomStatusMessage = true;
 
+    /**
+     * The ETag generation mode of the responses
+     */
+    private ETagMode eTagMode = ETagMode.NONE;
+
     /**
      * HttpHandler name
      */
@@ -121,6 +126,9 @@ public abstract class HttpHandler {
         request.setSessionCookieName(getSessionCookieName());
         request.setSessionManager(getSessionManager(request));
         response.setErrorPageGenerator(getErrorPageGenerator(request));
+        if (eTagMode != ETagMode.NONE) {
+            response.setETagMode(eTagMode);
+        }
 
         if (request.requiresAcknowledgement()) {
             if (!sendAcknowledgment(request, response)) {
@@ -174,43 +182,54 @@ public abstract class HttpHandler {
             service(request, response);
             return !suspendStatus.getAndInvalidate();
         } else {
-            final FilterChainContext ctx = request.getContext();
-            ctx.suspend();
-
-            threadPool.execute(new Runnable() {
-
-                @Override
-                public void run() {
-                    final SuspendStatus suspendStatus = response.initSuspendStatus();
-
-                    boolean wasSuspended = false;
-                    try {
-                        HttpServerProbeNotifier.notifyBeforeService(httpServerFilter, connection, request, HttpHandler.this);
-
-                        service(request, response);
-                        wasSuspended = suspendStatus.getAndInvalidate();
-                    } catch (Throwable e) {
-                        LOGGER.log(Level.FINE, "service exception", e);
-                        if (!response.isCommitted()) {
-                            response.reset();
-                            try {
-                                HtmlHelper.setErrorAndSendErrorPage(request, response, response.getErrorPageGenerator(), 500,
-                                        HttpStatus.INTERNAL_SERVER_ERROR_500.getReasonPhrase(), HttpStatus.INTERNAL_SERVER_ERROR_500.getReasonPhrase(), e);
-                            } catch (IOException ignored) {
-                            }
-                        }
-                    } finally {
-                        if (!wasSuspended) {
-                            ctx.resume();
-                        }
-                    }
-                }
-            });
+            request.getContext().suspend();
+
+            ServiceTask serviceTask = request.serviceTask;
+            if (serviceTask == null) {
+                // the task is reused together with the Request
+                serviceTask = new ServiceTask();
+                request.serviceTask = serviceTask;
+            }
+            serviceTask.httpHandler = this;
+            serviceTask.request = request;
+            serviceTask.response = response;
+
+            threadPool.execute(serviceTask);
 
             return false;
         }
     }
 
+    private void serviceInExecutor(final Request request, final Response response) {
+        final HttpServerFilter httpServerFilter = request.getServerFilter();
+        final FilterChainContext ctx = request.getContext();
+        final Connection connection = ctx.getConnection();
+
+        final SuspendStatus suspendStatus = response.initSuspendStatus();
+
+        boolean wasSuspended = false;
+        try {
+            HttpServerProbeNotifier.notifyBeforeService(httpServerFilter, connection, request, this);
+
+            service(request, response);
+            wasSuspended = suspendStatus.getAndInvalidate();
+        } catch (Throwable e) {
+            LOGGER.log(Level.FINE, "service exception", e);
+            if (!response.isCommitted()) {
+                response.reset();
+                try {
+                    HtmlHelper.setErrorAndSendErrorPage(request, response, response.getErrorPageGenerator(), 500,
+                            HttpStatus.INTERNAL_SERVER_ERROR_500.getReasonPhrase(), HttpStatus.INTERNAL_SERVER_ERROR_500.getReasonPhrase(), e);
+                } catch (IOException ignored) {
+                }
+            }
+        } finally {
+            if (!wasSuspended) {
+                ctx.resume();
+            }
+        }
+    }
+
     /**
      * This method should contain the logic for any HTTP extension to the Grizzly HTTP web server.
      * 
@@ -257,6 +276,24 @@ public abstract class HttpHandler {
         this.allowCustomStatusMessage = allowCustomStatusMessage;
     }
 
+    /**
+     * @return the {@link ETagMode} of the responses of this <tt>HttpHandler</tt>.
+     */
+    public ETagMode getETagMode() {
+        return eTagMode;
+    }
+
+    /**
+     * Sets the {@link ETagMode} of the responses of this <tt>HttpHandler</tt>, so the ETag of the response content is
+     * generated and the requests with the matching <tt>If-None-Match</tt> header are responded with <tt>304 Not
+     * Modified</tt>. The mode could be also changed for the specific {@link Response}.
+     *
+     * @see Response#setETagMode(ETagMode)
+     */
+    public void setETagMode(final ETagMode eTagMode) {
+        this.eTagMode = eTagMode != null ? eTagMode : ETagMode.NONE;
+    }
+
     /**
      * Is HTTP URL request allowed to contains encoded slash.
      * 
@@ -384,4 +421,26 @@ public abstract class HttpHandler {
 
     protected void setDispatcherHelper(final DispatcherHelper dispatcherHelper) {
     }
+
+    /**
+     * The task, which runs {@link #service(Request, Response)} in the request executor. The task is bound to the
+     * {@link Request} and reused by every request served with the same {@link Request} object.
+     */
+    static final class ServiceTask implements Runnable {
+        private HttpHandler httpHandler;
+        private Request request;
+        private Response response;
+
+        @Override
+        public void run() {
+            final HttpHandler httpHandlerLocal = httpHandler;
+            final Request requestLocal = request;
+            final Response responseLocal = response;
+            httpHandler = null;
+            request = null;
+            response = null;
+
+            httpHandlerLocal.serviceInExecutor(requestLocal, responseLocal);
+        }
+    }
 }
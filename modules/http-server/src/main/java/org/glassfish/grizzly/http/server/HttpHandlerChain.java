@@ -33,6 +33,7 @@ import org.glassfish.grizzly.http.server.jmxbase.Monitorable;
 import org.glassfish.grizzly.http.server.util.DispatcherHelper;
 import org.glassfish.grizzly.http.server.util.Mapper;
 import org.glassfish.grizzly.http.server.util.MappingData;
+import org.glassfish.grizzly.http.server.util.TrieMapper;
 import org.glassfish.grizzly.http.util.DataChunk;
 import org.glassfish.grizzly.http.util.HttpStatus;
 import org.glassfish.grizzly.http.util.RequestURIRef;
@@ -89,6 +90,11 @@ public class HttpHandlerChain extends HttpHandler implements JmxEventListener {
      */
     private final Mapper mapper;
 
+    /**
+     * The {@link TrieMapper} used to map requests instead of the {@link Mapper}, or <tt>null</tt> if it's not enabled
+     */
+    private volatile TrieMapper trieMapper;
+
     /**
      * DispatchHelper, which maps path or name to the Mapper entry
      */
@@ -172,7 +178,12 @@ public class HttpHandlerChain extends HttpHandler implements JmxEventListener {
 
             final MappingData mappingData = request.obtainMappingData();
 
-            mapper.mapUriWithSemicolon(request.getRequest(), decodedURI, mappingData, 0);
+            final TrieMapper trieMapperLocal = trieMapper;
+            if (trieMapperLocal != null) {
+                trieMapperLocal.mapUriWithSemicolon(decodedURI, mappingData, 0);
+            } else {
+                mapper.mapUriWithSemicolon(request.getRequest(), decodedURI, mappingData, 0);
+            }
 
             HttpHandler httpHandler;
             if (mappingData.context != null && mappingData.context instanceof HttpHandler) {
@@ -218,6 +229,26 @@ public class HttpHandlerChain extends HttpHandler implements JmxEventListener {
         throw new IllegalStateException("Method doesn't have to be called");
     }
 
+    /**
+     * Enables or disables mapping the requests by the {@link TrieMapper} instead of the {@link Mapper}. The
+     * {@link TrieMapper} is filled as the {@link HttpHandler}s are added, so it has to be enabled before that.
+     *
+     * @param trieMapperEnabled <tt>true</tt> to map the requests by the {@link TrieMapper}
+     */
+    void setTrieMapperEnabled(final boolean trieMapperEnabled) {
+        mapperUpdateLock.writeLock().lock();
+
+        try {
+            if (!trieMapperEnabled) {
+                trieMapper = null;
+            } else if (trieMapper == null) {
+                trieMapper = new TrieMapper();
+            }
+        } finally {
+            mapperUpdateLock.writeLock().unlock();
+        }
+    }
+
     /**
      * Add a {@link HttpHandler} and its associated array of mapping. The mapping data will be used to map incoming request
      * to its associated {@link HttpHandler}.
@@ -266,7 +297,7 @@ public class HttpHandlerChain extends HttpHandler implements JmxEventListener {
                     final String ctx = reg.getContextPath();
                     final String wrapper = reg.getUrlPattern();
                     if (ctx.length() != 0) {
-                        mapper.addContext(LOCAL_HOST, ctx, httpHandler, new String[] { "index.html", "index.htm" }, null);
+                        addContext(ctx, httpHandler);
                     } else {
                         if (!isRootConfigured && wrapper.startsWith("*.")) {
                             isRootConfigured = true;
@@ -277,12 +308,15 @@ public class HttpHandlerChain extends HttpHandler implements JmxEventListener {
                                     response.sendError(404);
                                 }
                             };
-                            mapper.addContext(LOCAL_HOST, ctx, a, new String[] { "index.html", "index.htm" }, null);
+                            addContext(ctx, a);
                         } else {
-                            mapper.addContext(LOCAL_HOST, ctx, httpHandler, new String[] { "index.html", "index.htm" }, null);
+                            addContext(ctx, httpHandler);
                         }
                     }
                     mapper.addWrapper(LOCAL_HOST, ctx, wrapper, httpHandler);
+                    if (trieMapper != null) {
+                        trieMapper.addWrapper(ctx, wrapper, httpHandler);
+                    }
                 }
 
                 // Check if the only one HttpHandler is registered
@@ -324,9 +358,15 @@ public class HttpHandlerChain extends HttpHandler implements JmxEventListener {
                     final String contextPath = mapping.getContextPath();
 
                     mapper.removeWrapper(LOCAL_HOST, contextPath, mapping.getUrlPattern());
+                    if (trieMapper != null) {
+                        trieMapper.removeWrapper(contextPath, mapping.getUrlPattern());
+                    }
 
                     if (mapper.getWrapperNames(LOCAL_HOST, name).length == 0) {
                         mapper.removeContext(LOCAL_HOST, contextPath);
+                        if (trieMapper != null) {
+                            trieMapper.removeContext(contextPath);
+                        }
                     }
                 }
 
@@ -396,6 +436,14 @@ public class HttpHandlerChain extends HttpHandler implements JmxEventListener {
         started = false;
     }
 
+    private void addContext(final String contextPath, final HttpHandler httpHandler) {
+        final String[] welcomeResources = { "index.html", "index.htm" };
+        mapper.addContext(LOCAL_HOST, contextPath, httpHandler, welcomeResources, null);
+        if (trieMapper != null) {
+            trieMapper.addContext(contextPath, httpHandler, welcomeResources);
+        }
+    }
+
     private void registerJmxForHandler(final HttpHandler httpHandler) {
         final Monitorable monitorable = (Monitorable) httpHandler;
         final Object jmx = monitorable.createManagementObject();
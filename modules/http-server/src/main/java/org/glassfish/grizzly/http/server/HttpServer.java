@@ -22,7 +22,7 @@ import java.net.SocketAddress;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
@@ -46,11 +46,15 @@ import org.glassfish.grizzly.attributes.AttributeBuilder;
 import org.glassfish.grizzly.filterchain.FilterChain;
 import org.glassfish.grizzly.filterchain.FilterChainBuilder;
 import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.http.BrotliContentEncoding;
+import org.glassfish.grizzly.http.CompressionCache;
 import org.glassfish.grizzly.http.CompressionConfig;
 import org.glassfish.grizzly.http.CompressionConfig.CompressionMode;
+import org.glassfish.grizzly.http.CompressionProviderContentEncoding;
 import org.glassfish.grizzly.http.ContentEncoding;
 import org.glassfish.grizzly.http.GZipContentEncoding;
 import org.glassfish.grizzly.http.LZMAContentEncoding;
+import org.glassfish.grizzly.http.ZstdContentEncoding;
 import org.glassfish.grizzly.http.server.filecache.FileCache;
 import org.glassfish.grizzly.http.server.jmxbase.JmxEventListener;
 import org.glassfish.grizzly.impl.FutureImpl;
@@ -259,6 +263,7 @@ public class HttpServer {
     private void setupHttpHandler() {
 
         serverConfig.addJmxEventListener(httpHandlerChain);
+        httpHandlerChain.setTrieMapperEnabled(serverConfig.isTrieMapperEnabled());
 
         synchronized (serverConfig.handlersSync) {
             for (final HttpHandler httpHandler : serverConfig.orderedHandlers) {
@@ -322,6 +327,7 @@ public class HttpServer {
 
             @Override
             public void completed(final NetworkListener networkListener) {
+                networkListener.getFileCache().destroy();
                 if (counter.decrementAndGet() == 0) {
                     try {
                         // shutdownNow();
@@ -379,6 +385,7 @@ public class HttpServer {
 
             final String[] names = listeners.keySet().toArray(new String[listeners.size()]);
             for (final String name : names) {
+                listeners.get(name).getFileCache().destroy();
                 removeListener(name);
             }
 
@@ -576,6 +583,7 @@ public class HttpServer {
             }
             httpServerCodecFilter.setAllowPayloadForUndefinedHttpMethods(serverConfig.isAllowPayloadForUndefinedHttpMethods());
             httpServerCodecFilter.setMaxPayloadRemainderToSkip(serverConfig.getMaxPayloadRemainderToSkip());
+            httpServerCodecFilter.setDefaultResponseHeaderTemplate(serverConfig.getDefaultResponseHeaderTemplate());
 
             httpServerCodecFilter.getMonitoringConfig().addProbes(serverConfig.getMonitoringConfig().getHttpConfig().getProbes());
             builder.add(httpServerCodecFilter);
@@ -649,13 +657,37 @@ public class HttpServer {
         final CompressionConfig compressionConfig = listener.getCompressionConfig();
 
         if (compressionConfig.getCompressionMode() != CompressionMode.OFF) {
-            final ContentEncoding gzipContentEncoding = new GZipContentEncoding(GZipContentEncoding.DEFAULT_IN_BUFFER_SIZE,
-                    GZipContentEncoding.DEFAULT_OUT_BUFFER_SIZE, new CompressionEncodingFilter(compressionConfig, GZipContentEncoding.getGzipAliases()));
-            final ContentEncoding lzmaEncoding = new LZMAContentEncoding(
-                    new CompressionEncodingFilter(compressionConfig, LZMAContentEncoding.getLzmaAliases()));
-            final Set<ContentEncoding> set = new HashSet<>(2);
-            set.add(gzipContentEncoding);
-            set.add(lzmaEncoding);
+            final CompressionCache compressionCache = compressionConfig.getCompressionCache();
+
+            // keep the server preference order
+            final Set<ContentEncoding> set = new LinkedHashSet<>(4);
+            for (String encoding : compressionConfig.getCompressionEncodings()) {
+                if (GZipContentEncoding.NAME.equals(encoding)) {
+                    final GZipContentEncoding gzipContentEncoding = new GZipContentEncoding(GZipContentEncoding.DEFAULT_IN_BUFFER_SIZE,
+                            GZipContentEncoding.DEFAULT_OUT_BUFFER_SIZE, new CompressionEncodingFilter(compressionConfig, GZipContentEncoding.getGzipAliases()),
+                            compressionConfig.getParallelCompressionMinSize(), compressionConfig.getParallelCompressionBlockSize());
+                    gzipContentEncoding.setCompressionCache(compressionCache);
+                    set.add(gzipContentEncoding);
+                } else if (LZMAContentEncoding.NAME.equals(encoding)) {
+                    set.add(new LZMAContentEncoding(new CompressionEncodingFilter(compressionConfig, LZMAContentEncoding.getLzmaAliases())));
+                } else {
+                    final CompressionProviderContentEncoding contentEncoding;
+                    if (BrotliContentEncoding.NAME.equals(encoding)) {
+                        contentEncoding = new BrotliContentEncoding(new CompressionEncodingFilter(compressionConfig, BrotliContentEncoding.getBrotliAliases()));
+                    } else if (ZstdContentEncoding.NAME.equals(encoding)) {
+                        contentEncoding = new ZstdContentEncoding(new CompressionEncodingFilter(compressionConfig, ZstdContentEncoding.getZstdAliases()));
+                    } else if (CompressionProviderContentEncoding.isSupported(encoding)) {
+                        final String[] aliases = { encoding };
+                        contentEncoding = new CompressionProviderContentEncoding(encoding, aliases, -1, new CompressionEncodingFilter(compressionConfig, aliases));
+                    } else {
+                        LOGGER.log(Level.WARNING, "Content-encoding {0} is not supported", encoding);
+                        continue;
+                    }
+
+                    contentEncoding.setCompressionCache(compressionCache);
+                    set.add(contentEncoding);
+                }
+            }
             return set;
         } else {
             return Collections.emptySet();
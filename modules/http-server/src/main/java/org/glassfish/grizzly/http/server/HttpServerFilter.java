@@ -18,6 +18,7 @@ package org.glassfish.grizzly.http.server;
 
 import java.io.IOException;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -42,7 +43,9 @@ import org.glassfish.grizzly.http.HttpContext;
 import org.glassfish.grizzly.http.HttpPacket;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.KeepAliveSlots;
 import org.glassfish.grizzly.http.Method;
+import org.glassfish.grizzly.http.io.InputBuffer;
 import org.glassfish.grizzly.http.server.util.HtmlHelper;
 import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.http.util.HttpStatus;
@@ -52,8 +55,11 @@ import org.glassfish.grizzly.monitoring.DefaultMonitoringConfig;
 import org.glassfish.grizzly.monitoring.MonitoringAware;
 import org.glassfish.grizzly.monitoring.MonitoringConfig;
 import org.glassfish.grizzly.monitoring.MonitoringUtils;
+import org.glassfish.grizzly.threadpool.Threads;
 import org.glassfish.grizzly.utils.DelayedExecutor;
+import org.glassfish.grizzly.utils.Exceptions;
 import org.glassfish.grizzly.utils.Futures;
+import org.glassfish.grizzly.utils.NullaryFunction;
 
 /**
  * Filter implementation to provide high-level HTTP request/response processing.
@@ -71,6 +77,13 @@ public class HttpServerFilter extends BaseFilter implements MonitoringAware<Http
      */
     private final Attribute<Request> httpRequestInProgress;
 
+    /**
+     * The {@link Request} recycled by the last served request on the connection, which is reused by the next one.
+     */
+    private final Attribute<KeepAliveSlots.Slot<Request>> keepAliveRequestAttr;
+
+    private final KeepAliveSlots<Request> keepAliveRequests = new KeepAliveSlots<>();
+
     /**
      * Delay queue to control suspended request/response processing timeouts
      */
@@ -119,6 +132,12 @@ public class HttpServerFilter extends BaseFilter implements MonitoringAware<Http
         this.config = config;
         suspendedResponseQueue = Response.createDelayQueue(delayedExecutor);
         httpRequestInProgress = Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute("HttpServerFilter.Request");
+        keepAliveRequestAttr = Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute("HttpServerFilter.KeepAliveRequest", new NullaryFunction<KeepAliveSlots.Slot<Request>>() {
+            @Override
+            public KeepAliveSlots.Slot<Request> evaluate() {
+                return keepAliveRequests.newSlot();
+            }
+        });
     }
 
     @SuppressWarnings({ "UnusedDeclaration" })
@@ -159,8 +178,9 @@ public class HttpServerFilter extends BaseFilter implements MonitoringAware<Http
                 final HttpRequestPacket request = (HttpRequestPacket) httpContent.getHttpHeader();
                 final HttpResponsePacket response = request.getResponse();
 
-                handlerRequest = Request.create();
+                handlerRequest = Request.create(keepAliveRequestAttr.get(connection));
                 handlerRequest.parameters.setLimit(config.getMaxRequestParameters());
+                handlerRequest.parameters.setLazy(config.isLazyParameterParsing());
                 httpRequestInProgress.set(context, handlerRequest);
                 final Response handlerResponse = handlerRequest.getResponse();
 
@@ -217,24 +237,34 @@ public class HttpServerFilter extends BaseFilter implements MonitoringAware<Http
                 }
             } else {
                 // We're working with suspended HTTP request
-                try {
-                    ctx.suspend();
-                    final NextAction action = ctx.getSuspendAction();
-
-                    if (!handlerRequest.getInputBuffer().append(httpContent)) {
-                        // we don't want this thread/context to reset
-                        // OP_READ on Connection
-
-                        // we have enough data? - terminate filter chain execution
-                        ctx.completeAndRecycle();
-                    } else {
-                        ctx.resume(ctx.getStopAction());
+                ctx.suspend();
+                final NextAction action = ctx.getSuspendAction();
+
+                final InputBuffer inputBuffer = handlerRequest.getInputBuffer();
+                if (Threads.isService() && inputBuffer.isSpillWrite(httpContent.getContent().remaining())) {
+                    final Executor workerThreadPool = connection.getTransport().getWorkerThreadPool();
+                    if (workerThreadPool != null) {
+                        // don't block the service thread with the spill file I/O
+                        workerThreadPool.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    appendContent(ctx, inputBuffer, httpContent);
+                                } catch (Throwable t) {
+                                    // the same as the FilterChain does, when the filter fails
+                                    ctx.fail(t);
+                                    connection.closeWithReason(Exceptions.makeIOException(t));
+                                    ctx.completeAndRecycle();
+                                }
+                            }
+                        });
+
+                        return action;
                     }
-
-                    return action;
-                } finally {
-                    httpContent.recycle();
                 }
+
+                appendContent(ctx, inputBuffer, httpContent);
+                return action;
             }
         } else { // this code will be run, when we resume the context
             // We're finishing the request processing
@@ -244,6 +274,25 @@ public class HttpServerFilter extends BaseFilter implements MonitoringAware<Http
         }
     }
 
+    /**
+     * Appends the content of the suspended request and resumes the suspended {@link FilterChainContext}.
+     */
+    private static void appendContent(final FilterChainContext ctx, final InputBuffer inputBuffer, final HttpContent httpContent) throws IOException {
+        try {
+            if (!inputBuffer.append(httpContent)) {
+                // we don't want this thread/context to reset
+                // OP_READ on Connection
+
+                // we have enough data? - terminate filter chain execution
+                ctx.completeAndRecycle();
+            } else {
+                ctx.resume(ctx.getStopAction());
+            }
+        } finally {
+            httpContent.recycle();
+        }
+    }
+
     /**
      * Override the default implementation to notify the {@link ReadHandler}, if available, of any read error that has
      * occurred during processing.
@@ -266,6 +315,16 @@ public class HttpServerFilter extends BaseFilter implements MonitoringAware<Http
         }
     }
 
+    @Override
+    public NextAction handleClose(final FilterChainContext ctx) throws IOException {
+        final KeepAliveSlots.Slot<Request> keepAliveRequest = keepAliveRequestAttr.peek(ctx.getConnection());
+        if (keepAliveRequest != null) {
+            keepAliveRequest.close();
+        }
+
+        return ctx.getInvokeAction();
+    }
+
     @Override
     public NextAction handleEvent(final FilterChainContext ctx, final FilterChainEvent event) throws IOException {
         if (event.type() == ShutdownEvent.TYPE) {
@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.glassfish.grizzly.utils.Charsets;
+
+/**
+ * The {@link SessionStore}, which keeps the sessions in the memory mapped file, so they are kept outside the Java heap
+ * and survive the server restart.
+ * <p>
+ * The file is the log of the session records: each update appends the new record of the session, each removal appends
+ * the removal record, and only the positions of the latest records are kept on the heap. Once the file is full, it is
+ * either compacted, if at least half of it is occupied by the outdated records, or its size is doubled. The expired
+ * sessions are dropped, when the file is compacted.
+ * <p>
+ * The store is thread-safe, the file can be used by a single store at a time. The {@link StoreSessionManager}
+ * deserializes the session attributes read from the file, so the file must be writable only by the server.
+ */
+public class MappedFileSessionStore implements SessionStore, Closeable {
+    /**
+     * The default initial size of the file.
+     */
+    public static final int DEFAULT_INITIAL_SIZE = 1024 * 1024;
+
+    private static final byte UPDATE = 1;
+    private static final byte REMOVE = 2;
+
+    // the record length and type
+    private static final int HEADER_SIZE = 5;
+
+    private final File file;
+
+    // the positions of the latest session records
+    private final Map<String, Integer> index = new HashMap<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    // the size of the outdated records
+    private int garbageSize;
+
+    /**
+     * Opens the store of the {@link #DEFAULT_INITIAL_SIZE}.
+     *
+     * @param file the file, the sessions stored in the file before are restored.
+     * @throws IOException if the file can't be mapped
+     */
+    public MappedFileSessionStore(final File file) throws IOException {
+        this(file, DEFAULT_INITIAL_SIZE);
+    }
+
+    /**
+     * Opens the store.
+     *
+     * @param file the file, the sessions stored in the file before are restored.
+     * @param initialSize the initial size of the file, the file grows, when it is full.
+     * @throws IOException if the file can't be mapped
+     */
+    public MappedFileSessionStore(final File file, final int initialSize) throws IOException {
+        if (initialSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("initialSize is too small");
+        }
+
+        this.file = file;
+        map(Math.max(initialSize, (int) Math.min(file.length(), Integer.MAX_VALUE)));
+        recover();
+    }
+
+    @Override
+    public synchronized StoredSession load(final String id) throws IOException {
+        checkOpen();
+
+        final Integer position = index.get(id);
+        return position != null ? readSession(position) : null;
+    }
+
+    @Override
+    public synchronized void update(final String id, final StoredSession session, final Collection<String> removedAttributes) throws IOException {
+        checkOpen();
+
+        final Integer position = index.get(id);
+        final Map<String, byte[]> attributes = new LinkedHashMap<>();
+        if (position != null) {
+            attributes.putAll(readSession(position).getAttributes());
+        }
+        attributes.putAll(session.getAttributes());
+        if (removedAttributes != null) {
+            attributes.keySet().removeAll(removedAttributes);
+        }
+
+        write(id, new StoredSession(session.getCreationTime(), session.getTimestamp(), session.getSessionTimeout(), attributes));
+    }
+
+    @Override
+    public synchronized void remove(final String id) throws IOException {
+        checkOpen();
+
+        if (!index.containsKey(id)) {
+            return;
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(baos);
+        writeString(out, id);
+        append(REMOVE, baos.toByteArray());
+
+        garbageSize += buffer.getInt(index.remove(id));
+        // the removal record itself is outdated, once the file is compacted
+        garbageSize += HEADER_SIZE + baos.size();
+    }
+
+    @Override
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * @return the size of the file
+     */
+    public synchronized int getFileSize() {
+        return buffer != null ? buffer.capacity() : 0;
+    }
+
+    /**
+     * Compacts the file: drops the outdated records and the expired sessions.
+     *
+     * @throws IOException if the file can't be compacted
+     */
+    public synchronized void compact() throws IOException {
+        checkOpen();
+        compact(buffer.capacity());
+    }
+
+    /**
+     * Forces the changes to be written to the file and closes the store.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            buffer.force();
+            channel.close();
+            channel = null;
+            buffer = null;
+            index.clear();
+        }
+    }
+
+    private void write(final String id, final StoredSession session) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(baos);
+        writeString(out, id);
+        out.writeLong(session.getCreationTime());
+        out.writeLong(session.getTimestamp());
+        out.writeLong(session.getSessionTimeout());
+        out.writeInt(session.getAttributes().size());
+        for (Map.Entry<String, byte[]> attribute : session.getAttributes().entrySet()) {
+            writeString(out, attribute.getKey());
+            out.writeInt(attribute.getValue().length);
+            out.write(attribute.getValue());
+        }
+
+        final int position = append(UPDATE, baos.toByteArray());
+        final Integer oldPosition = index.put(id, position);
+        if (oldPosition != null) {
+            garbageSize += buffer.getInt(oldPosition);
+        }
+    }
+
+    /**
+     * Appends the record and returns its position.
+     */
+    private int append(final byte type, final byte[] body) throws IOException {
+        final int length = HEADER_SIZE + body.length;
+        if (length > buffer.capacity() - writePosition) {
+            if (garbageSize >= buffer.capacity() / 2) {
+                compact(buffer.capacity());
+            }
+
+            if (length > buffer.capacity() - writePosition) {
+                long newSize = buffer.capacity();
+                while (newSize - writePosition < length) {
+                    newSize *= 2;
+                }
+                if (newSize > Integer.MAX_VALUE) {
+                    throw new IOException("The session store is full");
+                }
+                map((int) newSize);
+            }
+        }
+
+        final int position = writePosition;
+        buffer.put(position + 4, type);
+        final ByteBuffer target = buffer.duplicate();
+        target.position(position + HEADER_SIZE);
+        target.put(body);
+        // the length is written last, so the incomplete record is ignored, when the file is recovered
+        buffer.putInt(position, length);
+
+        writePosition += length;
+        return position;
+    }
+
+    /**
+     * Rewrites the latest records of the sessions, which haven't expired, to the new file, which replaces the current one.
+     */
+    private void compact(final int size) throws IOException {
+        final long currentTime = System.currentTimeMillis();
+        final File compactFile = new File(file.getPath() + ".compact");
+
+        final Map<String, Integer> newIndex = new HashMap<>();
+        int newWritePosition = 0;
+        try (RandomAccessFile raf = new RandomAccessFile(compactFile, "rw"); FileChannel compactChannel = raf.getChannel()) {
+            final MappedByteBuffer compactBuffer = compactChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            for (Map.Entry<String, Integer> entry : index.entrySet()) {
+                final int position = entry.getValue();
+                if (readSession(position).isExpired(currentTime)) {
+                    continue;
+                }
+
+                final int length = buffer.getInt(position);
+                final ByteBuffer source = buffer.duplicate();
+                source.limit(position + length).position(position);
+                final ByteBuffer target = compactBuffer.duplicate();
+                target.position(newWritePosition);
+                target.put(source);
+                newIndex.put(entry.getKey(), newWritePosition);
+                newWritePosition += length;
+            }
+            compactBuffer.force();
+        }
+
+        channel.close();
+        Files.move(compactFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        index.clear();
+        index.putAll(newIndex);
+        writePosition = newWritePosition;
+        garbageSize = 0;
+        map(size);
+    }
+
+    private void map(final int size) throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = new RandomAccessFile(file, "rw").getChannel();
+        }
+
+        // the previous mapping is released by the garbage collector
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Rebuilds the index from the records in the file.
+     */
+    private void recover() {
+        int position = 0;
+        while (buffer.capacity() - position >= HEADER_SIZE) {
+            final int length = buffer.getInt(position);
+            if (length < HEADER_SIZE || length > buffer.capacity() - position) {
+                break;
+            }
+
+            final String id = readString(position + HEADER_SIZE);
+            final Integer oldPosition;
+            if (buffer.get(position + 4) == UPDATE) {
+                oldPosition = index.put(id, position);
+            } else {
+                oldPosition = index.remove(id);
+                garbageSize += length;
+            }
+            if (oldPosition != null) {
+                garbageSize += buffer.getInt(oldPosition);
+            }
+
+            position += length;
+        }
+
+        writePosition = position;
+    }
+
+    private StoredSession readSession(final int position) {
+        int offset = position + HEADER_SIZE;
+        offset += 2 + buffer.getShort(offset);
+
+        final long creationTime = buffer.getLong(offset);
+        final long timestamp = buffer.getLong(offset + 8);
+        final long sessionTimeout = buffer.getLong(offset + 16);
+        final int count = buffer.getInt(offset + 24);
+        offset += 28;
+
+        final Map<String, byte[]> attributes = new LinkedHashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            final String name = readString(offset);
+            offset += 2 + buffer.getShort(offset);
+
+            final byte[] value = get(offset + 4, buffer.getInt(offset));
+            offset += 4 + value.length;
+
+            attributes.put(name, value);
+        }
+
+        return new StoredSession(creationTime, timestamp, sessionTimeout, attributes);
+    }
+
+    private String readString(final int position) {
+        return new String(get(position + 2, buffer.getShort(position)), Charsets.UTF8_CHARSET);
+    }
+
+    private byte[] get(final int position, final int length) {
+        final byte[] bytes = new byte[length];
+        final ByteBuffer source = buffer.duplicate();
+        source.position(position);
+        source.get(bytes);
+        return bytes;
+    }
+
+    private static void writeString(final DataOutputStream out, final String s) throws IOException {
+        final byte[] bytes = s.getBytes(Charsets.UTF8_CHARSET);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IOException("The string is too long: " + s.substring(0, 64) + "...");
+        }
+
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private void checkOpen() throws IOException {
+        if (channel == null) {
+            throw new IOException("The session store is closed");
+        }
+    }
+}
@@ -48,6 +48,7 @@ import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.http.Cookie;
 import org.glassfish.grizzly.http.Cookies;
 import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.KeepAliveSlots;
 import org.glassfish.grizzly.http.Method;
 import org.glassfish.grizzly.http.Note;
 import org.glassfish.grizzly.http.Protocol;
@@ -127,6 +128,22 @@ public class Request {
         return new Request(new Response());
     }
 
+    /**
+     * Takes the {@link Request} recycled by the previous request on the same connection, or the cached one, if there is
+     * no such. Once recycled, the returned {@link Request} goes back to the <tt>keepAliveSlot</tt>, so the keep-alive
+     * connection, whose requests are parsed and served by different threads, reuses the same {@link Request} and
+     * {@link Response} objects.
+     */
+    static Request create(final KeepAliveSlots.Slot<Request> keepAliveSlot) {
+        Request request = keepAliveSlot.take();
+        if (request == null) {
+            request = create();
+        }
+
+        request.keepAliveSlot = keepAliveSlot;
+        return request;
+    }
+
     /**
      * Request attribute will be associated with a boolean value indicating whether or not it's possible to transfer a
      * {@link java.io.File} using sendfile.
@@ -210,6 +227,16 @@ public class Request {
 
     protected HttpServerFilter httpServerFilter;
 
+    /**
+     * The per-connection slot this request returns to, once recycled.
+     */
+    private KeepAliveSlots.Slot<Request> keepAliveSlot;
+
+    /**
+     * The task, which runs the {@link HttpHandler} in the request executor.
+     */
+    HttpHandler.ServiceTask serviceTask;
+
     protected final List<AfterServiceListener> afterServicesList = new ArrayList<>(4);
 
     private Session session;
@@ -621,7 +648,11 @@ public class Request {
             cachedMappingData.recycle();
         }
 
-        ThreadCache.putToCache(CACHE_IDX, this);
+        final KeepAliveSlots.Slot<Request> slot = keepAliveSlot;
+        keepAliveSlot = null;
+        if (slot == null || !slot.offer(this)) {
+            ThreadCache.putToCache(CACHE_IDX, this);
+        }
     }
 
     // -------------------------------------------------------- Request Methods
@@ -1945,7 +1976,7 @@ public class Request {
         try {
             final Buffer formData = getPostBody(len);
             read = formData.remaining();
-            parameters.processParameters(formData, formData.position(), read);
+            parameters.processTransientParameters(formData, formData.position(), read);
         } catch (Exception ignored) {
         } finally {
             try {
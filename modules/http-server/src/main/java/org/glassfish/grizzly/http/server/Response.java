@@ -48,6 +48,7 @@ import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.http.Cookie;
 import org.glassfish.grizzly.http.Cookies;
+import org.glassfish.grizzly.http.HeaderTemplate;
 import org.glassfish.grizzly.http.HttpContext;
 import org.glassfish.grizzly.http.HttpResponsePacket;
 import org.glassfish.grizzly.http.Protocol;
@@ -197,6 +198,9 @@ public class Response {
 
     private ErrorPageGenerator errorPageGenerator;
 
+    private ETagMode eTagMode = ETagMode.NONE;
+    private ETagGenerator eTagGenerator;
+
     // --------------------------------------------------------- Public Methods
 
     public void initialize(final Request request, final HttpResponsePacket response, final FilterChainContext ctx,
@@ -229,6 +233,22 @@ public class Response {
         return response;
     }
 
+    /**
+     * Sets the {@link HeaderTemplate}, which is serialized together with the headers of this response. The headers set
+     * on this response take precedence over the template headers with the same name.
+     *
+     * @param headerTemplate the {@link HeaderTemplate}, or <tt>null</tt> to use the default one, if any.
+     * @see ServerConfiguration#setDefaultResponseHeaderTemplate(HeaderTemplate)
+     */
+    public void setHeaderTemplate(final HeaderTemplate headerTemplate) {
+        checkResponse();
+        if (isCommitted()) {
+            return;
+        }
+
+        response.setHeaderTemplate(headerTemplate);
+    }
+
     /**
      * Release all object references, and initialize instance variables, in preparation for reuse of this object.
      */
@@ -242,6 +262,7 @@ public class Response {
         appCommitted = false;
         error = false;
         errorPageGenerator = null;
+        eTagMode = ETagMode.NONE;
         request = null;
         response.recycle();
         sendFileEnabled = false;
@@ -294,6 +315,44 @@ public class Response {
         return outputBuffer.getTrailers();
     }
 
+    /**
+     * Sets the {@link ETagMode} of this response. If the mode is not {@link ETagMode#NONE}, the ETag of the response
+     * content is generated, once the content is complete, and the response is turned into <tt>304 Not Modified</tt>
+     * without a body, if the ETag matches the request <tt>If-None-Match</tt> header. The ETag set by the application is
+     * used as it is.
+     * <p>
+     * The ETag can be generated only if the whole content fits the {@link #getBufferSize() buffer} and the response
+     * hasn't been flushed explicitly, otherwise the headers are sent before the content is complete, and the response is
+     * sent as it is.
+     *
+     * @param eTagMode the {@link ETagMode}, <tt>null</tt> means {@link ETagMode#NONE}.
+     * @throws IllegalStateException if the response has already been committed.
+     */
+    public void setETagMode(final ETagMode eTagMode) {
+        if (isCommitted()) {
+            throw new IllegalStateException("Response has already been committed.");
+        }
+
+        final ETagMode mode = eTagMode != null ? eTagMode : ETagMode.NONE;
+        if (this.eTagMode == ETagMode.NONE && mode != ETagMode.NONE) {
+            if (eTagGenerator == null) {
+                eTagGenerator = new ETagGenerator(this);
+            }
+            outputBuffer.registerLifeCycleListener(eTagGenerator);
+        } else if (this.eTagMode != ETagMode.NONE && mode == ETagMode.NONE) {
+            outputBuffer.removeLifeCycleListener(eTagGenerator);
+        }
+
+        this.eTagMode = mode;
+    }
+
+    /**
+     * @return the {@link ETagMode} of this response.
+     */
+    public ETagMode getETagMode() {
+        return eTagMode;
+    }
+
     /**
      * Encode the session identifier associated with this response into the specified URL, if necessary.
      *
@@ -27,7 +27,10 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.glassfish.grizzly.http.HeaderTemplate;
 import org.glassfish.grizzly.http.server.jmxbase.JmxEventListener;
+import org.glassfish.grizzly.http.server.util.Mapper;
+import org.glassfish.grizzly.http.server.util.TrieMapper;
 
 /**
  * Configuration options for a particular {@link HttpServer} instance.
@@ -66,6 +69,16 @@ public class ServerConfiguration extends ServerFilterConfiguration {
      */
     private long maxPayloadRemainderToSkip = -1;
 
+    /**
+     * The pre-encoded headers, which are serialized with every response, which doesn't have its own template.
+     */
+    private HeaderTemplate defaultResponseHeaderTemplate;
+
+    /**
+     * Whether the requests are mapped by the {@link TrieMapper} instead of the {@link Mapper}.
+     */
+    private boolean trieMapperEnabled;
+
     final Object handlersSync = new Object();
 
     // ------------------------------------------------------------ Constructors
@@ -350,4 +363,42 @@ public class ServerConfiguration extends ServerFilterConfiguration {
     public void setMaxPayloadRemainderToSkip(long maxPayloadRemainderToSkip) {
         this.maxPayloadRemainderToSkip = maxPayloadRemainderToSkip;
     }
+
+    /**
+     * @return the {@link HeaderTemplate}, which is serialized with every response, which doesn't have its own template,
+     * or <tt>null</tt>.
+     */
+    public HeaderTemplate getDefaultResponseHeaderTemplate() {
+        return defaultResponseHeaderTemplate;
+    }
+
+    /**
+     * Sets the {@link HeaderTemplate}, which is serialized with every response, which doesn't have its own template set
+     * with {@link Response#setHeaderTemplate(HeaderTemplate)}. The template headers are encoded once, so the common
+     * headers like <tt>Server</tt> or <tt>Content-Type</tt> of the fixed-shape responses are copied in bulk.
+     *
+     * @param defaultResponseHeaderTemplate the {@link HeaderTemplate}, or <tt>null</tt>.
+     */
+    public void setDefaultResponseHeaderTemplate(HeaderTemplate defaultResponseHeaderTemplate) {
+        this.defaultResponseHeaderTemplate = defaultResponseHeaderTemplate;
+    }
+
+    /**
+     * @return <tt>true</tt> if the requests are mapped to the {@link HttpHandler}s by the {@link TrieMapper} instead of the
+     * {@link Mapper}.
+     */
+    public boolean isTrieMapperEnabled() {
+        return trieMapperEnabled;
+    }
+
+    /**
+     * Makes the requests to be mapped to the {@link HttpHandler}s by the {@link TrieMapper} instead of the {@link Mapper}.
+     * The {@link TrieMapper} follows the same mapping rules, but matches the request URI against the precompiled radix
+     * trees and caches the recent mapping results. The setting takes effect when the {@link HttpServer} is started.
+     *
+     * @param trieMapperEnabled <tt>true</tt> to map the requests by the {@link TrieMapper}
+     */
+    public void setTrieMapperEnabled(boolean trieMapperEnabled) {
+        this.trieMapperEnabled = trieMapperEnabled;
+    }
 } // END ServerConfiguration
@@ -16,6 +16,7 @@
 
 package org.glassfish.grizzly.http.server;
 
+import java.io.File;
 import java.nio.charset.Charset;
 
 import org.glassfish.grizzly.Grizzly;
@@ -38,10 +39,13 @@ public class ServerFilterConfiguration {
     private boolean traceEnabled;
     private boolean passTraceRequest;
     private int maxRequestParameters = MAX_REQUEST_PARAMETERS;
+    private boolean lazyParameterParsing;
 
     private long maxPostSize = -1L;
     private int maxFormPostSize = 2 * 1024 * 1024;
     private int maxBufferedPostSize = 2 * 1024 * 1024;
+    private long postSpillThreshold = -1L;
+    private File postSpillDirectory;
 
     private int sessionTimeoutSeconds = -1;
 
@@ -91,8 +95,11 @@ public class ServerFilterConfiguration {
         this.traceEnabled = configuration.traceEnabled;
         this.passTraceRequest = configuration.passTraceRequest;
         this.maxRequestParameters = configuration.maxRequestParameters;
+        this.lazyParameterParsing = configuration.lazyParameterParsing;
         this.maxFormPostSize = configuration.maxFormPostSize;
         this.maxBufferedPostSize = configuration.maxBufferedPostSize;
+        this.postSpillThreshold = configuration.postSpillThreshold;
+        this.postSpillDirectory = configuration.postSpillDirectory;
         this.defaultQueryEncoding = configuration.defaultQueryEncoding;
         this.defaultErrorPageGenerator = configuration.defaultErrorPageGenerator;
         this.isGracefulShutdownSupported = configuration.isGracefulShutdownSupported;
@@ -349,6 +356,26 @@ public class ServerFilterConfiguration {
         this.maxPostSize = maxPostSize < 0 ? -1 : maxPostSize;
     }
 
+    /**
+     * @return <tt>true</tt>, if the request parameters are indexed and decoded only when requested by name.
+     *
+     * @see org.glassfish.grizzly.http.util.Parameters#setLazy(boolean)
+     */
+    public boolean isLazyParameterParsing() {
+        return lazyParameterParsing;
+    }
+
+    /**
+     * Enables or disables the lazy parsing of the request parameters. When enabled, the query string and the form data
+     * parameters are indexed as byte ranges of the request content and only the requested parameters are decoded, which
+     * saves the allocations when a handler reads a few parameters out of many. Disabled by default.
+     *
+     * @see org.glassfish.grizzly.http.util.Parameters#setLazy(boolean)
+     */
+    public void setLazyParameterParsing(final boolean lazyParameterParsing) {
+        this.lazyParameterParsing = lazyParameterParsing;
+    }
+
     /**
      * Gets the maximum size of the POST body generated by an HTML form. <code>-1</code> value means no size limits applied.
      *
@@ -385,6 +412,43 @@ public class ServerFilterConfiguration {
         this.maxBufferedPostSize = maxBufferedPostSize < 0 ? -1 : maxBufferedPostSize;
     }
 
+    /**
+     * Gets the amount of the buffered POST body, which, once exceeded, makes the request spill the body to a temporary
+     * file. <code>-1</code> value means the POST body is always buffered in memory.
+     *
+     * @see org.glassfish.grizzly.http.io.InputBuffer#setSpillThreshold(long)
+     */
+    public long getPostSpillThreshold() {
+        return postSpillThreshold;
+    }
+
+    /**
+     * Sets the amount of the buffered POST body, which, once exceeded, makes the request spill the body to a temporary
+     * file, so the heap used by large uploads stays bounded. <code>-1</code> value (default) means the POST body is always
+     * buffered in memory.
+     *
+     * @see org.glassfish.grizzly.http.io.InputBuffer#setSpillThreshold(long)
+     */
+    public void setPostSpillThreshold(final long postSpillThreshold) {
+        this.postSpillThreshold = postSpillThreshold < 0 ? -1 : postSpillThreshold;
+    }
+
+    /**
+     * @return the directory the POST body spill files are created in, or <code>null</code> if the default temporary-file
+     * directory is used.
+     */
+    public File getPostSpillDirectory() {
+        return postSpillDirectory;
+    }
+
+    /**
+     * Sets the directory the POST body spill files are created in. <code>null</code> value (default) means the default
+     * temporary-file directory is used.
+     */
+    public void setPostSpillDirectory(final File postSpillDirectory) {
+        this.postSpillDirectory = postSpillDirectory;
+    }
+
     /**
      * @return the default character encoding used to decode request URI's query part. <code>null</code> value means
      * specific request's character encoding will be used
@@ -75,6 +75,17 @@ public class Session {
         creationTime = timestamp = System.currentTimeMillis();
     }
 
+    /**
+     * Create the session, which has been created before, for example the session restored from a persistent store.
+     *
+     * @param id session identifier
+     * @param creationTime when the session was created
+     */
+    protected Session(String id, long creationTime) {
+        this.id = id;
+        this.creationTime = timestamp = creationTime;
+    }
+
     /**
      * Is the current Session valid?
      * 
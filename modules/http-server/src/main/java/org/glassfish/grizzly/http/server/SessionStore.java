@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * The storage of the {@link Session}s outside the Java heap, for example in a file or in an external cache, used by
+ * the {@link StoreSessionManager}. The attributes are stored serialized, so the store doesn't need to know their types,
+ * and are updated one by one, so only the changed attributes have to be serialized and written.
+ *
+ * @see MappedFileSessionStore
+ */
+public interface SessionStore {
+    /**
+     * Loads the session.
+     *
+     * @param id the session identifier
+     * @return the stored session, or <tt>null</tt> if there is no such session.
+     * @throws IOException if the session can't be loaded
+     */
+    StoredSession load(String id) throws IOException;
+
+    /**
+     * Updates the session, or stores the new one. The timestamps and the timeout of the session are replaced, the given
+     * attributes are added or replaced and the other stored attributes are kept, unless they are removed.
+     *
+     * @param id the session identifier
+     * @param session the session timestamps and timeout and the changed attributes
+     * @param removedAttributes the names of the attributes to remove
+     * @throws IOException if the session can't be stored
+     */
+    void update(String id, StoredSession session, Collection<String> removedAttributes) throws IOException;
+
+    /**
+     * Removes the session.
+     *
+     * @param id the session identifier
+     * @throws IOException if the session can't be removed
+     */
+    void remove(String id) throws IOException;
+
+    /**
+     * @return the number of the stored sessions
+     */
+    int size();
+}
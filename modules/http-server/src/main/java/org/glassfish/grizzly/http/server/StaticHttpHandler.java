@@ -22,7 +22,9 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.http.CompressionConfig;
 import org.glassfish.grizzly.http.Method;
+import org.glassfish.grizzly.http.server.filecache.FileCache;
 import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.http.util.HttpStatus;
 import org.glassfish.grizzly.utils.ArraySet;
@@ -36,6 +38,8 @@ import org.glassfish.grizzly.utils.ArraySet;
 public class StaticHttpHandler extends StaticHttpHandlerBase {
     private static final Logger LOGGER = Grizzly.logger(StaticHttpHandler.class);
 
+    private static final String[] PRECOMPRESSED_ALIASES = { FileCache.COMPRESSION_ALIAS };
+
     protected final ArraySet<File> docRoots = new ArraySet<>(File.class);
 
     private boolean directorySlashOff;
@@ -223,6 +227,22 @@ public class StaticHttpHandler extends StaticHttpHandlerBase {
 
         pickupContentType(response, resource.getPath());
 
+        final File precompressedFile = isPrecompressedFilesEnabled() ? FileCache.getPrecompressedFile(resource) : null;
+        if (precompressedFile != null) {
+            addToFileCache(request, response, resource, precompressedFile);
+
+            // the byte ranges are served from the plain resource
+            if (request.getHeader(Header.Range) == null
+                    && CompressionConfig.isClientSupportContentEncoding(request.getRequest(), PRECOMPRESSED_ALIASES)) {
+                sendPrecompressedFile(response, resource, precompressedFile);
+            } else {
+                response.setHeader(Header.Vary, Header.AcceptEncoding.toString());
+                sendFile(response, resource);
+            }
+
+            return true;
+        }
+
         addToFileCache(request, response, resource);
         sendFile(response, resource);
 
@@ -21,6 +21,8 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,10 +32,13 @@ import org.glassfish.grizzly.WriteHandler;
 import org.glassfish.grizzly.filterchain.Filter;
 import org.glassfish.grizzly.filterchain.FilterChain;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.http.Method;
 import org.glassfish.grizzly.http.io.NIOOutputStream;
 import org.glassfish.grizzly.http.io.OutputBuffer;
 import org.glassfish.grizzly.http.server.filecache.FileCache;
+import org.glassfish.grizzly.http.server.util.ByteRange;
 import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HeaderValue;
 import org.glassfish.grizzly.http.util.HttpStatus;
 import org.glassfish.grizzly.http.util.MimeType;
 import org.glassfish.grizzly.memory.Buffers;
@@ -51,6 +56,7 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
     private volatile int fileCacheFilterIdx = -1;
 
     private volatile boolean isFileCacheEnabled = true;
+    private volatile boolean isPrecompressedFilesEnabled;
 
     /**
      * Returns <tt>true</tt> if this <tt>StaticHttpHandler</tt> has been configured to use file cache to serve static
@@ -82,6 +88,38 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         this.isFileCacheEnabled = isFileCacheEnabled;
     }
 
+    /**
+     * Returns <tt>true</tt> if the precompressed (gzip) sidecar files are served to the clients, which accept gzip
+     * content-encoding, or <tt>false</tt> otherwise.
+     *
+     * @return <tt>true</tt> if the precompressed sidecar files are served.
+     * @see #setPrecompressedFilesEnabled(boolean)
+     */
+    public boolean isPrecompressedFilesEnabled() {
+        return isPrecompressedFilesEnabled;
+    }
+
+    /**
+     * Set <tt>true</tt> to serve the precompressed sidecar file <tt>&lt;resource&gt;.gz</tt>, if it exists and it's not
+     * older than the resource, to the clients, which accept gzip content-encoding. The sidecar is sent as it is, so
+     * serving a compressed resource costs no CPU. The responses carry the <tt>Vary: Accept-Encoding</tt> header, and, if
+     * the file cache is used, the sidecar is cached as the compressed representation of the resource.
+     *
+     * @param isPrecompressedFilesEnabled <tt>true</tt> to serve the precompressed sidecar files.
+     */
+    public void setPrecompressedFilesEnabled(boolean isPrecompressedFilesEnabled) {
+        this.isPrecompressedFilesEnabled = isPrecompressedFilesEnabled;
+    }
+
+    /**
+     * Sends the file to the client. If the request contains a satisfiable <tt>Range</tt> header (and its
+     * <tt>If-Range</tt> precondition, if any, holds) only the requested byte ranges are sent as a <tt>206</tt>
+     * response.
+     *
+     * @param response the {@link Response}
+     * @param file the {@link File} to send
+     * @throws IOException
+     */
     public static void sendFile(final Response response, final File file) throws IOException {
         response.setStatus(HttpStatus.OK_200);
 
@@ -89,23 +127,128 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         pickupContentType(response, file.getPath());
 
         final long length = file.length();
-        response.setContentLengthLong(length);
+        response.setHeader(Header.AcceptRanges, ByteRange.BYTES_UNIT);
         response.addDateHeader(Header.Date, System.currentTimeMillis());
+
+        final List<ByteRange> ranges = getRequestedRanges(response, file, length);
+        if (ranges != null) {
+            sendRanges(response, file, length, ranges);
+            return;
+        }
+
+        response.setContentLengthLong(length);
         if (!response.isSendFileEnabled() || response.getRequest().isSecure()) {
-            sendUsingBuffers(response, file);
+            sendUsingBuffers(response, file, length > 0 ? Collections.singletonList(new ByteRange(0, length - 1)) : Collections.<ByteRange>emptyList(),
+                    null, null);
         } else {
             sendZeroCopy(response, file);
         }
     }
 
-    private static void sendUsingBuffers(final Response response, final File file) throws FileNotFoundException, IOException {
+    /**
+     * Sends the precompressed representation of the file to the client, as <tt>gzip</tt> content-encoded resource.
+     *
+     * @param response the {@link Response}
+     * @param file the {@link File} resource
+     * @param precompressedFile the gzip compressed representation of the file
+     * @throws IOException
+     */
+    public static void sendPrecompressedFile(final Response response, final File file, final File precompressedFile) throws IOException {
+        response.setStatus(HttpStatus.OK_200);
+
+        pickupContentType(response, file.getPath());
+
+        final long length = precompressedFile.length();
+        response.setContentLengthLong(length);
+        response.setHeader(Header.ContentEncoding, FileCache.COMPRESSION_ALIAS);
+        response.setHeader(Header.Vary, Header.AcceptEncoding.toString());
+        response.addDateHeader(Header.Date, System.currentTimeMillis());
+
+        if (!response.isSendFileEnabled() || response.getRequest().isSecure()) {
+            sendUsingBuffers(response, precompressedFile,
+                    length > 0 ? Collections.singletonList(new ByteRange(0, length - 1)) : Collections.<ByteRange>emptyList(), null, null);
+        } else {
+            sendZeroCopy(response, precompressedFile);
+        }
+    }
+
+    /**
+     * @return the byte ranges requested by the client, or <tt>null</tt> if the entire file has to be sent.
+     */
+    private static List<ByteRange> getRequestedRanges(final Response response, final File file, final long length) {
+        final Request request = response.getRequest();
+        final String rangeHeader = request.getHeader(Header.Range);
+        if (rangeHeader == null || !Method.GET.equals(request.getMethod())) {
+            return null;
+        }
+
+        String etag = response.getHeader(Header.ETag.toString());
+        if (etag == null) {
+            etag = "\"" + length + '-' + file.lastModified() + '"';
+        }
+
+        if (!ByteRange.isIfRangeSatisfied(request.getHeader(Header.IfRange), etag, file.lastModified())) {
+            return null;
+        }
+
+        return ByteRange.parse(rangeHeader, length);
+    }
+
+    private static void sendRanges(final Response response, final File file, final long length, final List<ByteRange> ranges) throws IOException {
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpStatus.REQUEST_RANGE_NOT_SATISFIABLE_416);
+            response.setHeader(Header.ContentRange, ByteRange.BYTES_UNIT + " */" + length);
+            response.setContentLengthLong(0);
+            return;
+        }
+
+        response.setStatus(HttpStatus.PARTIAL_CONTENT_206);
+
+        if (ranges.size() == 1) {
+            final ByteRange range = ranges.get(0);
+            response.setHeader(Header.ContentRange, range.toContentRange(length));
+
+            if (response.isSendFileEnabled() && !response.getRequest().isSecure()) {
+                response.getOutputBuffer().sendfile(file, range.getStart(), range.getLength(), null);
+            } else {
+                response.setContentLengthLong(range.getLength());
+                // the range is sent as it is, prevent compression
+                response.setHeader(Header.ContentEncoding, HeaderValue.IDENTITY);
+                sendUsingBuffers(response, file, ranges, null, null);
+            }
+
+            return;
+        }
+
+        final String boundary = ByteRange.generateBoundary();
+        final String contentType = response.getContentType();
+        final byte[][] partHeaders = new byte[ranges.size()][];
+        final byte[] trailer = ByteRange.multipartTrailer(boundary);
+
+        long contentLength = trailer.length;
+        for (int i = 0; i < partHeaders.length; i++) {
+            final ByteRange range = ranges.get(i);
+            partHeaders[i] = ByteRange.multipartPartHeader(boundary, contentType, range, length, i == 0);
+            contentLength += partHeaders[i].length + range.getLength();
+        }
+
+        response.setContentType(ByteRange.multipartContentType(boundary));
+        response.setContentLengthLong(contentLength);
+        // the ranges are sent as they are, prevent compression
+        response.setHeader(Header.ContentEncoding, HeaderValue.IDENTITY);
+
+        sendUsingBuffers(response, file, ranges, partHeaders, trailer);
+    }
+
+    private static void sendUsingBuffers(final Response response, final File file, final List<ByteRange> ranges, final byte[][] partHeaders,
+            final byte[] trailer) throws FileNotFoundException, IOException {
         final int chunkSize = 8192;
 
         response.suspend();
 
         final NIOOutputStream outputStream = response.getNIOOutputStream();
 
-        outputStream.notifyCanWrite(new NonBlockingDownloadHandler(response, outputStream, file, chunkSize));
+        outputStream.notifyCanWrite(new NonBlockingDownloadHandler(response, outputStream, file, ranges, partHeaders, trailer, chunkSize));
 
     }
 
@@ -115,6 +258,13 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
     }
 
     public final boolean addToFileCache(final Request req, final Response res, final File resource) {
+        return addToFileCache(req, res, resource, null);
+    }
+
+    /**
+     * Adds the resource, along with its precompressed (gzip) representation, if not <tt>null</tt>, to the file cache.
+     */
+    protected final boolean addToFileCache(final Request req, final Response res, final File resource, final File precompressedFile) {
         if (isFileCacheEnabled) {
             final FilterChainContext fcContext = req.getContext();
             final FileCacheFilter fileCacheFilter = lookupFileCache(fcContext);
@@ -124,7 +274,11 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
                     if (res != null) {
                         addCachingHeaders(res, resource);
                     }
-                    fileCache.add(req.getRequest(), resource);
+                    if (precompressedFile != null) {
+                        fileCache.add(req.getRequest(), resource, precompressedFile);
+                    } else {
+                        fileCache.add(req.getRequest(), resource);
+                    }
                     return true;
                 }
             }
@@ -253,7 +407,7 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
     }
 
     private static class NonBlockingDownloadHandler implements WriteHandler {
-        // keep the remaining size
+        // keep the remaining size of the current range
         private volatile long size;
 
         private final Response response;
@@ -262,7 +416,15 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         private final MemoryManager mm;
         private final int chunkSize;
 
-        NonBlockingDownloadHandler(final Response response, final NIOOutputStream outputStream, final File file, final int chunkSize) {
+        // the file regions to be sent
+        private final List<ByteRange> ranges;
+        // multipart/byteranges framing, null if the response is not multipart
+        private final byte[][] partHeaders;
+        private final byte[] trailer;
+        private int rangeIdx;
+
+        NonBlockingDownloadHandler(final Response response, final NIOOutputStream outputStream, final File file, final List<ByteRange> ranges,
+                final byte[][] partHeaders, final byte[] trailer, final int chunkSize) {
 
             try {
                 fileChannel = new FileInputStream(file).getChannel();
@@ -270,7 +432,9 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
                 throw new IllegalStateException("File should have existed", e);
             }
 
-            size = file.length();
+            this.ranges = ranges;
+            this.partHeaders = partHeaders;
+            this.trailer = trailer;
 
             this.response = response;
             this.outputStream = outputStream;
@@ -301,8 +465,13 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
          * Send next CHUNK_SIZE of file
          */
         private boolean sendChunk() throws IOException {
+            if (size <= 0 && !nextRange()) {
+                complete(false);
+                return false;
+            }
+
             // allocate Buffer
-            final Buffer buffer = mm.allocate(chunkSize);
+            final Buffer buffer = mm.allocate((int) Math.min(chunkSize, size));
             // mark it available for disposal after content is written
             buffer.allowBufferDispose(true);
 
@@ -322,7 +491,7 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
             size -= justReadBytes;
 
             // check the remaining size here to avoid extra onWritePossible() invocation
-            if (size <= 0) {
+            if (size <= 0 && rangeIdx == ranges.size()) {
                 complete(false);
                 return false;
             }
@@ -330,10 +499,40 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
             return true;
         }
 
+        /**
+         * Moves on to the next file region, writing its multipart header if needed.
+         *
+         * @return <tt>false</tt> if all the regions have been sent.
+         */
+        private boolean nextRange() throws IOException {
+            if (rangeIdx == ranges.size()) {
+                return false;
+            }
+
+            final ByteRange range = ranges.get(rangeIdx);
+            fileChannel.position(range.getStart());
+            size = range.getLength();
+
+            if (partHeaders != null) {
+                outputStream.write(Buffers.wrap(mm, partHeaders[rangeIdx]));
+            }
+
+            rangeIdx++;
+            return true;
+        }
+
         /**
          * Complete the download
          */
         private void complete(final boolean isError) {
+            if (!isError && trailer != null) {
+                try {
+                    outputStream.write(Buffers.wrap(mm, trailer));
+                } catch (IOException e) {
+                    response.setStatus(500, e.getMessage());
+                }
+            }
+
             try {
                 fileChannel.close();
             } catch (IOException e) {
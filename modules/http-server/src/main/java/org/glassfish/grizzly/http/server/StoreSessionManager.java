@@ -0,0 +1,715 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.http.Cookie;
+import org.glassfish.grizzly.http.server.util.Globals;
+
+/**
+ * The {@link SessionManager}, which keeps the {@link Session}s in a {@link SessionStore}, for example the
+ * {@link MappedFileSessionStore}, so the sessions don't occupy the Java heap and might survive the server restart.
+ * <p>
+ * The recently used sessions are kept on the heap in the near cache of the limited size. The sessions, which have never
+ * been written to the store, are not evicted from the near cache. The changes of a session are written back to the
+ * store once the request, which has obtained the session, is complete, and only the attributes, which have been set or
+ * removed, including via {@link Session#attributes()}, are serialized and written. The changes of the mutable attribute
+ * values have to be signalled by setting the attribute again.
+ * <p>
+ * The attribute values have to be {@link Serializable}. The expired sessions are discarded, when they are looked up.
+ * <p>
+ * The attributes are restored from the store using the Java deserialization, so the store has to be as trusted as the
+ * application itself, for example the file of the {@link MappedFileSessionStore} must be writable only by the server.
+ * The deserialized classes can be additionally restricted with {@link #setClassFilter(Predicate)}.
+ */
+public class StoreSessionManager implements SessionManager {
+    private static final Logger LOGGER = Grizzly.logger(StoreSessionManager.class);
+
+    /**
+     * The default maximum number of the sessions in the near cache.
+     */
+    public static final int DEFAULT_NEAR_CACHE_SIZE = Integer.getInteger(StoreSessionManager.class.getName() + ".near-cache-size", 10000);
+
+    private final SessionStore store;
+
+    // the recently used sessions in the access order
+    private final LinkedHashMap<String, StoreSession> nearCache;
+
+    private final Random rnd = new Random();
+
+    private String sessionCookieName = Globals.SESSION_COOKIE_NAME;
+
+    private volatile Predicate<String> classFilter;
+
+    private final AtomicLong nearCacheHits = new AtomicLong();
+    private final AtomicLong nearCacheMisses = new AtomicLong();
+    private final AtomicLong writtenAttributes = new AtomicLong();
+
+    /**
+     * Constructs the manager with the near cache of the {@link #DEFAULT_NEAR_CACHE_SIZE}.
+     *
+     * @param store the {@link SessionStore}
+     */
+    public StoreSessionManager(final SessionStore store) {
+        this(store, DEFAULT_NEAR_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs the manager.
+     *
+     * @param store the {@link SessionStore}
+     * @param nearCacheSize the maximum number of the sessions kept on the heap.
+     */
+    public StoreSessionManager(final SessionStore store, final int nearCacheSize) {
+        if (store == null) {
+            throw new IllegalArgumentException("store can't be null");
+        }
+
+        this.store = store;
+        nearCache = new LinkedHashMap<String, StoreSession>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, StoreSession> eldest) {
+                // the sessions, which have never been written, would be lost, so the eldest written ones are evicted
+                for (Iterator<StoreSession> it = values().iterator(); size() > nearCacheSize && it.hasNext();) {
+                    if (it.next().stored) {
+                        it.remove();
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Session getSession(final Request request, final String requestedSessionId) {
+        if (requestedSessionId == null) {
+            return null;
+        }
+
+        StoreSession session;
+        synchronized (nearCache) {
+            session = nearCache.get(requestedSessionId);
+        }
+
+        if (session != null) {
+            nearCacheHits.incrementAndGet();
+        } else {
+            nearCacheMisses.incrementAndGet();
+            session = load(requestedSessionId);
+            if (session == null) {
+                return null;
+            }
+        }
+
+        if (!session.isValid()) {
+            return null;
+        }
+
+        if (session.getSessionTimeout() > 0 && System.currentTimeMillis() - session.getTimestamp() > session.getSessionTimeout()) {
+            session.setValid(false);
+            return null;
+        }
+
+        writeBackAfterService(request, session);
+        return session;
+    }
+
+    @Override
+    public Session createSession(final Request request) {
+        final StoreSession session = new StoreSession(null, System.currentTimeMillis());
+
+        while (true) {
+            final String id = String.valueOf(generateRandomLong());
+            try {
+                if (store.load(id) != null) {
+                    continue;
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unable to load the session " + id, e);
+            }
+
+            synchronized (nearCache) {
+                if (!nearCache.containsKey(id)) {
+                    session.setIdInternal(id);
+                    nearCache.put(id, session);
+                    break;
+                }
+            }
+        }
+
+        writeBackAfterService(request, session);
+        return session;
+    }
+
+    @Override
+    public String changeSessionId(final Request request, final Session session) {
+        final String oldSessionId = session.getIdInternal();
+        final String newSessionId = String.valueOf(generateRandomLong());
+
+        final StoreSession storeSession = (StoreSession) session;
+        synchronized (storeSession) {
+            storeSession.setIdInternal(newSessionId);
+            // the session is written under the new id as a whole
+            storeSession.stored = false;
+            storeSession.allDirty = true;
+        }
+
+        synchronized (nearCache) {
+            nearCache.remove(oldSessionId);
+            nearCache.put(newSessionId, storeSession);
+        }
+
+        remove(oldSessionId);
+        writeBackAfterService(request, storeSession);
+        return oldSessionId;
+    }
+
+    @Override
+    public void configureSessionCookie(final Request request, final Cookie cookie) {
+    }
+
+    @Override
+    public void setSessionCookieName(final String name) {
+        if (name != null && !name.isEmpty()) {
+            sessionCookieName = name;
+        }
+    }
+
+    @Override
+    public String getSessionCookieName() {
+        return sessionCookieName;
+    }
+
+    /**
+     * Writes the changes of the session back to the store. It's done automatically, once the request, which has obtained
+     * the session, is complete, so the method has to be called only if the session is changed outside the request
+     * processing.
+     *
+     * @param session the {@link Session} obtained from this manager
+     */
+    public void writeBack(final Session session) {
+        final StoreSession storeSession = (StoreSession) session;
+        synchronized (storeSession) {
+            if (!storeSession.isValid()) {
+                return;
+            }
+
+            final Map<String, byte[]> changedAttributes = new HashMap<>();
+            final List<String> removedAttributes = new ArrayList<>();
+            final Map<String, Object> attributes = storeSession.storedAttributes();
+
+            final Set<String> names;
+            if (storeSession.allDirty) {
+                names = new HashSet<>(storeSession.storedNames);
+                names.addAll(attributes.keySet());
+            } else {
+                names = storeSession.dirtyNames;
+            }
+
+            for (String name : names) {
+                final Object value = attributes.get(name);
+                if (value == null) {
+                    if (storeSession.stored) {
+                        removedAttributes.add(name);
+                    }
+                    continue;
+                }
+
+                try {
+                    changedAttributes.put(name, serialize(value));
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Unable to serialize the session attribute " + name, e);
+                }
+            }
+
+            final long timestamp = storeSession.getTimestamp();
+            final long timeout = storeSession.getSessionTimeout();
+            // the timestamp alone is written, only if it might be needed to expire the session correctly
+            final boolean metadataChanged = !storeSession.stored || timeout != storeSession.storedTimeout
+                    || timeout > 0 && timestamp - storeSession.storedTimestamp > timeout / 4;
+            if (changedAttributes.isEmpty() && removedAttributes.isEmpty() && !metadataChanged) {
+                return;
+            }
+
+            try {
+                store.update(storeSession.getIdInternal(), new StoredSession(storeSession.getCreationTime(), timestamp, timeout, changedAttributes),
+                        storeSession.stored ? removedAttributes : null);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unable to store the session " + storeSession.getIdInternal(), e);
+                return;
+            }
+
+            writtenAttributes.addAndGet(changedAttributes.size());
+            storeSession.stored = true;
+            storeSession.storedTimestamp = timestamp;
+            storeSession.storedTimeout = timeout;
+            storeSession.storedNames.addAll(changedAttributes.keySet());
+            storeSession.storedNames.removeAll(removedAttributes);
+            storeSession.dirtyNames.clear();
+            storeSession.allDirty = false;
+        }
+    }
+
+    /**
+     * @return the filter of the class names, which may be deserialized from the store, or <tt>null</tt> if all the
+     * classes are accepted.
+     */
+    public Predicate<String> getClassFilter() {
+        return classFilter;
+    }
+
+    /**
+     * Sets the filter of the class names, which may be deserialized from the store. The filter is given the names of all
+     * the classes in the serialized attribute value graph, in the {@link Class#getName()} format, and the attribute is
+     * not restored if any of the classes is rejected.
+     *
+     * @param classFilter the filter, or <tt>null</tt> to accept all the classes
+     */
+    public void setClassFilter(final Predicate<String> classFilter) {
+        this.classFilter = classFilter;
+    }
+
+    /**
+     * @return the {@link SessionStore}
+     */
+    public SessionStore getStore() {
+        return store;
+    }
+
+    /**
+     * @return the number of the session lookups, which have been served by the near cache.
+     */
+    public long getNearCacheHitCount() {
+        return nearCacheHits.get();
+    }
+
+    /**
+     * @return the number of the session lookups, which have gone to the store.
+     */
+    public long getNearCacheMissCount() {
+        return nearCacheMisses.get();
+    }
+
+    /**
+     * @return the number of the sessions in the near cache.
+     */
+    public int getNearCacheSize() {
+        synchronized (nearCache) {
+            return nearCache.size();
+        }
+    }
+
+    /**
+     * @return the number of the attributes, which have been serialized and written to the store.
+     */
+    public long getWrittenAttributeCount() {
+        return writtenAttributes.get();
+    }
+
+    private StoreSession load(final String id) {
+        final StoredSession stored;
+        try {
+            stored = store.load(id);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to load the session " + id, e);
+            return null;
+        }
+
+        if (stored == null) {
+            return null;
+        }
+
+        if (stored.isExpired(System.currentTimeMillis())) {
+            remove(id);
+            return null;
+        }
+
+        final StoreSession session = new StoreSession(id, stored.getCreationTime());
+        session.setTimestamp(stored.getTimestamp());
+        session.storedTimestamp = stored.getTimestamp();
+        session.storedTimeout = stored.getSessionTimeout();
+        session.setSessionTimeout(stored.getSessionTimeout());
+        session.stored = true;
+
+        final Map<String, Object> attributes = session.storedAttributes();
+        for (Map.Entry<String, byte[]> attribute : stored.getAttributes().entrySet()) {
+            try {
+                attributes.put(attribute.getKey(), deserialize(attribute.getValue()));
+                session.storedNames.add(attribute.getKey());
+            } catch (IOException | ClassNotFoundException e) {
+                LOGGER.log(Level.WARNING, "Unable to deserialize the session attribute " + attribute.getKey(), e);
+            }
+        }
+
+        synchronized (nearCache) {
+            // the session might have been loaded concurrently
+            final StoreSession cached = nearCache.get(id);
+            if (cached != null) {
+                return cached;
+            }
+            nearCache.put(id, session);
+        }
+
+        return session;
+    }
+
+    private void remove(final String id) {
+        try {
+            store.remove(id);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to remove the session " + id, e);
+        }
+    }
+
+    private void writeBackAfterService(final Request request, final StoreSession session) {
+        if (request != null) {
+            request.addAfterServiceListener(new AfterServiceListener() {
+                @Override
+                public void onAfterService(final Request request) {
+                    writeBack(session);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns pseudorandom positive long value.
+     */
+    private long generateRandomLong() {
+        return rnd.nextLong() & 0x7FFFFFFFFFFFFFFFL;
+    }
+
+    private static byte[] serialize(final Object value) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            out.writeObject(value);
+        }
+
+        return baos.toByteArray();
+    }
+
+    private Object deserialize(final byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ContextClassLoaderObjectInputStream(new ByteArrayInputStream(bytes), classFilter)) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * The {@link Session}, which tracks the changes of its attributes.
+     */
+    private final class StoreSession extends Session {
+        // the names of the attributes, which have been set or removed since the session was written, guarded by this
+        private final Set<String> dirtyNames = new HashSet<>();
+        // the names of the stored attributes, guarded by this
+        private final Set<String> storedNames = new HashSet<>();
+        private boolean allDirty;
+        // read by the near cache without the lock
+        private volatile boolean stored;
+        private long storedTimestamp;
+        private long storedTimeout;
+
+        private final AttributesView attributesView = new AttributesView();
+
+        private StoreSession(final String id, final long creationTime) {
+            super(id, creationTime);
+        }
+
+        @Override
+        public void setAttribute(final String key, final Object value) {
+            checkSerializable(key, value);
+
+            synchronized (this) {
+                super.setAttribute(key, value);
+                dirtyNames.add(key);
+            }
+        }
+
+        @Override
+        public Object removeAttribute(final String key) {
+            synchronized (this) {
+                dirtyNames.add(key);
+                return super.removeAttribute(key);
+            }
+        }
+
+        /**
+         * @return the view of the attributes, which marks the attributes changed through it dirty.
+         */
+        @Override
+        public ConcurrentMap<String, Object> attributes() {
+            return attributesView;
+        }
+
+        @Override
+        public void setValid(final boolean isValid) {
+            super.setValid(isValid);
+            if (!isValid) {
+                final String id = getIdInternal();
+                synchronized (nearCache) {
+                    if (nearCache.get(id) == this) {
+                        nearCache.remove(id);
+                    }
+                }
+                remove(id);
+            }
+        }
+
+        /**
+         * @return the attributes, which are not marked dirty when accessed.
+         */
+        private ConcurrentMap<String, Object> storedAttributes() {
+            return super.attributes();
+        }
+
+        private void checkSerializable(final String key, final Object value) {
+            if (value != null && !(value instanceof Serializable)) {
+                throw new IllegalArgumentException("The session attribute " + key + " is not serializable");
+            }
+        }
+
+        /**
+         * The view of the session attributes, which marks the attributes set or removed through it dirty, so the
+         * attributes, which are only read, are not written back.
+         */
+        private final class AttributesView extends AbstractMap<String, Object> implements ConcurrentMap<String, Object> {
+            private final ConcurrentMap<String, Object> attributes = storedAttributes();
+
+            private final Set<Map.Entry<String, Object>> entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    final Iterator<Map.Entry<String, Object>> iterator = attributes.entrySet().iterator();
+                    return new Iterator<Map.Entry<String, Object>>() {
+                        private String key;
+
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, Object> next() {
+                            final Map.Entry<String, Object> entry = iterator.next();
+                            key = entry.getKey();
+                            return new SimpleEntry<String, Object>(entry) {
+                                private static final long serialVersionUID = 1L;
+
+                                @Override
+                                public Object setValue(final Object value) {
+                                    put(getKey(), value);
+                                    return super.setValue(value);
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void remove() {
+                            synchronized (StoreSession.this) {
+                                iterator.remove();
+                                dirtyNames.add(key);
+                            }
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return attributes.size();
+                }
+            };
+
+            @Override
+            public Set<Map.Entry<String, Object>> entrySet() {
+                return entrySet;
+            }
+
+            @Override
+            public int size() {
+                return attributes.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return attributes.isEmpty();
+            }
+
+            @Override
+            public boolean containsKey(final Object key) {
+                return attributes.containsKey(key);
+            }
+
+            @Override
+            public boolean containsValue(final Object value) {
+                return attributes.containsValue(value);
+            }
+
+            @Override
+            public Object get(final Object key) {
+                return attributes.get(key);
+            }
+
+            @Override
+            public Object put(final String key, final Object value) {
+                checkSerializable(key, value);
+
+                synchronized (StoreSession.this) {
+                    dirtyNames.add(key);
+                    return attributes.put(key, value);
+                }
+            }
+
+            @Override
+            public Object putIfAbsent(final String key, final Object value) {
+                checkSerializable(key, value);
+
+                synchronized (StoreSession.this) {
+                    final Object oldValue = attributes.putIfAbsent(key, value);
+                    if (oldValue == null) {
+                        dirtyNames.add(key);
+                    }
+                    return oldValue;
+                }
+            }
+
+            @Override
+            public Object remove(final Object key) {
+                synchronized (StoreSession.this) {
+                    final Object oldValue = attributes.remove(key);
+                    if (oldValue != null) {
+                        dirtyNames.add((String) key);
+                    }
+                    return oldValue;
+                }
+            }
+
+            @Override
+            public boolean remove(final Object key, final Object value) {
+                synchronized (StoreSession.this) {
+                    if (attributes.remove(key, value)) {
+                        dirtyNames.add((String) key);
+                        return true;
+                    }
+                    return false;
+                }
+            }
+
+            @Override
+            public Object replace(final String key, final Object value) {
+                checkSerializable(key, value);
+
+                synchronized (StoreSession.this) {
+                    final Object oldValue = attributes.replace(key, value);
+                    if (oldValue != null) {
+                        dirtyNames.add(key);
+                    }
+                    return oldValue;
+                }
+            }
+
+            @Override
+            public boolean replace(final String key, final Object oldValue, final Object newValue) {
+                checkSerializable(key, newValue);
+
+                synchronized (StoreSession.this) {
+                    if (attributes.replace(key, oldValue, newValue)) {
+                        dirtyNames.add(key);
+                        return true;
+                    }
+                    return false;
+                }
+            }
+
+            @Override
+            public void clear() {
+                synchronized (StoreSession.this) {
+                    dirtyNames.addAll(attributes.keySet());
+                    attributes.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * The {@link ObjectInputStream}, which resolves the classes accepted by the class filter using the thread context class
+     * loader.
+     */
+    private static final class ContextClassLoaderObjectInputStream extends ObjectInputStream {
+        private final Predicate<String> classFilter;
+
+        private ContextClassLoaderObjectInputStream(final InputStream in, final Predicate<String> classFilter) throws IOException {
+            super(in);
+            this.classFilter = classFilter;
+        }
+
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            checkClass(desc.getName());
+
+            final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader != null) {
+                try {
+                    return Class.forName(desc.getName(), false, classLoader);
+                } catch (ClassNotFoundException ignored) {
+                }
+            }
+
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(final String[] interfaces) throws IOException, ClassNotFoundException {
+            for (String name : interfaces) {
+                checkClass(name);
+            }
+
+            return super.resolveProxyClass(interfaces);
+        }
+
+        private void checkClass(final String name) throws InvalidClassException {
+            if (classFilter != null && !classFilter.test(name)) {
+                throw new InvalidClassException(name, "The class is rejected by the filter");
+            }
+        }
+    }
+}
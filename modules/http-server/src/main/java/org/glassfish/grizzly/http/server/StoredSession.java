@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The {@link Session} state as it is kept by a {@link SessionStore}: the session timestamps and timeout and the
+ * serialized attributes.
+ */
+public final class StoredSession {
+    private final long creationTime;
+    private final long timestamp;
+    private final long sessionTimeout;
+    private final Map<String, byte[]> attributes;
+
+    /**
+     * @param creationTime when the session was created
+     * @param timestamp when the session was accessed the last time
+     * @param sessionTimeout the maximum idle time of the session in milliseconds, or <tt>-1</tt> if the session doesn't
+     * expire
+     * @param attributes the serialized attributes by name
+     */
+    public StoredSession(final long creationTime, final long timestamp, final long sessionTimeout, final Map<String, byte[]> attributes) {
+        this.creationTime = creationTime;
+        this.timestamp = timestamp;
+        this.sessionTimeout = sessionTimeout;
+        this.attributes = Collections.unmodifiableMap(attributes);
+    }
+
+    /**
+     * @return when the session was created
+     */
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    /**
+     * @return when the session was accessed the last time
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the maximum idle time of the session in milliseconds, or <tt>-1</tt> if the session doesn't expire
+     */
+    public long getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    /**
+     * @return the serialized attributes by name
+     */
+    public Map<String, byte[]> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * @return <tt>true</tt>, if the session has expired by the given time
+     */
+    public boolean isExpired(final long currentTime) {
+        return sessionTimeout > 0 && currentTime - timestamp > sessionTimeout;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.accesslog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A buffer collecting formatted access log entries, which are written to a {@link WritableByteChannel} all at once.
+ * The buffer is flushed earlier only if the entries don't fit in it.
+ *
+ * <p>
+ * Instances of this class are <b>not</b> thread-safe.
+ * </p>
+ */
+final class AccessLogBatch {
+
+    /* Where to write the entries to */
+    private final WritableByteChannel channel;
+    /* The formatted entries */
+    private final ByteBuffer buffer;
+    /* Scratch space for formatting numbers */
+    private final byte[] digits = new byte[20];
+
+    AccessLogBatch(WritableByteChannel channel, int size) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(size);
+    }
+
+    void put(byte value) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(value);
+    }
+
+    void put(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            final int length = Math.min(bytes.length - offset, buffer.remaining());
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Copy the specified number of bytes from the source {@link ByteBuffer}, advancing its position.
+     */
+    void put(ByteBuffer source, int length) throws IOException {
+        final int limit = source.limit();
+        int remaining = length;
+        while (remaining > 0) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            final int chunk = Math.min(remaining, buffer.remaining());
+            source.limit(source.position() + chunk);
+            buffer.put(source);
+            source.limit(limit);
+            remaining -= chunk;
+        }
+    }
+
+    /**
+     * Append the decimal representation of the specified value.
+     */
+    void putDecimal(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            put(Long.toString(value).getBytes("US-ASCII"));
+            return;
+        }
+
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        while (position < digits.length) {
+            put(digits[position++]);
+        }
+    }
+
+    /**
+     * Return <b>true</b> if nothing has been appended since the last flush.
+     */
+    boolean isEmpty() {
+        return buffer.position() == 0;
+    }
+
+    /**
+     * Write the collected entries to the channel.
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            buffer.clear();
+        }
+    }
+}
@@ -51,6 +51,10 @@ public class AccessLogBuilder {
     private String rotationPattern;
     /* Non-synchronous, always use a Queue+Thread */
     private boolean synchronous;
+    /* The capacity of the ring buffer, zero to format entries on the request threads */
+    private int ringBufferCapacity;
+    /* What to do when the ring buffer is full */
+    private RingBufferAccessLogProbe.OverflowPolicy overflowPolicy = RingBufferAccessLogProbe.OverflowPolicy.DROP;
 
     /* The base file name of the access log */
     private final File file;
@@ -127,13 +131,40 @@ public class AccessLogBuilder {
     }
 
     /**
-     * Build an {@link AccessLogProbe} instance and directly instrument it in an {@link HttpServer}'s
+     * Build a {@link RingBufferAccessLogProbe} instance which can be injected into an {@link HttpServer}'s
      * {@linkplain HttpServerMonitoringConfig monitoring configuration} to provide access logging.
      *
+     * <p>
+     * The {@linkplain #format(AccessLogFormat) format} must be an {@link ApacheLogFormat}, and the log-file can not be
+     * rotated.
+     * </p>
+     */
+    public RingBufferAccessLogProbe buildRingBuffer() {
+        if (!(format instanceof ApacheLogFormat)) {
+            throw new IllegalStateException("Ring buffer access log requires an ApacheLogFormat, not " + format.getClass().getName());
+        }
+        if (rotationPattern != null) {
+            throw new IllegalStateException("Ring buffer access log can not be rotated");
+        }
+
+        try {
+            return new RingBufferAccessLogProbe(file.getCanonicalFile(), (ApacheLogFormat) format, statusThreshold,
+                    ringBufferCapacity > 0 ? ringBufferCapacity : RingBufferAccessLogProbe.DEFAULT_CAPACITY, overflowPolicy);
+        } catch (IOException exception) {
+            throw new IllegalStateException("I/O error creating acces log", exception);
+        }
+    }
+
+    /**
+     * Build an {@link AccessLogProbe} instance, or a {@link RingBufferAccessLogProbe} instance if a
+     * {@linkplain #ringBuffer(int, RingBufferAccessLogProbe.OverflowPolicy) ring buffer} was configured, and directly
+     * instrument it in an {@link HttpServer}'s {@linkplain HttpServerMonitoringConfig monitoring configuration} to provide
+     * access logging.
+     *
      * @param serverConfiguration The {@link ServerConfiguration} to instrument.
      */
     public ServerConfiguration instrument(ServerConfiguration serverConfiguration) {
-        serverConfiguration.getMonitoringConfig().getWebServerConfig().addProbes(build());
+        serverConfiguration.getMonitoringConfig().getWebServerConfig().addProbes(ringBufferCapacity > 0 ? buildRingBuffer() : build());
         return serverConfiguration;
     }
 
@@ -255,4 +286,23 @@ public class AccessLogBuilder {
         this.synchronous = synchronous;
         return this;
     }
+
+    /**
+     * Capture access log entries in a {@linkplain RingBufferAccessLogProbe ring buffer} of the specified capacity (a power
+     * of two), formatting and writing them in batches on a separate {@link Thread}.
+     *
+     * @param overflowPolicy Whether entries should be dropped, or request threads should wait, when the ring buffer is
+     * full.
+     */
+    public AccessLogBuilder ringBuffer(int capacity, RingBufferAccessLogProbe.OverflowPolicy overflowPolicy) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity " + capacity + " is not a power of two");
+        }
+        if (overflowPolicy == null) {
+            throw new NullPointerException("Null overflow policy");
+        }
+        ringBufferCapacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
 }
@@ -18,6 +18,10 @@ package org.glassfish.grizzly.http.server.accesslog;
 
 import static java.util.logging.Level.WARNING;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -26,6 +30,7 @@ import java.util.List;
 import java.util.TimeZone;
 import java.util.logging.Logger;
 
+import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.http.Cookie;
 import org.glassfish.grizzly.http.Method;
@@ -33,6 +38,11 @@ import org.glassfish.grizzly.http.Protocol;
 import org.glassfish.grizzly.http.server.HttpServer;
 import org.glassfish.grizzly.http.server.Request;
 import org.glassfish.grizzly.http.server.Response;
+import org.glassfish.grizzly.http.util.BufferChunk;
+import org.glassfish.grizzly.http.util.ByteChunk;
+import org.glassfish.grizzly.http.util.CharChunk;
+import org.glassfish.grizzly.http.util.DataChunk;
+import org.glassfish.grizzly.http.util.HttpClock;
 import org.glassfish.grizzly.http.util.MimeHeaders;
 
 /**
@@ -132,7 +142,9 @@ import org.glassfish.grizzly.http.util.MimeHeaders;
  * <li>When "<code>format</code>" is left unspecified, the default <code>%t</code> format
  * <code>[yyyy/MMM/dd:HH:mm:ss Z]</code> is used</li>
  * <li>When "<code>format</code>" is specified, the given pattern <b>must</b> be a valid {@link SimpleDateFormat}
- * pattern.</li>
+ * pattern, or one of the keywords <code>clf</code> (the Apache <em>Common Log Format</em> date, like
+ * "<code>[09/Feb/2014:12:00:34 +0900]</code>") and <code>iso</code> (the <em>ISO-8601</em> date, like
+ * "<code>2014-02-09T12:00:34+09:00</code>"), which are pre-formatted once per second by the {@link HttpClock}.</li>
  * <li>When "<code>@timezone</code>" is left unspecified, the {@linkplain TimeZone#getDefault() default time zone} is
  * used.</li>
  * <li>When "<code>@timezone</code>" is specified, the time zone will be looked up by
@@ -247,6 +259,9 @@ public class ApacheLogFormat implements AccessLogFormat {
     /* Our timezone */
     private final TimeZone timeZone;
 
+    /* The bytes each field, and all the ones following it, occupy in a binary record at the very least */
+    private final int[] reservedSizes;
+
     /**
      * Create a new {@link ApacheLogFormat} instance by parsing the format from the specified {@link String}.
      */
@@ -264,6 +279,11 @@ public class ApacheLogFormat implements AccessLogFormat {
         fields = new ArrayList<>();
         this.timeZone = timeZone;
         parse(format);
+
+        reservedSizes = new int[fields.size() + 1];
+        for (int x = fields.size() - 1; x >= 0; x--) {
+            reservedSizes[x] = reservedSizes[x + 1] + fields.get(x).encodedSize();
+        }
     }
 
     @Override
@@ -290,6 +310,127 @@ public class ApacheLogFormat implements AccessLogFormat {
         return builder.toString();
     }
 
+    /* ====================================================================== */
+    /* BINARY RECORDS */
+    /* ====================================================================== */
+
+    /**
+     * Return the minimum size of the binary records of this format.
+     */
+    int getMinimumRecordSize() {
+        return reservedSizes[0];
+    }
+
+    /**
+     * Capture the data of the specified {@link Response} in a binary record, without formatting it. The record can be
+     * {@linkplain #decode(ByteBuffer, AccessLogBatch) formatted} later, once the request and the response have been
+     * recycled. Values which don't fit in the remaining space of the record are truncated.
+     */
+    void encode(ByteBuffer record, Request request, Response response, long timeStamp, long responseNanos) {
+        final int end = record.limit();
+        for (int x = 0; x < fields.size(); x++) {
+            fields.get(x).encode(record, end - reservedSizes[x + 1], request, response, timeStamp, responseNanos);
+        }
+    }
+
+    /**
+     * Format a binary record captured by {@link #encode(ByteBuffer, Request, Response, long, long)}.
+     */
+    void decode(ByteBuffer record, AccessLogBatch batch) throws IOException {
+        for (int x = 0; x < fields.size(); x++) {
+            fields.get(x).decode(record, batch);
+        }
+    }
+
+    /* Start a string in a binary record, reserving space for its length */
+    private static int startString(ByteBuffer record) {
+        final int start = record.position();
+        record.position(start + 2);
+        return start;
+    }
+
+    /* Terminate a string started in a binary record */
+    private static void endString(ByteBuffer record, int start) {
+        record.putShort(start, (short) (record.position() - start - 2));
+    }
+
+    /* Copy a string from a binary record */
+    private static void copyString(ByteBuffer record, AccessLogBatch batch) throws IOException {
+        batch.put(record, record.getShort() & 0xFFFF);
+    }
+
+    /* Append the contents of a data chunk to a binary record, up to the limit */
+    private static void append(ByteBuffer record, DataChunk chunk, int limit) {
+        final int room = Math.max(0, limit - record.position());
+        switch (chunk.getType()) {
+        case Bytes: {
+            final ByteChunk bytes = chunk.getByteChunk();
+            record.put(bytes.getBuffer(), bytes.getStart(), Math.min(bytes.getLength(), room));
+            break;
+        }
+        case Buffer: {
+            final BufferChunk bytes = chunk.getBufferChunk();
+            final Buffer buffer = bytes.getBuffer();
+            final int end = Math.min(bytes.getEnd(), bytes.getStart() + room);
+            for (int x = bytes.getStart(); x < end; x++) {
+                record.put(buffer.get(x));
+            }
+            break;
+        }
+        case Chars: {
+            final CharChunk chars = chunk.getCharChunk();
+            append(record, CharBuffer.wrap(chars.getBuffer(), chars.getStart(), chars.getLength()), limit);
+            break;
+        }
+        case String:
+            append(record, chunk.toString(), limit);
+            break;
+        default:
+            append(record, "-", limit);
+        }
+    }
+
+    /* Append a UTF-8 encoded character sequence to a binary record, up to the limit */
+    private static void append(ByteBuffer record, CharSequence value, int limit) {
+        for (int x = 0; x < value.length(); x++) {
+            final char character = value.charAt(x);
+            final int room = limit - record.position();
+            if (character < 0x80) {
+                if (room < 1) {
+                    return;
+                }
+                record.put((byte) character);
+            } else if (character < 0x800) {
+                if (room < 2) {
+                    return;
+                }
+                record.put((byte) (0xC0 | character >> 6));
+                record.put((byte) (0x80 | character & 0x3F));
+            } else if (Character.isHighSurrogate(character) && x + 1 < value.length() && Character.isLowSurrogate(value.charAt(x + 1))) {
+                if (room < 4) {
+                    return;
+                }
+                final int codePoint = Character.toCodePoint(character, value.charAt(++x));
+                record.put((byte) (0xF0 | codePoint >> 18));
+                record.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                record.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                record.put((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                if (room < 3) {
+                    return;
+                }
+                final char encoded = Character.isSurrogate(character) ? '?' : character;
+                if (encoded < 0x80) {
+                    record.put((byte) encoded);
+                } else {
+                    record.put((byte) (0xE0 | encoded >> 12));
+                    record.put((byte) (0x80 | encoded >> 6 & 0x3F));
+                    record.put((byte) (0x80 | encoded & 0x3F));
+                }
+            }
+        }
+    }
+
     /**
      * Return the <em>normalized</em> format associated with this instance.
      */
@@ -512,6 +653,29 @@ public class ApacheLogFormat implements AccessLogFormat {
 
         abstract StringBuilder format(StringBuilder builder, Request request, Response response, Date timeStamp, long responseNanos);
 
+        /* The bytes this field occupies in a binary record at the very least */
+        int encodedSize() {
+            return 2;
+        }
+
+        /* Capture this field in a binary record, by default as a formatted string */
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            final int start = startString(record);
+            try {
+                append(record, format(new StringBuilder(), request, response, new Date(timeStamp), responseNanos), limit);
+            } catch (Exception exception) {
+                LOGGER.log(WARNING, "Exception formatting access log entry", exception);
+                record.position(start + 2);
+                append(record, "-", limit);
+            }
+            endString(record, start);
+        }
+
+        /* Format this field out of a binary record */
+        void decode(ByteBuffer record, AccessLogBatch batch) throws IOException {
+            copyString(record, batch);
+        }
+
         @Override
         public abstract String toString();
 
@@ -561,6 +725,19 @@ public class ApacheLogFormat implements AccessLogFormat {
             }
             return builder;
         }
+
+        void encode(ByteBuffer record, int limit, MimeHeaders headers) {
+            final int start = startString(record);
+            int index = headers.indexOf(name, 0);
+            while (index >= 0) {
+                append(record, headers.getValue(index), limit);
+                index = headers.indexOf(name, index + 1);
+                if (index >= 0) {
+                    append(record, "; ", limit);
+                }
+            }
+            endString(record, start);
+        }
     }
 
     /* ====================================================================== */
@@ -568,6 +745,8 @@ public class ApacheLogFormat implements AccessLogFormat {
     private static class LiteralField extends Field {
 
         final StringBuilder contents;
+        /* The UTF-8 encoded contents, once the format has been parsed */
+        private volatile byte[] bytes;
 
         LiteralField(char character) {
             contents = new StringBuilder().append(character);
@@ -582,6 +761,25 @@ public class ApacheLogFormat implements AccessLogFormat {
             return builder.append(contents);
         }
 
+        @Override
+        int encodedSize() {
+            return 0;
+        }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            /* Nothing to capture */
+        }
+
+        @Override
+        void decode(ByteBuffer record, AccessLogBatch batch) throws IOException {
+            byte[] encoded = bytes;
+            if (encoded == null) {
+                encoded = bytes = contents.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            batch.put(encoded);
+        }
+
         @Override
         public String toString() {
             final StringBuilder builder = new StringBuilder();
@@ -679,6 +877,13 @@ public class ApacheLogFormat implements AccessLogFormat {
             final String host = request.getRemoteHost();
             return builder.append(host == null ? "-" : host);
         }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            final int start = startString(record);
+            append(record, request.getRequest().remoteHost(), limit);
+            endString(record, start);
+        }
     }
 
     /* ====================================================================== */
@@ -694,6 +899,13 @@ public class ApacheLogFormat implements AccessLogFormat {
             final String address = request.getRemoteAddr();
             return builder.append(address == null ? "-" : address);
         }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            final int start = startString(record);
+            append(record, request.getRequest().remoteAddr(), limit);
+            endString(record, start);
+        }
     }
 
     /* ====================================================================== */
@@ -716,10 +928,18 @@ public class ApacheLogFormat implements AccessLogFormat {
     private static class RequestTimeField extends Field {
 
         private static final String DEFAULT_PATTERN = "[yyyy/MMM/dd:HH:mm:ss Z]";
+        private static final String CLF_PATTERN = "clf";
+        private static final String ISO_PATTERN = "iso";
         private final SimpleDateFormatThreadLocal simpleDateFormat;
         private final TimeZone timeZone;
         private final String pattern;
         private final String format;
+        /* The clock pre-formatting "clf" and "iso" dates */
+        private final HttpClock clock;
+        /* Whether the formatted time is the same for the whole second */
+        private final boolean perSecond;
+        /* The last second formatted */
+        private volatile FormattedSecond formattedSecond;
 
         RequestTimeField(String format, TimeZone zone) {
             this.format = format;
@@ -747,8 +967,16 @@ public class ApacheLogFormat implements AccessLogFormat {
                 }
             }
 
-            /* Get our simple date format */
-            simpleDateFormat = new SimpleDateFormatThreadLocal(pattern);
+            if (pattern.equals(CLF_PATTERN) || pattern.equals(ISO_PATTERN)) {
+                clock = HttpClock.getInstance(timeZone);
+                simpleDateFormat = null;
+                perSecond = true;
+            } else {
+                /* Get our simple date format */
+                clock = null;
+                simpleDateFormat = new SimpleDateFormatThreadLocal(pattern);
+                perSecond = pattern.indexOf('S') < 0;
+            }
         }
 
         @Override
@@ -757,15 +985,65 @@ public class ApacheLogFormat implements AccessLogFormat {
                 return builder.append('-');
             }
 
-            final SimpleDateFormat format = simpleDateFormat.get();
-            format.setTimeZone(timeZone);
-            return builder.append(format.format(timeStamp));
+            return builder.append(formatted(timeStamp.getTime()).text);
+        }
+
+        /* Format the time, unless its second has been formatted already */
+        private FormattedSecond formatted(long timeStamp) {
+            final long second = Math.floorDiv(timeStamp, 1000L);
+
+            FormattedSecond formatted = formattedSecond;
+            if (formatted != null && formatted.second == second && perSecond) {
+                return formatted;
+            }
+
+            if (clock != null) {
+                final HttpClock.Tick tick = clock.getTick(timeStamp);
+                final String date = new String(pattern.equals(ISO_PATTERN) ? tick.getIsoDate() : tick.getClfDate(), StandardCharsets.US_ASCII);
+                formatted = new FormattedSecond(second, pattern.equals(ISO_PATTERN) ? date : '[' + date + ']');
+            } else {
+                final SimpleDateFormat format = simpleDateFormat.get();
+                format.setTimeZone(timeZone);
+                formatted = new FormattedSecond(second, format.format(new Date(timeStamp)));
+            }
+
+            if (perSecond) {
+                formattedSecond = formatted;
+            }
+            return formatted;
+        }
+
+        @Override
+        int encodedSize() {
+            return 8;
+        }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            record.putLong(timeStamp);
+        }
+
+        @Override
+        void decode(ByteBuffer record, AccessLogBatch batch) throws IOException {
+            batch.put(formatted(record.getLong()).bytes);
         }
 
         @Override
         public String toString() {
             return format == null ? "%t" : "%{" + format + "}t";
         }
+
+        private static final class FormattedSecond {
+            final long second;
+            final String text;
+            final byte[] bytes;
+
+            FormattedSecond(long second, String text) {
+                this.second = second;
+                this.text = text;
+                bytes = text.getBytes(StandardCharsets.UTF_8);
+            }
+        }
     }
 
     /* ====================================================================== */
@@ -781,6 +1059,14 @@ public class ApacheLogFormat implements AccessLogFormat {
             final Method method = request.getMethod();
             return builder.append(method == null ? "-" : method.toString());
         }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            final Method method = request.getMethod();
+            final int start = startString(record);
+            append(record, method == null ? "-" : method.getMethodString(), limit);
+            endString(record, start);
+        }
     }
 
     /* ====================================================================== */
@@ -796,6 +1082,14 @@ public class ApacheLogFormat implements AccessLogFormat {
             final String user = request.getRemoteUser();
             return builder.append(user == null ? "-" : user);
         }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            final String user = request.getRemoteUser();
+            final int start = startString(record);
+            append(record, user == null ? "-" : user, limit);
+            endString(record, start);
+        }
     }
 
     /* ====================================================================== */
@@ -811,6 +1105,13 @@ public class ApacheLogFormat implements AccessLogFormat {
             final String uri = request.getRequestURI();
             return builder.append(uri == null ? "-" : uri);
         }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            final int start = startString(record);
+            append(record, request.getRequest().getRequestURIRef().getRequestURIBC(), limit);
+            endString(record, start);
+        }
     }
 
     /* ====================================================================== */
@@ -829,6 +1130,25 @@ public class ApacheLogFormat implements AccessLogFormat {
             }
             return builder;
         }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            final DataChunk query = request.getRequest().getQueryStringDC();
+            final int start = startString(record);
+            if (!query.isNull()) {
+                append(record, query, limit);
+            }
+            endString(record, start);
+        }
+
+        @Override
+        void decode(ByteBuffer record, AccessLogBatch batch) throws IOException {
+            final int length = record.getShort() & 0xFFFF;
+            if (length > 0) {
+                batch.put((byte) '?');
+                batch.put(record, length);
+            }
+        }
     }
 
     /* ====================================================================== */
@@ -856,6 +1176,31 @@ public class ApacheLogFormat implements AccessLogFormat {
                 return builder.append("-");
             }
         }
+
+        @Override
+        int encodedSize() {
+            return 1;
+        }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            final Protocol protocol = request.getProtocol();
+            record.put((byte) (protocol == null ? -1 : protocol.ordinal()));
+        }
+
+        @Override
+        void decode(ByteBuffer record, AccessLogBatch batch) throws IOException {
+            final int ordinal = record.get();
+            if (ordinal == Protocol.HTTP_0_9.ordinal()) {
+                batch.put(Protocol.HTTP_0_9.getProtocolBytes());
+            } else if (ordinal == Protocol.HTTP_1_0.ordinal()) {
+                batch.put(Protocol.HTTP_1_0.getProtocolBytes());
+            } else if (ordinal == Protocol.HTTP_1_1.ordinal()) {
+                batch.put(Protocol.HTTP_1_1.getProtocolBytes());
+            } else {
+                batch.put((byte) '-');
+            }
+        }
     }
 
     /* ====================================================================== */
@@ -870,6 +1215,11 @@ public class ApacheLogFormat implements AccessLogFormat {
         StringBuilder format(StringBuilder builder, Request request, Response response, Date timeStamp, long responseNanos) {
             return this.format(builder, request.getRequest().getHeaders());
         }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            this.encode(record, limit, request.getRequest().getHeaders());
+        }
     }
 
     /* ====================================================================== */
@@ -916,6 +1266,28 @@ public class ApacheLogFormat implements AccessLogFormat {
             }
             return builder.append(status);
         }
+
+        @Override
+        int encodedSize() {
+            return 4;
+        }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            record.putInt(response.getStatus());
+        }
+
+        @Override
+        void decode(ByteBuffer record, AccessLogBatch batch) throws IOException {
+            final int status = record.getInt();
+            if (status < 10) {
+                batch.put((byte) '0');
+            }
+            if (status < 100) {
+                batch.put((byte) '0');
+            }
+            batch.putDecimal(status);
+        }
     }
 
     /* ====================================================================== */
@@ -934,6 +1306,26 @@ public class ApacheLogFormat implements AccessLogFormat {
             final long size = response.getContentLengthLong();
             return builder.append(size < 1 ? zero : Long.toString(size));
         }
+
+        @Override
+        int encodedSize() {
+            return 8;
+        }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            record.putLong(response.getContentLengthLong());
+        }
+
+        @Override
+        void decode(ByteBuffer record, AccessLogBatch batch) throws IOException {
+            final long size = record.getLong();
+            if (size < 1) {
+                batch.put((byte) zero.charAt(0));
+            } else {
+                batch.putDecimal(size);
+            }
+        }
     }
 
     /* ====================================================================== */
@@ -974,6 +1366,26 @@ public class ApacheLogFormat implements AccessLogFormat {
             return builder.append(responseNanos / scale);
         }
 
+        @Override
+        int encodedSize() {
+            return 8;
+        }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            record.putLong(responseNanos);
+        }
+
+        @Override
+        void decode(ByteBuffer record, AccessLogBatch batch) throws IOException {
+            final long responseNanos = record.getLong();
+            if (responseNanos < 0) {
+                batch.put((byte) '-');
+            } else {
+                batch.putDecimal(responseNanos / scale);
+            }
+        }
+
         @Override
         public String toString() {
             final StringBuilder string = new StringBuilder().append('%');
@@ -1004,5 +1416,10 @@ public class ApacheLogFormat implements AccessLogFormat {
         StringBuilder format(StringBuilder builder, Request request, Response response, Date timeStamp, long responseNanos) {
             return this.format(builder, response.getResponse().getHeaders());
         }
+
+        @Override
+        void encode(ByteBuffer record, int limit, Request request, Response response, long timeStamp, long responseNanos) {
+            this.encode(record, limit, response.getResponse().getHeaders());
+        }
     }
 }
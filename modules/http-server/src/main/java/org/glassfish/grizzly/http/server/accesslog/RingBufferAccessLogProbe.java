@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.accesslog;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.HttpServerFilter;
+import org.glassfish.grizzly.http.server.HttpServerProbe;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+
+/**
+ * A {@linkplain HttpServerProbe Grizzly probe} generating access logs without formatting them on the request threads.
+ *
+ * <p>
+ * On completion of a request the data to log (time stamps, status, sizes, header values, ...) is captured in a compact
+ * binary record in a preallocated ring buffer, shared by all the request threads. A secondary, separate {@link Thread}
+ * formats the records with an {@link ApacheLogFormat} and writes them in batches, with a single channel write per
+ * batch.
+ * </p>
+ *
+ * <p>
+ * When the ring buffer is full, the entries are either dropped or the request threads wait for the room, according to
+ * the {@link OverflowPolicy}. Values which don't fit in a record are truncated.
+ * </p>
+ */
+public class RingBufferAccessLogProbe extends HttpServerProbe.Adapter implements Closeable {
+
+    /**
+     * What to do with an access log entry when the ring buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the entry, see {@link RingBufferAccessLogProbe#getDroppedCount()}.
+         */
+        DROP,
+        /**
+         * Wait until the entry fits in the ring buffer.
+         */
+        BLOCK
+    }
+
+    /**
+     * The default number of records in the ring buffer.
+     */
+    public static final int DEFAULT_CAPACITY = Integer.getInteger(RingBufferAccessLogProbe.class.getName() + ".capacity", 8192);
+
+    /**
+     * The default size of a record in the ring buffer, in bytes.
+     */
+    public static final int DEFAULT_RECORD_SIZE = Integer.getInteger(RingBufferAccessLogProbe.class.getName() + ".record-size", 512);
+
+    /* The size of the buffer formatted entries are collected in */
+    private static final int BATCH_SIZE = 64 * 1024;
+    /* How long to wait for room in the ring buffer, before checking again */
+    private static final long BLOCK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    /* How long to wait for records, before checking again */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /* Line separator for entries, respect Windoshhhh */
+    private static final byte[] LINE_SEPARATOR = System.getProperty("line.separator").getBytes(StandardCharsets.US_ASCII);
+
+    /* Our timestamp request attribute */
+    private static final String ATTRIBUTE_TIME_STAMP = RingBufferAccessLogProbe.class.getName() + ".timeStamp";
+    /* Our logger, for eventualities */
+    private static final Logger LOGGER = Grizzly.logger(HttpServer.class);
+
+    /* The format to format records with */
+    private final ApacheLogFormat format;
+    /* The minimum status threshold */
+    private final int statusThreshold;
+    /* What to do when the ring buffer is full */
+    private final OverflowPolicy overflowPolicy;
+
+    /* The records, slices of a single direct buffer */
+    private final ByteBuffer[] records;
+    /* The sequence of each record: its position when free, its position + 1 when published */
+    private final AtomicLongArray sequences;
+    private final int mask;
+    /* The position of the next record to claim */
+    private final AtomicLong tail = new AtomicLong();
+
+    /* Where the formatted entries are written to */
+    private final WritableByteChannel channel;
+    /* The thread formatting and writing the records */
+    private final Thread thread;
+    /* Whether the thread waits for records to be published */
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    /**
+     * Create a new {@link RingBufferAccessLogProbe} <em>appending</em> entries formatted with the specified
+     * {@linkplain ApacheLogFormat format} to the specified {@link File}, dropping entries when the ring buffer is full.
+     *
+     * @throws IOException If an I/O error occurred opening the file.
+     */
+    public RingBufferAccessLogProbe(File file, ApacheLogFormat format) throws IOException {
+        this(file, format, AccessLogProbe.DEFAULT_STATUS_THRESHOLD, DEFAULT_CAPACITY, OverflowPolicy.DROP);
+    }
+
+    /**
+     * Create a new {@link RingBufferAccessLogProbe} <em>appending</em> entries formatted with the specified
+     * {@linkplain ApacheLogFormat format} to the specified {@link File}.
+     *
+     * <p>
+     * Only responses with <em>status</em> over the specified threshold will be logged.
+     * </p>
+     *
+     * @param capacity The number of records in the ring buffer, a power of two.
+     * @throws IOException If an I/O error occurred opening the file.
+     */
+    public RingBufferAccessLogProbe(File file, ApacheLogFormat format, int statusThreshold, int capacity, OverflowPolicy overflowPolicy)
+            throws IOException {
+        this(FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), format, statusThreshold,
+                capacity, DEFAULT_RECORD_SIZE, overflowPolicy);
+        LOGGER.info("Access log file \"" + file.getAbsolutePath() + "\" opened");
+    }
+
+    /**
+     * Create a new {@link RingBufferAccessLogProbe} writing entries formatted with the specified
+     * {@linkplain ApacheLogFormat format} to the specified {@link WritableByteChannel}.
+     *
+     * <p>
+     * Only responses with <em>status</em> over the specified threshold will be logged.
+     * </p>
+     *
+     * @param capacity The number of records in the ring buffer, a power of two.
+     * @param recordSize The size of a record, in bytes.
+     */
+    public RingBufferAccessLogProbe(WritableByteChannel channel, ApacheLogFormat format, int statusThreshold, int capacity, int recordSize,
+            OverflowPolicy overflowPolicy) {
+        if (channel == null) {
+            throw new NullPointerException("Null channel");
+        }
+        if (format == null) {
+            throw new NullPointerException("Null format");
+        }
+        if (overflowPolicy == null) {
+            throw new NullPointerException("Null overflow policy");
+        }
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity " + capacity + " is not a power of two");
+        }
+        /* String lengths are stored as unsigned shorts */
+        if (recordSize < format.getMinimumRecordSize() || recordSize > 0xFFFF) {
+            throw new IllegalArgumentException("Record size " + recordSize + " out of range [" + format.getMinimumRecordSize() + ", 65535]");
+        }
+
+        this.channel = channel;
+        this.format = format;
+        this.statusThreshold = statusThreshold;
+        this.overflowPolicy = overflowPolicy;
+
+        final ByteBuffer memory = ByteBuffer.allocateDirect(capacity * recordSize);
+        records = new ByteBuffer[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int x = 0; x < capacity; x++) {
+            memory.limit((x + 1) * recordSize).position(x * recordSize);
+            records[x] = memory.slice();
+            sequences.set(x, x);
+        }
+        mask = capacity - 1;
+
+        thread = new Thread(new Writer());
+        thread.setName(toString());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Instrument the specified {@link Request} with an attribute marking its <em>received</em> time (in
+     * {@linkplain System#nanoTime() nanoseconds}).
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void onRequestReceiveEvent(HttpServerFilter filter, Connection connection, Request request) {
+        request.setAttribute(ATTRIBUTE_TIME_STAMP, System.nanoTime());
+        /* Force the connection to cache its addresses, see AccessLogProbe */
+        connection.getLocalAddress();
+        connection.getPeerAddress();
+    }
+
+    /**
+     * Receive notification of the completion of a {@link Response} an possibly capture its access log record.
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void onRequestCompleteEvent(HttpServerFilter filter, Connection connection, Response response) {
+        if (response.getStatus() < statusThreshold) {
+            return;
+        }
+
+        final Request request = response.getRequest();
+        final Long requestNanos = (Long) request.getAttribute(ATTRIBUTE_TIME_STAMP);
+        final long responseNanos = requestNanos == null ? -1 : System.nanoTime() - requestNanos;
+        final long timeStamp = System.currentTimeMillis() - (responseNanos < 0 ? 0 : responseNanos / 1000000L);
+
+        /* Claim a record */
+        long position;
+        while (true) {
+            if (closed) {
+                dropped.incrementAndGet();
+                return;
+            }
+
+            position = tail.get();
+            final long difference = sequences.get((int) position & mask) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                /* The ring buffer is full */
+                if (overflowPolicy == OverflowPolicy.DROP) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                LockSupport.parkNanos(this, BLOCK_NANOS);
+            }
+        }
+
+        final int index = (int) position & mask;
+        final ByteBuffer record = records[index];
+        record.clear();
+        try {
+            format.encode(record, request, response, timeStamp, responseNanos);
+            record.flip();
+        } catch (Throwable throwable) {
+            LOGGER.log(WARNING, "Exception caught capturing access log entry", throwable);
+            record.clear().limit(0);
+        }
+
+        /* Publish it */
+        sequences.set(index, position + 1);
+        if (idle) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Return the number of entries dropped because the ring buffer was full, or the probe was closed.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Return the number of entries written.
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Return the number of batches written.
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Write the pending entries and close the underlying channel.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException exception) {
+            LOGGER.log(FINE, "Interrupted stopping access log writer", exception);
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /* ====================================================================== */
+    /* OUR WRITER */
+    /* ====================================================================== */
+
+    private final class Writer implements Runnable {
+        @Override
+        public void run() {
+            final AccessLogBatch batch = new AccessLogBatch(channel, BATCH_SIZE);
+            final int capacity = records.length;
+            long position = 0;
+
+            while (true) {
+                /* Check before draining, so the records published before closing are written */
+                final boolean closing = closed;
+
+                int count = 0;
+                while (count < capacity) {
+                    final int index = (int) position & mask;
+                    if (sequences.get(index) != position + 1) {
+                        break;
+                    }
+
+                    final ByteBuffer record = records[index];
+                    if (record.hasRemaining()) {
+                        try {
+                            format.decode(record, batch);
+                            batch.put(LINE_SEPARATOR);
+                        } catch (Throwable throwable) {
+                            LOGGER.log(WARNING, "Exception caught writing access log entry", throwable);
+                        }
+                    }
+
+                    /* Release the record */
+                    sequences.set(index, position + capacity);
+                    position++;
+                    count++;
+                }
+
+                if (count > 0) {
+                    try {
+                        if (!batch.isEmpty()) {
+                            batch.flush();
+                        }
+                        written.addAndGet(count);
+                        batches.incrementAndGet();
+                    } catch (Throwable throwable) {
+                        LOGGER.log(WARNING, "Exception caught writing access log entries", throwable);
+                    }
+                    continue;
+                }
+
+                if (closing) {
+                    return;
+                }
+
+                idle = true;
+                if (sequences.get((int) position & mask) != position + 1 && !closed) {
+                    LockSupport.parkNanos(this, IDLE_NANOS);
+                }
+                idle = false;
+            }
+        }
+    }
+}
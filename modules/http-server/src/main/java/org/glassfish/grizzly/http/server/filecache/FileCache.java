@@ -31,11 +31,12 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.GZIPOutputStream;
 
 import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.compression.zip.PooledGZIPOutputStream;
 import org.glassfish.grizzly.http.CompressionConfig;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
@@ -55,6 +56,15 @@ import org.glassfish.grizzly.utils.DelayedExecutor;
 
 /**
  * This class implements a file caching mechanism used to cache static resources.
+ * <p>
+ * Once the cache is full (either the number of entries reached {@link #getMaxCacheEntries()}, or a heap/mapped memory
+ * budget is exhausted) a new resource replaces the least recently used cached resources only if it's been requested
+ * more frequently than they have, according to a TinyLFU frequency sketch. This way a burst of one-time requests can't
+ * flush the popular resources out of the cache, while the resources, which became popular, eventually get cached.
+ * <p>
+ * The cached files aren't checked for changes when they are served. A changed file is served from the cache until its
+ * entry expires ({@link #getSecondsMaxAge()}), unless the file watching is {@link #setFileWatchEnabled(boolean)
+ * enabled}, in which case the entry is removed as soon as the file system reports the change.
  *
  * @author Jeanfrancois Arcand
  * @author Scott Oaks
@@ -62,7 +72,17 @@ import org.glassfish.grizzly.utils.DelayedExecutor;
 public class FileCache implements MonitoringAware<FileCacheProbe> {
     private static final File TMP_DIR = new File(System.getProperty("java.io.tmpdir"));
 
-    final static String[] COMPRESSION_ALIASES = { "gzip" };
+    /**
+     * The content-encoding of the compressed cached resources.
+     */
+    public static final String COMPRESSION_ALIAS = "gzip";
+
+    final static String[] COMPRESSION_ALIASES = { COMPRESSION_ALIAS };
+
+    /**
+     * The suffix of the precompressed (gzip) sidecar file of a static resource.
+     */
+    public static final String PRECOMPRESSED_FILE_SUFFIX = ".gz";
 
     public enum CacheType {
         HEAP, MAPPED, FILE, TIMESTAMP
@@ -86,11 +106,39 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
 
     private final FileCacheEntry NULL_CACHE_ENTRY = new FileCacheEntry(this);
 
+    /**
+     * The maximum number of the least recently used entries examined to free enough memory for a new entry.
+     */
+    private static final int MAX_EVICTION_CANDIDATES = 16;
+
+    /**
+     * The access frequencies of the requested resources (cached or not).
+     */
+    private final FrequencySketch frequencySketch = new FrequencySketch(1024);
+
+    /**
+     * The recency order of the cached entries, the head is the least recently used entry. A cache hit moves the entry to
+     * the tail only if the lock is not contended, so the order is approximate.
+     */
+    private final ReentrantLock lruLock = new ReentrantLock();
+    private FileCacheEntry lruHead;
+    private FileCacheEntry lruTail;
+
     /**
      * Specifies the maximum time in seconds a resource may be cached.
      */
     private int secondsMaxAge = -1;
 
+    /**
+     * <tt>true</tt>, if the cached files have to be watched for changes.
+     */
+    private boolean fileWatchEnabled;
+
+    /**
+     * Removes the entries of the changed files, <tt>null</tt> if the file watching is disabled.
+     */
+    private volatile FileCacheWatcher watcher;
+
     /**
      * The maximum entries in the {@link FileCache}
      */
@@ -126,6 +174,11 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
      */
     private final AtomicLong heapSize = new AtomicLong();
 
+    /**
+     * The memory mapped files of the {@link CacheType#MAPPED} entries
+     */
+    private final MappedFileRegions mappedRegions = new MappedFileRegions();
+
     /**
      * Is the file cache enabled.
      */
@@ -163,6 +216,35 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
 
     public void initialize(final DelayedExecutor delayedExecutor) {
         delayQueue = delayedExecutor.createDelayQueue(new EntryWorker(), new EntryResolver());
+
+        if (fileWatchEnabled && watcher == null) {
+            try {
+                final FileCacheWatcher newWatcher = new FileCacheWatcher(this);
+                newWatcher.start();
+                watcher = newWatcher;
+
+                // the entries might have been cached before the previous shutdown
+                for (final FileCacheEntry entry : fileCacheMap.values()) {
+                    if (entry != NULL_CACHE_ENTRY && entry.plainFile != null) {
+                        newWatcher.register(entry, entry.lastModified);
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unable to watch the cached files for changes", e);
+            }
+        }
+    }
+
+    /**
+     * Releases the resources held by the {@link FileCache}, stops watching the cached files for changes. The cached
+     * entries are kept, and the {@link FileCache} could be initialized again.
+     */
+    public void destroy() {
+        final FileCacheWatcher watcherLocal = watcher;
+        if (watcherLocal != null) {
+            watcher = null;
+            watcherLocal.stop();
+        }
     }
 
     /**
@@ -182,10 +264,25 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         return add(request, cacheFile, cacheFile.lastModified());
     }
 
+    /**
+     * Add a {@link File} resource along with its precompressed (gzip) representation to the cache. The precompressed
+     * representation is served to the clients, which accept gzip content-encoding, regardless of the
+     * {@link #getCompressionConfig()} configuration.
+     *
+     * @see #getPrecompressedFile(File)
+     */
+    public CacheResult add(final HttpRequestPacket request, final File cacheFile, final File precompressedFile) {
+        return add(request, cacheFile, cacheFile.lastModified(), precompressedFile);
+    }
+
     /**
      * Add a resource to the cache.
      */
     protected CacheResult add(final HttpRequestPacket request, final File cacheFile, final long lastModified) {
+        return add(request, cacheFile, lastModified, null);
+    }
+
+    private CacheResult add(final HttpRequestPacket request, final File cacheFile, final long lastModified, final File precompressedFile) {
 
         final String requestURI = request.getRequestURI();
 
@@ -201,8 +298,8 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         }
 
         final int size = cacheSize.incrementAndGet();
-        // cache is full.
-        if (size > getMaxCacheEntries()) {
+        // cache is full, try to replace the least recently used entry
+        if (size > getMaxCacheEntries() && !evict(key.hashCode(), null, 1)) {
             cacheSize.decrementAndGet();
             fileCacheMap.remove(key);
             key.recycle();
@@ -215,10 +312,15 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         final String contentType = response.getContentType();
 
         final FileCacheEntry entry;
+        final long fileLastModified;
         if (cacheFile != null) { // If we have a file - try to create File-aware cache resource
-            entry = createEntry(cacheFile);
-            entry.setCanBeCompressed(canBeCompressed(cacheFile, contentType));
+            fileLastModified = watcher != null ? cacheFile.lastModified() : lastModified;
+            entry = createEntry(cacheFile, key.hashCode());
+            if (precompressedFile == null || !setPrecompressedFile(entry, precompressedFile)) {
+                entry.setCanBeCompressed(canBeCompressed(cacheFile, contentType));
+            }
         } else {
+            fileLastModified = lastModified;
             entry = new FileCacheEntry(this);
             entry.type = CacheType.TIMESTAMP;
         }
@@ -236,9 +338,20 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         entry.server = headers.getHeader(Header.Server);
 
         fileCacheMap.put(key, entry);
+        linkLast(entry);
 
         notifyProbesEntryAdded(this, entry);
 
+        final FileCacheWatcher watcherLocal = watcher;
+        if (watcherLocal != null && entry.plainFile != null) {
+            watcherLocal.register(entry, fileLastModified);
+
+            // the entry might have been evicted before it got registered, so its removal didn't unregister it
+            if (fileCacheMap.get(key) != entry) {
+                watcherLocal.unregister(entry);
+            }
+        }
+
         final int secondsMaxAgeLocal = getSecondsMaxAge();
         if (secondsMaxAgeLocal > 0) {
             delayQueue.add(entry, secondsMaxAgeLocal, TimeUnit.SECONDS);
@@ -259,6 +372,7 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
 
         final LazyFileCacheKey key = LazyFileCacheKey.create(request);
         final FileCacheEntry entry = fileCacheMap.get(key);
+        frequencySketch.increment(key.hashCode());
         key.recycle();
         try {
             if (entry != null && entry != NULL_CACHE_ENTRY) {
@@ -273,6 +387,7 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
 
                 request.getResponse().setStatus(httpStatus != null ? httpStatus : HttpStatus.OK_200);
 
+                touch(entry);
                 notifyProbesEntryHit(this, entry);
                 return entry;
             }
@@ -289,28 +404,182 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
     }
 
     protected void remove(final FileCacheEntry entry) {
-        if (fileCacheMap.remove(entry.key) != null) {
-            cacheSize.decrementAndGet();
+        removeEntry(entry);
+    }
+
+    /**
+     * @return <tt>true</tt> if the entry has been removed, or <tt>false</tt> if it has already been removed (expired or
+     * evicted).
+     */
+    boolean removeEntry(final FileCacheEntry entry) {
+        if (!fileCacheMap.remove(entry.key, entry)) {
+            return false;
+        }
+
+        cacheSize.decrementAndGet();
+        unlink(entry);
+
+        final FileCacheWatcher watcherLocal = watcher;
+        if (watcherLocal != null) {
+            watcherLocal.unregister(entry);
         }
 
         if (entry.type == FileCache.CacheType.MAPPED) {
-            subMappedMemorySize(entry.bb.remaining());
+            subMappedMemorySize(entry.plainFileSize);
+            releaseRegions(entry);
         } else if (entry.type == FileCache.CacheType.HEAP) {
-            subHeapSize(entry.bb.remaining());
+            subHeapSize(entry.plainFileSize);
         }
 
         notifyProbesEntryRemoved(this, entry);
+        return true;
     }
 
     protected Object createJmxManagementObject() {
         return MonitoringUtils.loadJmxObject("org.glassfish.grizzly.http.server.filecache.jmx.FileCache", this, FileCache.class);
     }
 
+    /**
+     * Evicts the least recently used entries to make room for a new entry, if the new entry has been requested more
+     * frequently than each of the entries to be evicted.
+     *
+     * @param candidateHash the hash code of the new entry key.
+     * @param type the {@link CacheType} of the entries to be evicted to free the memory, or <tt>null</tt> if the
+     * entries of any type could be evicted to free a cache slot.
+     * @param amount the number of bytes (or entries, if the type is <tt>null</tt>) to be freed.
+     * @return <tt>true</tt> if the requested amount has been freed, or <tt>false</tt> otherwise.
+     */
+    private boolean evict(final int candidateHash, final CacheType type, final long amount) {
+        final int candidateFrequency = frequencySketch.frequency(candidateHash);
+        if (candidateFrequency == 0) {
+            return false;
+        }
+
+        final FileCacheEntry[] victims = new FileCacheEntry[MAX_EVICTION_CANDIDATES];
+        int victimsCount = 0;
+        long freed = 0;
+
+        lruLock.lock();
+        try {
+            for (FileCacheEntry e = lruHead; e != null && freed < amount && victimsCount < MAX_EVICTION_CANDIDATES; e = e.lruNext) {
+                if (type != null && e.type != type) {
+                    continue;
+                }
+
+                if (frequencySketch.frequency(e.key.hashCode()) >= candidateFrequency) {
+                    return false;
+                }
+
+                victims[victimsCount++] = e;
+                freed += type == null ? 1 : e.plainFileSize;
+            }
+
+            if (freed < amount) {
+                return false;
+            }
+
+            for (int i = 0; i < victimsCount; i++) {
+                unlink(victims[i]);
+            }
+        } finally {
+            lruLock.unlock();
+        }
+
+        for (int i = 0; i < victimsCount; i++) {
+            final FileCacheEntry victim = victims[i];
+            if (delayQueue != null) {
+                delayQueue.remove(victim);
+            }
+            if (removeEntry(victim)) {
+                notifyProbesEntryEvicted(this, victim);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds the new entry to the tail of the recency list.
+     */
+    private void linkLast(final FileCacheEntry entry) {
+        lruLock.lock();
+        try {
+            entry.lruPrev = lruTail;
+            entry.lruNext = null;
+            if (lruTail == null) {
+                lruHead = entry;
+            } else {
+                lruTail.lruNext = entry;
+            }
+            lruTail = entry;
+            entry.lruLinked = true;
+        } finally {
+            lruLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entry from the recency list, if it's still there.
+     */
+    private void unlink(final FileCacheEntry entry) {
+        lruLock.lock();
+        try {
+            unlink0(entry);
+        } finally {
+            lruLock.unlock();
+        }
+    }
+
+    /**
+     * Moves the hit entry to the tail of the recency list, unless the list is locked by another thread.
+     */
+    private void touch(final FileCacheEntry entry) {
+        if (entry.lruNext != null && lruLock.tryLock()) {
+            try {
+                if (entry.lruLinked && entry != lruTail) {
+                    unlink0(entry);
+                    entry.lruPrev = lruTail;
+                    lruTail.lruNext = entry;
+                    lruTail = entry;
+                    entry.lruLinked = true;
+                }
+            } finally {
+                lruLock.unlock();
+            }
+        }
+    }
+
+    /*
+     * Must be called while holding the lruLock.
+     */
+    private void unlink0(final FileCacheEntry entry) {
+        if (!entry.lruLinked) {
+            return;
+        }
+
+        final FileCacheEntry prev = entry.lruPrev;
+        final FileCacheEntry next = entry.lruNext;
+        if (prev == null) {
+            lruHead = next;
+        } else {
+            prev.lruNext = next;
+        }
+        if (next == null) {
+            lruTail = prev;
+        } else {
+            next.lruPrev = prev;
+        }
+
+        entry.lruPrev = null;
+        entry.lruNext = null;
+        entry.lruLinked = false;
+    }
+
     /**
      * Creates {@link FileCacheEntry}.
      */
-    private FileCacheEntry createEntry(final File file) {
-        FileCacheEntry entry = tryMapFileToBuffer(file);
+    private FileCacheEntry createEntry(final File file, final int keyHash) {
+        FileCacheEntry entry = tryMapFileToBuffer(file, keyHash);
         if (entry == null) {
             entry = new FileCacheEntry(this);
             entry.type = CacheType.FILE;
@@ -327,7 +596,7 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
      * 
      * @return the preinitialized {@link FileCacheEntry}
      */
-    private FileCacheEntry tryMapFileToBuffer(final File file) {
+    private FileCacheEntry tryMapFileToBuffer(final File file, final int keyHash) {
 
         final long size = file.length();
         if (size > getMaxEntrySize()) {
@@ -335,12 +604,14 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         }
 
         final CacheType type;
-        final ByteBuffer bb;
+        ByteBuffer bb = null;
+        MappedFileRegion region = null;
         FileChannel fileChannel = null;
         FileInputStream stream = null;
         try {
             if (size > getMinEntrySize()) {
-                if (addMappedMemorySize(size) > getMaxLargeFileCacheSize()) {
+                final long mappedOverflow = addMappedMemorySize(size) - getMaxLargeFileCacheSize();
+                if (mappedOverflow > 0 && !evict(keyHash, CacheType.MAPPED, mappedOverflow)) {
                     // Cache full
                     subMappedMemorySize(size);
                     return null;
@@ -348,7 +619,8 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
 
                 type = CacheType.MAPPED;
             } else {
-                if (addHeapSize(size) > getMaxSmallFileCacheSize()) {
+                final long heapOverflow = addHeapSize(size) - getMaxSmallFileCacheSize();
+                if (heapOverflow > 0 && !evict(keyHash, CacheType.HEAP, heapOverflow)) {
                     // Cache full
                     subHeapSize(size);
                     return null;
@@ -357,12 +629,13 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
                 type = CacheType.HEAP;
             }
 
-            stream = new FileInputStream(file);
-            fileChannel = stream.getChannel();
-
-            bb = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (type == CacheType.MAPPED) {
+                region = mappedRegions.acquire(file);
+            } else {
+                stream = new FileInputStream(file);
+                fileChannel = stream.getChannel();
 
-            if (type == CacheType.HEAP) {
+                bb = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
                 ((MappedByteBuffer) bb).load();
             }
         } catch (Exception e) {
@@ -389,10 +662,28 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         entry.type = type;
         entry.plainFileSize = size;
         entry.bb = bb;
+        entry.region = region;
 
         return entry;
     }
 
+    /**
+     * Makes the precompressed file the compressed representation of the entry.
+     *
+     * @return <tt>false</tt> if the precompressed file can't be read.
+     */
+    private boolean setPrecompressedFile(final FileCacheEntry entry, final File precompressedFile) {
+        try {
+            setCompressedFile(entry, precompressedFile);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Can not read precompressed file: " + precompressedFile, e);
+            return false;
+        }
+
+        entry.setPrecompressed();
+        return true;
+    }
+
     /**
      * Checks if the {@link File} with the given content-type could be compressed.
      */
@@ -433,6 +724,33 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         this.secondsMaxAge = secondsMaxAge;
     }
 
+    /**
+     * @return <tt>true</tt> if the cached files are watched for changes.
+     */
+    public boolean isFileWatchEnabled() {
+        return fileWatchEnabled;
+    }
+
+    /**
+     * Configures whether the cached files have to be watched for changes using a {@link java.nio.file.WatchService}. If
+     * enabled, the entry of a file is removed as soon as the file is modified, deleted or replaced, so the cache could
+     * run with unlimited {@link #getSecondsMaxAge() max age} and still serve redeployed resources right away, without
+     * checking the files on each request. The setting is applied, when the {@link FileCache} is initialized.
+     *
+     * @param fileWatchEnabled <tt>true</tt> to watch the cached files for changes.
+     */
+    public void setFileWatchEnabled(boolean fileWatchEnabled) {
+        this.fileWatchEnabled = fileWatchEnabled;
+    }
+
+    /**
+     * @return the number of entries removed, because their files have changed, since the file watching was started.
+     */
+    public long getFileWatchInvalidations() {
+        final FileCacheWatcher watcherLocal = watcher;
+        return watcherLocal != null ? watcherLocal.getInvalidatedEntries() : 0;
+    }
+
     /**
      * @return the maximum number of files that may be cached.
      */
@@ -447,6 +765,7 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
      */
     public void setMaxCacheEntries(int maxCacheEntries) {
         this.maxCacheEntries = maxCacheEntries;
+        frequencySketch.ensureCapacity(maxCacheEntries);
     }
 
     /**
@@ -481,6 +800,24 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         this.maxEntrySize = maxEntrySize;
     }
 
+    /**
+     * @return the size, in bytes, of the chunks the large files are mapped to memory in.
+     */
+    public int getMappedChunkSize() {
+        return mappedRegions.getChunkSize();
+    }
+
+    /**
+     * Sets the size, in bytes, of the chunks the large files are mapped to memory in. The chunks are mapped on demand,
+     * so only the served parts of the large files take the address space, and the first chunk of each file is loaded
+     * into physical memory, when the file is cached. The setting is applied to the files cached afterwards.
+     *
+     * @param mappedChunkSize the chunk size in bytes.
+     */
+    public void setMappedChunkSize(final int mappedChunkSize) {
+        mappedRegions.setChunkSize(mappedChunkSize);
+    }
+
     /**
      * @return the maximum size of the memory mapped cache for large files.
      */
@@ -606,7 +943,7 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
             OutputStream out = null;
             try {
                 in = new FileInputStream(entry.plainFile);
-                out = new GZIPOutputStream(new FileOutputStream(tmpCompressedFile));
+                out = new PooledGZIPOutputStream(new FileOutputStream(tmpCompressedFile));
 
                 final byte[] tmp = new byte[1024];
 
@@ -633,41 +970,91 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
                 }
             }
 
-            final long size = tmpCompressedFile.length();
+            setCompressedFile(entry, tmpCompressedFile);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Can not compress file: " + entry.plainFile, e);
+        }
+    }
+
+    /**
+     * Returns the precompressed (gzip) sidecar of the given file, the file with the
+     * {@link #PRECOMPRESSED_FILE_SUFFIX} appended to its name, if it exists and it's not older than the file.
+     *
+     * @return the precompressed sidecar {@link File}, or <tt>null</tt> if there is no up-to-date sidecar.
+     */
+    public static File getPrecompressedFile(final File file) {
+        final File precompressedFile = new File(file.getPath() + PRECOMPRESSED_FILE_SUFFIX);
+        final long lastModified = precompressedFile.lastModified();
 
-            switch (entry.type) {
-            case HEAP:
-            case MAPPED: {
-                final FileInputStream cFis = new FileInputStream(tmpCompressedFile);
+        return lastModified != 0 && lastModified >= file.lastModified() && precompressedFile.isFile() ? precompressedFile : null;
+    }
 
-                try {
-                    final FileChannel cFileChannel = cFis.getChannel();
+    /**
+     * Sets the compressed representation of the given cache entry, mapping it to memory, if the entry is memory based.
+     */
+    private void setCompressedFile(final FileCacheEntry entry, final File compressedFile) throws IOException {
+        final long size = compressedFile.length();
+
+        switch (entry.type) {
+        case MAPPED: {
+            final MappedFileRegion compressedRegion = mappedRegions.acquire(compressedFile);
+            synchronized (entry) {
+                if (!entry.regionsReleased) {
+                    entry.compressedRegion = compressedRegion;
+                    break;
+                }
+            }
 
-                    final MappedByteBuffer compressedBb = cFileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            // the entry has been removed, while the file was being compressed
+            mappedRegions.release(compressedRegion);
+            break;
+        }
+        case HEAP: {
+            final FileInputStream cFis = new FileInputStream(compressedFile);
 
-                    if (entry.type == CacheType.HEAP) {
-                        compressedBb.load();
-                    }
+            try {
+                final FileChannel cFileChannel = cFis.getChannel();
 
-                    entry.compressedBb = compressedBb;
-                } finally {
-                    cFis.close();
-                }
+                final MappedByteBuffer compressedBb = cFileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                compressedBb.load();
 
-                break;
-            }
-            case FILE: {
-                break;
+                entry.compressedBb = compressedBb;
+            } finally {
+                cFis.close();
             }
 
-            default:
-                throw new IllegalStateException("The type is not supported: " + entry.type);
-            }
+            break;
+        }
+        case FILE: {
+            break;
+        }
 
-            entry.compressedFileSize = size;
-            entry.compressedFile = tmpCompressedFile;
-        } catch (IOException e) {
-            LOGGER.log(Level.FINE, "Can not compress file: " + entry.plainFile, e);
+        default:
+            throw new IllegalStateException("The type is not supported: " + entry.type);
+        }
+
+        entry.compressedFileSize = size;
+        entry.compressedFile = compressedFile;
+    }
+
+    /**
+     * Releases the memory mapped files of the removed {@link CacheType#MAPPED} entry. The files are unmapped once the
+     * buffers being written are disposed, unless they are shared with other entries.
+     */
+    private void releaseRegions(final FileCacheEntry entry) {
+        final MappedFileRegion region;
+        final MappedFileRegion compressedRegion;
+        synchronized (entry) {
+            entry.regionsReleased = true;
+            region = entry.region;
+            compressedRegion = entry.compressedRegion;
+        }
+
+        if (region != null) {
+            mappedRegions.release(region);
+        }
+        if (compressedRegion != null) {
+            mappedRegions.release(compressedRegion);
         }
     }
 
@@ -707,6 +1094,28 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         return mappedMemorySize.get();
     }
 
+    /**
+     * Returns the number of bytes of the cached files, which are currently mapped to memory. Unlike the
+     * {@link #getMappedCacheSize()}, which is the size of all the cached large files, only the chunks of the files,
+     * which have been served, are mapped.
+     *
+     * @return the mapped bytes.
+     */
+    public long getMappedBytes() {
+        return mappedRegions.getMappedBytes();
+    }
+
+    /**
+     * Returns the estimated number of mapped bytes, which are resident in physical memory, so they could be served
+     * without reading the disk. The estimation is made per mapped chunk, so it's relatively expensive and should be
+     * used by the monitoring only.
+     *
+     * @return the resident mapped bytes.
+     */
+    public long getResidentMappedBytes() {
+        return mappedRegions.getResidentBytes();
+    }
+
     /**
      * Check if the conditions specified in the optional If headers are satisfied.
      *
@@ -921,6 +1330,21 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         }
     }
 
+    /**
+     * Notify registered {@link FileCacheProbe}s about the "entry evicted" event.
+     *
+     * @param fileCache the <tt>FileCache</tt> event occurred on.
+     * @param entry entry been evicted
+     */
+    protected static void notifyProbesEntryEvicted(final FileCache fileCache, final FileCacheEntry entry) {
+        final FileCacheProbe[] probes = fileCache.monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (FileCacheProbe probe : probes) {
+                probe.onEntryEvictedEvent(fileCache, entry);
+            }
+        }
+    }
+
     /**
      * Notify registered {@link FileCacheProbe}s about the "entry hit event.
      *
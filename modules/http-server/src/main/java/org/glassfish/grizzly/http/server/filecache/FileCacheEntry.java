@@ -17,15 +17,19 @@
 package org.glassfish.grizzly.http.server.filecache;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.http.CompressionConfig;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.util.ContentType;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
 
 /**
  * The entry value in the file cache map.
@@ -41,15 +45,23 @@ public final class FileCacheEntry implements Runnable {
     public String requestURI;
     public long lastModified = -1;
     public ContentType contentType;
+    // the content of the HEAP entry
     ByteBuffer bb;
+    // the content of the MAPPED entry
+    MappedFileRegion region;
     // The reference to the plain file to be served
     File plainFile;
     long plainFileSize = -1;
 
     private boolean canBeCompressed;
     private AtomicBoolean isCompressed;
+    // true, if the compressed representation is a precompressed sidecar file, not a temporary one
+    private boolean isPrecompressed;
     volatile File compressedFile;
     ByteBuffer compressedBb;
+    MappedFileRegion compressedRegion;
+    // true, once the regions are released by the FileCache, guarded by "this"
+    boolean regionsReleased;
     long compressedFileSize = -1;
 
     public String xPoweredBy;
@@ -61,6 +73,11 @@ public final class FileCacheEntry implements Runnable {
 
     public volatile long timeoutMillis;
 
+    // the recency list links, guarded by the FileCache LRU lock
+    FileCacheEntry lruPrev;
+    FileCacheEntry lruNext;
+    boolean lruLinked;
+
     private final FileCache fileCache;
 
     public FileCacheEntry(FileCache fileCache) {
@@ -79,11 +96,38 @@ public final class FileCacheEntry implements Runnable {
         }
     }
 
+    /**
+     * Marks the compressed representation of this entry as the precompressed sidecar file, which is served to any
+     * client accepting gzip content-encoding and is never deleted.
+     */
+    void setPrecompressed() {
+        canBeCompressed = true;
+        isPrecompressed = true;
+        isCompressed = new AtomicBoolean(true);
+    }
+
+    boolean isPrecompressed() {
+        return isPrecompressed;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this entry might be served either compressed or not, depending on the request
+     * <tt>Accept-Encoding</tt> header, so the responses have to vary on it.
+     */
+    public boolean hasCompressedVariant() {
+        return canBeCompressed;
+    }
+
     /**
      * Returns <tt>true</tt> if this entry could be served compressed as response to this (passed) specific
      * {@link HttpRequestPacket}. Or <tt>false</tt> will be returned otherwise.
      */
     public boolean canServeCompressed(final HttpRequestPacket request) {
+        if (isPrecompressed) {
+            return CompressionConfig.isClientSupportContentEncoding(request, FileCache.COMPRESSION_ALIASES)
+                    && fileCache.getCompressionConfig().checkUserAgent(request);
+        }
+
         if (!canBeCompressed || !CompressionConfig.isClientSupportCompression(fileCache.getCompressionConfig(), request, FileCache.COMPRESSION_ALIASES)) {
             return false;
         }
@@ -120,16 +164,45 @@ public final class FileCacheEntry implements Runnable {
     }
 
     /**
-     * Returns the entry's {@link ByteBuffer} representation.
+     * Returns the entry's {@link ByteBuffer} representation. Only the {@link FileCache.CacheType#HEAP} entries are
+     * represented by a single {@link ByteBuffer}, the {@link FileCache.CacheType#MAPPED} entries are mapped in chunks,
+     * use {@link #getBuffer(MemoryManager, boolean, long, long)} to access their content.
      * 
      * @param isCompressed if <tt>true</tt> the compressed {@link ByteBuffer} will be returned, otherwise uncompressed
      * {@link ByteBuffer} will be returned as the result.
-     * @return the entry's {@link ByteBuffer} reference
+     * @return the entry's {@link ByteBuffer} reference, or <tt>null</tt> if the entry is not a heap entry.
      */
     public ByteBuffer getByteBuffer(final boolean isCompressed) {
         return isCompressed ? compressedBb : bb;
     }
 
+    /**
+     * Returns the {@link Buffer} representing the part of the entry's content. The {@link Buffer} has to be disposed,
+     * once it's not needed anymore, which happens automatically once it's written to a
+     * {@link org.glassfish.grizzly.Connection}.
+     *
+     * @param memoryManager the {@link MemoryManager} to be used.
+     * @param isCompressed if <tt>true</tt> the part of the compressed content will be returned.
+     * @param offset the offset of the part.
+     * @param length the length of the part.
+     * @return the {@link Buffer}, or <tt>null</tt> if the content is not in memory (anymore), in this case the content
+     * has to be read from the {@link #getFile(boolean) file}.
+     * @throws IOException if the part of the file couldn't be mapped to memory.
+     */
+    public Buffer getBuffer(final MemoryManager memoryManager, final boolean isCompressed, final long offset, final long length) throws IOException {
+        final ByteBuffer byteBuffer = getByteBuffer(isCompressed);
+        if (byteBuffer != null) {
+            final ByteBuffer slice = byteBuffer.duplicate();
+            slice.position((int) offset);
+            slice.limit((int) (offset + length));
+
+            return Buffers.wrap(memoryManager, slice);
+        }
+
+        final MappedFileRegion mappedRegion = isCompressed ? compressedRegion : region;
+        return mappedRegion != null ? mappedRegion.toBuffer(memoryManager, offset, length) : null;
+    }
+
     @Override
     public void run() {
         fileCache.remove(this);
@@ -156,7 +229,7 @@ public final class FileCacheEntry implements Runnable {
 
     @Override
     protected void finalize() throws Throwable {
-        if (compressedFile != null) {
+        if (compressedFile != null && !isPrecompressed) {
             if (!compressedFile.delete()) {
                 if (LOGGER.isLoggable(Level.FINE)) {
                     LOGGER.log(Level.FINE, "Unable to delete file {0}.  Will try to delete again upon VM exit.", compressedFile.getCanonicalPath());
@@ -40,6 +40,15 @@ public interface FileCacheProbe {
      */
     void onEntryRemovedEvent(FileCache fileCache, FileCacheEntry entry);
 
+    /**
+     * Method will be called, when file cache entry gets evicted to make room for a more frequently requested resource.
+     * The eviction is also reported as {@link #onEntryRemovedEvent(FileCache, FileCacheEntry)}.
+     *
+     * @param fileCache {@link FileCache}, the event belongs to.
+     * @param entry {@link FileCacheEntry} been evicted.
+     */
+    void onEntryEvictedEvent(FileCache fileCache, FileCacheEntry entry);
+
     /**
      * Method will be called, when file cache entry gets hit.
      *
@@ -92,6 +101,13 @@ public interface FileCacheProbe {
         public void onEntryRemovedEvent(FileCache fileCache, FileCacheEntry entry) {
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onEntryEvictedEvent(FileCache fileCache, FileCacheEntry entry) {
+        }
+
         /**
          * {@inheritDoc}
          */
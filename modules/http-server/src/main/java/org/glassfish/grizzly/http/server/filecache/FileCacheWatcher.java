@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.filecache;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Grizzly;
+
+/**
+ * Removes the {@link FileCache} entries, whose files have been modified, deleted or replaced, as soon as the file
+ * system reports the change.
+ * <p>
+ * The parent directories of the cached files are registered with a {@link WatchService}, which is polled by a
+ * dedicated daemon thread. A directory stays registered while there is at least one cached file in it. If the
+ * {@link WatchService} loses events ({@link java.nio.file.StandardWatchEventKinds#OVERFLOW}) or the directory itself
+ * goes away, all the entries of the directory are removed.
+ * <p>
+ * The invalidation latency depends on the {@link WatchService} implementation of the platform: it's immediate on Linux
+ * and Windows, while the polling implementations may take several seconds to notice a change.
+ */
+final class FileCacheWatcher implements Runnable {
+    private static final Logger LOGGER = Grizzly.logger(FileCacheWatcher.class);
+
+    private final FileCache fileCache;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    // guarded by "this"
+    private final Map<Path, WatchedDirectory> directories = new HashMap<>();
+    private final Map<WatchKey, WatchedDirectory> directoriesByKey = new HashMap<>();
+
+    private final AtomicLong invalidatedEntries = new AtomicLong();
+
+    FileCacheWatcher(final FileCache fileCache) throws IOException {
+        this.fileCache = fileCache;
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        thread = new Thread(this, "Grizzly-FileCache-Watcher");
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Error closing the file cache WatchService", e);
+        }
+
+        synchronized (this) {
+            directories.clear();
+            directoriesByKey.clear();
+        }
+    }
+
+    /**
+     * @return the number of entries removed, because their files have changed.
+     */
+    long getInvalidatedEntries() {
+        return invalidatedEntries.get();
+    }
+
+    /**
+     * Starts watching the file of the entry.
+     *
+     * @param entry the {@link FileCacheEntry}, whose {@link FileCacheEntry#plainFile} is not <tt>null</tt>.
+     * @param lastModified the file modification time observed before the entry content was read.
+     */
+    void register(final FileCacheEntry entry, final long lastModified) {
+        final Path file = entry.plainFile.toPath().toAbsolutePath();
+        final Path dir = file.getParent();
+        if (dir == null) {
+            return;
+        }
+
+        synchronized (this) {
+            WatchedDirectory watchedDirectory = directories.get(dir);
+            if (watchedDirectory == null) {
+                final WatchKey key;
+                try {
+                    key = dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                } catch (ClosedWatchServiceException e) {
+                    return;
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Unable to watch directory " + dir, e);
+                    return;
+                }
+
+                watchedDirectory = new WatchedDirectory(dir, key);
+                directories.put(dir, watchedDirectory);
+                directoriesByKey.put(key, watchedDirectory);
+            }
+
+            watchedDirectory.add(file.getFileName(), entry);
+            if (entry.isPrecompressed()) {
+                watchedDirectory.add(entry.compressedFile.toPath().getFileName(), entry);
+            }
+        }
+
+        // the file might have been modified after its content was cached, but before the directory is watched
+        final File plainFile = entry.plainFile;
+        if (plainFile.lastModified() != lastModified || plainFile.length() != entry.plainFileSize) {
+            invalidate(entry);
+        }
+    }
+
+    /**
+     * Stops watching the file of the entry, the directory is unregistered once there are no more watched files in it.
+     */
+    synchronized void unregister(final FileCacheEntry entry) {
+        if (entry.plainFile == null) {
+            return;
+        }
+
+        final Path file = entry.plainFile.toPath().toAbsolutePath();
+        final WatchedDirectory watchedDirectory = directories.get(file.getParent());
+        if (watchedDirectory == null) {
+            return;
+        }
+
+        boolean removed = watchedDirectory.remove(file.getFileName(), entry);
+        if (entry.isPrecompressed()) {
+            removed |= watchedDirectory.remove(entry.compressedFile.toPath().getFileName(), entry);
+        }
+
+        if (removed && watchedDirectory.isEmpty()) {
+            watchedDirectory.key.cancel();
+            directories.remove(watchedDirectory.dir);
+            directoriesByKey.remove(watchedDirectory.key);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (;;) {
+                final WatchKey key = watchService.take();
+
+                final List<FileCacheEntry> changed = new ArrayList<>();
+                synchronized (this) {
+                    final WatchedDirectory watchedDirectory = directoriesByKey.get(key);
+                    if (watchedDirectory != null) {
+                        for (final WatchEvent<?> event : key.pollEvents()) {
+                            if (event.kind() == OVERFLOW) {
+                                watchedDirectory.addAllTo(changed);
+                            } else {
+                                watchedDirectory.addTo((Path) event.context(), changed);
+                            }
+                        }
+
+                        if (!key.reset()) {
+                            // the directory is not accessible anymore
+                            watchedDirectory.addAllTo(changed);
+                        }
+                    } else {
+                        key.pollEvents();
+                        key.cancel();
+                    }
+                }
+
+                for (final FileCacheEntry entry : changed) {
+                    invalidate(entry);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the watcher has been stopped
+        }
+    }
+
+    private void invalidate(final FileCacheEntry entry) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "File changed, removing the cache entry {0}", entry);
+        }
+        if (fileCache.removeEntry(entry)) {
+            invalidatedEntries.incrementAndGet();
+        }
+    }
+
+    private static final class WatchedDirectory {
+        private final Path dir;
+        private final WatchKey key;
+        // file name -> entries (the same file might be cached under several URIs)
+        private final Map<Path, Set<FileCacheEntry>> files = new HashMap<>();
+
+        private WatchedDirectory(final Path dir, final WatchKey key) {
+            this.dir = dir;
+            this.key = key;
+        }
+
+        private void add(final Path fileName, final FileCacheEntry entry) {
+            Set<FileCacheEntry> entries = files.get(fileName);
+            if (entries == null) {
+                entries = new HashSet<>(2);
+                files.put(fileName, entries);
+            }
+
+            entries.add(entry);
+        }
+
+        private boolean remove(final Path fileName, final FileCacheEntry entry) {
+            final Set<FileCacheEntry> entries = files.get(fileName);
+            if (entries == null || !entries.remove(entry)) {
+                return false;
+            }
+
+            if (entries.isEmpty()) {
+                files.remove(fileName);
+            }
+
+            return true;
+        }
+
+        private boolean isEmpty() {
+            return files.isEmpty();
+        }
+
+        private void addTo(final Path fileName, final List<FileCacheEntry> list) {
+            final Set<FileCacheEntry> entries = files.get(fileName);
+            if (entries != null) {
+                list.addAll(entries);
+            }
+        }
+
+        private void addAllTo(final List<FileCacheEntry> list) {
+            for (final Set<FileCacheEntry> entries : files.values()) {
+                list.addAll(entries);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.filecache;
+
+/**
+ * The TinyLFU frequency sketch used by {@link FileCache} to decide, whether a new resource is popular enough to replace
+ * the least recently used cached one.
+ * <p>
+ * The sketch is a Count-Min sketch of 4-bit counters, sixteen counters per <code>long</code>, four counters per
+ * resource. Once the number of recorded accesses reaches ten times the table size, all the counters are halved, so the
+ * popularity of the resources decays over time.
+ * <p>
+ * The counters are updated without synchronization, so concurrent updates may occasionally get lost, which is fine for
+ * the popularity estimation.
+ */
+final class FrequencySketch {
+    private static final int[] SEEDS = { 0x97cb3127, 0xb4b82e5d, 0x9e3779b9, 0x5bd1e995 };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private volatile long[] table;
+    private int sampleSize;
+    private int additions;
+
+    FrequencySketch(final int maximumSize) {
+        ensureCapacity(maximumSize);
+    }
+
+    /**
+     * Resizes the sketch, if needed, so it could track the given number of resources. The collected frequencies are
+     * discarded on resize.
+     */
+    void ensureCapacity(final int maximumSize) {
+        final int capacity = tableSizeFor(maximumSize);
+        final long[] t = table;
+        if (t == null || t.length < capacity) {
+            table = new long[capacity];
+            sampleSize = 10 * capacity;
+            additions = 0;
+        }
+    }
+
+    /**
+     * @return the estimated number of times the resource with the given hash has been accessed, up to <code>15</code>.
+     */
+    int frequency(final int hashCode) {
+        final long[] t = table;
+        final int hash = spread(hashCode);
+
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            final int h = hash * SEEDS[i];
+            final int index = (h >>> 4) & (t.length - 1);
+            final int offset = (h & 0xf) << 2;
+            frequency = Math.min(frequency, (int) (t[index] >>> offset & 0xfL));
+        }
+
+        return frequency;
+    }
+
+    /**
+     * Records the access to the resource with the given hash.
+     */
+    void increment(final int hashCode) {
+        final long[] t = table;
+        final int hash = spread(hashCode);
+
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            final int h = hash * SEEDS[i];
+            final int index = (h >>> 4) & (t.length - 1);
+            final int offset = (h & 0xf) << 2;
+            final long mask = 0xfL << offset;
+            if ((t[index] & mask) != mask) {
+                t[index] += 1L << offset;
+                added = true;
+            }
+        }
+
+        if (added && ++additions >= sampleSize) {
+            reset(t);
+        }
+    }
+
+    private void reset(final long[] t) {
+        for (int i = 0; i < t.length; i++) {
+            t[i] = (t[i] >>> 1) & RESET_MASK;
+        }
+
+        additions >>>= 1;
+    }
+
+    private static int spread(final int hashCode) {
+        final int h = hashCode * 0x31848bab;
+        return h ^ h >>> 14;
+    }
+
+    private static int tableSizeFor(final int maximumSize) {
+        final int size = Math.max(16, Math.min(maximumSize, 1 << 26));
+        return Integer.highestOneBit(size - 1) << 1;
+    }
+}
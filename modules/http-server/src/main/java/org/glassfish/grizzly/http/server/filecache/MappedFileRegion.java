@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.filecache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.ByteBufferWrapper;
+import org.glassfish.grizzly.memory.CompositeBuffer;
+import org.glassfish.grizzly.memory.MemoryManager;
+
+/**
+ * A file mapped to memory in fixed size chunks, shared by all the {@link FileCacheEntry}s serving the file.
+ * <p>
+ * The chunks are mapped lazily, when they are requested for the first time, so only the regions of a large file, which
+ * are actually served, take the address space. The {@link Buffer}s returned by {@link #toBuffer(MemoryManager, long, long)}
+ * keep the region mapped until they are disposed, which normally happens once their content is written to the
+ * network. Once the region is released by the cache and all its buffers are disposed, the chunks are unmapped right
+ * away instead of waiting for the garbage collector. The buffers, which are never disposed, just postpone the unmapping
+ * to the garbage collection of the region.
+ */
+final class MappedFileRegion {
+    private static final Logger LOGGER = Grizzly.logger(MappedFileRegion.class);
+
+    private static final Unmapper UNMAPPER = Unmapper.create();
+
+    private static final AtomicIntegerFieldUpdater<MappedFileRegion> REFS_UPDATER = AtomicIntegerFieldUpdater.newUpdater(MappedFileRegion.class, "refs");
+
+    final File file;
+    final long length;
+    final long lastModified;
+    private final int chunkSize;
+    private final MappedFileRegions regions;
+    private final AtomicReferenceArray<MappedByteBuffer> chunks;
+
+    // the number of cache entries and buffers referencing the region
+    private volatile int refs = 1;
+
+    // the number of cache entries sharing the region, guarded by the MappedFileRegions lock
+    int owners;
+
+    MappedFileRegion(final MappedFileRegions regions, final File file, final long length, final long lastModified, final int chunkSize) {
+        this.regions = regions;
+        this.file = file;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.chunkSize = chunkSize;
+
+        chunks = new AtomicReferenceArray<>((int) ((length + chunkSize - 1) / chunkSize));
+    }
+
+    /**
+     * Maps the first chunk of the file and loads it into physical memory, so the beginning of the file, which is read
+     * by every request, doesn't cause page faults.
+     */
+    void prefetch() throws IOException {
+        if (chunks.length() > 0) {
+            chunk(0).load();
+        }
+    }
+
+    /**
+     * @return the {@link Buffer} representing the given part of the file, which has to be disposed once it's not
+     * needed anymore, or <tt>null</tt> if the region has already been unmapped.
+     */
+    Buffer toBuffer(final MemoryManager memoryManager, final long offset, final long count) throws IOException {
+        if (count == 0) {
+            return Buffers.EMPTY_BUFFER;
+        }
+
+        if (!retain()) {
+            return null;
+        }
+
+        try {
+            final int firstChunk = (int) (offset / chunkSize);
+            final int lastChunk = (int) ((offset + count - 1) / chunkSize);
+
+            if (firstChunk == lastChunk) {
+                return slice(firstChunk, offset, offset + count);
+            }
+
+            final CompositeBuffer composite = CompositeBuffer.newBuffer(memoryManager);
+            composite.allowBufferDispose(true);
+            composite.allowInternalBuffersDispose(true);
+            for (int i = firstChunk; i <= lastChunk; i++) {
+                if (i != firstChunk) {
+                    retain();
+                }
+                final long chunkStart = (long) i * chunkSize;
+                composite.append(slice(i, Math.max(offset, chunkStart), Math.min(offset + count, chunkStart + chunkSize)));
+            }
+
+            return composite;
+        } catch (IOException | RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of mapped bytes, which are likely resident in physical memory. A chunk counts as resident only
+     * if all its pages are resident.
+     */
+    synchronized long getResidentBytes() {
+        long resident = 0;
+        for (int i = 0; i < chunks.length(); i++) {
+            final MappedByteBuffer chunk = chunks.get(i);
+            if (chunk != null && chunk.isLoaded()) {
+                resident += chunk.capacity();
+            }
+        }
+
+        return resident;
+    }
+
+    boolean retain() {
+        for (;;) {
+            final int current = refs;
+            if (current == 0) {
+                return false;
+            }
+
+            if (REFS_UPDATER.compareAndSet(this, current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        if (REFS_UPDATER.decrementAndGet(this) == 0) {
+            unmap();
+        }
+    }
+
+    private ByteBufferWrapper slice(final int chunkIdx, final long start, final long end) throws IOException {
+        final long chunkStart = (long) chunkIdx * chunkSize;
+        final ByteBuffer bb = chunk(chunkIdx).duplicate();
+        bb.limit((int) (end - chunkStart));
+        bb.position((int) (start - chunkStart));
+
+        final RegionBuffer buffer = new RegionBuffer(this, bb);
+        buffer.allowBufferDispose(true);
+
+        return buffer;
+    }
+
+    private MappedByteBuffer chunk(final int idx) throws IOException {
+        MappedByteBuffer chunk = chunks.get(idx);
+        if (chunk != null) {
+            return chunk;
+        }
+
+        synchronized (this) {
+            chunk = chunks.get(idx);
+            if (chunk == null) {
+                final long position = (long) idx * chunkSize;
+                final FileInputStream fis = new FileInputStream(file);
+                try {
+                    chunk = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, length - position));
+                } finally {
+                    fis.close();
+                }
+
+                chunks.set(idx, chunk);
+                regions.onMapped(chunk.capacity());
+            }
+
+            return chunk;
+        }
+    }
+
+    private synchronized void unmap() {
+        for (int i = 0; i < chunks.length(); i++) {
+            final MappedByteBuffer chunk = chunks.getAndSet(i, null);
+            if (chunk != null) {
+                regions.onUnmapped(chunk.capacity());
+                UNMAPPER.unmap(chunk);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappedFileRegion{file=" + file + ", length=" + length + ", refs=" + refs + '}';
+    }
+
+    /**
+     * The {@link Buffer} over a mapped chunk, which releases the region, when disposed.
+     */
+    private static final class RegionBuffer extends ByteBufferWrapper {
+        private MappedFileRegion region;
+
+        private RegionBuffer(final MappedFileRegion region, final ByteBuffer bb) {
+            super(bb);
+            this.region = region;
+        }
+
+        @Override
+        protected ByteBufferWrapper wrapByteBuffer(final ByteBuffer byteBuffer) {
+            // the slices and duplicates keep the region mapped as well, until they are disposed
+            return region != null && region.retain() ? new RegionBuffer(region, byteBuffer) : new ByteBufferWrapper(byteBuffer);
+        }
+
+        @Override
+        public void dispose() {
+            // the read-only mapped content can't be cleared in the debug mode, so ByteBufferWrapper.prepareDispose() is skipped
+            checkDispose();
+            visible = null;
+
+            final MappedFileRegion regionLocal = region;
+            if (regionLocal != null) {
+                region = null;
+                regionLocal.release();
+            }
+        }
+    }
+
+    /**
+     * Unmaps a {@link MappedByteBuffer} without waiting for the garbage collection, if the JVM allows it.
+     */
+    private abstract static class Unmapper {
+        abstract void unmap(MappedByteBuffer buffer);
+
+        static Unmapper create() {
+            try {
+                // JDK 9+
+                final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                final Object unsafe = theUnsafe.get(null);
+
+                return new Unmapper() {
+                    @Override
+                    void unmap(final MappedByteBuffer buffer) {
+                        invoke(invokeCleaner, unsafe, buffer);
+                    }
+                };
+            } catch (Exception ignored) {
+            }
+
+            try {
+                // JDK 8
+                final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+
+                return new Unmapper() {
+                    @Override
+                    void unmap(final MappedByteBuffer buffer) {
+                        final Object cleanerInstance = invoke(cleaner, buffer);
+                        if (cleanerInstance != null) {
+                            invoke(clean, cleanerInstance);
+                        }
+                    }
+                };
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Unable to unmap the mapped files explicitly, they will be unmapped by the garbage collector", e);
+            }
+
+            return new Unmapper() {
+                @Override
+                void unmap(final MappedByteBuffer buffer) {
+                }
+            };
+        }
+
+        private static Object invoke(final Method method, final Object target, final Object... args) {
+            try {
+                return method.invoke(target, args);
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Unable to unmap the mapped file", e);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.filecache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The registry of the {@link MappedFileRegion}s of the {@link FileCache}. The same file, cached for several
+ * requests URIs or hosts, is mapped only once.
+ */
+final class MappedFileRegions {
+    /**
+     * The default size of the chunks the large files are mapped in.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    // guarded by "this"
+    private final Map<String, MappedFileRegion> regions = new HashMap<>();
+
+    private final AtomicLong mappedBytes = new AtomicLong();
+
+    private volatile int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    void setChunkSize(final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size has to be positive");
+        }
+
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the region of the file, mapping the first chunk of the file, if the region is not shared with other
+     * cache entries. The region has to be {@link #release(MappedFileRegion) released}, once it's not used by the cache
+     * entry anymore.
+     */
+    MappedFileRegion acquire(final File file) throws IOException {
+        final String path = file.getPath();
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+
+        final MappedFileRegion region;
+        synchronized (this) {
+            final MappedFileRegion existing = regions.get(path);
+            if (existing != null && existing.length == length && existing.lastModified == lastModified && existing.retain()) {
+                existing.owners++;
+                return existing;
+            }
+
+            region = new MappedFileRegion(this, file, length, lastModified, chunkSize);
+            region.owners = 1;
+            regions.put(path, region);
+        }
+
+        try {
+            region.prefetch();
+        } catch (IOException | RuntimeException e) {
+            release(region);
+            throw e;
+        }
+
+        return region;
+    }
+
+    /**
+     * Releases the region of the cache entry, the region is unmapped, once it's not used by any cache entry and all its
+     * {@link org.glassfish.grizzly.Buffer}s are disposed.
+     */
+    void release(final MappedFileRegion region) {
+        synchronized (this) {
+            if (--region.owners == 0 && regions.get(region.file.getPath()) == region) {
+                regions.remove(region.file.getPath());
+            }
+        }
+
+        region.release();
+    }
+
+    /**
+     * @return the number of bytes currently mapped.
+     */
+    long getMappedBytes() {
+        return mappedBytes.get();
+    }
+
+    /**
+     * @return the number of mapped bytes, which are resident in physical memory.
+     */
+    long getResidentBytes() {
+        final MappedFileRegion[] snapshot;
+        synchronized (this) {
+            snapshot = regions.values().toArray(new MappedFileRegion[regions.size()]);
+        }
+
+        long resident = 0;
+        for (MappedFileRegion region : snapshot) {
+            resident += region.getResidentBytes();
+        }
+
+        return resident;
+    }
+
+    void onMapped(final long size) {
+        mappedBytes.addAndGet(size);
+    }
+
+    void onUnmapped(final long size) {
+        mappedBytes.addAndGet(-size);
+    }
+}
@@ -24,7 +24,9 @@ import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.http.HttpBrokenContent;
 import org.glassfish.grizzly.http.HttpContent;
 import org.glassfish.grizzly.http.io.InputBuffer;
+import org.glassfish.grizzly.http.server.HttpServerFilter;
 import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.ServerFilterConfiguration;
 
 /**
  * Server-side implementation of the {@link InputBuffer}.
@@ -37,6 +39,13 @@ public class ServerInputBuffer extends InputBuffer {
 
     public void initialize(final Request serverRequest, final FilterChainContext ctx) {
         this.serverRequest = serverRequest;
+        // the request may be initialized without the filter, like the websocket handshake request, which is never spilled
+        final HttpServerFilter httpFilter = serverRequest.getHttpFilter();
+        if (httpFilter != null) {
+            final ServerFilterConfiguration config = httpFilter.getConfiguration();
+            setSpillThreshold(config.getPostSpillThreshold());
+            setSpillDirectory(config.getPostSpillDirectory());
+        }
         super.initialize(serverRequest.getRequest(), ctx);
     }
 
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.glassfish.grizzly.http.util.FastHttpDateFormat;
+
+/**
+ * A byte range of a static resource requested using the HTTP <tt>Range</tt> header (RFC 7233), and the utility methods
+ * to parse the header and to frame a <tt>multipart/byteranges</tt> response.
+ *
+ * @since 3.0
+ */
+public final class ByteRange {
+    /**
+     * The value of the <tt>Accept-Ranges</tt> header advertising the byte range support.
+     */
+    public static final String BYTES_UNIT = "bytes";
+
+    /**
+     * The maximum number of ranges served in one response. If more ranges are requested, the <tt>Range</tt> header is
+     * ignored and the entire resource is served.
+     */
+    public static final int MAX_RANGES = 16;
+
+    private static final String BYTES_PREFIX = BYTES_UNIT + '=';
+    private static final String MULTIPART_CONTENT_TYPE = "multipart/byteranges; boundary=";
+
+    private static final AtomicLong BOUNDARY_COUNTER = new AtomicLong(System.nanoTime());
+
+    private static final Comparator<ByteRange> BY_START = new Comparator<ByteRange>() {
+        @Override
+        public int compare(final ByteRange r1, final ByteRange r2) {
+            return Long.compare(r1.start, r2.start);
+        }
+    };
+
+    private final long start;
+    private final long end;
+
+    public ByteRange(final long start, final long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @return the offset of the first byte of the range.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * @return the offset of the last byte of the range (inclusive).
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the number of bytes in the range.
+     */
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * @return the <tt>Content-Range</tt> header value for this range of the resource of the given length.
+     */
+    public String toContentRange(final long resourceLength) {
+        return BYTES_UNIT + ' ' + start + '-' + end + '/' + resourceLength;
+    }
+
+    @Override
+    public String toString() {
+        return start + "-" + end;
+    }
+
+    // ---------------------------------------------------------- Public Methods
+
+    /**
+     * Parses the <tt>Range</tt> header value. Overlapping and adjacent ranges are coalesced.
+     *
+     * @param rangeHeader the <tt>Range</tt> header value.
+     * @param resourceLength the length of the requested resource.
+     *
+     * @return the requested ranges sorted by offset, an empty list if none of the ranges is satisfiable (the response
+     * has to be <tt>416</tt>), or <tt>null</tt> if the header has to be ignored (it's malformed, uses an unknown unit
+     * or requests too many ranges).
+     */
+    public static List<ByteRange> parse(final String rangeHeader, final long resourceLength) {
+        if (rangeHeader == null || !rangeHeader.regionMatches(true, 0, BYTES_PREFIX, 0, BYTES_PREFIX.length())) {
+            return null;
+        }
+
+        final List<ByteRange> ranges = new ArrayList<>(2);
+        int specsCount = 0;
+        int idx = BYTES_PREFIX.length();
+        final int length = rangeHeader.length();
+
+        while (idx < length) {
+            int comma = rangeHeader.indexOf(',', idx);
+            if (comma == -1) {
+                comma = length;
+            }
+
+            final String spec = rangeHeader.substring(idx, comma).trim();
+            idx = comma + 1;
+            if (spec.isEmpty()) {
+                continue;
+            }
+
+            if (++specsCount > MAX_RANGES) {
+                return null;
+            }
+
+            final int dash = spec.indexOf('-');
+            if (dash == -1) {
+                return null;
+            }
+
+            final long first;
+            final long last;
+            try {
+                if (dash == 0) {
+                    // suffix range: the last N bytes
+                    final long suffix = parseNonNegative(spec.substring(1));
+                    if (suffix == 0) {
+                        continue;
+                    }
+                    first = Math.max(0, resourceLength - suffix);
+                    last = resourceLength - 1;
+                } else {
+                    first = parseNonNegative(spec.substring(0, dash));
+                    if (dash == spec.length() - 1) {
+                        last = resourceLength - 1;
+                    } else {
+                        final long lastPos = parseNonNegative(spec.substring(dash + 1));
+                        if (lastPos < first) {
+                            return null;
+                        }
+                        last = Math.min(lastPos, resourceLength - 1);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+
+            if (first < resourceLength && first <= last) {
+                ranges.add(new ByteRange(first, last));
+            }
+        }
+
+        if (specsCount == 0) {
+            return null;
+        }
+
+        return coalesce(ranges);
+    }
+
+    /**
+     * Evaluates the <tt>If-Range</tt> precondition.
+     *
+     * @param ifRangeHeader the <tt>If-Range</tt> header value, may be <tt>null</tt>.
+     * @param etag the current entity tag of the resource, may be <tt>null</tt>.
+     * @param lastModified the last modification time of the resource, or <tt>-1</tt> if unknown.
+     *
+     * @return <tt>true</tt> if the <tt>Range</tt> header has to be evaluated, or <tt>false</tt> if the entire resource
+     * has to be served.
+     */
+    public static boolean isIfRangeSatisfied(final String ifRangeHeader, final String etag, final long lastModified) {
+        if (ifRangeHeader == null) {
+            return true;
+        }
+
+        final String value = ifRangeHeader.trim();
+        if (value.startsWith("\"")) {
+            // strong comparison
+            return value.equals(etag);
+        }
+        if (value.startsWith("W/")) {
+            // weak validators can't be used in If-Range
+            return false;
+        }
+
+        if (lastModified < 0) {
+            return false;
+        }
+
+        final SimpleDateFormats formats = SimpleDateFormats.create();
+        try {
+            final long date = FastHttpDateFormat.parseDate(value, formats.getFormats());
+            return date != -1 && date / 1000 == lastModified / 1000;
+        } finally {
+            formats.recycle();
+        }
+    }
+
+    /**
+     * @return a new <tt>multipart/byteranges</tt> boundary.
+     */
+    public static String generateBoundary() {
+        return "GRIZZLY_" + Long.toHexString(BOUNDARY_COUNTER.incrementAndGet() * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * @return the <tt>Content-Type</tt> of the <tt>multipart/byteranges</tt> response with the given boundary.
+     */
+    public static String multipartContentType(final String boundary) {
+        return MULTIPART_CONTENT_TYPE + boundary;
+    }
+
+    /**
+     * @return the bytes preceding the range content in the <tt>multipart/byteranges</tt> response.
+     */
+    public static byte[] multipartPartHeader(final String boundary, final String contentType, final ByteRange range, final long resourceLength,
+            final boolean isFirst) {
+        final StringBuilder sb = new StringBuilder(96);
+        if (!isFirst) {
+            sb.append("\r\n");
+        }
+        sb.append("--").append(boundary).append("\r\n");
+        if (contentType != null) {
+            sb.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        sb.append("Content-Range: ").append(range.toContentRange(resourceLength)).append("\r\n\r\n");
+
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @return the bytes completing the <tt>multipart/byteranges</tt> response.
+     */
+    public static byte[] multipartTrailer(final String boundary) {
+        return ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    // --------------------------------------------------------- Private Methods
+
+    private static List<ByteRange> coalesce(final List<ByteRange> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+
+        Collections.sort(ranges, BY_START);
+
+        final List<ByteRange> result = new ArrayList<>(ranges.size());
+        ByteRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            final ByteRange next = ranges.get(i);
+            if (next.start <= current.end + 1) {
+                current = new ByteRange(current.start, Math.max(current.end, next.end));
+            } else {
+                result.add(current);
+                current = next;
+            }
+        }
+        result.add(current);
+
+        return result;
+    }
+
+    private static long parseNonNegative(final String s) {
+        final String trimmed = s.trim();
+        if (trimmed.isEmpty() || trimmed.charAt(0) == '+' || trimmed.charAt(0) == '-') {
+            throw new NumberFormatException(s);
+        }
+
+        return Long.parseLong(trimmed);
+    }
+}
@@ -0,0 +1,723 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.grizzly.http.server.util;
+
+import java.io.CharConversionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.glassfish.grizzly.http.util.CharChunk;
+import org.glassfish.grizzly.http.util.DataChunk;
+import org.glassfish.grizzly.utils.Charsets;
+
+/**
+ * The alternative to the {@link Mapper}, which maps the request URIs of a single virtual host without static resources,
+ * i.e. the way {@link org.glassfish.grizzly.http.server.HttpHandlerChain} uses the {@link Mapper}, following the same
+ * rules.
+ * <p>
+ * The contexts and the wrappers are compiled into immutable radix trees over the chars of their paths, so the chars of
+ * the decoded request URI are matched directly, without the binary searches the {@link Mapper} repeats for each path
+ * segment. The trees are recompiled on the first lookup after the registrations have changed and swapped atomically,
+ * so the lookups never block.
+ * <p>
+ * The recent mapping results are kept in a fixed size, direct-mapped cache keyed by the URI chars, so the repeated
+ * requests for the same URI skip the mapping altogether.
+ */
+public class TrieMapper {
+    /**
+     * The default number of the cached mapping results.
+     */
+    public static final int DEFAULT_CACHE_SIZE = Integer.getInteger(TrieMapper.class.getName() + ".cache-size", 1024);
+
+    // the results of the longer URIs are not cached
+    private static final int MAX_CACHED_URI_LENGTH = 256;
+
+    private static final char[] SLASH = { '/' };
+
+    private final int cacheSize;
+
+    // the registrations, guarded by this
+    private final TreeMap<String, ContextRegistration> contexts = new TreeMap<>();
+
+    // the compiled registrations, null if they have to be recompiled
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructs the mapper, which caches up to {@link #DEFAULT_CACHE_SIZE} mapping results.
+     */
+    public TrieMapper() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs the mapper.
+     *
+     * @param cacheSize the number of the cached mapping results, rounded up to the power of two, <tt>0</tt> disables the
+     * cache.
+     */
+    public TrieMapper(final int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize can't be negative");
+        }
+
+        int size = cacheSize == 0 ? 0 : 1;
+        while (size < cacheSize) {
+            size <<= 1;
+        }
+        this.cacheSize = size;
+    }
+
+    /**
+     * @return the number of the cached mapping results.
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Adds a new context.
+     *
+     * @param path the context path
+     * @param context the context object
+     * @param welcomeResources the welcome resources of the context
+     */
+    public synchronized void addContext(final String path, final Object context, final String[] welcomeResources) {
+        final ContextRegistration registration = contexts.get(path);
+        if (registration == null) {
+            contexts.put(path, new ContextRegistration(path, context, welcomeResources));
+        } else if (Mapper.allowReplacement()) {
+            registration.object = context;
+            registration.welcomeResources = welcomeResources;
+        } else {
+            return;
+        }
+
+        snapshot = null;
+    }
+
+    /**
+     * Removes the context and its wrappers.
+     *
+     * @param path the context path
+     */
+    public synchronized void removeContext(final String path) {
+        if (contexts.remove(path) != null) {
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Adds a wrapper to the existing context.
+     *
+     * @param contextPath the context path
+     * @param path the wrapper mapping, i.e. the exact path, the prefix <tt>/path/*</tt>, the extension <tt>*.ext</tt> or
+     * the default mapping <tt>/</tt>
+     * @param wrapper the wrapper object
+     */
+    public synchronized void addWrapper(final String contextPath, final String path, final Object wrapper) {
+        final ContextRegistration context = contexts.get(contextPath);
+        if (context == null) {
+            return;
+        }
+
+        if (path.endsWith("/*")) {
+            put(context.wildcardWrappers, path.substring(0, path.length() - 2), path, wrapper);
+        } else if (path.startsWith("*.")) {
+            put(context.extensionWrappers, path.substring(2), path, wrapper);
+        } else {
+            if ("/".equals(path)) {
+                context.defaultWrapper = new WrapperRegistration(path, wrapper);
+            }
+            put(context.exactWrappers, path, path, wrapper);
+        }
+
+        snapshot = null;
+    }
+
+    /**
+     * Removes a wrapper from the existing context.
+     *
+     * @param contextPath the context path
+     * @param path the wrapper mapping
+     */
+    public synchronized void removeWrapper(final String contextPath, final String path) {
+        final ContextRegistration context = contexts.get(contextPath);
+        if (context == null) {
+            return;
+        }
+
+        if (path.endsWith("/*")) {
+            context.wildcardWrappers.remove(path.substring(0, path.length() - 2));
+        } else if (path.startsWith("*.")) {
+            context.extensionWrappers.remove(path.substring(2));
+        } else if ("/".equals(path)) {
+            context.defaultWrapper = null;
+        } else {
+            context.exactWrappers.remove(path);
+        }
+
+        snapshot = null;
+    }
+
+    /**
+     * Maps the decoded URI, considering that URI may have a semicolon with extra data followed, which shouldn't be a part
+     * of mapping process.
+     *
+     * @param decodedURI decoded URI
+     * @param mappingData {@link MappingData} based on the URI.
+     * @param semicolonPos semicolon position. Might be <tt>0</tt> if position wasn't resolved yet (so it will be resolved
+     * in the method), or <tt>-1</tt> if there is no semicolon in the URI.
+     * @throws CharConversionException if the decoded URI bytes can't be converted into chars
+     */
+    public void mapUriWithSemicolon(final DataChunk decodedURI, final MappingData mappingData, int semicolonPos) throws CharConversionException {
+        // the HttpRequestURIDecoder has already converted the decoded URI into chars, so it's usually no-op
+        decodedURI.toChars(Charsets.UTF8_CHARSET);
+        if (semicolonPos == 0) {
+            semicolonPos = decodedURI.indexOf(';', 0);
+        }
+
+        final CharChunk charChunk = decodedURI.getCharChunk();
+        final char[] chars = charChunk.getBuffer();
+        final int start = charChunk.getStart();
+        final int end = semicolonPos >= 0 ? start + semicolonPos : charChunk.getEnd();
+
+        map(chars, start, end).apply(mappingData);
+    }
+
+    /**
+     * Maps the decoded URI.
+     *
+     * @param decodedURI decoded URI
+     * @param mappingData This structure will contain the result of the mapping operation
+     * @throws CharConversionException if the decoded URI bytes can't be converted into chars
+     */
+    public void map(final DataChunk decodedURI, final MappingData mappingData) throws CharConversionException {
+        mapUriWithSemicolon(decodedURI, mappingData, -1);
+    }
+
+    private Match map(final char[] chars, final int start, final int end) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = compile();
+        }
+
+        final CacheEntry[] cache = current.cache;
+        final int length = end - start;
+        if (cache == null || length > MAX_CACHED_URI_LENGTH) {
+            return current.map(chars, start, end);
+        }
+
+        final int hash = hash(chars, start, end);
+        final int index = hash & cache.length - 1;
+        final CacheEntry entry = cache[index];
+        if (entry != null && entry.hash == hash && regionMatches(entry.uri, chars, start, length)) {
+            return entry.match;
+        }
+
+        final Match match = current.map(chars, start, end);
+        cache[index] = new CacheEntry(Arrays.copyOfRange(chars, start, end), hash, match);
+        return match;
+    }
+
+    private synchronized Snapshot compile() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // the contexts are sorted by their paths, i.e. by the chars, the way the radix tree expects them
+            final List<char[]> keys = new ArrayList<>(contexts.size());
+            final List<MappedContext> values = new ArrayList<>(contexts.size());
+            for (ContextRegistration context : contexts.values()) {
+                final MappedContext mappedContext = new MappedContext(context);
+                keys.add(mappedContext.name);
+                values.add(mappedContext);
+            }
+
+            current = new Snapshot(Node.build(keys, values),
+                    cacheSize == 0 ? null : new CacheEntry[cacheSize]);
+            snapshot = current;
+        }
+
+        return current;
+    }
+
+    private static void put(final Map<String, WrapperRegistration> wrappers, final String name, final String path, final Object wrapper) {
+        final WrapperRegistration registration = wrappers.get(name);
+        if (registration == null) {
+            wrappers.put(name, new WrapperRegistration(path, wrapper));
+        } else if (Mapper.allowReplacement()) {
+            registration.object = wrapper;
+        }
+    }
+
+    private static int hash(final char[] chars, final int start, final int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+
+        return hash ^ hash >>> 16;
+    }
+
+    private static boolean regionMatches(final char[] key, final char[] chars, final int offset, final int length) {
+        if (key.length != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (key[i] != chars[offset + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String asString(final char[] chars, final int start, final int end) {
+        return new String(chars, start, end - start);
+    }
+
+    /**
+     * The compiled registrations.
+     */
+    private static final class Snapshot {
+        private final Node contexts;
+        private final CacheEntry[] cache;
+
+        private Snapshot(final Node contexts, final CacheEntry[] cache) {
+            this.contexts = contexts;
+            this.cache = cache;
+        }
+
+        private Match map(final char[] chars, final int start, final int end) {
+            final Match match = new Match();
+
+            final MappedContext context = (MappedContext) Node.longestPrefix(contexts, chars, start, end);
+            if (context == null) {
+                return match;
+            }
+
+            match.context = context.object;
+            match.contextPath = context.path;
+
+            char[] path = chars;
+            int servletPath = start + context.name.length;
+            int pathEnd = end;
+            final boolean noServletPath = servletPath == end;
+            if (noServletPath) {
+                path = SLASH;
+                servletPath = 0;
+                pathEnd = 1;
+            }
+
+            // Rule 1 -- Exact Match
+            mapExactWrapper(context, path, servletPath, pathEnd, match);
+
+            // Rule 2 -- Prefix Match
+            if (match.wrapper == null) {
+                mapWildcardWrapper(context, path, servletPath, pathEnd, match);
+            }
+
+            if (noServletPath && (match.wrapper == null || "".equals(match.wrapperPath))) {
+                // The path is empty, redirect to "/"
+                match.redirectPath = asString(chars, start, end) + '/';
+                return match;
+            }
+
+            // Rule 3 -- Extension Match
+            if (match.wrapper == null) {
+                mapExtensionWrapper(context, path, servletPath, pathEnd, match);
+            }
+
+            // Rule 4 -- Welcome resources processing for servlets
+            if (match.wrapper == null && path[pathEnd - 1] == '/') {
+                final int length = pathEnd - servletPath;
+                for (int i = 0; i < context.welcomeResources.length && match.wrapper == null; i++) {
+                    final char[] welcomeResource = context.welcomeResources[i];
+                    final char[] welcomePath = new char[length + welcomeResource.length];
+                    System.arraycopy(path, servletPath, welcomePath, 0, length);
+                    System.arraycopy(welcomeResource, 0, welcomePath, length, welcomeResource.length);
+
+                    mapExactWrapper(context, welcomePath, 0, welcomePath.length, match);
+                    if (match.wrapper == null) {
+                        mapWildcardWrapper(context, welcomePath, 0, welcomePath.length, match);
+                    }
+                    if (match.wrapper == null) {
+                        mapExtensionWrapper(context, welcomePath, 0, welcomePath.length, match);
+                    }
+                }
+            }
+
+            // Rule 7 -- Default servlet
+            if (match.wrapper == null && context.defaultWrapper != null) {
+                match.wrapper = context.defaultWrapper.object;
+                match.requestPath = asString(path, servletPath, pathEnd);
+                match.wrapperPath = match.requestPath;
+                match.mappingType = MappingData.DEFAULT;
+                match.descriptorPath = "/";
+                match.matchedPath = match.requestPath;
+            }
+
+            return match;
+        }
+
+        private static void mapExactWrapper(final MappedContext context, final char[] path, final int start, final int end, final Match match) {
+            final MappedWrapper wrapper = (MappedWrapper) Node.get(context.exactWrappers, path, start, end);
+            if (wrapper != null) {
+                match.requestPath = wrapper.name;
+                match.wrapperPath = wrapper.name;
+                match.wrapper = wrapper.object;
+                match.descriptorPath = wrapper.path;
+                match.matchedPath = wrapper.name;
+                match.mappingType = "/".equals(wrapper.name) ? MappingData.DEFAULT : MappingData.EXACT;
+            }
+        }
+
+        private static void mapWildcardWrapper(final MappedContext context, final char[] path, final int start, final int end, final Match match) {
+            final MappedWrapper wrapper = (MappedWrapper) Node.longestPrefix(context.wildcardWrappers, path, start, end);
+            if (wrapper != null) {
+                final int length = wrapper.nameChars.length;
+                match.wrapperPath = wrapper.name;
+                if (end - start > length) {
+                    match.pathInfo = asString(path, start + length, end);
+                }
+                match.requestPath = asString(path, start, end);
+                match.wrapper = wrapper.object;
+                match.mappingType = MappingData.PATH;
+                match.descriptorPath = wrapper.path;
+                match.matchedPath = match.requestPath;
+            }
+        }
+
+        private static void mapExtensionWrapper(final MappedContext context, final char[] path, final int start, final int end, final Match match) {
+            int slash = -1;
+            for (int i = end - 1; i >= start; i--) {
+                if (path[i] == '/') {
+                    slash = i;
+                    break;
+                }
+            }
+            if (slash < 0) {
+                return;
+            }
+
+            int period = -1;
+            for (int i = end - 1; i > slash; i--) {
+                if (path[i] == '.') {
+                    period = i;
+                    break;
+                }
+            }
+            if (period < 0) {
+                return;
+            }
+
+            final String pathString = asString(path, start, end);
+            final MappedWrapper wrapper = (MappedWrapper) Node.get(context.extensionWrappers, path, period + 1, end);
+            if (wrapper != null) {
+                match.wrapperPath = pathString;
+                match.requestPath = pathString;
+                match.wrapper = wrapper.object;
+                match.mappingType = MappingData.EXTENSION;
+                match.descriptorPath = wrapper.path;
+            }
+            match.matchedPath = pathString;
+        }
+    }
+
+    /**
+     * The immutable radix tree node. The label of the node includes the first char, which distinguishes the node from its
+     * siblings.
+     */
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private final char[] label;
+        private final Object value;
+        // the sorted first chars of the children labels
+        private final char[] childChars;
+        private final Node[] children;
+
+        private Node(final char[] label, final Object value, final char[] childChars, final Node[] children) {
+            this.label = label;
+            this.value = value;
+            this.childChars = childChars;
+            this.children = children;
+        }
+
+        /**
+         * Builds the tree of the given keys, which have to be sorted.
+         *
+         * @return the root node, or <tt>null</tt> if there are no keys.
+         */
+        private static Node build(final List<char[]> keys, final List<?> values) {
+            return keys.isEmpty() ? null : build(keys, values, 0, keys.size(), 0);
+        }
+
+        private static Node build(final List<char[]> keys, final List<?> values, final int from, final int to, final int depth) {
+            final char[] first = keys.get(from);
+            final char[] last = keys.get(to - 1);
+
+            // the keys are sorted, so the common prefix of the first and the last key is common for all of them
+            int prefixEnd = depth;
+            while (prefixEnd < first.length && prefixEnd < last.length && first[prefixEnd] == last[prefixEnd]) {
+                prefixEnd++;
+            }
+
+            int i = from;
+            Object value = null;
+            if (first.length == prefixEnd) {
+                value = values.get(i++);
+            }
+
+            final List<Node> children = new ArrayList<>();
+            while (i < to) {
+                final char c = keys.get(i)[prefixEnd];
+                int j = i + 1;
+                while (j < to && keys.get(j)[prefixEnd] == c) {
+                    j++;
+                }
+                children.add(build(keys, values, i, j, prefixEnd));
+                i = j;
+            }
+
+            final char[] childChars = new char[children.size()];
+            for (int k = 0; k < childChars.length; k++) {
+                childChars[k] = children.get(k).label[0];
+            }
+
+            return new Node(Arrays.copyOfRange(first, depth, prefixEnd), value, childChars,
+                    children.isEmpty() ? NO_CHILDREN : children.toArray(new Node[children.size()]));
+        }
+
+        /**
+         * @return the value of the key, which is equal to the given chars.
+         */
+        private static Object get(Node node, final char[] chars, final int start, final int end) {
+            int pos = start;
+            while (node != null) {
+                pos = matchLabel(node, chars, pos, end);
+                if (pos < 0) {
+                    return null;
+                }
+                if (pos == end) {
+                    return node.value;
+                }
+
+                node = node.child(chars[pos]);
+            }
+
+            return null;
+        }
+
+        /**
+         * @return the value of the longest key, which is the prefix of the given chars followed by the slash or the end of
+         * the chars. The empty key matches any chars.
+         */
+        private static Object longestPrefix(Node node, final char[] chars, final int start, final int end) {
+            Object result = null;
+            int pos = start;
+            while (node != null) {
+                pos = matchLabel(node, chars, pos, end);
+                if (pos < 0) {
+                    break;
+                }
+                if (node.value != null && (pos == end || pos == start || chars[pos] == '/')) {
+                    result = node.value;
+                }
+                if (pos == end) {
+                    break;
+                }
+
+                node = node.child(chars[pos]);
+            }
+
+            return result;
+        }
+
+        /**
+         * @return the position after the node label, or <tt>-1</tt> if the chars don't match the label.
+         */
+        private static int matchLabel(final Node node, final char[] chars, final int pos, final int end) {
+            final char[] label = node.label;
+            final int length = label.length;
+            if (end - pos < length) {
+                return -1;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (label[i] != chars[pos + i]) {
+                    return -1;
+                }
+            }
+
+            return pos + length;
+        }
+
+        private Node child(final char key) {
+            final char[] keys = childChars;
+            int low = 0;
+            int high = keys.length - 1;
+            while (low <= high) {
+                final int mid = low + high >>> 1;
+                final char midKey = keys[mid];
+                if (midKey < key) {
+                    low = mid + 1;
+                } else if (midKey > key) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * The result of the mapping, which is not modified once the mapping is complete.
+     */
+    private static final class Match {
+        private Object context;
+        private String contextPath;
+        private Object wrapper;
+        private String wrapperPath;
+        private String pathInfo;
+        private String requestPath;
+        private String redirectPath;
+        private byte mappingType = MappingData.UNKNOWN;
+        private String descriptorPath;
+        private String matchedPath;
+
+        private void apply(final MappingData mappingData) {
+            mappingData.context = context;
+            mappingData.wrapper = wrapper;
+            mappingData.mappingType = mappingType;
+            mappingData.descriptorPath = descriptorPath;
+            mappingData.matchedPath = matchedPath;
+            set(mappingData.contextPath, contextPath);
+            set(mappingData.wrapperPath, wrapperPath);
+            set(mappingData.pathInfo, pathInfo);
+            set(mappingData.requestPath, requestPath);
+            set(mappingData.redirectPath, redirectPath);
+        }
+
+        private static void set(final DataChunk dataChunk, final String value) {
+            if (value != null) {
+                dataChunk.setString(value);
+            }
+        }
+    }
+
+    private static final class CacheEntry {
+        private final char[] uri;
+        private final int hash;
+        private final Match match;
+
+        private CacheEntry(final char[] uri, final int hash, final Match match) {
+            this.uri = uri;
+            this.hash = hash;
+            this.match = match;
+        }
+    }
+
+    private static final class MappedContext {
+        private final String path;
+        private final char[] name;
+        private final Object object;
+        private final char[][] welcomeResources;
+        private final Node exactWrappers;
+        private final Node wildcardWrappers;
+        private final Node extensionWrappers;
+        private final MappedWrapper defaultWrapper;
+
+        private MappedContext(final ContextRegistration registration) {
+            path = registration.path;
+            name = registration.path.toCharArray();
+            object = registration.object;
+
+            final String[] resources = registration.welcomeResources != null ? registration.welcomeResources : new String[0];
+            welcomeResources = new char[resources.length][];
+            for (int i = 0; i < resources.length; i++) {
+                welcomeResources[i] = resources[i].toCharArray();
+            }
+
+            exactWrappers = compile(registration.exactWrappers);
+            wildcardWrappers = compile(registration.wildcardWrappers);
+            extensionWrappers = compile(registration.extensionWrappers);
+            defaultWrapper = registration.defaultWrapper != null ? new MappedWrapper("", registration.defaultWrapper) : null;
+        }
+
+        private static Node compile(final Map<String, WrapperRegistration> wrappers) {
+            // the String order is the order of the chars, which the radix tree expects
+            final TreeMap<String, MappedWrapper> sorted = new TreeMap<>();
+            for (Map.Entry<String, WrapperRegistration> entry : wrappers.entrySet()) {
+                sorted.put(entry.getKey(), new MappedWrapper(entry.getKey(), entry.getValue()));
+            }
+
+            final List<char[]> keys = new ArrayList<>(sorted.size());
+            for (MappedWrapper wrapper : sorted.values()) {
+                keys.add(wrapper.nameChars);
+            }
+
+            return Node.build(keys, new ArrayList<>(sorted.values()));
+        }
+    }
+
+    private static final class MappedWrapper {
+        private final String name;
+        private final char[] nameChars;
+        private final String path;
+        private final Object object;
+
+        private MappedWrapper(final String name, final WrapperRegistration registration) {
+            this.name = name;
+            nameChars = name.toCharArray();
+            path = registration.path;
+            object = registration.object;
+        }
+    }
+
+    private static final class ContextRegistration {
+        private final String path;
+        private Object object;
+        private String[] welcomeResources;
+        private final Map<String, WrapperRegistration> exactWrappers = new LinkedHashMap<>();
+        private final Map<String, WrapperRegistration> wildcardWrappers = new LinkedHashMap<>();
+        private final Map<String, WrapperRegistration> extensionWrappers = new LinkedHashMap<>();
+        private WrapperRegistration defaultWrapper;
+
+        private ContextRegistration(final String path, final Object object, final String[] welcomeResources) {
+            this.path = path;
+            this.object = object;
+            this.welcomeResources = welcomeResources;
+        }
+    }
+
+    private static final class WrapperRegistration {
+        private final String path;
+        private Object object;
+
+        private WrapperRegistration(final String path, final Object object) {
+            this.path = path;
+            this.object = object;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.CompressionCache;
+import org.glassfish.grizzly.http.CompressionConfig;
+import org.glassfish.grizzly.http.CompressionConfig.CompressionMode;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.junit.Test;
+
+/**
+ * Test the {@link CompressionCache}.
+ */
+public class CompressionCacheTest {
+    private static final int PORT = 18911;
+
+    private static final MemoryManager MM = MemoryManager.DEFAULT_MEMORY_MANAGER;
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        final CompressionCache cache = new CompressionCache(1024, 100);
+        final CountingCompression compression = new CountingCompression();
+
+        final Buffer first = cache.getOrCompress("gzip", content('a', 50), MM, compression);
+        assertEquals(1, compression.count.get());
+        final Buffer second = cache.getOrCompress("gzip", content('a', 50), MM, compression);
+        assertEquals(1, compression.count.get());
+        assertNotSame(first, second);
+        assertEquals(first, second);
+
+        // the content split into several buffers is the same content
+        final Buffer composite = Buffers.appendBuffers(MM, content('a', 20), content('a', 30));
+        assertEquals(first, cache.getOrCompress("gzip", composite, MM, compression));
+        assertEquals(50, composite.remaining());
+        assertEquals(1, compression.count.get());
+
+        // the key includes the encoding and the content
+        cache.getOrCompress("br", content('a', 50), MM, compression);
+        cache.getOrCompress("gzip", content('b', 50), MM, compression);
+        cache.getOrCompress("gzip", content('a', 51), MM, compression);
+        assertEquals(4, compression.count.get());
+
+        // the content above the maximum entry size is not cached
+        cache.getOrCompress("gzip", content('a', 101), MM, compression);
+        cache.getOrCompress("gzip", content('a', 101), MM, compression);
+        assertEquals(6, compression.count.get());
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+        assertEquals(2.0 / 6, cache.getHitRate(), 0.0001);
+        assertEquals(4, cache.getEntryCount());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        // the compressed content is the same as the uncompressed one, so 4 entries of 60 bytes fit
+        final CompressionCache cache = new CompressionCache(250, 100);
+        final CountingCompression compression = new CountingCompression();
+
+        for (int i = 0; i < 4; i++) {
+            cache.getOrCompress("gzip", content((char) ('a' + i), 60), MM, compression);
+        }
+        assertEquals(4, cache.getEntryCount());
+        assertEquals(240, cache.getUsedSize());
+
+        // the ring wraps and the oldest entry is evicted
+        cache.getOrCompress("gzip", content('e', 60), MM, compression);
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(4, cache.getEntryCount());
+
+        // the evicted entry is compressed again, the others are still cached and intact
+        final int compressions = compression.count.get();
+        for (int i = 1; i < 5; i++) {
+            assertEquals(content((char) ('a' + i), 60), cache.getOrCompress("gzip", content((char) ('a' + i), 60), MM, compression));
+        }
+        assertEquals(compressions, compression.count.get());
+        cache.getOrCompress("gzip", content('a', 60), MM, compression);
+        assertEquals(compressions + 1, compression.count.get());
+
+        cache.clear();
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getUsedSize());
+    }
+
+    @Test
+    public void testCachedResponses() throws Exception {
+        final CompressionCache cache = new CompressionCache(1024 * 1024);
+
+        final HttpServer server = HttpServer.createSimpleServer("/tmp", PORT);
+        final CompressionConfig compressionConfig = server.getListener("grizzly").getCompressionConfig();
+        compressionConfig.setCompressionMode(CompressionMode.ON);
+        compressionConfig.setCompressionMinSize(1);
+        compressionConfig.setCompressionCache(cache);
+
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append("{\"flag\":\"feature-").append(i).append("\",\"enabled\":").append(i % 3 == 0).append("},\n");
+        }
+        final byte[] body = sb.toString().getBytes("UTF-8");
+
+        server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                response.setContentType("application/json");
+                response.getOutputStream().write(body);
+            }
+        }, "/flags");
+
+        try {
+            server.start();
+            for (int i = 0; i < 3; i++) {
+                assertArrayEquals(body, getGzipped("http://localhost:" + PORT + "/flags"));
+            }
+        } finally {
+            server.shutdownNow();
+        }
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    private static byte[] getGzipped(final String url) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        try {
+            assertEquals(200, connection.getResponseCode());
+            assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+
+            final InputStream in = new GZIPInputStream(connection.getInputStream());
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buf = new byte[4096];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                out.write(buf, 0, len);
+            }
+            return out.toByteArray();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static Buffer content(final char c, final int length) {
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(c);
+        }
+
+        return Buffers.wrap(MM, sb.toString());
+    }
+
+    /**
+     * The "compression", which returns the copy of the content and counts the calls.
+     */
+    private static final class CountingCompression implements CompressionCache.Compression {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Buffer compress(final Buffer content) {
+            count.incrementAndGet();
+            final Buffer copy = MM.allocate(content.remaining());
+            copy.put(content);
+            copy.flip();
+            return copy;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.glassfish.grizzly.http.server;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -24,7 +25,10 @@ import java.util.Collection;
 import java.util.Random;
 
 import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.BrotliContentEncoding;
+import org.glassfish.grizzly.http.CompressionConfig;
 import org.glassfish.grizzly.http.CompressionConfig.CompressionMode;
+import org.glassfish.grizzly.http.GZipContentEncoding;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
 import org.glassfish.grizzly.http.Method;
@@ -125,6 +129,44 @@ public class CompressionEncodingFilterTest {
         assertFalse(filter.applyDecoding(request));
     }
 
+    @Test
+    public void testContentEncodingNegotiation() throws Exception {
+        final CompressionConfig config = new CompressionConfig();
+        config.setCompressionMode(CompressionMode.ON);
+        config.setCompressionMinSize(1);
+        config.setCompressionEncodings("br", "gzip");
+
+        final CompressionEncodingFilter brotliFilter = new CompressionEncodingFilter(config, BrotliContentEncoding.getBrotliAliases());
+        final CompressionEncodingFilter gzipFilter = new CompressionEncodingFilter(config, GZipContentEncoding.getGzipAliases());
+
+        // the same q-value, the server preference wins
+        assertNegotiated(config, "gzip, deflate, br", "br", brotliFilter, gzipFilter);
+        // the higher q-value wins
+        assertNegotiated(config, "br;q=0.5, gzip", "gzip", brotliFilter, gzipFilter);
+        assertNegotiated(config, "br; q=0.8, gzip;Q=0.9", "gzip", brotliFilter, gzipFilter);
+        // the explicit q-value wins over the wildcard one
+        assertNegotiated(config, "*;q=0.1, gzip;q=0.2", "gzip", brotliFilter, gzipFilter);
+        assertNegotiated(config, "*", "br", brotliFilter, gzipFilter);
+        // the disabled encodings
+        assertNegotiated(config, "br;q=0, gzip;q=0.001", "gzip", brotliFilter, gzipFilter);
+        assertNegotiated(config, "*;q=0, br", "br", brotliFilter, gzipFilter);
+        assertNegotiated(config, "*, br;q=0.0, gzip;q=0", null, brotliFilter, gzipFilter);
+        // the tokens are matched as a whole
+        assertNegotiated(config, "x-gzip, brotli", null, brotliFilter, gzipFilter);
+        assertNegotiated(config, "identity", null, brotliFilter, gzipFilter);
+    }
+
+    private void assertNegotiated(final CompressionConfig config, final String acceptEncoding, final String expected,
+            final CompressionEncodingFilter brotliFilter, final CompressionEncodingFilter gzipFilter) {
+        final HttpRequestPacket request = setAcceptEncoding(HttpRequestPacket.builder().method(Method.GET).protocol(Protocol.HTTP_1_1).uri("/").build(),
+                acceptEncoding);
+        assertEquals(acceptEncoding, expected, config.selectCompressionEncoding(request));
+
+        final HttpResponsePacket response = HttpResponsePacket.builder(request).protocol(Protocol.HTTP_1_1).build();
+        assertEquals(acceptEncoding, "br".equals(expected), brotliFilter.applyEncoding(response));
+        assertEquals(acceptEncoding, "gzip".equals(expected), gzipFilter.applyEncoding(response));
+    }
+
     private HttpRequestPacket setAcceptEncoding(HttpRequestPacket request, String acceptEncoding) {
         return setHeader(request, Header.AcceptEncoding, acceptEncoding);
     }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.grizzly.http.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * {@link DefaultSessionManager} tests
+ */
+public class DefaultSessionManagerTest {
+
+    @Test
+    public void testExpiration() {
+        final DefaultSessionManager manager = new DefaultSessionManager();
+        final long now = System.currentTimeMillis();
+
+        final Session idle = manager.createSession(null);
+        idle.setSessionTimeout(10000);
+        final Session active = manager.createSession(null);
+        active.setSessionTimeout(10000);
+        final Session eternal = manager.createSession(null);
+        assertEquals(3, manager.getSessionCount());
+
+        manager.expireSessions(now + 1000);
+        assertEquals(3, manager.getSessionCount());
+
+        // the access moves the expiration time
+        active.setTimestamp(now + 15000);
+        manager.expireSessions(now + 20000);
+        assertEquals(2, manager.getSessionCount());
+        assertFalse(idle.isValid());
+        assertNull(manager.getSession(null, idle.getIdInternal()));
+        assertSame(active, manager.getSession(null, active.getIdInternal()));
+
+        manager.expireSessions(now + 30000);
+        assertEquals(1, manager.getSessionCount());
+        assertSame(eternal, manager.getSession(null, eternal.getIdInternal()));
+        assertEquals(2, manager.getExpiredSessionCount());
+    }
+
+    @Test
+    public void testExpirationOnLookup() {
+        final DefaultSessionManager manager = new DefaultSessionManager();
+
+        final Session session = manager.createSession(null);
+        session.setSessionTimeout(1000);
+        session.setTimestamp(System.currentTimeMillis() - 5000);
+
+        // the session is expired, even though the expirer hasn't checked it yet
+        assertNull(manager.getSession(null, session.getIdInternal()));
+        assertFalse(session.isValid());
+        assertEquals(0, manager.getSessionCount());
+        assertEquals(1, manager.getExpiredSessionCount());
+    }
+
+    @Test
+    public void testInvalidation() {
+        final DefaultSessionManager manager = new DefaultSessionManager();
+
+        final Session session = manager.createSession(null);
+        assertEquals(1, manager.getSessionCount());
+        session.setValid(false);
+        assertEquals(0, manager.getSessionCount());
+        assertEquals(0, manager.getExpiredSessionCount());
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.grizzly.http.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.junit.Test;
+
+/**
+ * Test the ETag generation of the {@link Response}s.
+ */
+public class ETagTest {
+    private static final int PORT = 18912;
+
+    private static final String BODY = "{\"name\":\"grizzly\",\"version\":3}";
+
+    @Test
+    public void testMatches() {
+        assertTrue(ETagGenerator.matches("\"abc\"", "\"abc\""));
+        assertTrue(ETagGenerator.matches("W/\"abc\"", "\"abc\""));
+        assertTrue(ETagGenerator.matches("\"abc\"", "W/\"abc\""));
+        assertTrue(ETagGenerator.matches("\"xyz\", \"abc\"", "\"abc\""));
+        assertTrue(ETagGenerator.matches(" * ", "\"abc\""));
+        assertFalse(ETagGenerator.matches(null, "\"abc\""));
+        assertFalse(ETagGenerator.matches("\"abcd\"", "\"abc\""));
+        assertFalse(ETagGenerator.matches("\"xyz\",\"ab\"", "\"abc\""));
+    }
+
+    @Test
+    public void testConditionalGet() throws Exception {
+        final HttpServer server = createServer(ETagMode.STRONG);
+        try {
+            server.start();
+
+            HttpURLConnection connection = get("/buffered", null);
+            assertEquals(200, connection.getResponseCode());
+            final String eTag = connection.getHeaderField("ETag");
+            assertNotNull(eTag);
+            assertTrue(eTag.startsWith("\""));
+            assertEquals(BODY, read(connection));
+
+            // the same content has the same ETag
+            connection = get("/buffered", null);
+            assertEquals(eTag, connection.getHeaderField("ETag"));
+            read(connection);
+
+            connection = get("/buffered", eTag);
+            assertEquals(304, connection.getResponseCode());
+            assertEquals(eTag, connection.getHeaderField("ETag"));
+            assertEquals("", read(connection));
+
+            connection = get("/buffered", "\"other\"");
+            assertEquals(200, connection.getResponseCode());
+            assertEquals(BODY, read(connection));
+
+            // the application ETag is used as it is
+            connection = get("/custom", "\"custom\"");
+            assertEquals(304, connection.getResponseCode());
+            assertEquals("\"custom\"", connection.getHeaderField("ETag"));
+            read(connection);
+
+            // the headers of the flushed response are sent before the content is complete
+            connection = get("/flushed", null);
+            assertEquals(200, connection.getResponseCode());
+            assertNull(connection.getHeaderField("ETag"));
+            assertEquals(BODY, read(connection));
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWeakETag() throws Exception {
+        final HttpServer server = createServer(ETagMode.WEAK);
+        try {
+            server.start();
+
+            HttpURLConnection connection = get("/buffered", null);
+            final String eTag = connection.getHeaderField("ETag");
+            assertTrue(eTag.startsWith("W/\""));
+            read(connection);
+
+            connection = get("/buffered", eTag.substring(2));
+            assertEquals(304, connection.getResponseCode());
+            read(connection);
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    private static HttpServer createServer(final ETagMode mode) {
+        final HttpServer server = HttpServer.createSimpleServer("/tmp", PORT);
+        final ServerConfiguration configuration = server.getServerConfiguration();
+
+        final HttpHandler buffered = new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                response.setContentType("application/json");
+                response.getWriter().write(BODY);
+            }
+        };
+        buffered.setETagMode(mode);
+        configuration.addHttpHandler(buffered, "/buffered");
+
+        final HttpHandler custom = new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                response.setHeader("ETag", "\"custom\"");
+                response.getWriter().write(BODY);
+            }
+        };
+        custom.setETagMode(mode);
+        configuration.addHttpHandler(custom, "/custom");
+
+        final HttpHandler flushed = new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                response.getWriter().write(BODY);
+                response.flush();
+            }
+        };
+        flushed.setETagMode(mode);
+        configuration.addHttpHandler(flushed, "/flushed");
+
+        return server;
+    }
+
+    private static HttpURLConnection get(final String path, final String ifNoneMatch) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + PORT + path).openConnection();
+        if (ifNoneMatch != null) {
+            connection.setRequestProperty("If-None-Match", ifNoneMatch);
+        }
+        return connection;
+    }
+
+    private static String read(final HttpURLConnection connection) throws IOException {
+        try {
+            final InputStream in = connection.getInputStream();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buf = new byte[1024];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                out.write(buf, 0, len);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.glassfish.grizzly.http.HttpBaseFilter;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.Protocol;
+import org.glassfish.grizzly.http.server.filecache.FileCache;
+import org.glassfish.grizzly.http.server.filecache.FileCache.CacheResult;
+import org.glassfish.grizzly.http.server.filecache.FileCacheEntry;
+import org.glassfish.grizzly.http.server.filecache.FileCacheProbe;
+import org.glassfish.grizzly.http.util.Header;
+import org.junit.Test;
+
+/**
+ * Test the {@link FileCache} admission and eviction policy.
+ */
+public class FileCacheEvictionTest {
+
+    @Test
+    public void testFrequentResourceReplacesLeastRecentlyUsed() {
+        final FileCache fileCache = new FileCache();
+        fileCache.setMaxCacheEntries(2);
+
+        final AtomicInteger evictions = new AtomicInteger();
+        fileCache.getMonitoringConfig().addProbes(new FileCacheProbe.Adapter() {
+            @Override
+            public void onEntryEvictedEvent(FileCache fileCache, FileCacheEntry entry) {
+                evictions.incrementAndGet();
+            }
+        });
+
+        assertEquals(CacheResult.OK_CACHED_TIMESTAMP, fileCache.add(newRequest("/a"), 1000L));
+        assertEquals(CacheResult.OK_CACHED_TIMESTAMP, fileCache.add(newRequest("/b"), 1000L));
+        request(fileCache, "/a", 2);
+        request(fileCache, "/b", 2);
+
+        // one-hit wonder isn't admitted
+        request(fileCache, "/c", 1);
+        assertEquals(CacheResult.FAILED_CACHE_FULL, fileCache.add(newRequest("/c"), 1000L));
+        assertEquals(0, evictions.get());
+
+        // popular resource replaces the least recently used one
+        request(fileCache, "/c", 3);
+        assertEquals(CacheResult.OK_CACHED_TIMESTAMP, fileCache.add(newRequest("/c"), 1000L));
+        assertEquals(1, evictions.get());
+
+        // "/a" has been evicted and it's not popular enough to replace "/b"
+        assertEquals(CacheResult.FAILED_CACHE_FULL, fileCache.add(newRequest("/a"), 1000L));
+        assertEquals(CacheResult.FAILED_ENTRY_EXISTS, fileCache.add(newRequest("/b"), 1000L));
+        assertEquals(CacheResult.FAILED_ENTRY_EXISTS, fileCache.add(newRequest("/c"), 1000L));
+    }
+
+    private static void request(final FileCache fileCache, final String uri, final int times) {
+        for (int i = 0; i < times; i++) {
+            fileCache.get(newRequest(uri));
+        }
+    }
+
+    private static HttpRequestPacket newRequest(final String uri) {
+        final HttpRequestPacket request = HttpRequestPacket.builder().method("GET").uri(uri).protocol(Protocol.HTTP_1_1).header(Header.Host, "localhost")
+                .build();
+        final HttpResponsePacket response = HttpResponsePacket.builder(request).protocol(Protocol.HTTP_1_1).build();
+        new HttpBaseFilter() {
+            {
+                bind(request, response);
+            }
+        };
+        return request;
+    }
+}
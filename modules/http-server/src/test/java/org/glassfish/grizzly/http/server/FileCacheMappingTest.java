@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.HttpBaseFilter;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.Protocol;
+import org.glassfish.grizzly.http.server.filecache.FileCache;
+import org.glassfish.grizzly.http.server.filecache.FileCache.CacheResult;
+import org.glassfish.grizzly.http.server.filecache.FileCache.CacheType;
+import org.glassfish.grizzly.http.server.filecache.FileCacheEntry;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.junit.Test;
+
+/**
+ * Test the chunked memory mapping of the large {@link FileCache} entries.
+ */
+public class FileCacheMappingTest {
+
+    @Test
+    public void testChunksAreMappedOnDemandAndUnmappedOnEviction() throws Exception {
+        final byte[] content = new byte[100];
+        new Random(1).nextBytes(content);
+
+        final File file = File.createTempFile("grizzly-filecache-mapping", ".bin");
+        Files.write(file.toPath(), content);
+
+        final FileCache fileCache = new FileCache();
+        fileCache.setMaxCacheEntries(2);
+        fileCache.setMappedChunkSize(16);
+
+        try {
+            // the same file cached under two URIs is mapped once, only the first chunk is mapped upfront
+            assertEquals(CacheResult.OK_CACHED, fileCache.add(newRequest("/a"), file));
+            assertEquals(CacheResult.OK_CACHED, fileCache.add(newRequest("/b"), file));
+            assertEquals(16, fileCache.getMappedBytes());
+            assertEquals(200, fileCache.getMappedCacheSize());
+
+            final FileCacheEntry entry = fileCache.get(newRequest("/a"));
+            assertNotNull(entry);
+            assertEquals(CacheType.MAPPED, entry.type);
+
+            final Buffer buffer = entry.getBuffer(MemoryManager.DEFAULT_MEMORY_MANAGER, false, 10, 50);
+            assertEquals(64, fileCache.getMappedBytes());
+            assertArrayEquals(Arrays.copyOfRange(content, 10, 60), toBytes(buffer));
+
+            // replace both entries with more popular resources
+            request(fileCache, "/c", 5);
+            request(fileCache, "/d", 5);
+            assertEquals(CacheResult.OK_CACHED_TIMESTAMP, fileCache.add(newRequest("/c"), 1000L));
+            assertEquals(CacheResult.OK_CACHED_TIMESTAMP, fileCache.add(newRequest("/d"), 1000L));
+            assertEquals(0, fileCache.getMappedCacheSize());
+
+            // the buffer being written keeps the file mapped
+            assertEquals(64, fileCache.getMappedBytes());
+            assertArrayEquals(Arrays.copyOfRange(content, 10, 60), toBytes(buffer));
+
+            buffer.dispose();
+            assertEquals(0, fileCache.getMappedBytes());
+
+            // the unmapped content isn't available anymore
+            assertNull(entry.getBuffer(MemoryManager.DEFAULT_MEMORY_MANAGER, false, 0, 100));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static byte[] toBytes(final Buffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        final int position = buffer.position();
+        buffer.get(bytes);
+        buffer.position(position);
+        return bytes;
+    }
+
+    private static void request(final FileCache fileCache, final String uri, final int times) {
+        for (int i = 0; i < times; i++) {
+            fileCache.get(newRequest(uri));
+        }
+    }
+
+    private static HttpRequestPacket newRequest(final String uri) {
+        final HttpRequestPacket request = HttpRequestPacket.builder().method("GET").uri(uri).protocol(Protocol.HTTP_1_1).header(Header.Host, "localhost")
+                .build();
+        final HttpResponsePacket response = HttpResponsePacket.builder(request).protocol(Protocol.HTTP_1_1).build();
+        new HttpBaseFilter() {
+            {
+                bind(request, response);
+            }
+        };
+        return request;
+    }
+}
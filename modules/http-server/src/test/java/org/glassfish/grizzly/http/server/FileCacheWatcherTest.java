@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.grizzly.http.HttpBaseFilter;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.Protocol;
+import org.glassfish.grizzly.http.server.filecache.FileCache;
+import org.glassfish.grizzly.http.server.filecache.FileCache.CacheResult;
+import org.glassfish.grizzly.http.server.filecache.FileCacheEntry;
+import org.glassfish.grizzly.http.server.filecache.FileCacheProbe;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.utils.DelayedExecutor;
+import org.junit.Test;
+
+/**
+ * Test the {@link FileCache} invalidation driven by the file system change notifications.
+ */
+public class FileCacheWatcherTest {
+    private static final int PORT = 18915;
+
+    @Test
+    public void testModifiedFileIsRemoved() throws Exception {
+        final File dir = Files.createTempDirectory("grizzly-filecache-watch").toFile();
+        final File file = new File(dir, "index.html");
+        Files.write(file.toPath(), "<html>1</html>".getBytes(StandardCharsets.US_ASCII));
+
+        final ExecutorService threadPool = Executors.newSingleThreadExecutor();
+        final DelayedExecutor delayedExecutor = new DelayedExecutor(threadPool);
+        final FileCache fileCache = new FileCache();
+        fileCache.setFileWatchEnabled(true);
+        fileCache.initialize(delayedExecutor);
+
+        final CountDownLatch removed = new CountDownLatch(1);
+        fileCache.getMonitoringConfig().addProbes(new FileCacheProbe.Adapter() {
+            @Override
+            public void onEntryRemovedEvent(FileCache fileCache, FileCacheEntry entry) {
+                removed.countDown();
+            }
+        });
+
+        try {
+            assertEquals(CacheResult.OK_CACHED, fileCache.add(newRequest("/index.html"), file));
+            assertNotNull(fileCache.get(newRequest("/index.html")));
+
+            Files.write(file.toPath(), "<html>22</html>".getBytes(StandardCharsets.US_ASCII));
+
+            // the polling WatchService implementations may take a while
+            assertTrue(removed.await(30, TimeUnit.SECONDS));
+            assertEquals(1, fileCache.getFileWatchInvalidations());
+
+            // the new content gets cached again
+            assertEquals(CacheResult.OK_CACHED, fileCache.add(newRequest("/index.html"), file));
+            assertEquals(file.length(), fileCache.get(newRequest("/index.html")).getFileSize(false));
+        } finally {
+            fileCache.destroy();
+            threadPool.shutdownNow();
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testWatcherStoppedOnGracefulShutdown() throws Exception {
+        final Set<Thread> watcherThreads = watcherThreads();
+
+        final HttpServer server = HttpServer.createSimpleServer(null, PORT);
+        server.getListener("grizzly").getFileCache().setFileWatchEnabled(true);
+        try {
+            server.start();
+
+            final Set<Thread> newWatcherThreads = watcherThreads();
+            newWatcherThreads.removeAll(watcherThreads);
+            assertEquals(1, newWatcherThreads.size());
+            final Thread watcherThread = newWatcherThreads.iterator().next();
+
+            server.shutdown().get(10, TimeUnit.SECONDS);
+            watcherThread.join(10000);
+            assertFalse(watcherThread.isAlive());
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    private static Set<Thread> watcherThreads() {
+        final Set<Thread> threads = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("Grizzly-FileCache-Watcher".equals(thread.getName())) {
+                threads.add(thread);
+            }
+        }
+
+        return threads;
+    }
+
+    private static HttpRequestPacket newRequest(final String uri) {
+        final HttpRequestPacket request = HttpRequestPacket.builder().method("GET").uri(uri).protocol(Protocol.HTTP_1_1).header(Header.Host, "localhost")
+                .build();
+        final HttpResponsePacket response = HttpResponsePacket.builder(request).protocol(Protocol.HTTP_1_1).build();
+        new HttpBaseFilter() {
+            {
+                bind(request, response);
+            }
+        };
+        return request;
+    }
+}
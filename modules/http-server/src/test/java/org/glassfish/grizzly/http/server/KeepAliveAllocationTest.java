@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.utils.Charsets;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that a keep-alive connection reuses the per-request objects, when the requests are parsed by the selector
+ * thread and served by the worker threads.
+ * <p>
+ * The bytes allocated by the server threads per keep-alive GET are checked against the bound, which may be changed
+ * with the <tt>org.glassfish.grizzly.http.server.KeepAliveAllocationTest.max-bytes-per-request</tt> system property.
+ * The bound is well below the size of the per-request objects, about 14 KB, so the test fails, once they are not
+ * reused.
+ */
+public class KeepAliveAllocationTest extends TestCase {
+    private static final Logger LOGGER = Grizzly.logger(KeepAliveAllocationTest.class);
+
+    private static final int PORT = 18897;
+
+    private static final long MAX_BYTES_PER_REQUEST = Long.getLong(KeepAliveAllocationTest.class.getName() + ".max-bytes-per-request", 4096);
+
+    private static final byte[] BODY = "Hello, World!".getBytes(Charsets.ASCII_CHARSET);
+    private static final byte[] REQUEST = ("GET /hello HTTP/1.1\r\nHost: localhost:" + PORT + "\r\n\r\n").getBytes(Charsets.ASCII_CHARSET);
+
+    public void testObjectsReused() throws Exception {
+        final Set<Request> requests = Collections.newSetFromMap(new IdentityHashMap<Request, Boolean>());
+        final Set<HttpRequestPacket> requestPackets = Collections.newSetFromMap(new IdentityHashMap<HttpRequestPacket, Boolean>());
+
+        final HttpServer server = createServer(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                synchronized (requests) {
+                    requests.add(request);
+                    requestPackets.add(request.getRequest());
+                }
+                writeBody(response);
+            }
+        });
+
+        try {
+            server.start();
+            try (Socket socket = new Socket("localhost", PORT)) {
+                runRequests(socket, 200);
+            }
+
+            // the request is recycled after the response is written, so the next request
+            // on the connection may occasionally come before the previous one is released
+            synchronized (requests) {
+                assertTrue("Requests: " + requests.size(), requests.size() <= 4);
+                assertTrue("Request packets: " + requestPackets.size(), requestPackets.size() <= 4);
+            }
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    public void testAllocationsPerRequest() throws Exception {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()) {
+            LOGGER.info("Thread allocated memory accounting is not supported, skipping");
+            return;
+        }
+
+        final com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        final HttpServer server = createServer(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                writeBody(response);
+            }
+        });
+
+        try {
+            server.start();
+            try (Socket socket = new Socket("localhost", PORT)) {
+                final int requestsPerRound = 10000;
+                long minBytesPerRequest = Long.MAX_VALUE;
+                for (int round = 0; round < 5; round++) {
+                    final long before = serverAllocatedBytes(allocationMXBean);
+                    runRequests(socket, requestsPerRound);
+                    final long bytesPerRequest = (serverAllocatedBytes(allocationMXBean) - before) / requestsPerRound;
+                    minBytesPerRequest = Math.min(minBytesPerRequest, bytesPerRequest);
+                }
+
+                LOGGER.info("Bytes allocated per keep-alive GET: " + minBytesPerRequest);
+                assertTrue("Bytes allocated per request: " + minBytesPerRequest, minBytesPerRequest <= MAX_BYTES_PER_REQUEST);
+            }
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    // --------------------------------------------------------- Private Methods
+
+    private static HttpServer createServer(final HttpHandler httpHandler) {
+        final HttpServer server = new HttpServer();
+        final NetworkListener listener = new NetworkListener("grizzly", NetworkListener.DEFAULT_NETWORK_HOST, PORT);
+        listener.getKeepAlive().setMaxRequestsCount(-1);
+        server.addListener(listener);
+        server.getServerConfiguration().addHttpHandler(httpHandler, "/hello");
+
+        return server;
+    }
+
+    private static void writeBody(final Response response) throws IOException {
+        response.setContentType("text/plain");
+        response.setContentLength(BODY.length);
+        response.getOutputStream().write(BODY);
+    }
+
+    /**
+     * @return the bytes allocated by all the threads, but the current one.
+     */
+    private static long serverAllocatedBytes(final com.sun.management.ThreadMXBean allocationMXBean) {
+        final long currentThreadId = Thread.currentThread().getId();
+        final long[] threadIds = allocationMXBean.getAllThreadIds();
+        final long[] allocatedBytes = allocationMXBean.getThreadAllocatedBytes(threadIds);
+
+        long total = 0;
+        for (int i = 0; i < threadIds.length; i++) {
+            if (threadIds[i] != currentThreadId && allocatedBytes[i] > 0) {
+                total += allocatedBytes[i];
+            }
+        }
+
+        return total;
+    }
+
+    private static void runRequests(final Socket socket, final int count) throws IOException {
+        final OutputStream out = socket.getOutputStream();
+        final InputStream in = new BufferedInputStream(socket.getInputStream());
+        for (int i = 0; i < count; i++) {
+            out.write(REQUEST);
+            out.flush();
+            readResponse(in);
+        }
+    }
+
+    private static void readResponse(final InputStream in) throws IOException {
+        int contentLength = -1;
+        final StringBuilder line = new StringBuilder();
+        while (true) {
+            final int c = in.read();
+            if (c == -1) {
+                throw new EOFException();
+            } else if (c == '\n') {
+                final String header = line.toString().trim();
+                line.setLength(0);
+                if (header.isEmpty()) {
+                    break;
+                }
+                if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    contentLength = Integer.parseInt(header.substring(15).trim());
+                }
+            } else {
+                line.append((char) c);
+            }
+        }
+
+        assertEquals(BODY.length, contentLength);
+        for (int i = 0; i < contentLength; i++) {
+            if (in.read() == -1) {
+                throw new EOFException();
+            }
+        }
+    }
+}
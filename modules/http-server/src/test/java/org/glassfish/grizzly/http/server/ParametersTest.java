@@ -18,6 +18,7 @@ package org.glassfish.grizzly.http.server;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
 import static org.glassfish.grizzly.http.server.NetworkListener.DEFAULT_NETWORK_HOST;
 
 import java.io.BufferedReader;
@@ -211,6 +212,59 @@ public class ParametersTest {
         }
     }
 
+    /**
+     * The lazily parsed query and form parameters.
+     */
+    @Test
+    public void testLazyParameterParsing() throws Exception {
+        final HttpServer server = createServer();
+        server.getServerConfiguration().setLazyParameterParsing(true);
+        final String body = generatePostBody(1024 * 3);
+        final String[][] paramParts = getParts(body);
+        final FutureImpl<Boolean> resultFuture = Futures.createSafeFuture();
+        server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(Request request, Response response) throws Exception {
+                try {
+                    assertTrue(request.getParameters().isLazy());
+                    assertEquals("query value", request.getParameter("q"));
+                    for (int i = paramParts.length - 1; i >= 0; i--) {
+                        assertEquals(paramParts[i][1], request.getParameter(paramParts[i][0]));
+                    }
+                    assertEquals(paramParts.length + 1, request.getParameterMap().size());
+                    resultFuture.result(Boolean.TRUE);
+                } catch (Throwable t) {
+                    resultFuture.failure(t);
+                }
+            }
+        }, "/*");
+
+        final TCPNIOTransport clientTransport = TCPNIOTransportBuilder.newInstance().build();
+        try {
+            FilterChainBuilder clientFilterChainBuilder = FilterChainBuilder.stateless();
+            clientFilterChainBuilder.add(new TransportFilter());
+            clientFilterChainBuilder.add(new ChunkingFilter(256));
+            clientFilterChainBuilder.add(new HttpClientFilter());
+            clientTransport.setProcessor(clientFilterChainBuilder.build());
+            clientTransport.start();
+
+            server.start();
+            TCPNIOConnectorHandler handler = TCPNIOConnectorHandler.builder(clientTransport).build();
+            GrizzlyFuture<Connection> future = handler.connect("localhost", PORT);
+            final Buffer bodyBuffer = Buffers.wrap(clientTransport.getMemoryManager(), body);
+            HttpRequestPacket request = HttpRequestPacket.builder().chunked(true).method(Method.POST).uri("/").query("q=query%20value")
+                    .header(Header.Host, "localhost:" + PORT).contentType("application/x-www-form-urlencoded; charset=ISO-8859-1")
+                    .protocol(Protocol.HTTP_1_1).build();
+            HttpContent content = HttpContent.builder(request).content(bodyBuffer).last(true).build();
+            Connection c = future.get(10, TimeUnit.SECONDS);
+            c.write(content);
+            resultFuture.get(10, TimeUnit.SECONDS);
+        } finally {
+            server.shutdownNow();
+            clientTransport.shutdownNow();
+        }
+    }
+
     // -------------------------------------------------------- Private Methods
 
     private static HttpServer createServer() {
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.InputSource;
+import org.glassfish.grizzly.ReadHandler;
+import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.glassfish.grizzly.threadpool.Threads;
+import org.glassfish.grizzly.utils.Charsets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the request content, which is spilled to a temporary file, once the buffered content exceeds
+ * {@link ServerFilterConfiguration#getPostSpillThreshold()}.
+ */
+public class PostSpillTest {
+    private static final int PORT = 18898;
+    private static final int SPILL_THRESHOLD = 64 * 1024;
+
+    private static final byte[] CONTENT = new byte[5 * 1024 * 1024 + 7];
+
+    static {
+        new Random(42).nextBytes(CONTENT);
+    }
+
+    private File spillDirectory;
+    private HttpServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        spillDirectory = File.createTempFile("grizzly-spill", "");
+        assertTrue(spillDirectory.delete());
+        assertTrue(spillDirectory.mkdir());
+
+        server = HttpServer.createSimpleServer(null, PORT);
+        server.getServerConfiguration().setPostSpillThreshold(SPILL_THRESHOLD);
+        server.getServerConfiguration().setPostSpillDirectory(spillDirectory);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdownNow();
+
+        final File[] files = spillDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        spillDirectory.delete();
+    }
+
+    @Test
+    public void testReadAfterAllDataReceived() throws Exception {
+        server.getServerConfiguration().addHttpHandler(new AllDataHttpHandler(false) {
+            @Override
+            protected String read(final Request request) throws IOException {
+                return Long.toString(crc(request.getInputStream()));
+            }
+        }, "/spill");
+        server.start();
+
+        assertEquals(Long.toString(crc(CONTENT, 0, CONTENT.length)), post(CONTENT));
+        assertSpillFilesDeleted();
+    }
+
+    @Test
+    public void testReaderOverSpilledContent() throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        while (sb.length() < 1024 * 1024) {
+            // 1, 2 and 3 byte long UTF-8 characters to be split by the mapping windows
+            sb.append("a\u00e9\u4e2d");
+        }
+        final String text = sb.toString();
+
+        server.getServerConfiguration().addHttpHandler(new AllDataHttpHandler(true) {
+            @Override
+            protected String read(final Request request) throws IOException {
+                final Reader reader = request.getReader();
+                final StringBuilder read = new StringBuilder();
+                final char[] chars = new char[8192];
+                int len;
+                while ((len = reader.read(chars)) != -1) {
+                    read.append(chars, 0, len);
+                }
+
+                return Boolean.toString(text.contentEquals(read));
+            }
+        }, "/spill");
+        server.start();
+
+        assertEquals("true", post(text.getBytes(Charsets.UTF8_CHARSET)));
+        assertSpillFilesDeleted();
+    }
+
+    @Test
+    public void testMarkReset() throws Exception {
+        final int markOffset = 100 * 1024;
+        final int readAhead = 3 * 1024 * 1024;
+
+        server.getServerConfiguration().addHttpHandler(new AllDataHttpHandler(false) {
+            @Override
+            protected String read(final Request request) throws IOException {
+                final InputStream in = request.getInputStream();
+                final CRC32 crc = new CRC32();
+                final byte[] bytes = new byte[8192];
+                int read = 0;
+                while (read < markOffset) {
+                    final int len = in.read(bytes, 0, Math.min(bytes.length, markOffset - read));
+                    crc.update(bytes, 0, len);
+                    read += len;
+                }
+
+                in.mark(readAhead);
+                read = 0;
+                while (read < readAhead - 1) {
+                    read += in.read(bytes, 0, Math.min(bytes.length, readAhead - 1 - read));
+                }
+                in.reset();
+
+                int len;
+                while ((len = in.read(bytes)) != -1) {
+                    crc.update(bytes, 0, len);
+                }
+
+                return Long.toString(crc.getValue());
+            }
+        }, "/spill");
+        server.start();
+
+        assertEquals(Long.toString(crc(CONTENT, 0, CONTENT.length)), post(CONTENT));
+        assertSpillFilesDeleted();
+    }
+
+    @Test
+    public void testPostBody() throws Exception {
+        server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                final Buffer body = request.getPostBody(request.getContentLength());
+                assertTrue(isSpilled(request));
+                final byte[] bytes = new byte[body.remaining()];
+                body.get(bytes);
+
+                response.getWriter().write(Long.toString(crc(bytes, 0, bytes.length)));
+            }
+        }, "/spill");
+        server.start();
+
+        assertEquals(Long.toString(crc(CONTENT, 0, CONTENT.length)), post(CONTENT));
+        assertSpillFilesDeleted();
+    }
+
+    @Test
+    public void testReadBuffer() throws Exception {
+        server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                response.suspend();
+                final InputSource inputSource = request.getNIOInputStream();
+                inputSource.notifyAvailable(new ReadHandler() {
+
+                    @Override
+                    public void onDataAvailable() {
+                        inputSource.notifyAvailable(this, Integer.MAX_VALUE);
+                    }
+
+                    @Override
+                    public void onAllDataRead() throws Exception {
+                        try {
+                            final int available = request.getInputBuffer().available();
+                            // the spilled content is much larger than a single mapping window
+                            final Buffer body = request.getInputBuffer().readBuffer();
+                            final byte[] bytes = new byte[body.remaining()];
+                            body.get(bytes);
+
+                            response.getWriter().write(available + ":" + crc(bytes, 0, bytes.length));
+                        } finally {
+                            response.resume();
+                        }
+                    }
+
+                    @Override
+                    public void onError(final Throwable t) {
+                        response.resume();
+                    }
+                }, Integer.MAX_VALUE);
+            }
+        }, "/spill");
+        server.start();
+
+        assertEquals(CONTENT.length + ":" + crc(CONTENT, 0, CONTENT.length), post(CONTENT));
+        assertSpillFilesDeleted();
+    }
+
+    @Test
+    public void testGetBuffer() throws Exception {
+        server.getServerConfiguration().addHttpHandler(new AllDataHttpHandler(false) {
+            @Override
+            protected String read(final Request request) throws IOException {
+                final Buffer body = request.getInputBuffer().getBuffer();
+                final byte[] bytes = new byte[body.remaining()];
+                body.get(bytes);
+                return Long.toString(crc(bytes, 0, bytes.length));
+            }
+        }, "/spill");
+        server.start();
+
+        assertEquals(Long.toString(crc(CONTENT, 0, CONTENT.length)), post(CONTENT));
+        assertSpillFilesDeleted();
+    }
+
+    @Test
+    public void testSpillWriteOutsideSelectorThread() throws Exception {
+        server.getListener("grizzly").getTransport().setIOStrategy(SameThreadIOStrategy.getInstance());
+        server.getListener("grizzly").getTransport().setWorkerThreadPoolConfig(ThreadPoolConfig.defaultConfig());
+        final AtomicBoolean appendedBySelector = new AtomicBoolean();
+        server.getServerConfiguration().addHttpHandler(new AllDataHttpHandler(false) {
+            @Override
+            public RequestExecutorProvider getRequestExecutorProvider() {
+                // notify the handler in the thread, which has appended the content
+                return new RequestExecutorProvider.SameThreadProvider();
+            }
+
+            @Override
+            protected String read(final Request request) throws IOException {
+                // the last content chunk has been written to the spill file by the thread, which notified the handler
+                appendedBySelector.set(Threads.isService());
+                return Long.toString(crc(request.getInputStream()));
+            }
+        }, "/spill");
+        server.start();
+
+        assertEquals(Long.toString(crc(CONTENT, 0, CONTENT.length)), post(CONTENT));
+        assertFalse(appendedBySelector.get());
+        assertSpillFilesDeleted();
+    }
+
+    // --------------------------------------------------------- Private Methods
+
+    private static String post(final byte[] content) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + PORT + "/spill").openConnection();
+        try {
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            connection.setFixedLengthStreamingMode(content.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(content);
+            }
+
+            assertEquals(200, connection.getResponseCode());
+            final ByteArrayOutputStream result = new ByteArrayOutputStream();
+            try (InputStream in = connection.getInputStream()) {
+                final byte[] bytes = new byte[1024];
+                int len;
+                while ((len = in.read(bytes)) != -1) {
+                    result.write(bytes, 0, len);
+                }
+            }
+
+            return new String(result.toByteArray(), Charsets.ASCII_CHARSET);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * @return <tt>true</tt> if the available request content is read through the spill file mapping.
+     */
+    private static boolean isSpilled(final Request request) {
+        return request.getInputBuffer().getBuffer().toByteBuffer() instanceof MappedByteBuffer;
+    }
+
+    private void assertSpillFilesDeleted() throws InterruptedException, IOException {
+        // the request is recycled after the response is sent
+        for (int i = 0; i < 50 && (spillDirectory.list().length > 0 || getSpillMapping() != null); i++) {
+            Thread.sleep(100);
+        }
+
+        assertEquals(0, spillDirectory.list().length);
+        // the spill file mappings are released on recycle, not by the GC
+        assertNull(getSpillMapping());
+    }
+
+    /**
+     * @return the memory mapping of a spill file, if any, or <tt>null</tt>.
+     */
+    private String getSpillMapping() throws IOException {
+        final File maps = new File("/proc/self/maps");
+        if (maps.exists()) {
+            for (String mapping : Files.readAllLines(maps.toPath(), Charsets.ASCII_CHARSET)) {
+                if (mapping.contains(spillDirectory.getPath())) {
+                    return mapping;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static long crc(final InputStream in) throws IOException {
+        final CRC32 crc = new CRC32();
+        final byte[] bytes = new byte[8192];
+        int len;
+        while ((len = in.read(bytes)) != -1) {
+            crc.update(bytes, 0, len);
+        }
+
+        return crc.getValue();
+    }
+
+    private static long crc(final byte[] bytes, final int offset, final int length) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return crc.getValue();
+    }
+
+    /**
+     * Lets the request content get buffered, and reads it once all of it has been received.
+     */
+    private abstract class AllDataHttpHandler extends HttpHandler {
+        private final boolean useReader;
+
+        AllDataHttpHandler(final boolean useReader) {
+            this.useReader = useReader;
+        }
+
+        @Override
+        public void service(final Request request, final Response response) throws Exception {
+            response.suspend();
+            final InputSource inputSource;
+            if (useReader) {
+                request.setCharacterEncoding("UTF-8");
+                inputSource = request.getNIOReader();
+            } else {
+                inputSource = request.getNIOInputStream();
+            }
+
+            inputSource.notifyAvailable(new ReadHandler() {
+
+                @Override
+                public void onDataAvailable() {
+                    inputSource.notifyAvailable(this, Integer.MAX_VALUE);
+                }
+
+                @Override
+                public void onAllDataRead() throws Exception {
+                    try {
+                        response.getWriter().write(isSpilled(request) ? read(request) : "not spilled");
+                    } finally {
+                        response.resume();
+                    }
+                }
+
+                @Override
+                public void onError(final Throwable t) {
+                    response.resume();
+                }
+            }, Integer.MAX_VALUE);
+        }
+
+        protected abstract String read(Request request) throws IOException;
+    }
+}
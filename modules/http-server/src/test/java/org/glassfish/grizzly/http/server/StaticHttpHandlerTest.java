@@ -16,7 +16,9 @@
 
 package org.glassfish.grizzly.http.server;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -26,14 +28,17 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.net.URL;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
 
 import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.Grizzly;
@@ -208,6 +213,135 @@ public class StaticHttpHandlerTest {
         }
     }
 
+    @Test
+    public void testSingleRange() throws Exception {
+        final int fileSize = 100000;
+        final File control = generateTempFile(fileSize);
+        final byte[] controlBytes = Files.readAllBytes(control.toPath());
+
+        // the first request is served by the StaticHttpHandler, the second one by the FileCache
+        for (int i = 0; i < 2; i++) {
+            final AtomicReference<HttpResponsePacket> responseRef = new AtomicReference<>();
+            final File fResult = requestRange(control, "bytes=1000-1999", responseRef);
+
+            final HttpResponsePacket response = responseRef.get();
+            assertEquals(206, response.getStatus());
+            assertEquals("bytes 1000-1999/" + fileSize, response.getHeader(Header.ContentRange));
+            assertEquals("1000", response.getHeader(Header.ContentLength));
+            assertArrayEquals(Arrays.copyOfRange(controlBytes, 1000, 2000), Files.readAllBytes(fResult.toPath()));
+        }
+    }
+
+    @Test
+    public void testMultipleRanges() throws Exception {
+        final int fileSize = 100000;
+        final File control = generateTempFile(fileSize);
+        final byte[] controlBytes = Files.readAllBytes(control.toPath());
+
+        // the first request is served by the StaticHttpHandler, the second one by the FileCache
+        for (int i = 0; i < 2; i++) {
+            final AtomicReference<HttpResponsePacket> responseRef = new AtomicReference<>();
+            final File fResult = requestRange(control, "bytes=-10,0-9", responseRef);
+
+            final HttpResponsePacket response = responseRef.get();
+            assertEquals(206, response.getStatus());
+            final String contentType = response.getHeader(Header.ContentType);
+            assertTrue(contentType, contentType.startsWith("multipart/byteranges; boundary="));
+            final String boundary = contentType.substring(contentType.indexOf('=') + 1);
+
+            final byte[] body = Files.readAllBytes(fResult.toPath());
+            assertEquals(response.getHeader(Header.ContentLength), Integer.toString(body.length));
+
+            final String s = new String(body, StandardCharsets.ISO_8859_1);
+            assertTrue(s.startsWith("--" + boundary + "\r\n"));
+            assertTrue(s.endsWith("\r\n--" + boundary + "--\r\n"));
+            final int first = s.indexOf("Content-Range: bytes 0-9/" + fileSize + "\r\n\r\n");
+            final int second = s.indexOf("Content-Range: bytes " + (fileSize - 10) + '-' + (fileSize - 1) + '/' + fileSize + "\r\n\r\n");
+            assertTrue(first != -1 && second > first);
+            assertEquals(new String(controlBytes, 0, 10, StandardCharsets.ISO_8859_1), s.substring(s.indexOf("\r\n\r\n", first) + 4).substring(0, 10));
+            assertEquals(new String(controlBytes, fileSize - 10, 10, StandardCharsets.ISO_8859_1),
+                    s.substring(s.indexOf("\r\n\r\n", second) + 4).substring(0, 10));
+        }
+    }
+
+    @Test
+    public void testUnsatisfiableRange() throws Exception {
+        final File control = generateTempFile(1000);
+
+        final AtomicReference<HttpResponsePacket> responseRef = new AtomicReference<>();
+        final File fResult = requestRange(control, "bytes=5000-", responseRef);
+
+        final HttpResponsePacket response = responseRef.get();
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */1000", response.getHeader(Header.ContentRange));
+        assertEquals(0, fResult.length());
+    }
+
+    @Test
+    public void testPrecompressedFile() throws Exception {
+        final File control = generateTempFile(10000);
+        final File precompressed = new File(control.getPath() + ".gz");
+        precompressed.deleteOnExit();
+        try (GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(precompressed))) {
+            out.write(Files.readAllBytes(control.toPath()));
+        }
+
+        // the first request is served by the StaticHttpHandler, the second one by the FileCache
+        for (int i = 0; i < 2; i++) {
+            final AtomicReference<HttpResponsePacket> responseRef = new AtomicReference<>();
+            File fResult = request(control, Header.AcceptEncoding, "gzip, deflate", responseRef);
+
+            HttpResponsePacket response = responseRef.get();
+            assertEquals(200, response.getStatus());
+            assertEquals("gzip", response.getHeader(Header.ContentEncoding));
+            assertEquals("Accept-Encoding", response.getHeader(Header.Vary));
+            // the sidecar is sent as it is, the client decodes it
+            assertEquals(Long.toString(precompressed.length()), response.getHeader(Header.ContentLength));
+            assertArrayEquals(Files.readAllBytes(control.toPath()), Files.readAllBytes(fResult.toPath()));
+
+            fResult = request(control, Header.AcceptEncoding, "gzip;q=0", responseRef);
+
+            response = responseRef.get();
+            assertEquals(200, response.getStatus());
+            assertNull(response.getHeader(Header.ContentEncoding));
+            assertEquals("Accept-Encoding", response.getHeader(Header.Vary));
+            assertArrayEquals(Files.readAllBytes(control.toPath()), Files.readAllBytes(fResult.toPath()));
+        }
+    }
+
+    private File requestRange(final File control, final String range, final AtomicReference<HttpResponsePacket> responseRef) throws Exception {
+        final File fResult = request(control, Header.Range, range, responseRef);
+        assertEquals("bytes", responseRef.get().getHeader(Header.AcceptRanges));
+
+        return fResult;
+    }
+
+    private File request(final File control, final Header header, final String value, final AtomicReference<HttpResponsePacket> responseRef)
+            throws Exception {
+        final FutureImpl<File> result = Futures.createSafeFuture();
+
+        TCPNIOTransport client = createClient(result, new ResponseValidator() {
+            @Override
+            public void validate(HttpResponsePacket response) {
+                responseRef.set(response);
+            }
+        }, isSslEnabled);
+        try {
+            client.start();
+            Connection c = client.connect("localhost", PORT).get(10, TimeUnit.SECONDS);
+
+            HttpRequestPacket request = HttpRequestPacket.builder().uri("/" + control.getName()).method(Method.GET).protocol(Protocol.HTTP_1_1)
+                    .header("Host", "localhost:" + PORT).header(header, value).build();
+            c.write(request);
+            final File fResult = result.get(20, TimeUnit.SECONDS);
+
+            c.close();
+            return fResult;
+        } finally {
+            client.shutdownNow();
+        }
+    }
+
     private static TCPNIOTransport createClient(final FutureImpl<File> result, final ResponseValidator validator, final boolean isSslEnabled) throws Exception {
         TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
         FilterChainBuilder builder = FilterChainBuilder.stateless();
@@ -294,7 +428,9 @@ public class StaticHttpHandlerTest {
 
         listener.setSendFileEnabled(isFileSendEnabled);
         server.addListener(listener);
-        server.getServerConfiguration().addHttpHandler(new StaticHttpHandler(getSystemTmpDir()), "/");
+        final StaticHttpHandler staticHttpHandler = new StaticHttpHandler(getSystemTmpDir());
+        staticHttpHandler.setPrecompressedFilesEnabled(true);
+        server.getServerConfiguration().addHttpHandler(staticHttpHandler, "/");
 
         return server;
     }
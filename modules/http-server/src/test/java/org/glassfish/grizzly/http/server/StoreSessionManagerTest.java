@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test the {@link StoreSessionManager} and the {@link MappedFileSessionStore}.
+ */
+public class StoreSessionManagerTest {
+
+    @Test
+    public void testStoreSurvivesReopen() throws Exception {
+        final File file = File.createTempFile("sessions", ".dat");
+        try {
+            String id;
+            MappedFileSessionStore store = new MappedFileSessionStore(file, 1024);
+            try {
+                final StoreSessionManager manager = new StoreSessionManager(store);
+                final Session session = manager.createSession(null);
+                id = session.getIdInternal();
+                session.setAttribute("user", "alice");
+                session.setAttribute("count", 1);
+                manager.writeBack(session);
+
+                session.removeAttribute("count");
+                manager.writeBack(session);
+
+                // enough updates to make the file grow and to compact it
+                for (int i = 0; i < 200; i++) {
+                    session.setAttribute("user", "alice-" + i);
+                    manager.writeBack(session);
+                }
+                assertEquals(1, store.size());
+            } finally {
+                store.close();
+            }
+
+            store = new MappedFileSessionStore(file, 1024);
+            try {
+                assertEquals(1, store.size());
+                final StoreSessionManager manager = new StoreSessionManager(store);
+                final Session session = manager.getSession(null, id);
+                assertNotNull(session);
+                assertEquals("alice-199", session.getAttribute("user"));
+                assertNull(session.getAttribute("count"));
+
+                session.setValid(false);
+                assertNull(manager.getSession(null, id));
+                assertEquals(0, store.size());
+            } finally {
+                store.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testNearCache() throws Exception {
+        final File file = File.createTempFile("sessions", ".dat");
+        final MappedFileSessionStore store = new MappedFileSessionStore(file);
+        try {
+            final StoreSessionManager manager = new StoreSessionManager(store, 2);
+            final List<String> ids = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                final Session session = manager.createSession(null);
+                session.setAttribute("n", i);
+                manager.writeBack(session);
+                ids.add(session.getIdInternal());
+            }
+            assertEquals(2, manager.getNearCacheSize());
+            assertEquals(3, store.size());
+
+            // the first session has been evicted and is loaded from the store
+            assertEquals(0, manager.getSession(null, ids.get(0)).getAttribute("n"));
+            assertEquals(1, manager.getNearCacheMissCount());
+            assertEquals(2, manager.getSession(null, ids.get(2)).getAttribute("n"));
+            assertEquals(1, manager.getNearCacheHitCount());
+            assertNull(manager.getSession(null, "unknown"));
+        } finally {
+            store.close();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testOnlyDirtyAttributesAreWritten() throws Exception {
+        final RecordingStore store = new RecordingStore();
+        final StoreSessionManager manager = new StoreSessionManager(store);
+        final Session session = manager.createSession(null);
+        session.setAttribute("a", "1");
+        session.setAttribute("b", "2");
+        manager.writeBack(session);
+        assertEquals(2, store.lastSession.getAttributes().size());
+
+        session.setAttribute("b", "3");
+        session.removeAttribute("a");
+        manager.writeBack(session);
+        assertEquals(1, store.lastSession.getAttributes().size());
+        assertTrue(store.lastSession.getAttributes().containsKey("b"));
+        assertEquals(1, store.lastRemoved.size());
+        assertTrue(store.lastRemoved.contains("a"));
+
+        // nothing has changed
+        final int updates = store.updates;
+        session.getAttribute("b");
+        manager.writeBack(session);
+        assertEquals(updates, store.updates);
+        assertEquals(3, manager.getWrittenAttributeCount());
+
+        // the attributes, which are only read directly, are not written
+        for (String name : session.attributes().keySet()) {
+            assertNotNull(session.attributes().get(name));
+        }
+        manager.writeBack(session);
+        assertEquals(updates, store.updates);
+
+        // the attributes changed directly are written
+        session.attributes().put("c", "4");
+        manager.writeBack(session);
+        assertEquals(1, store.lastSession.getAttributes().size());
+        assertTrue(store.lastSession.getAttributes().containsKey("c"));
+
+        final Iterator<String> names = session.attributes().keySet().iterator();
+        while (names.hasNext()) {
+            if ("b".equals(names.next())) {
+                names.remove();
+            }
+        }
+        manager.writeBack(session);
+        assertTrue(store.lastSession.getAttributes().isEmpty());
+        assertEquals(Collections.singletonList("b"), new ArrayList<>(store.lastRemoved));
+    }
+
+    @Test
+    public void testNewSessionsAreNotEvicted() throws Exception {
+        final RecordingStore store = new RecordingStore();
+        final StoreSessionManager manager = new StoreSessionManager(store, 1);
+        final Session first = manager.createSession(null);
+        final Session second = manager.createSession(null);
+        assertEquals(2, manager.getNearCacheSize());
+        assertEquals(first, manager.getSession(null, first.getIdInternal()));
+
+        manager.writeBack(first);
+        manager.writeBack(second);
+        manager.createSession(null);
+        assertEquals(1, manager.getNearCacheSize());
+    }
+
+    @Test
+    public void testClassFilter() throws Exception {
+        final File file = File.createTempFile("sessions", ".dat");
+        final MappedFileSessionStore store = new MappedFileSessionStore(file);
+        try {
+            StoreSessionManager manager = new StoreSessionManager(store);
+            final Session session = manager.createSession(null);
+            session.setAttribute("user", "alice");
+            session.setAttribute("count", 1);
+            manager.writeBack(session);
+
+            manager = new StoreSessionManager(store);
+            manager.setClassFilter(name -> !Integer.class.getName().equals(name));
+            final Session restored = manager.getSession(null, session.getIdInternal());
+            assertEquals("alice", restored.getAttribute("user"));
+            assertNull(restored.getAttribute("count"));
+        } finally {
+            store.close();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        final File file = File.createTempFile("sessions", ".dat");
+        final MappedFileSessionStore store = new MappedFileSessionStore(file);
+        try {
+            final StoreSessionManager manager = new StoreSessionManager(store, 0);
+            final Session session = manager.createSession(null);
+            session.setSessionTimeout(1);
+            session.setTimestamp(System.currentTimeMillis() - 1000);
+            manager.writeBack(session);
+            assertEquals(1, store.size());
+
+            assertNull(manager.getSession(null, session.getIdInternal()));
+            assertEquals(0, store.size());
+        } finally {
+            store.close();
+            file.delete();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotSerializableAttribute() throws Exception {
+        final StoreSessionManager manager = new StoreSessionManager(new RecordingStore());
+        manager.createSession(null).setAttribute("a", new Object());
+    }
+
+    /**
+     * The store, which records the last update and stores nothing.
+     */
+    private static final class RecordingStore implements SessionStore {
+        private StoredSession lastSession;
+        private Collection<String> lastRemoved;
+        private int updates;
+
+        @Override
+        public StoredSession load(final String id) throws IOException {
+            return null;
+        }
+
+        @Override
+        public void update(final String id, final StoredSession session, final Collection<String> removedAttributes) throws IOException {
+            lastSession = session;
+            lastRemoved = removedAttributes;
+            updates++;
+        }
+
+        @Override
+        public void remove(final String id) throws IOException {
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.grizzly.http.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.CharConversionException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Random;
+
+import org.glassfish.grizzly.http.server.util.Mapper;
+import org.glassfish.grizzly.http.server.util.MappingData;
+import org.glassfish.grizzly.http.server.util.TrieMapper;
+import org.glassfish.grizzly.http.util.DataChunk;
+import org.glassfish.grizzly.http.util.RequestURIRef;
+import org.glassfish.grizzly.utils.Charsets;
+import org.junit.Test;
+
+/**
+ * {@link TrieMapper} tests
+ */
+public class TrieMapperTest {
+    private static final int PORT = 18913;
+
+    private static final String HOST = "localhost";
+    private static final String[] WELCOME_RESOURCES = { "index.html", "index.htm" };
+
+    @Test
+    public void testMapping() throws Exception {
+        final TrieMapper mapper = new TrieMapper();
+        final Object root = new Object();
+        final Object context = new Object();
+        final Object prefix = new Object();
+        final Object exact = new Object();
+        final Object extension = new Object();
+
+        mapper.addContext("", root, WELCOME_RESOURCES);
+        mapper.addWrapper("", "/", root);
+        mapper.addWrapper("", "*.html", extension);
+        mapper.addContext("/app", context, WELCOME_RESOURCES);
+        mapper.addWrapper("/app", "/api/*", prefix);
+        mapper.addWrapper("/app", "/api/status", exact);
+
+        MappingData mappingData = map(mapper, "/app/api/status");
+        assertSame(context, mappingData.context);
+        assertSame(exact, mappingData.wrapper);
+        assertEquals("/app", mappingData.contextPath.toString());
+        assertEquals("/api/status", mappingData.wrapperPath.toString());
+        assertEquals(MappingData.EXACT, mappingData.mappingType);
+
+        mappingData = map(mapper, "/app/api/users/42;jsessionid=1");
+        assertSame(prefix, mappingData.wrapper);
+        assertEquals("/api", mappingData.wrapperPath.toString());
+        assertEquals("/users/42", mappingData.pathInfo.toString());
+        assertEquals(MappingData.PATH, mappingData.mappingType);
+
+        // the context is matched at the path segment boundary
+        mappingData = map(mapper, "/application/page.html");
+        assertSame(root, mappingData.context);
+        assertSame(extension, mappingData.wrapper);
+        assertEquals("", mappingData.contextPath.toString());
+        assertEquals(MappingData.EXTENSION, mappingData.mappingType);
+
+        mappingData = map(mapper, "/docs/");
+        assertSame(extension, mappingData.wrapper);
+        assertEquals("/docs/index.html", mappingData.wrapperPath.toString());
+
+        // the decoded URI chars are matched
+        mappingData = map(mapper, "/app/api/%C3%A9t%C3%A9");
+        assertSame(prefix, mappingData.wrapper);
+        assertEquals("/\u00e9t\u00e9", mappingData.pathInfo.toString());
+
+        mappingData = map(mapper, "/app");
+        assertSame(context, mappingData.context);
+        assertNull(mappingData.wrapper);
+        assertEquals("/app/", mappingData.redirectPath.toString());
+
+        mapper.removeContext("");
+        mappingData = map(mapper, "/page.html");
+        assertNull(mappingData.context);
+        assertNull(mappingData.wrapper);
+    }
+
+    @Test
+    public void testSameAsMapper() throws Exception {
+        final Random random = new Random(7);
+        final String[] segments = { "a", "b", "ab", "x.html", "y.jsp", "index.html", "\u00e9t\u00e9", "" };
+
+        for (int round = 0; round < 50; round++) {
+            final Mapper mapper = new Mapper();
+            mapper.setDefaultHostName(HOST);
+            final TrieMapper trieMapper = new TrieMapper(random.nextBoolean() ? 16 : 0);
+
+            final int registrations = 1 + random.nextInt(12);
+            for (int i = 0; i < registrations; i++) {
+                final String mapping;
+                switch (random.nextInt(5)) {
+                case 0:
+                    mapping = path(random, segments) + "/*";
+                    break;
+                case 1:
+                    mapping = random.nextBoolean() ? "*.html" : path(random, segments) + "/*.jsp";
+                    break;
+                case 2:
+                    mapping = random.nextBoolean() ? "/" : "";
+                    break;
+                default:
+                    mapping = path(random, segments);
+                }
+
+                final HttpHandlerRegistration registration = HttpHandlerRegistration.fromString(mapping);
+                final Object handler = "handler-" + i;
+                mapper.addContext(HOST, registration.getContextPath(), handler, WELCOME_RESOURCES, null);
+                mapper.addWrapper(HOST, registration.getContextPath(), registration.getUrlPattern(), handler);
+                trieMapper.addContext(registration.getContextPath(), handler, WELCOME_RESOURCES);
+                trieMapper.addWrapper(registration.getContextPath(), registration.getUrlPattern(), handler);
+            }
+
+            for (int i = 0; i < 200; i++) {
+                String uri = path(random, segments);
+                // the request URI isn't empty
+                if (random.nextInt(4) == 0 || uri.isEmpty()) {
+                    uri += '/';
+                }
+
+                final MappingData expected = new MappingData();
+                mapper.mapUriWithSemicolon((org.glassfish.grizzly.http.HttpRequestPacket) null, decodedUri(uri), expected, 0);
+                // map twice to check the cached result
+                map(trieMapper, uri);
+                final MappingData actual = map(trieMapper, uri);
+
+                final String message = "round " + round + ", uri " + uri;
+                assertSame(message, expected.context, actual.context);
+                assertSame(message, expected.wrapper, actual.wrapper);
+                assertEquals(message, expected.mappingType, actual.mappingType);
+                assertEquals(message, expected.descriptorPath, actual.descriptorPath);
+                assertEquals(message, expected.matchedPath, actual.matchedPath);
+                assertEquals(message, expected.contextPath.toString(), actual.contextPath.toString());
+                assertEquals(message, expected.wrapperPath.toString(), actual.wrapperPath.toString());
+                assertEquals(message, expected.pathInfo.toString(), actual.pathInfo.toString());
+                assertEquals(message, expected.requestPath.toString(), actual.requestPath.toString());
+                assertEquals(message, expected.redirectPath.toString(), actual.redirectPath.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testHttpHandlerChain() throws Exception {
+        final HttpServer server = HttpServer.createSimpleServer("/tmp", PORT);
+        final ServerConfiguration configuration = server.getServerConfiguration();
+        configuration.setTrieMapperEnabled(true);
+        configuration.addHttpHandler(new EchoPathsHandler("a"), "/a/*");
+        configuration.addHttpHandler(new EchoPathsHandler("b"), "/b/exact");
+        configuration.addHttpHandler(new EchoPathsHandler("json"), "*.json");
+
+        try {
+            server.start();
+            assertEquals("a:/a::/x/y", get("/a/x/y"));
+            assertEquals("a:/a::/x y", get("/a/x%20y"));
+            assertEquals("b:/b:/exact:null", get("/b/exact"));
+            assertEquals("json::/c/d.json:null", get("/c/d.json"));
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    private static String get(final String path) throws Exception {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + PORT + path).openConnection();
+        try {
+            assertEquals(200, connection.getResponseCode());
+            final InputStream in = connection.getInputStream();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                out.write(b);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static MappingData map(final TrieMapper mapper, final String uri) throws CharConversionException {
+        final MappingData mappingData = new MappingData();
+        mapper.mapUriWithSemicolon(decodedUri(uri), mappingData, 0);
+        return mappingData;
+    }
+
+    /**
+     * @return the decoded URI, the way the {@link HttpHandlerChain} passes it to the mapper.
+     */
+    private static DataChunk decodedUri(final String uri) throws CharConversionException {
+        final byte[] bytes = encode(uri).getBytes(Charsets.ASCII_CHARSET);
+        final RequestURIRef uriRef = new RequestURIRef();
+        uriRef.init(bytes, 0, bytes.length);
+        final DataChunk decodedURI = uriRef.getDecodedRequestURIBC(false);
+        assertEquals(DataChunk.Type.Chars, decodedURI.getType());
+        return decodedURI;
+    }
+
+    // percent-encodes the non-ASCII chars
+    private static String encode(final String uri) {
+        final StringBuilder sb = new StringBuilder();
+        for (byte b : uri.getBytes(Charsets.UTF8_CHARSET)) {
+            if (b < 0) {
+                sb.append('%').append(Integer.toHexString(b & 0xFF).toUpperCase());
+            } else {
+                sb.append((char) b);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String path(final Random random, final String[] segments) {
+        final StringBuilder sb = new StringBuilder();
+        final int length = random.nextInt(4);
+        for (int i = 0; i < length; i++) {
+            sb.append('/').append(segments[random.nextInt(segments.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static final class EchoPathsHandler extends HttpHandler {
+        private final String name;
+
+        private EchoPathsHandler(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void service(final Request request, final Response response) throws Exception {
+            response.getWriter().write(name + ':' + request.getContextPath() + ':' + request.getHttpHandlerPath() + ':' + request.getPathInfo());
+        }
+    }
+}
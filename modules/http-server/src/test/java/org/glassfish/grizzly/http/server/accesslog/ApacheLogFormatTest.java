@@ -339,6 +339,10 @@ public class ApacheLogFormatTest {
 
         assertEquals(new ApacheLogFormat(utc, "%{@@HH:mm:ss@PST}t").unsafeFormat(response, date, nanos), "@15:45:12");
         assertEquals(new ApacheLogFormat(jst, "%{@@HH:mm:ss@PST}t").unsafeFormat(response, date, nanos), "@15:45:12");
+
+        assertEquals(new ApacheLogFormat(utc, "%{clf}t").unsafeFormat(response, date, nanos), "[15/Jan/2014:23:45:12 +0000]");
+        assertEquals(new ApacheLogFormat(jst, "%{clf}t").unsafeFormat(response, date, nanos), "[16/Jan/2014:08:45:12 +0900]");
+        assertEquals(new ApacheLogFormat(utc, "%{iso@PST}t").unsafeFormat(response, date, nanos), "2014-01-15T15:45:12-08:00");
     }
 
     @Test
@@ -407,6 +411,8 @@ public class ApacheLogFormatTest {
         assertFormat("%{@PST}t");
         assertFormat("%{HH:mm:ss.SSS@PST}t");
         assertFormat("%{@@HH:mm:ss@PST}t");
+        assertFormat("%{clf}t");
+        assertFormat("%{iso@UTC}t");
     }
 
     private void assertStandardFormat(String format) {
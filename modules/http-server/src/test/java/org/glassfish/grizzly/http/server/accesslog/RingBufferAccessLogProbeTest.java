@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.accesslog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.HttpServerFilter;
+import org.glassfish.grizzly.http.server.HttpServerProbe;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Test for {@link RingBufferAccessLogProbe}
+ */
+public class RingBufferAccessLogProbeTest {
+    private static final int PORT = 18914;
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    @Test
+    public void testAccessLog() throws Exception {
+        final File file = File.createTempFile("access", ".log");
+        final ApacheLogFormat format = new ApacheLogFormat(UTC, "%a %m %U%q %H %s %b \"%{User-Agent}i\" %{X-Count}o %{yyyy}t");
+        final RingBufferAccessLogProbe probe = new RingBufferAccessLogProbe(file, format);
+        /* The completion is notified after the response has been sent */
+        final CountDownLatch completed = new CountDownLatch(2);
+
+        final HttpServer server = HttpServer.createSimpleServer("/tmp", PORT);
+        server.getServerConfiguration().getMonitoringConfig().getWebServerConfig().addProbes(probe, new HttpServerProbe.Adapter() {
+            @Override
+            public void onRequestCompleteEvent(HttpServerFilter filter, Connection connection, Response response) {
+                completed.countDown();
+            }
+        });
+        server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                response.addHeader("X-Count", "1");
+                response.addHeader("X-Count", "2");
+                response.setContentLength(5);
+                response.getWriter().write("hello");
+            }
+        }, "/log");
+
+        try {
+            server.start();
+            get("http://localhost:" + PORT + "/log/a?x=1", "agent/1");
+            get("http://localhost:" + PORT + "/log/b", "agent/2");
+            assertTrue(completed.await(10, TimeUnit.SECONDS));
+        } finally {
+            server.shutdownNow();
+            probe.close();
+        }
+
+        final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        file.delete();
+
+        final SimpleDateFormat yearFormat = new SimpleDateFormat("yyyy");
+        yearFormat.setTimeZone(UTC);
+        final String year = yearFormat.format(new Date());
+        /* The requests may complete in any order */
+        Collections.sort(lines);
+        assertEquals(2, lines.size());
+        assertEquals("127.0.0.1 GET /log/a?x=1 HTTP/1.1 200 5 \"agent/1\" 1; 2 " + year, lines.get(0));
+        assertEquals("127.0.0.1 GET /log/b HTTP/1.1 200 5 \"agent/2\" 1; 2 " + year, lines.get(1));
+        assertEquals(2, probe.getWrittenCount());
+        assertEquals(0, probe.getDroppedCount());
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        final BlockingChannel channel = new BlockingChannel();
+        final RingBufferAccessLogProbe probe = new RingBufferAccessLogProbe(channel, new ApacheLogFormat("%s %D"), AccessLogProbe.DEFAULT_STATUS_THRESHOLD,
+                2, 64, RingBufferAccessLogProbe.OverflowPolicy.DROP);
+        final Response response = mockResponse();
+
+        /* The writer takes the first record and blocks writing it */
+        probe.onRequestCompleteEvent(null, null, response);
+        assertTrue(channel.writing.await(10, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 4; i++) {
+            probe.onRequestCompleteEvent(null, null, response);
+        }
+        assertEquals(2, probe.getDroppedCount());
+
+        channel.release.countDown();
+        probe.close();
+
+        assertEquals(3, probe.getWrittenCount());
+        assertEquals("200 -\n200 -\n200 -\n", channel.contents.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecordTooSmall() throws Exception {
+        new RingBufferAccessLogProbe(new BlockingChannel(), new ApacheLogFormat("%s %D %t"), AccessLogProbe.DEFAULT_STATUS_THRESHOLD, 2, 8,
+                RingBufferAccessLogProbe.OverflowPolicy.DROP);
+    }
+
+    private static Response mockResponse() {
+        final Request request = Mockito.mock(Request.class);
+        final Response response = Mockito.mock(Response.class);
+        Mockito.doReturn(request).when(response).getRequest();
+        Mockito.doReturn(200).when(response).getStatus();
+        return response;
+    }
+
+    private static void get(final String url, final String userAgent) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestProperty("User-Agent", userAgent);
+        try {
+            assertEquals(200, connection.getResponseCode());
+            final InputStream in = connection.getInputStream();
+            while (in.read() != -1) {
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * The channel, which blocks the first write until released.
+     */
+    private static final class BlockingChannel implements WritableByteChannel {
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final StringBuilder contents = new StringBuilder();
+
+        @Override
+        public int write(final ByteBuffer source) throws IOException {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+
+            final byte[] bytes = new byte[source.remaining()];
+            source.get(bytes);
+            synchronized (contents) {
+                contents.append(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return bytes.length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.server.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.glassfish.grizzly.http.util.FastHttpDateFormat;
+import org.junit.Test;
+
+/**
+ * {@link ByteRange} test.
+ */
+public class ByteRangeTest {
+
+    @Test
+    public void testParse() {
+        assertEquals("[0-499]", ByteRange.parse("bytes=0-499", 1000).toString());
+        assertEquals("[500-999]", ByteRange.parse("bytes=500-", 1000).toString());
+        assertEquals("[900-999]", ByteRange.parse("bytes=-100", 1000).toString());
+        assertEquals("[0-999]", ByteRange.parse("bytes=-5000", 1000).toString());
+        assertEquals("[990-999]", ByteRange.parse("bytes=990-5000", 1000).toString());
+        assertEquals("[0-9, 20-29]", ByteRange.parse("bytes=20-29, 0-9", 1000).toString());
+    }
+
+    @Test
+    public void testCoalesce() {
+        assertEquals("[0-29]", ByteRange.parse("bytes=0-9,10-19,5-29", 1000).toString());
+        assertEquals("[0-999]", ByteRange.parse("bytes=0-,-10", 1000).toString());
+    }
+
+    @Test
+    public void testUnsatisfiable() {
+        final List<ByteRange> ranges = ByteRange.parse("bytes=1000-1999", 1000);
+        assertTrue(ranges.isEmpty());
+        assertTrue(ByteRange.parse("bytes=-0", 1000).isEmpty());
+        assertTrue(ByteRange.parse("bytes=0-", 0).isEmpty());
+    }
+
+    @Test
+    public void testIgnored() {
+        assertNull(ByteRange.parse("items=0-10", 1000));
+        assertNull(ByteRange.parse("bytes=", 1000));
+        assertNull(ByteRange.parse("bytes=10-5", 1000));
+        assertNull(ByteRange.parse("bytes=a-b", 1000));
+        assertNull(ByteRange.parse("bytes=5", 1000));
+
+        final StringBuilder sb = new StringBuilder("bytes=");
+        for (int i = 0; i <= ByteRange.MAX_RANGES; i++) {
+            sb.append(i * 10).append('-').append(i * 10 + 1).append(',');
+        }
+        assertNull(ByteRange.parse(sb.toString(), 1000));
+    }
+
+    @Test
+    public void testIfRange() {
+        final long lastModified = 1577836800000L;
+
+        assertTrue(ByteRange.isIfRangeSatisfied(null, "\"1-2\"", lastModified));
+        assertTrue(ByteRange.isIfRangeSatisfied("\"1-2\"", "\"1-2\"", lastModified));
+        assertFalse(ByteRange.isIfRangeSatisfied("\"1-3\"", "\"1-2\"", lastModified));
+        assertFalse(ByteRange.isIfRangeSatisfied("W/\"1-2\"", "W/\"1-2\"", lastModified));
+
+        final String date = FastHttpDateFormat.formatDate(lastModified, null);
+        assertTrue(ByteRange.isIfRangeSatisfied(date, "\"1-2\"", lastModified));
+        assertFalse(ByteRange.isIfRangeSatisfied(date, "\"1-2\"", lastModified + 60000));
+    }
+
+    @Test
+    public void testMultipartFraming() {
+        final ByteRange range = new ByteRange(10, 19);
+        assertEquals(10, range.getLength());
+        assertEquals("bytes 10-19/100", range.toContentRange(100));
+
+        assertEquals("--b\r\nContent-Type: text/plain\r\nContent-Range: bytes 10-19/100\r\n\r\n",
+                new String(ByteRange.multipartPartHeader("b", "text/plain", range, 100, true)));
+        assertEquals("\r\n--b\r\nContent-Range: bytes 10-19/100\r\n\r\n", new String(ByteRange.multipartPartHeader("b", null, range, 100, false)));
+        assertEquals("\r\n--b--\r\n", new String(ByteRange.multipartTrailer("b")));
+    }
+}
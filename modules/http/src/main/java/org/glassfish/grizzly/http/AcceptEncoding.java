@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http;
+
+import java.util.Arrays;
+
+import org.glassfish.grizzly.http.util.HttpUtils;
+
+/**
+ * The parsed <tt>Accept-Encoding</tt> header value: the content-codings with their q-values. The request keeps the
+ * parsed value, so each {@link ContentEncoding} checking the request doesn't parse the header again, see
+ * {@link HttpRequestPacket#getAcceptEncoding()}.
+ */
+final class AcceptEncoding {
+    static final AcceptEncoding EMPTY = new AcceptEncoding(new String[0], new float[0], 0);
+
+    private final String[] codings;
+    private final float[] qValues;
+    private final float wildcardQValue;
+
+    private AcceptEncoding(final String[] codings, final float[] qValues, final float wildcardQValue) {
+        this.codings = codings;
+        this.qValues = qValues;
+        this.wildcardQValue = wildcardQValue;
+    }
+
+    /**
+     * Returns the q-value assigned to the content-coding. The q-value of the coding token itself wins over the
+     * <tt>*</tt> one, the codings which are not mentioned at all are not acceptable.
+     *
+     * @param coding the content-coding, for example <tt>gzip</tt>
+     * @return the q-value, or <tt>0</tt> if the content-coding is not acceptable
+     */
+    float getQValue(final String coding) {
+        for (int i = 0; i < codings.length; i++) {
+            if (codings[i].equalsIgnoreCase(coding)) {
+                return qValues[i];
+            }
+        }
+
+        return wildcardQValue;
+    }
+
+    /**
+     * Parses the <tt>Accept-Encoding</tt> header value, an invalid q-value makes the coding not acceptable.
+     */
+    static AcceptEncoding parse(final String acceptEncoding) {
+        String[] codings = new String[4];
+        float[] qValues = new float[4];
+        int count = 0;
+        float wildcardQValue = 0;
+
+        final int length = acceptEncoding.length();
+        int start = 0;
+        while (start < length) {
+            int end = acceptEncoding.indexOf(',', start);
+            if (end == -1) {
+                end = length;
+            }
+
+            int tokenEnd = acceptEncoding.indexOf(';', start);
+            if (tokenEnd == -1 || tokenEnd > end) {
+                tokenEnd = end;
+            }
+
+            final int tokenStart = skipSpaces(acceptEncoding, start, tokenEnd);
+            final int tokenLength = trimSpaces(acceptEncoding, tokenStart, tokenEnd) - tokenStart;
+            if (tokenLength == 1 && acceptEncoding.charAt(tokenStart) == '*') {
+                wildcardQValue = parseQValue(acceptEncoding, tokenEnd, end);
+            } else if (tokenLength > 0) {
+                if (count == codings.length) {
+                    codings = Arrays.copyOf(codings, count << 1);
+                    qValues = Arrays.copyOf(qValues, count << 1);
+                }
+
+                codings[count] = acceptEncoding.substring(tokenStart, tokenStart + tokenLength);
+                qValues[count++] = parseQValue(acceptEncoding, tokenEnd, end);
+            }
+
+            start = end + 1;
+        }
+
+        return new AcceptEncoding(Arrays.copyOf(codings, count), Arrays.copyOf(qValues, count), wildcardQValue);
+    }
+
+    /**
+     * Parses the <tt>q</tt> parameter among the <tt>;</tt> separated parameters, an invalid q-value makes the coding not
+     * acceptable.
+     */
+    private static float parseQValue(final String value, int paramsStart, final int end) {
+        while (paramsStart < end) {
+            int paramEnd = value.indexOf(';', paramsStart + 1);
+            if (paramEnd == -1 || paramEnd > end) {
+                paramEnd = end;
+            }
+
+            final int nameStart = skipSpaces(value, paramsStart + 1, paramEnd);
+            final int eqIdx = value.indexOf('=', nameStart);
+            if (eqIdx != -1 && eqIdx < paramEnd && trimSpaces(value, nameStart, eqIdx) - nameStart == 1
+                    && (value.charAt(nameStart) == 'q' || value.charAt(nameStart) == 'Q')) {
+                final int qStart = skipSpaces(value, eqIdx + 1, paramEnd);
+                final int qEnd = trimSpaces(value, qStart, paramEnd);
+                if (qStart == qEnd) {
+                    return 0;
+                }
+
+                try {
+                    return HttpUtils.convertQValueToFloat(value, qStart, qEnd);
+                } catch (IllegalArgumentException e) {
+                    return 0;
+                }
+            }
+
+            paramsStart = paramEnd;
+        }
+
+        return 1;
+    }
+
+    private static int skipSpaces(final String s, int start, final int end) {
+        while (start < end && (s.charAt(start) == ' ' || s.charAt(start) == '\t')) {
+            start++;
+        }
+
+        return start;
+    }
+
+    private static int trimSpaces(final String s, final int start, int end) {
+        while (end > start && (s.charAt(end - 1) == ' ' || s.charAt(end - 1) == '\t')) {
+            end--;
+        }
+
+        return end;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http;
+
+import org.glassfish.grizzly.compression.brotli.BrotliCompressionProvider;
+
+/**
+ * Brotli {@link ContentEncoding} implementation, which compresses/decompresses HTTP content using the brotli algorithm.
+ */
+public class BrotliContentEncoding extends CompressionProviderContentEncoding {
+
+    private static final String[] ALIASES = { BrotliCompressionProvider.ENCODING };
+
+    public static final String NAME = BrotliCompressionProvider.ENCODING;
+
+    public BrotliContentEncoding() {
+        this(null);
+    }
+
+    public BrotliContentEncoding(final EncodingFilter encodingFilter) {
+        this(-1, encodingFilter);
+    }
+
+    /**
+     * @param level the brotli compression level, or <tt>-1</tt> for the default level.
+     * @param encodingFilter {@link EncodingFilter}, which will decide if <tt>BrotliContentEncoding</tt> should be applied to
+     * the specific {@link HttpHeader} packet.
+     */
+    public BrotliContentEncoding(final int level, final EncodingFilter encodingFilter) {
+        super(NAME, ALIASES, level, encodingFilter);
+    }
+
+    public static String[] getBrotliAliases() {
+        return ALIASES.clone();
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.ByteBufferArray;
+import org.glassfish.grizzly.memory.MemoryManager;
+
+/**
+ * The cache of the compressed HTTP content, which lets the {@link ContentEncoding}s skip the compression of the content
+ * they have already compressed, for example the configuration documents, which are served to many clients.
+ * <p>
+ * The cache is content-addressed: the entries are keyed by the content-encoding and the SHA-256 digest of the
+ * uncompressed content, so the content doesn't need to be kept. The digest is collision resistant, so a client can't
+ * craft content, which would be served the compressed content of another response. The compressed content is stored in a
+ * single direct {@link ByteBuffer} of the fixed size, which is used as a ring: once it is full, the oldest entries are
+ * evicted to make room for the new ones.
+ * <p>
+ * Only the content, which is known as a whole, i.e. the content of the responses, which consist of a single last
+ * {@link HttpContent}, is cached.
+ *
+ * @see CompressionConfig#setCompressionCache(CompressionCache)
+ */
+public final class CompressionCache {
+    /**
+     * The default maximum size of the uncompressed content, which is cached.
+     */
+    public static final int DEFAULT_MAX_ENTRY_SIZE = Integer.getInteger(CompressionCache.class.getName() + ".max-entry-size", 64 * 1024);
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * The compression of the content, which is not in the cache.
+     */
+    public interface Compression {
+        /**
+         * Compresses the content.
+         *
+         * @param content the uncompressed content.
+         * @return the compressed content.
+         */
+        Buffer compress(Buffer content);
+    }
+
+    private final int maxEntrySize;
+
+    private final ByteBuffer storage;
+    // the entries in the order of their positions in the storage ring, the oldest first
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int writePosition;
+    private int usedSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong savedCompressionNanos = new AtomicLong();
+
+    /**
+     * Constructs the cache, which caches the content up to {@link #DEFAULT_MAX_ENTRY_SIZE}.
+     *
+     * @param size the size of the off-heap memory the compressed content is stored in.
+     */
+    public CompressionCache(final int size) {
+        this(size, DEFAULT_MAX_ENTRY_SIZE);
+    }
+
+    /**
+     * Constructs the cache.
+     *
+     * @param size the size of the off-heap memory the compressed content is stored in.
+     * @param maxEntrySize the maximum size of the uncompressed content, which is cached. The larger content is compressed
+     * as usual.
+     */
+    public CompressionCache(final int size, final int maxEntrySize) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size has to be positive");
+        }
+
+        this.maxEntrySize = maxEntrySize;
+        storage = ByteBuffer.allocateDirect(size);
+    }
+
+    /**
+     * Returns the compressed content from the cache, or compresses the content and caches the result. The content
+     * {@link Buffer} position is not changed, unless the content is compressed.
+     *
+     * @param encoding the content-encoding name.
+     * @param content the uncompressed content.
+     * @param memoryManager the {@link MemoryManager} to allocate the {@link Buffer} for the cached content.
+     * @param compression the compression to apply, if the content is not in the cache.
+     * @return the compressed content.
+     */
+    public Buffer getOrCompress(final String encoding, final Buffer content, final MemoryManager memoryManager, final Compression compression) {
+        final int length = content.remaining();
+        if (length == 0 || length > maxEntrySize) {
+            return compression.compress(content);
+        }
+
+        final Key key = new Key(encoding, content);
+
+        final ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            final Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                savedCompressionNanos.addAndGet(entry.compressionNanos);
+                return copy(entry, memoryManager);
+            }
+        } finally {
+            readLock.unlock();
+        }
+
+        misses.incrementAndGet();
+        final long start = System.nanoTime();
+        final Buffer compressed = compression.compress(content);
+        final long compressionNanos = System.nanoTime() - start;
+
+        if (compressed != null && compressed.hasRemaining() && compressed.remaining() <= storage.capacity()) {
+            put(key, compressed, compressionNanos);
+        }
+
+        return compressed;
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public void clear() {
+        final ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            entries.clear();
+            writePosition = 0;
+            usedSize = 0;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of requests for the content, which has been in the cache.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of requests for the content, which had to be compressed.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the share of the requests for the content, which has been in the cache, or <tt>0</tt> if there were no
+     * requests yet.
+     */
+    public double getHitRate() {
+        final long hitCount = hits.get();
+        final long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return the number of entries, which have been evicted to make room for the new ones.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the CPU time the compression of the cached content took, summed over all the cache hits.
+     */
+    public long getSavedCompressionTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(savedCompressionNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of the cached entries.
+     */
+    public int getEntryCount() {
+        final ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return entries.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of bytes the cached entries occupy.
+     */
+    public int getUsedSize() {
+        final ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return usedSize;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return the size of the off-heap memory the compressed content is stored in.
+     */
+    public int getSize() {
+        return storage.capacity();
+    }
+
+    /**
+     * @return the maximum size of the uncompressed content, which is cached.
+     */
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    private Buffer copy(final Entry entry, final MemoryManager memoryManager) {
+        final ByteBuffer source = storage.duplicate();
+        source.limit(entry.position + entry.length);
+        source.position(entry.position);
+
+        final Buffer buffer = memoryManager.allocate(entry.length);
+        buffer.put(source);
+        buffer.flip();
+        return buffer;
+    }
+
+    private void put(final Key key, final Buffer compressed, final long compressionNanos) {
+        final int length = compressed.remaining();
+
+        final ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            if (entries.containsKey(key)) {
+                // the content has been compressed concurrently
+                return;
+            }
+
+            int position = writePosition;
+            final int capacity = storage.capacity();
+            if (position + length > capacity) {
+                // the rest of the ring is too small, so it is reclaimed together with the head
+                evict(position, capacity);
+                position = 0;
+            }
+            evict(position, position + length);
+
+            final ByteBuffer target = storage.duplicate();
+            target.position(position);
+            final ByteBufferArray byteBufferArray = compressed.toByteBufferArray();
+            try {
+                final ByteBuffer[] buffers = byteBufferArray.getArray();
+                for (int i = 0, size = byteBufferArray.size(); i < size; i++) {
+                    target.put(buffers[i].duplicate());
+                }
+            } finally {
+                byteBufferArray.restore();
+                byteBufferArray.recycle();
+            }
+
+            entries.put(key, new Entry(position, length, compressionNanos));
+            writePosition = position + length;
+            usedSize += length;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Evicts the oldest entries, which overlap the given region of the storage.
+     */
+    private void evict(final int start, final int end) {
+        final Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            final Entry eldest = it.next();
+            if (eldest.position >= end || eldest.position + eldest.length <= start) {
+                return;
+            }
+
+            it.remove();
+            usedSize -= eldest.length;
+            evictions.incrementAndGet();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionCache{size=" + getSize() + ", used=" + getUsedSize() + ", entries=" + getEntryCount() + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", savedCompressionMillis=" + getSavedCompressionTime(TimeUnit.MILLISECONDS) + "}";
+    }
+
+    private static final class Entry {
+        private final int position;
+        private final int length;
+        private final long compressionNanos;
+
+        private Entry(final int position, final int length, final long compressionNanos) {
+            this.position = position;
+            this.length = length;
+            this.compressionNanos = compressionNanos;
+        }
+    }
+
+    private static final class Key {
+        private final String encoding;
+        private final byte[] digest;
+        private final int hashCode;
+
+        private Key(final String encoding, final Buffer content) {
+            this.encoding = encoding;
+
+            final MessageDigest messageDigest;
+            try {
+                messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                // every Java platform implementation supports SHA-256
+                throw new IllegalStateException(e);
+            }
+
+            final ByteBufferArray byteBufferArray = content.toByteBufferArray();
+            try {
+                final ByteBuffer[] buffers = byteBufferArray.getArray();
+                for (int i = 0, size = byteBufferArray.size(); i < size; i++) {
+                    messageDigest.update(buffers[i].duplicate());
+                }
+            } finally {
+                byteBufferArray.restore();
+                byteBufferArray.recycle();
+            }
+
+            digest = messageDigest.digest();
+            hashCode = (digest[0] & 0xFF) << 24 | (digest[1] & 0xFF) << 16 | (digest[2] & 0xFF) << 8 | digest[3] & 0xFF;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            final Key key = (Key) o;
+            return hashCode == key.hashCode && Arrays.equals(digest, key.digest) && encoding.equals(key.encoding);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -16,13 +16,16 @@
 
 package org.glassfish.grizzly.http;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
+import org.glassfish.grizzly.compression.zip.GZipEncoder;
 import org.glassfish.grizzly.http.util.DataChunk;
 import org.glassfish.grizzly.http.util.Header;
-import org.glassfish.grizzly.http.util.HttpUtils;
 import org.glassfish.grizzly.utils.ArraySet;
 
 /**
@@ -72,6 +75,14 @@ public final class CompressionConfig {
     private final ArraySet<String> noCompressionUserAgents = new ArraySet<>(String.class);
     // Allow decompression of incoming data
     private boolean decompressionEnabled;
+    // the size of the entities, after which the rest of the entity is compressed in parallel, -1 means disabled
+    private long parallelCompressionMinSize = -1;
+    // the size of the blocks, which are compressed in parallel
+    private int parallelCompressionBlockSize = GZipEncoder.DEFAULT_PARALLEL_BLOCK_SIZE;
+    // the content-encodings the responses could be compressed with, in the order of the server preference
+    private final List<String> compressionEncodings = new ArrayList<>(Arrays.asList(GZipContentEncoding.NAME, LZMAContentEncoding.NAME));
+    // the cache of the compressed content, null means disabled
+    private CompressionCache compressionCache;
 
     public CompressionConfig() {
         compressionMode = CompressionMode.OFF;
@@ -111,6 +122,10 @@ public final class CompressionConfig {
         setCompressibleMimeTypes(compression.compressibleMimeTypes);
         setNoCompressionUserAgents(compression.noCompressionUserAgents);
         decompressionEnabled = compression.isDecompressionEnabled();
+        parallelCompressionMinSize = compression.parallelCompressionMinSize;
+        parallelCompressionBlockSize = compression.parallelCompressionBlockSize;
+        setCompressionEncodings(compression.compressionEncodings);
+        compressionCache = compression.compressionCache;
     }
 
     /**
@@ -282,6 +297,139 @@ public final class CompressionConfig {
         this.decompressionEnabled = decompressionEnabled;
     }
 
+    /**
+     * Returns the number of bytes of an entity, after which the rest of the entity is gzip compressed in parallel, or
+     * <tt>-1</tt> if the parallel compression is disabled.
+     */
+    public long getParallelCompressionMinSize() {
+        return parallelCompressionMinSize;
+    }
+
+    /**
+     * Sets the number of bytes of an entity, after which the rest of the entity is gzip compressed in parallel. The
+     * parallel compression splits the large entities into blocks, which are compressed independently on the common
+     * fork-join pool, so the compression of a large entity doesn't occupy a single thread for long. Set to <tt>-1</tt>
+     * (default) to compress the entities on the thread writing them.
+     */
+    public void setParallelCompressionMinSize(long parallelCompressionMinSize) {
+        this.parallelCompressionMinSize = parallelCompressionMinSize;
+    }
+
+    /**
+     * Returns the size of the blocks, which are gzip compressed in parallel.
+     */
+    public int getParallelCompressionBlockSize() {
+        return parallelCompressionBlockSize;
+    }
+
+    /**
+     * Sets the size of the blocks, which are gzip compressed in parallel, the size must be at least 32K. The smaller
+     * blocks are compressed with a better parallelism, but a slightly worse compression ratio.
+     *
+     * @throws IllegalArgumentException if the size is less than {@link GZipEncoder#MIN_PARALLEL_BLOCK_SIZE}.
+     */
+    public void setParallelCompressionBlockSize(int parallelCompressionBlockSize) {
+        if (parallelCompressionBlockSize < GZipEncoder.MIN_PARALLEL_BLOCK_SIZE) {
+            throw new IllegalArgumentException("The parallel compression block size must be at least " + GZipEncoder.MIN_PARALLEL_BLOCK_SIZE);
+        }
+
+        this.parallelCompressionBlockSize = parallelCompressionBlockSize;
+    }
+
+    /**
+     * Returns the read-only list of the content-encodings, which the responses could be compressed with, in the order of
+     * the server preference. By default <tt>gzip</tt> and <tt>lzma</tt>.
+     */
+    public List<String> getCompressionEncodings() {
+        return Collections.unmodifiableList(compressionEncodings);
+    }
+
+    /**
+     * Sets the content-encodings, which the responses could be compressed with, in the order of the server preference, for
+     * example <tt>br, zstd, gzip</tt>. The server picks the encoding with the highest <tt>Accept-Encoding</tt> q-value,
+     * the server preference decides between the encodings with the same q-value.
+     *
+     * Please note that CompressionConfig object will copy the source List content, so further changes made on the source
+     * List will not affect CompressionConfig object state.
+     */
+    public void setCompressionEncodings(final List<String> compressionEncodings) {
+        setCompressionEncodings(compressionEncodings.toArray(new String[0]));
+    }
+
+    /**
+     * Sets the content-encodings, which the responses could be compressed with, in the order of the server preference, for
+     * example <tt>br, zstd, gzip</tt>. The server picks the encoding with the highest <tt>Accept-Encoding</tt> q-value,
+     * the server preference decides between the encodings with the same q-value.
+     */
+    public void setCompressionEncodings(final String... compressionEncodings) {
+        final List<String> encodings = new ArrayList<>(compressionEncodings.length);
+        for (String encoding : compressionEncodings) {
+            encoding = encoding.trim().toLowerCase(Locale.ENGLISH);
+            if (!encoding.isEmpty() && !encodings.contains(encoding)) {
+                encodings.add(encoding);
+            }
+        }
+
+        this.compressionEncodings.clear();
+        this.compressionEncodings.addAll(encodings);
+    }
+
+    /**
+     * Returns the content-encoding from the {@link #getCompressionEncodings()} list, which the response to the request
+     * should be compressed with according to the request <tt>Accept-Encoding</tt> header, or <tt>null</tt> if the client
+     * doesn't accept any of them.
+     *
+     * @param request client-side {@link HttpRequestPacket}
+     * @return the negotiated content-encoding, or <tt>null</tt> if the client doesn't accept any of the configured ones
+     */
+    public String selectCompressionEncoding(final HttpRequestPacket request) {
+        final AcceptEncoding acceptEncoding = request.getAcceptEncoding();
+
+        String selected = null;
+        float selectedQValue = 0;
+        for (int i = 0, len = compressionEncodings.size(); i < len; i++) {
+            final String encoding = compressionEncodings.get(i);
+            final float qValue = acceptEncoding.getQValue(encoding);
+            // the server preference wins if the q-values are equal
+            if (qValue > selectedQValue) {
+                selected = encoding;
+                selectedQValue = qValue;
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * Returns the {@link CompressionCache} of the compressed content, or <tt>null</tt> if the content is always
+     * compressed.
+     */
+    public CompressionCache getCompressionCache() {
+        return compressionCache;
+    }
+
+    /**
+     * Sets the {@link CompressionCache}, which keeps the compressed content, so the responses with the same content don't
+     * have to be compressed again. The cache is shared, not copied, by the copies of this CompressionConfig. <tt>null</tt>
+     * (default) means the content is always compressed.
+     */
+    public void setCompressionCache(final CompressionCache compressionCache) {
+        this.compressionCache = compressionCache;
+    }
+
+    /**
+     * Returns <tt>true</tt> if at least one of the aliases is in the {@link #getCompressionEncodings()} list.
+     */
+    public boolean isCompressionEncoding(final String[] aliases) {
+        for (String alias : aliases) {
+            if (compressionEncodings.contains(alias)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     /**
      * Returns <tt>true</tt> if a client, based on its {@link HttpRequestPacket}, could be responded with compressed data,
      * or <tt>false</tt> otherwise.
@@ -338,41 +486,35 @@ public final class CompressionConfig {
 
     }
 
-    private static boolean isClientSupportContentEncoding(HttpRequestPacket request, final String[] aliases) {
-        // Check if browser support gzip encoding
-        final DataChunk acceptEncodingDC = request.getHeaders().getValue(Header.AcceptEncoding);
-        if (acceptEncodingDC == null) {
-            return false;
-        }
-        String alias = null;
-        int idx = -1;
-        for (int i = 0, len = aliases.length; i < len; i++) {
-            alias = aliases[i];
-            idx = acceptEncodingDC.indexOf(alias, 0);
-            if (idx != -1) {
-                break;
+    /**
+     * Returns <tt>true</tt> if the client accepts one of the given content-encodings, according to the request
+     * <tt>Accept-Encoding</tt> header, regardless of the {@link CompressionConfig} configuration.
+     *
+     * @param request the {@link HttpRequestPacket}
+     * @param aliases the content-encoding aliases, for example <tt>gzip</tt>
+     * @return <tt>true</tt> if the client accepts one of the given content-encodings
+     */
+    public static boolean isClientSupportContentEncoding(HttpRequestPacket request, final String[] aliases) {
+        final AcceptEncoding acceptEncoding = request.getAcceptEncoding();
+        for (String alias : aliases) {
+            if (acceptEncoding.getQValue(alias) > 0) {
+                return true;
             }
         }
 
-        if (idx == -1) {
-            return false;
-        }
-
-        assert alias != null;
-
-        // we only care about q=0/q=0.0. If present, the user-agent
-        // doesn't support this particular compression.
-        int qvalueStart = acceptEncodingDC.indexOf(';', idx + alias.length());
-        if (qvalueStart != -1) {
-            qvalueStart = acceptEncodingDC.indexOf('=', qvalueStart);
-            final int commaIdx = acceptEncodingDC.indexOf(',', qvalueStart);
-            final int qvalueEnd = commaIdx != -1 ? commaIdx : acceptEncodingDC.getLength();
-            if (HttpUtils.convertQValueToFloat(acceptEncodingDC, qvalueStart + 1, qvalueEnd) == 0.0f) {
-                return false;
-            }
-        }
+        return false;
+    }
 
-        return true;
+    /**
+     * Returns the q-value the <tt>Accept-Encoding</tt> header value assigns to the content-encoding. The q-value of the
+     * encoding token itself wins over the <tt>*</tt> one, the encodings which are not mentioned at all are not acceptable.
+     *
+     * @param acceptEncoding the <tt>Accept-Encoding</tt> header value
+     * @param encoding the content-encoding, for example <tt>gzip</tt>
+     * @return the q-value, or <tt>0</tt> if the content-encoding is not acceptable
+     */
+    public static float getAcceptEncodingQValue(final String acceptEncoding, final String encoding) {
+        return AcceptEncoding.parse(acceptEncoding).getQValue(encoding);
     }
 
     private static int indexOf(String[] aliases, DataChunk dc) {
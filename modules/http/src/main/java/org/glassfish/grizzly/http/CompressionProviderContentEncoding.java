@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.TransformationResult;
+import org.glassfish.grizzly.compression.spi.CompressionDecoder;
+import org.glassfish.grizzly.compression.spi.CompressionEncoder;
+import org.glassfish.grizzly.compression.spi.CompressionProviders;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+
+/**
+ * {@link ContentEncoding} implementation, which compresses/decompresses HTTP content using the
+ * {@link org.glassfish.grizzly.compression.spi.CompressionProvider} registered for the content-encoding name.
+ *
+ * @see CompressionProviders
+ */
+public class CompressionProviderContentEncoding implements ContentEncoding {
+
+    private final String name;
+    private final String[] aliases;
+
+    private final CompressionDecoder decoder;
+    private final CompressionEncoder encoder;
+
+    private final EncodingFilter encodingFilter;
+
+    private volatile CompressionCache compressionCache;
+
+    /**
+     * @param name the content-encoding name, which has to be supported by one of the
+     * {@link org.glassfish.grizzly.compression.spi.CompressionProvider}s.
+     * @param aliases the content-encoding aliases.
+     * @param level the format specific compression level, or <tt>-1</tt> for the default level.
+     * @param encodingFilter {@link EncodingFilter}, which will decide if the encoding should be applied to the specific
+     * {@link HttpHeader} packet.
+     */
+    public CompressionProviderContentEncoding(final String name, final String[] aliases, final int level, final EncodingFilter encodingFilter) {
+        this.name = name;
+        this.aliases = aliases.clone();
+        encoder = new CompressionEncoder(name, level);
+        decoder = new CompressionDecoder(name);
+
+        if (encodingFilter != null) {
+            this.encodingFilter = encodingFilter;
+        } else {
+            this.encodingFilter = new EncodingFilter() {
+                @Override
+                public boolean applyEncoding(final HttpHeader httpPacket) {
+                    return false;
+                }
+
+                @Override
+                public boolean applyDecoding(final HttpHeader httpPacket) {
+                    return true;
+                }
+            };
+        }
+    }
+
+    /**
+     * @return <tt>true</tt>, if a compression provider is registered for the content-encoding name.
+     */
+    public static boolean isSupported(final String name) {
+        return CompressionProviders.get(name) != null;
+    }
+
+    /**
+     * @return the {@link CompressionCache} of the compressed content, or <tt>null</tt> if the content is always
+     * compressed.
+     */
+    public CompressionCache getCompressionCache() {
+        return compressionCache;
+    }
+
+    /**
+     * Sets the {@link CompressionCache}, which keeps the compressed content, so the same content doesn't have to be
+     * compressed again. <tt>null</tt> (default) means the content is always compressed.
+     */
+    public void setCompressionCache(final CompressionCache compressionCache) {
+        this.compressionCache = compressionCache;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String[] getAliases() {
+        return aliases.clone();
+    }
+
+    @Override
+    public boolean wantDecode(final HttpHeader header) {
+        // the provider might be able to compress only
+        return decoder.isSupported() && encodingFilter.applyDecoding(header);
+    }
+
+    @Override
+    public boolean wantEncode(final HttpHeader header) {
+        return encodingFilter.applyEncoding(header);
+    }
+
+    @Override
+    public ParsingResult decode(final Connection connection, final HttpContent httpContent) {
+        final HttpHeader httpHeader = httpContent.getHttpHeader();
+        final Buffer input = httpContent.getContent();
+        final TransformationResult<Buffer, Buffer> result = decoder.transform(httpHeader, input);
+
+        Buffer remainder = result.getExternalRemainder();
+
+        if (remainder == null || !remainder.hasRemaining()) {
+            input.tryDispose();
+            remainder = null;
+        } else {
+            input.shrink();
+        }
+
+        try {
+            switch (result.getStatus()) {
+            case COMPLETE: {
+                httpContent.setContent(result.getMessage());
+                return ParsingResult.create(httpContent, remainder);
+            }
+
+            case INCOMPLETE: {
+                return ParsingResult.create(null, remainder);
+            }
+
+            case ERROR: {
+                throw new IllegalStateException(name + " decode error. Code: " + result.getErrorCode() + " Description: " + result.getErrorDescription());
+            }
+
+            default:
+                throw new IllegalStateException("Unexpected status: " + result.getStatus());
+            }
+        } finally {
+            result.recycle();
+        }
+    }
+
+    @Override
+    public HttpContent encode(final Connection connection, final HttpContent httpContent) {
+        final HttpHeader httpHeader = httpContent.getHttpHeader();
+
+        final Buffer input = httpContent.getContent();
+
+        final boolean isLast = httpContent.isLast();
+        if (!(isLast || input.hasRemaining())) {
+            // the content is empty and is not last
+            return httpContent;
+        }
+
+        final CompressionCache cache = compressionCache;
+        if (cache != null && isLast && !encoder.isStarted(httpHeader)) {
+            // the content is known as a whole, so it might have been compressed already
+            final MemoryManager memoryManager = connection.getMemoryManager();
+            final Buffer encodedBuffer = cache.getOrCompress(name, input, memoryManager, new CompressionCache.Compression() {
+                @Override
+                public Buffer compress(final Buffer content) {
+                    return encodeLast(httpHeader, content, memoryManager);
+                }
+            });
+
+            input.tryDispose();
+            httpContent.setContent(encodedBuffer);
+            return httpContent;
+        }
+
+        final TransformationResult<Buffer, Buffer> result = encoder.transform(httpHeader, input);
+
+        input.tryDispose();
+
+        try {
+            switch (result.getStatus()) {
+            case COMPLETE:
+            case INCOMPLETE: {
+                Buffer encodedBuffer = result.getMessage();
+                if (isLast) {
+                    final Buffer finishBuffer = encoder.finish(httpHeader);
+                    encodedBuffer = Buffers.appendBuffers(connection.getMemoryManager(), encodedBuffer, finishBuffer);
+                }
+                if (encodedBuffer != null) {
+                    httpContent.setContent(encodedBuffer);
+                    return httpContent;
+                } else {
+                    return null;
+                }
+            }
+
+            case ERROR: {
+                throw new IllegalStateException(name + " encode error. Code: " + result.getErrorCode() + " Description: " + result.getErrorDescription());
+            }
+
+            default:
+                throw new IllegalStateException("Unexpected status: " + result.getStatus());
+            }
+        } finally {
+            result.recycle();
+        }
+    }
+
+    /**
+     * Compresses the last content of the stream.
+     */
+    private Buffer encodeLast(final HttpHeader httpHeader, final Buffer input, final MemoryManager memoryManager) {
+        final TransformationResult<Buffer, Buffer> result = encoder.transform(httpHeader, input);
+
+        try {
+            if (result.getStatus() == TransformationResult.Status.ERROR) {
+                throw new IllegalStateException(name + " encode error. Code: " + result.getErrorCode() + " Description: " + result.getErrorDescription());
+            }
+
+            return Buffers.appendBuffers(memoryManager, result.getMessage(), encoder.finish(httpHeader));
+        } finally {
+            result.recycle();
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final CompressionProviderContentEncoding that = (CompressionProviderContentEncoding) o;
+        return name.equals(that.name) && encoder.equals(that.encoder) && decoder.equals(that.decoder) && encodingFilter.equals(that.encodingFilter);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = name.hashCode();
+        result = 31 * result + encoder.hashCode();
+        result = 31 * result + decoder.hashCode();
+        result = 31 * result + encodingFilter.hashCode();
+        return result;
+    }
+}
@@ -22,6 +22,7 @@ import org.glassfish.grizzly.TransformationResult;
 import org.glassfish.grizzly.compression.zip.GZipDecoder;
 import org.glassfish.grizzly.compression.zip.GZipEncoder;
 import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
 
 /**
  * GZip {@link ContentEncoding} implementation, which compresses/decompresses HTTP content using gzip algorithm.
@@ -41,6 +42,8 @@ public class GZipContentEncoding implements ContentEncoding {
 
     private final EncodingFilter encoderFilter;
 
+    private volatile CompressionCache compressionCache;
+
     /**
      * Construct <tt>GZipContentEncoding</tt> using default buffer sizes.
      */
@@ -67,8 +70,25 @@ public class GZipContentEncoding implements ContentEncoding {
      * encode specific {@link HttpHeader} packet.
      */
     public GZipContentEncoding(int inBufferSize, int outBufferSize, EncodingFilter encoderFilter) {
+        this(inBufferSize, outBufferSize, encoderFilter, -1, GZipEncoder.DEFAULT_PARALLEL_BLOCK_SIZE);
+    }
+
+    /**
+     * Construct <tt>GZipContentEncoding</tt>, which compresses the large HTTP content in parallel.
+     *
+     * @param inBufferSize input buffer size
+     * @param outBufferSize output buffer size
+     * @param encoderFilter {@link EncodingFilter}, which will decide if <tt>GZipContentEncoding</tt> should be applied to
+     * encode specific {@link HttpHeader} packet.
+     * @param parallelMinSize the number of bytes of the HTTP content, after which the rest of the content is compressed
+     * in parallel, or <tt>-1</tt> to disable the parallel compression.
+     * @param parallelBlockSize the size of the blocks, which are compressed in parallel.
+     *
+     * @see CompressionConfig#setParallelCompressionMinSize(long)
+     */
+    public GZipContentEncoding(int inBufferSize, int outBufferSize, EncodingFilter encoderFilter, long parallelMinSize, int parallelBlockSize) {
         this.decoder = new GZipDecoder(inBufferSize);
-        this.encoder = new GZipEncoder(outBufferSize);
+        this.encoder = new GZipEncoder(outBufferSize, parallelMinSize, parallelBlockSize);
 
         if (encoderFilter != null) {
             this.encoderFilter = encoderFilter;
@@ -87,6 +107,22 @@ public class GZipContentEncoding implements ContentEncoding {
         }
     }
 
+    /**
+     * @return the {@link CompressionCache} of the compressed content, or <tt>null</tt> if the content is always
+     * compressed.
+     */
+    public CompressionCache getCompressionCache() {
+        return compressionCache;
+    }
+
+    /**
+     * Sets the {@link CompressionCache}, which keeps the compressed content, so the same content doesn't have to be
+     * compressed again. <tt>null</tt> (default) means the content is always compressed.
+     */
+    public void setCompressionCache(final CompressionCache compressionCache) {
+        this.compressionCache = compressionCache;
+    }
+
     @Override
     public String getName() {
         return NAME;
@@ -162,6 +198,22 @@ public class GZipContentEncoding implements ContentEncoding {
             return httpContent;
         }
 
+        final CompressionCache cache = compressionCache;
+        if (cache != null && isLast && !encoder.isStarted(httpHeader)) {
+            // the content is known as a whole, so it might have been compressed already
+            final MemoryManager memoryManager = connection.getMemoryManager();
+            final Buffer encodedBuffer = cache.getOrCompress(NAME, input, memoryManager, new CompressionCache.Compression() {
+                @Override
+                public Buffer compress(final Buffer content) {
+                    return encodeLast(httpHeader, content, memoryManager);
+                }
+            });
+
+            input.tryDispose();
+            httpContent.setContent(encodedBuffer);
+            return httpContent;
+        }
+
         final TransformationResult<Buffer, Buffer> result = encoder.transform(httpHeader, input);
 
         input.tryDispose();
@@ -195,6 +247,23 @@ public class GZipContentEncoding implements ContentEncoding {
         }
     }
 
+    /**
+     * Compresses the last content of the stream.
+     */
+    private Buffer encodeLast(final HttpHeader httpHeader, final Buffer input, final MemoryManager memoryManager) {
+        final TransformationResult<Buffer, Buffer> result = encoder.transform(httpHeader, input);
+
+        try {
+            if (result.getStatus() == TransformationResult.Status.ERROR) {
+                throw new IllegalStateException("GZip encode error. Code: " + result.getErrorCode() + " Description: " + result.getErrorDescription());
+            }
+
+            return Buffers.appendBuffers(memoryManager, result.getMessage(), encoder.finish(httpHeader));
+        } finally {
+            result.recycle();
+        }
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
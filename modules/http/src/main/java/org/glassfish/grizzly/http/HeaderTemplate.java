@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.grizzly.http;
+
+import static org.glassfish.grizzly.http.util.HttpCodecUtils.put;
+import static org.glassfish.grizzly.http.util.HttpCodecUtils.toCheckedByteArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.MimeHeaders;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.utils.Charsets;
+
+/**
+ * The fixed set of HTTP headers, which is encoded into a byte array once, when the template is built, and copied to
+ * the serialized {@link HttpHeader} in bulk, for example the headers, which all the responses of an API share.
+ * <p>
+ * The template is applied to the {@link HttpHeader} with {@link HttpHeader#setHeaderTemplate(HeaderTemplate)}, or to
+ * all the responses with {@link HttpServerFilter#setDefaultResponseHeaderTemplate(HeaderTemplate)}. The headers set on
+ * the {@link HttpHeader} itself take precedence: the template header with the same name is not serialized. The headers,
+ * which vary from message to message and are managed by the codec, like <tt>Content-Length</tt>, <tt>Content-Encoding</tt> or <tt>Date</tt>,
+ * can't be the part of the template.
+ * <p>
+ * The template is immutable and can be shared by any number of the messages.
+ */
+public final class HeaderTemplate {
+    private static final Header[] VARIABLE_HEADERS = { Header.ContentLength, Header.TransferEncoding, Header.Connection, Header.Date,
+            Header.ContentEncoding };
+
+    private final byte[] encoded;
+    // the entry i occupies the encoded bytes from offsets[i] to offsets[i + 1]
+    private final int[] offsets;
+    private final String[] names;
+    private final String[] values;
+
+    private HeaderTemplate(final Builder builder) {
+        final int size = builder.names.size();
+        names = builder.names.toArray(new String[size]);
+        values = builder.values.toArray(new String[size]);
+        offsets = new int[size + 1];
+
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            length += names[i].length() + HttpCodecFilter.COLON_BYTES.length + builder.values.get(i).length() + HttpCodecFilter.CRLF_BYTES.length;
+        }
+
+        encoded = new byte[length];
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            offsets[i] = offset;
+            offset = append(names[i], offset);
+            System.arraycopy(HttpCodecFilter.COLON_BYTES, 0, encoded, offset, HttpCodecFilter.COLON_BYTES.length);
+            offset = append(builder.values.get(i), offset + HttpCodecFilter.COLON_BYTES.length);
+            System.arraycopy(HttpCodecFilter.CRLF_BYTES, 0, encoded, offset, HttpCodecFilter.CRLF_BYTES.length);
+            offset += HttpCodecFilter.CRLF_BYTES.length;
+        }
+        offsets[size] = offset;
+    }
+
+    /**
+     * @return the {@link Builder} of the new template.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the number of the headers in the template.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @return <tt>true</tt>, if the template contains the header with the given name.
+     */
+    public boolean contains(final String name) {
+        for (final String n : names) {
+            if (n.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return <tt>true</tt>, if the template contains the header.
+     */
+    public boolean contains(final Header header) {
+        return contains(header.toString());
+    }
+
+    /**
+     * @return the encoded headers, each followed by CRLF.
+     */
+    public byte[] getEncodedBytes() {
+        return encoded.clone();
+    }
+
+    /**
+     * Adds the template headers, which are not overridden by the given headers, to the headers. Used by the codecs,
+     * which don't serialize the message headers as HTTP/1.1 text, like HTTP/2 or AJP.
+     */
+    public void copyTo(final MimeHeaders headers) {
+        for (int i = 0; i < names.length; i++) {
+            if (headers.indexOf(names[i], 0) < 0) {
+                headers.addValue(names[i]).setString(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Serializes the template headers, which are not overridden by the message headers.
+     */
+    Buffer encode(final MemoryManager memoryManager, Buffer buffer, final MimeHeaders headers) {
+        int overridden = -1;
+        if (headers.size() > 0) {
+            for (int i = 0; i < names.length; i++) {
+                if (headers.indexOf(names[i], 0) >= 0) {
+                    overridden = i;
+                    break;
+                }
+            }
+        }
+
+        if (overridden == -1) {
+            return put(memoryManager, buffer, encoded);
+        }
+
+        // copy the runs of the headers, which are not overridden
+        int runStart = 0;
+        for (int i = overridden; i < names.length; i++) {
+            if (i == overridden || headers.indexOf(names[i], 0) >= 0) {
+                if (offsets[i] > runStart) {
+                    buffer = put(memoryManager, buffer, encoded, runStart, offsets[i] - runStart);
+                }
+                runStart = offsets[i + 1];
+            }
+        }
+        if (encoded.length > runStart) {
+            buffer = put(memoryManager, buffer, encoded, runStart, encoded.length - runStart);
+        }
+
+        return buffer;
+    }
+
+    private int append(final String s, final int offset) {
+        toCheckedByteArray(s, encoded, offset);
+        return offset + s.length();
+    }
+
+    @Override
+    public String toString() {
+        return new String(encoded, Charsets.ASCII_CHARSET);
+    }
+
+    /**
+     * The {@link HeaderTemplate} builder.
+     */
+    public static final class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds the header to the template.
+         *
+         * @throws IllegalArgumentException if the header varies from message to message and is managed by the codec.
+         */
+        public Builder header(final String name, final String value) {
+            if (name == null || name.isEmpty() || value == null) {
+                throw new IllegalArgumentException("The header name and value are required");
+            }
+            for (final Header header : VARIABLE_HEADERS) {
+                if (header.toString().equalsIgnoreCase(name)) {
+                    throw new IllegalArgumentException("The " + name + " header can't be the part of the template");
+                }
+            }
+
+            names.add(name);
+            values.add(value);
+            return this;
+        }
+
+        /**
+         * Adds the header to the template.
+         *
+         * @throws IllegalArgumentException if the header varies from message to message and is managed by the codec.
+         */
+        public Builder header(final Header header, final String value) {
+            return header(header.toString(), value);
+        }
+
+        /**
+         * @return the new {@link HeaderTemplate}.
+         */
+        public HeaderTemplate build() {
+            return new HeaderTemplate(this);
+        }
+    }
+}
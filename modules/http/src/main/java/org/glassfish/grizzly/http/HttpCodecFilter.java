@@ -704,6 +704,7 @@ public abstract class HttpCodecFilter extends HttpBaseFilter implements Monitori
             switch (subState) {
             case 0: { // start to parse the header
                 parsingState.start = parsingState.offset;
+                parsingState.headerNameHash = 0;
                 parsingState.subState++;
             }
             case 1: { // parse header name
@@ -761,12 +762,13 @@ public abstract class HttpCodecFilter extends HttpBaseFilter implements Monitori
         final int limit = Math.min(end, arrayOffs + parsingState.packetLimit);
         final int start = arrayOffs + parsingState.start;
         int offset = arrayOffs + parsingState.offset;
+        int nameHash = parsingState.headerNameHash;
 
         while (offset < limit) {
             byte b = input[offset];
             if (b == Constants.COLON) {
 
-                parsingState.headerValueStorage = mimeHeaders.addValue(input, start, offset - start);
+                parsingState.headerValueStorage = mimeHeaders.addValue(input, start, offset - start, nameHash);
                 parsingState.offset = offset + 1 - arrayOffs;
                 finalizeKnownHeaderNames(httpHeader, parsingState, input, start, offset);
 
@@ -777,11 +779,13 @@ public abstract class HttpCodecFilter extends HttpBaseFilter implements Monitori
                 }
                 input[offset] = b;
             }
+            nameHash = MimeHeaders.hashName(nameHash, b);
 
             offset++;
         }
 
         parsingState.offset = offset - arrayOffs;
+        parsingState.headerNameHash = nameHash;
         return false;
     }
 
@@ -960,6 +964,7 @@ public abstract class HttpCodecFilter extends HttpBaseFilter implements Monitori
             switch (subState) {
             case 0: { // start to parse the header
                 parsingState.start = parsingState.offset;
+                parsingState.headerNameHash = 0;
                 parsingState.subState++;
             }
             case 1: { // parse header name
@@ -1014,12 +1019,13 @@ public abstract class HttpCodecFilter extends HttpBaseFilter implements Monitori
         final int limit = Math.min(input.limit(), parsingState.packetLimit);
         final int start = parsingState.start;
         int offset = parsingState.offset;
+        int nameHash = parsingState.headerNameHash;
 
         while (offset < limit) {
             byte b = input.get(offset);
             if (b == Constants.COLON) {
 
-                parsingState.headerValueStorage = mimeHeaders.addValue(input, start, offset - start);
+                parsingState.headerValueStorage = mimeHeaders.addValue(input, start, offset - start, nameHash);
                 parsingState.offset = offset + 1;
                 finalizeKnownHeaderNames(httpHeader, parsingState, input, start, offset);
 
@@ -1030,11 +1036,13 @@ public abstract class HttpCodecFilter extends HttpBaseFilter implements Monitori
                 }
                 input.put(offset, b);
             }
+            nameHash = MimeHeaders.hashName(nameHash, b);
 
             offset++;
         }
 
         parsingState.offset = offset;
+        parsingState.headerNameHash = nameHash;
         return false;
     }
 
@@ -1414,6 +1422,10 @@ public abstract class HttpCodecFilter extends HttpBaseFilter implements Monitori
             encodedBuffer = encodeKnownHeaders(memoryManager, encodedBuffer, httpHeader);
 
             final MimeHeaders mimeHeaders = httpHeader.getHeaders();
+            final HeaderTemplate headerTemplate = httpHeader.getHeaderTemplate();
+            if (headerTemplate != null) {
+                encodedBuffer = headerTemplate.encode(memoryManager, encodedBuffer, mimeHeaders);
+            }
             final byte[] tempEncodingBuffer = httpHeader.getTempHeaderEncodingBuffer();
             encodedBuffer = encodeMimeHeaders(memoryManager, encodedBuffer, mimeHeaders, tempEncodingBuffer);
             onHttpHeadersEncoded(httpHeader, ctx);
@@ -1799,6 +1811,8 @@ public abstract class HttpCodecFilter extends HttpBaseFilter implements Monitori
         public HttpCodecFilter codecFilter;
 
         public long parsingNumericValue;
+        // the case-insensitive hash of the header name being parsed, see MimeHeaders.hashName()
+        public int headerNameHash;
 
         public boolean isContentLengthHeader;
         public int contentLengthHeadersCount; // number of Content-Length headers in the HTTP header
@@ -1828,6 +1842,7 @@ public abstract class HttpCodecFilter extends HttpBaseFilter implements Monitori
             checkpoint2 = -1;
             headerValueStorage = null;
             parsingNumericValue = 0;
+            headerNameHash = 0;
             contentLengthHeadersCount = 0;
             contentLengthsDiffer = false;
         }
@@ -90,6 +90,8 @@ public abstract class HttpHeader extends HttpPacket implements MimeHeadersPacket
 
     Buffer headerBuffer;
 
+    private HeaderTemplate headerTemplate;
+
     /**
      * Is chunking allowed to be used or not.
      */
@@ -336,6 +338,23 @@ public abstract class HttpHeader extends HttpPacket implements MimeHeadersPacket
         }
     }
 
+    /**
+     * @return the {@link HeaderTemplate}, which is serialized together with the headers of this message, or <tt>null</tt>.
+     */
+    public HeaderTemplate getHeaderTemplate() {
+        return headerTemplate;
+    }
+
+    /**
+     * Sets the {@link HeaderTemplate}, which is serialized together with the headers of this message. The headers of
+     * this message take precedence over the template headers with the same name.
+     *
+     * @param headerTemplate the {@link HeaderTemplate}, or <tt>null</tt> to serialize the message headers only.
+     */
+    public void setHeaderTemplate(final HeaderTemplate headerTemplate) {
+        this.headerTemplate = headerTemplate;
+    }
+
     /**
      * @return <tt>true</tt> if parser has to ignore "Transfer-Encoding" and "Content-Encoding" headers and act as none of
      * them were specified.
@@ -835,6 +854,7 @@ public abstract class HttpHeader extends HttpPacket implements MimeHeadersPacket
         isExpectContent = true;
         upgrade.recycle();
         isIgnoreContentModifiers = false;
+        headerTemplate = null;
         if (headerBuffer != null) {
             headerBuffer.dispose();
             headerBuffer = null;
@@ -87,6 +87,8 @@ public abstract class HttpRequestPacket extends HttpHeader {
     protected DataChunk unparsedHostC;
     private boolean hostHeaderParsed;
 
+    private AcceptEncoding acceptEncoding;
+
     /**
      * Internal notes associated with this request by Catalina components and event listeners.
      */
@@ -591,6 +593,8 @@ public abstract class HttpRequestPacket extends HttpHeader {
         hostHeaderParsed = false;
         unparsedHostC = null;
 
+        acceptEncoding = null;
+
         remoteAddressC.recycle();
         remoteHostC.recycle();
         localAddressC.recycle();
@@ -651,6 +655,20 @@ public abstract class HttpRequestPacket extends HttpHeader {
 
     // --------------------------------------------------------- Private Methods
 
+    /**
+     * Returns the parsed <tt>Accept-Encoding</tt> header. The header is parsed once, when the request content-encodings
+     * are negotiated.
+     */
+    AcceptEncoding getAcceptEncoding() {
+        if (acceptEncoding == null) {
+            final DataChunk acceptEncodingDC = getHeaders().getValue(Header.AcceptEncoding);
+            acceptEncoding = acceptEncodingDC == null || acceptEncodingDC.isNull() ? AcceptEncoding.EMPTY
+                    : AcceptEncoding.parse(acceptEncodingDC.toString());
+        }
+
+        return acceptEncoding;
+    }
+
     private void parseHostHeader() {
         if (!hostHeaderParsed) {
             doParseHostHeader();
@@ -37,8 +37,8 @@ import org.glassfish.grizzly.http.Method.PayloadExpectation;
 import org.glassfish.grizzly.http.util.Constants;
 import org.glassfish.grizzly.http.util.ContentType;
 import org.glassfish.grizzly.http.util.DataChunk;
-import org.glassfish.grizzly.http.util.FastHttpDateFormat;
 import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HttpClock;
 import org.glassfish.grizzly.http.util.HttpStatus;
 import org.glassfish.grizzly.http.util.HttpUtils;
 import org.glassfish.grizzly.http.util.MimeHeaders;
@@ -63,6 +63,8 @@ public class HttpServerFilter extends HttpCodecFilter {
 
     private final Attribute<ServerHttpRequestImpl> httpRequestInProcessAttr;
     private final Attribute<KeepAliveContext> keepAliveContextAttr;
+    // the requests recycled by the last served requests on the keep-alive connections
+    private final KeepAliveSlots<ServerHttpRequestImpl> idleRequests = new KeepAliveSlots<>();
 
     private final DelayedExecutor.DelayQueue<KeepAliveContext> keepAliveQueue;
 
@@ -72,6 +74,8 @@ public class HttpServerFilter extends HttpCodecFilter {
     private byte[] defaultResponseContentTypeBytes;
     private byte[] defaultResponseContentTypeBytesNoCharset;
 
+    private HeaderTemplate defaultResponseHeaderTemplate;
+
     private final boolean allowKeepAlive;
     private final int maxRequestHeaders;
     private final int maxResponseHeaders;
@@ -183,6 +187,24 @@ public class HttpServerFilter extends HttpCodecFilter {
         }
     }
 
+    /**
+     * @return the {@link HeaderTemplate}, which is serialized with every response, which doesn't have its own template,
+     * or <tt>null</tt>.
+     */
+    public HeaderTemplate getDefaultResponseHeaderTemplate() {
+        return defaultResponseHeaderTemplate;
+    }
+
+    /**
+     * Sets the {@link HeaderTemplate}, which is serialized with every response, which doesn't have its own template set
+     * with {@link HttpHeader#setHeaderTemplate(HeaderTemplate)}.
+     *
+     * @param defaultResponseHeaderTemplate the {@link HeaderTemplate}, or <tt>null</tt>.
+     */
+    public void setDefaultResponseHeaderTemplate(final HeaderTemplate defaultResponseHeaderTemplate) {
+        this.defaultResponseHeaderTemplate = defaultResponseHeaderTemplate;
+    }
+
     /**
      * The flag, which enables/disables payload support for HTTP methods, for which HTTP spec doesn't clearly state whether
      * they support payload. Known "undefined" methods are: GET, HEAD, DELETE.
@@ -228,25 +250,12 @@ public class HttpServerFilter extends HttpCodecFilter {
         ServerHttpRequestImpl httpRequest = httpRequestInProcessAttr.get(connection);
 
         if (httpRequest == null) {
-            final boolean isSecureLocal = isSecure(connection);
-            httpRequest = ServerHttpRequestImpl.create();
-            httpRequest.initialize(connection, this, input.position(), maxHeadersSize, maxRequestHeaders);
-            httpRequest.setSecure(isSecureLocal);
-            final HttpResponsePacket response = httpRequest.getResponse();
-            response.setSecure(isSecureLocal);
-            response.getHeaders().setMaxNumHeaders(maxResponseHeaders);
-            httpRequest.setResponse(response);
-            response.setRequest(httpRequest);
-
-            final HttpContext httpContext = HttpContext.newInstance(connection, connection, connection, httpRequest).attach(ctx);
-
-            httpRequest.getProcessingState().setHttpContext(httpContext);
-
+            KeepAliveContext keepAliveContext = null;
             if (allowKeepAlive) {
-                KeepAliveContext keepAliveContext = keepAliveContextAttr.get(httpContext);
+                keepAliveContext = keepAliveContextAttr.get(connection);
                 if (keepAliveContext == null) {
-                    keepAliveContext = new KeepAliveContext(connection);
-                    keepAliveContextAttr.set(httpContext, keepAliveContext);
+                    keepAliveContext = new KeepAliveContext(connection, idleRequests.newSlot());
+                    keepAliveContextAttr.set(connection, keepAliveContext);
                 } else if (keepAliveQueue != null) {
                     keepAliveQueue.remove(keepAliveContext);
                 }
@@ -257,6 +266,27 @@ public class HttpServerFilter extends HttpCodecFilter {
                 }
 
             }
+
+            final boolean isSecureLocal = isSecure(connection);
+            httpRequest = ServerHttpRequestImpl.create(keepAliveContext);
+            httpRequest.initialize(connection, this, input.position(), maxHeadersSize, maxRequestHeaders);
+            httpRequest.setSecure(isSecureLocal);
+            final HttpResponsePacket response = httpRequest.getResponse();
+            response.setSecure(isSecureLocal);
+            response.getHeaders().setMaxNumHeaders(maxResponseHeaders);
+            httpRequest.setResponse(response);
+            response.setRequest(httpRequest);
+
+            // the request, reused on the same connection, keeps its HttpContext
+            HttpContext httpContext = httpRequest.httpContext;
+            if (httpContext == null) {
+                httpContext = HttpContext.newInstance(connection, connection, connection, httpRequest);
+                httpRequest.httpContext = httpContext;
+            }
+            httpContext.attach(ctx);
+
+            httpRequest.getProcessingState().setHttpContext(httpContext);
+
             httpRequestInProcessAttr.set(httpContext, httpRequest);
         } else if (httpRequest.isContentBroken()) {
             // if payload of the current/last HTTP request associated with the
@@ -754,6 +784,10 @@ public class HttpServerFilter extends HttpCodecFilter {
             return null;
         }
 
+        if (defaultResponseHeaderTemplate != null && response.getHeaderTemplate() == null) {
+            response.setHeaderTemplate(defaultResponseHeaderTemplate);
+        }
+
         boolean entityBody = true;
         final int statusCode = response.getStatus();
 
@@ -831,7 +865,8 @@ public class HttpServerFilter extends HttpCodecFilter {
                 if (contentTypeValue.isNull()) {
                     contentType.serializeToDataChunk(contentTypeValue);
                 }
-            } else if (defaultResponseContentType != null) {
+            } else if (defaultResponseContentType != null
+                    && (response.getHeaderTemplate() == null || !response.getHeaderTemplate().contains(Header.ContentType))) {
                 final DataChunk contenTypeValue = headers.setValue(Header.ContentType);
                 if (contenTypeValue.isNull()) {
                     final String ce = response.getCharacterEncoding();
@@ -846,7 +881,7 @@ public class HttpServerFilter extends HttpCodecFilter {
         }
 
         if (!response.containsHeader(Header.Date)) {
-            response.getHeaders().addValue(Header.Date).setBytes(FastHttpDateFormat.getCurrentDateBytes());
+            response.getHeaders().addValue(Header.Date).setBytes(HttpClock.getInstance().getHttpDateBytes());
         }
 
         final ProcessingState state = response.getProcessingState();
@@ -888,6 +923,13 @@ public class HttpServerFilter extends HttpCodecFilter {
     @Override
     Buffer encodeInitialLine(HttpPacket httpPacket, Buffer output, MemoryManager memoryManager) {
         final HttpResponsePacket httpResponse = (HttpResponsePacket) httpPacket;
+        if (!httpResponse.isCustomReasonPhraseSet()) {
+            final byte[] statusLine = httpResponse.getHttpStatus().getStatusLineBytes(httpResponse.getProtocol());
+            if (statusLine != null) {
+                return put(memoryManager, output, statusLine);
+            }
+        }
+
         output = put(memoryManager, output, httpResponse.getProtocol().getProtocolBytes());
         output = put(memoryManager, output, Constants.SP);
         output = put(memoryManager, output, httpResponse.getHttpStatus().getStatusBytes());
@@ -960,6 +1002,11 @@ public class HttpServerFilter extends HttpCodecFilter {
 
     @Override
     public NextAction handleClose(final FilterChainContext ctx) throws IOException {
+        final KeepAliveContext keepAliveContext = keepAliveContextAttr.get(ctx.getConnection());
+        if (keepAliveContext != null) {
+            keepAliveContext.idleRequest.close();
+        }
+
         final ServerHttpRequestImpl httpRequest = httpRequestInProcessAttr.get(ctx.getConnection());
         if (httpRequest != null && !httpRequest.isContentBroken()) {
             // if we still have HTTP request in progress and this HTTP request
@@ -1071,12 +1118,16 @@ public class HttpServerFilter extends HttpCodecFilter {
     private static class KeepAliveContext {
         private final Connection connection;
 
-        public KeepAliveContext(Connection connection) {
+        public KeepAliveContext(Connection connection, KeepAliveSlots.Slot<ServerHttpRequestImpl> idleRequest) {
             this.connection = connection;
+            this.idleRequest = idleRequest;
         }
 
         private volatile long keepAliveTimeoutMillis = DelayedExecutor.UNSET_TIMEOUT;
         private int requestsProcessed;
+
+        // the request recycled by the last served request on the connection
+        private final KeepAliveSlots.Slot<ServerHttpRequestImpl> idleRequest;
     } // END KeepAliveContext
 
     private static class KeepAliveWorker implements DelayedExecutor.Worker<KeepAliveContext> {
@@ -1134,6 +1185,24 @@ public class HttpServerFilter extends HttpCodecFilter {
             return new ServerHttpRequestImpl();
         }
 
+        /**
+         * Takes the request recycled by the previous request on the same connection, so the keep-alive connection, whose
+         * requests are parsed and served by different threads, doesn't depend on the {@link ThreadCache} of either thread.
+         */
+        static ServerHttpRequestImpl create(final KeepAliveContext keepAliveContext) {
+            if (keepAliveContext == null) {
+                return create();
+            }
+
+            ServerHttpRequestImpl httpRequestImpl = keepAliveContext.idleRequest.take();
+            if (httpRequestImpl == null) {
+                httpRequestImpl = create();
+            }
+
+            httpRequestImpl.keepAliveContext = keepAliveContext;
+            return httpRequestImpl;
+        }
+
         /**
          * Char encoding parsed flag.
          */
@@ -1146,6 +1215,11 @@ public class HttpServerFilter extends HttpCodecFilter {
 
         private final HttpResponsePacket finalHttpResponse;
 
+        // the connection this request returns to, once recycled
+        private KeepAliveContext keepAliveContext;
+        // the context is kept as long as the request is reused by the same connection
+        private HttpContext httpContext;
+
         private ServerHttpRequestImpl() {
             this.headerParsingState = new HttpCodecFilter.HeaderParsingState();
             this.contentParsingState = new HttpCodecFilter.ContentParsingState();
@@ -1259,8 +1333,13 @@ public class HttpServerFilter extends HttpCodecFilter {
             if (isExpectContent()) {
                 return;
             }
+            final KeepAliveContext keepAliveContextLocal = keepAliveContext;
+            keepAliveContext = null;
             reset();
-            ThreadCache.putToCache(CACHE_IDX, this);
+            if (keepAliveContextLocal == null || !keepAliveContextLocal.idleRequest.offer(this)) {
+                httpContext = null;
+                ThreadCache.putToCache(CACHE_IDX, this);
+            }
         }
     }
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.grizzly.http;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.glassfish.grizzly.ThreadCache;
+
+/**
+ * The per-connection slots, each of which keeps the object recycled by the last request served on its connection, so
+ * the next request on the same connection reuses it, even though the requests are parsed and served by different
+ * threads.
+ * <p>
+ * The object kept by the slot of an idle keep-alive connection is pinned until the next request or until the
+ * connection is closed, so the number of the filled slots is limited. Once the limit is reached, the recycled objects
+ * are expected to go to the {@link ThreadCache} instead.
+ *
+ * @param <E> the type of the recycled objects.
+ */
+public final class KeepAliveSlots<E> {
+    /**
+     * The default maximum number of the filled slots.
+     */
+    public static final int DEFAULT_MAX_FILLED_SLOTS = Integer.getInteger(KeepAliveSlots.class.getName() + ".max-filled-slots", 1024);
+
+    // the value of the slot, which belongs to the closed connection
+    private static final Object CLOSED = new Object();
+
+    private final int maxFilledSlots;
+    private final AtomicInteger filledSlots = new AtomicInteger();
+
+    /**
+     * Creates the slots, which keep at most {@link #DEFAULT_MAX_FILLED_SLOTS} recycled objects.
+     */
+    public KeepAliveSlots() {
+        this(DEFAULT_MAX_FILLED_SLOTS);
+    }
+
+    /**
+     * @param maxFilledSlots the maximum number of the slots, which may keep the recycled object at the same time.
+     */
+    public KeepAliveSlots(final int maxFilledSlots) {
+        this.maxFilledSlots = maxFilledSlots;
+    }
+
+    /**
+     * @return the new empty {@link Slot} for the connection.
+     */
+    public Slot<E> newSlot() {
+        return new Slot<>(this);
+    }
+
+    /**
+     * @return the maximum number of the slots, which may keep the recycled object at the same time.
+     */
+    public int getMaxFilledSlots() {
+        return maxFilledSlots;
+    }
+
+    /**
+     * @return the number of the slots, which keep the recycled object.
+     */
+    public int getFilledSlots() {
+        return filledSlots.get();
+    }
+
+    private boolean reserve() {
+        if (filledSlots.incrementAndGet() > maxFilledSlots) {
+            filledSlots.decrementAndGet();
+            return false;
+        }
+
+        return true;
+    }
+
+    private void release() {
+        filledSlots.decrementAndGet();
+    }
+
+    /**
+     * The slot of the single connection.
+     *
+     * @param <E> the type of the recycled objects.
+     */
+    public static final class Slot<E> {
+        private final KeepAliveSlots<E> slots;
+        private final AtomicReference<Object> value = new AtomicReference<>();
+
+        private Slot(final KeepAliveSlots<E> slots) {
+            this.slots = slots;
+        }
+
+        /**
+         * @return the object kept by the slot, or <tt>null</tt>, if the slot is empty.
+         */
+        @SuppressWarnings("unchecked")
+        public E take() {
+            final Object current = value.get();
+            if (current == null || current == CLOSED || !value.compareAndSet(current, null)) {
+                return null;
+            }
+
+            slots.release();
+            return (E) current;
+        }
+
+        /**
+         * Keeps the recycled object in the slot.
+         *
+         * @return <tt>false</tt>, if the slot is filled or closed, or if the limit of the filled slots is reached, so
+         * the object is not kept.
+         */
+        public boolean offer(final E object) {
+            if (value.get() != null || !slots.reserve()) {
+                return false;
+            }
+
+            if (!value.compareAndSet(null, object)) {
+                slots.release();
+                return false;
+            }
+
+            return true;
+        }
+
+        /**
+         * Releases the kept object, if any, once the connection is closed. The slot keeps nothing after that.
+         */
+        public void close() {
+            final Object current = value.getAndSet(CLOSED);
+            if (current != null && current != CLOSED) {
+                slots.release();
+            }
+        }
+    }
+}
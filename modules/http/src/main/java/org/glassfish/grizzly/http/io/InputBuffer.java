@@ -19,15 +19,24 @@ package org.glassfish.grizzly.http.io;
 import static org.glassfish.grizzly.http.util.Constants.DEFAULT_HTTP_CHARACTER_ENCODING;
 
 import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.Executor;
@@ -48,6 +57,8 @@ import org.glassfish.grizzly.http.HttpHeader;
 import org.glassfish.grizzly.http.HttpTrailer;
 import org.glassfish.grizzly.http.util.MimeHeaders;
 import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.ByteBufferArray;
+import org.glassfish.grizzly.memory.ByteBufferWrapper;
 import org.glassfish.grizzly.memory.CompositeBuffer;
 import org.glassfish.grizzly.threadpool.Threads;
 import org.glassfish.grizzly.utils.Charsets;
@@ -60,6 +71,11 @@ public class InputBuffer {
     private static final Logger LOGGER = Grizzly.logger(InputBuffer.class);
     private static final Level LOGGER_LEVEL = Level.FINER;
 
+    /**
+     * The size of the spilled content window, which is mapped into memory at once.
+     */
+    private static final int SPILL_MAPPING_SIZE = Integer.getInteger(InputBuffer.class.getName() + ".spill-mapping-size", 1024 * 1024);
+
     /**
      * The {@link org.glassfish.grizzly.http.HttpHeader} associated with this <code>InputBuffer</code>
      */
@@ -157,6 +173,37 @@ public class InputBuffer {
      */
     protected Map<String, String> trailers;
 
+    /**
+     * The amount of buffered content, which, once exceeded, makes this <code>InputBuffer</code> spill the content to a
+     * temporary file. <code>-1</code> means the content is always buffered in memory.
+     */
+    private long spillThreshold = -1;
+
+    /**
+     * The directory to create the spill files in, or <code>null</code> to use the default temporary-file directory.
+     */
+    private File spillDirectory;
+
+    /**
+     * The temporary file the content is spilled to, or <code>null</code> if the content is buffered in memory.
+     */
+    private FileChannel spillChannel;
+
+    /**
+     * The spill file position the next content chunk will be written at.
+     */
+    private long spillWritePosition;
+
+    /**
+     * The spill file position the {@link #inputContentBuffer} mapping ends at.
+     */
+    private long spillMappedPosition;
+
+    /**
+     * The mappings of the spill files, which are released, once this <code>InputBuffer</code> is recycled.
+     */
+    private final List<MappedByteBuffer> spillMappings = new ArrayList<>(2);
+
     // ------------------------------------------------------------ Constructors
 
     /**
@@ -206,6 +253,57 @@ public class InputBuffer {
         this.encoding = encoding;
     }
 
+    /**
+     * @return the amount of buffered content, which, once exceeded, makes this <tt>InputBuffer</tt> spill the content to a
+     * temporary file. <code>-1</code> means the content is always buffered in memory.
+     */
+    public long getSpillThreshold() {
+        return spillThreshold;
+    }
+
+    /**
+     * Sets the amount of buffered content, which, once exceeded, makes this <tt>InputBuffer</tt> spill the content to a
+     * temporary file. The spilled content is read back through memory-mapped views of the file, so the heap used by a
+     * request doesn't grow with the size of the content the application hasn't read yet. <code>-1</code> (default) means
+     * the content is always buffered in memory.
+     *
+     * The mappings are released, once the <tt>InputBuffer</tt> is recycled, so the {@link Buffer}s returned by
+     * {@link #getBuffer()} and {@link #readBuffer()} over the spilled content must not be used after the request is
+     * complete.
+     *
+     * The threshold has to be set before the <tt>InputBuffer</tt> is {@link #initialize(HttpHeader, FilterChainContext)
+     * initialized}.
+     */
+    public void setSpillThreshold(final long spillThreshold) {
+        this.spillThreshold = spillThreshold < 0 ? -1 : spillThreshold;
+    }
+
+    /**
+     * @param size the size of the content to be appended.
+     *
+     * @return <tt>true</tt>, if appending the content of the given size writes to the spill file, so the caller may want
+     * to append it outside of the service {@link Thread}.
+     */
+    public boolean isSpillWrite(final int size) {
+        return spillChannel != null || spillThreshold >= 0 && inputContentBuffer != null && inputContentBuffer.remaining() + (long) size > spillThreshold;
+    }
+
+    /**
+     * @return the directory the spill files are created in, or <code>null</code> if the default temporary-file directory
+     * is used.
+     */
+    public File getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Sets the directory the spill files are created in. <code>null</code> (default) means the default temporary-file
+     * directory is used.
+     */
+    public void setSpillDirectory(final File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
     /**
      * <p>
      * Recycle this <code>InputBuffer</code> for reuse.
@@ -216,6 +314,11 @@ public class InputBuffer {
         inputContentBuffer.tryDispose();
         inputContentBuffer = null;
 
+        closeSpillChannel();
+        releaseSpillMappings();
+        spillThreshold = -1;
+        spillDirectory = null;
+
         singleCharBuf.position(singleCharBuf.limit());
 
         connection = null;
@@ -340,7 +443,12 @@ public class InputBuffer {
      */
     public int available() {
 
-        return closed ? 0 : inputContentBuffer.remaining();
+        if (closed) {
+            return 0;
+        }
+
+        final long available = inputContentBuffer.remaining() + getUnmappedSpillSize();
+        return available < Integer.MAX_VALUE ? (int) available : Integer.MAX_VALUE;
 
     }
 
@@ -348,6 +456,9 @@ public class InputBuffer {
      * Returns the duplicate of the underlying {@link Buffer} used to buffer incoming request data. The content of the
      * returned buffer will be that of the underlying buffer. Changes to returned buffer's content will be visible in the
      * underlying buffer, and vice versa; the two buffers' position, limit, and mark values will be independent.
+     * <p>
+     * If the content has been spilled to a temporary file, all the spilled content is mapped first, so the returned
+     * buffer contains all the {@link #available()} bytes.
      *
      * @return the duplicate of the underlying {@link Buffer} used to buffer incoming request data.
      */
@@ -356,18 +467,21 @@ public class InputBuffer {
             log("InputBuffer %s getBuffer. Ready content: %s", this, inputContentBuffer);
         }
 
+        mapAllSpilledContent();
         return inputContentBuffer.duplicate();
     }
 
     /**
      * @return the underlying {@link Buffer} used to buffer incoming request data. Unlike {@link #getBuffer()}, this method
-     * detaches the returned {@link Buffer}, so user code becomes responsible for handling the {@link Buffer}.
+     * detaches the returned {@link Buffer}, so user code becomes responsible for handling the {@link Buffer}. If the
+     * content has been spilled to a temporary file, the returned {@link Buffer} contains all the spilled content.
      */
     public Buffer readBuffer() {
         if (LOGGER.isLoggable(LOGGER_LEVEL)) {
             log("InputBuffer %s readBuffer. Ready content: %s", this, inputContentBuffer);
         }
 
+        mapAllSpilledContent();
         return readBuffer(inputContentBuffer.remaining());
     }
 
@@ -383,6 +497,14 @@ public class InputBuffer {
             log("InputBuffer %s readBuffer(size), size: %s. Ready content: %s", this, size, inputContentBuffer);
         }
 
+        if (size > inputContentBuffer.remaining()) {
+            try {
+                mapSpilledContent(size);
+            } catch (IOException e) {
+                throw new IllegalStateException("Can not map the spilled content", e);
+            }
+        }
+
         final int remaining = inputContentBuffer.remaining();
         if (size > remaining) {
             throw new IllegalStateException("Can not read more bytes than available");
@@ -496,7 +618,7 @@ public class InputBuffer {
         if (!processingChars) {
             throw new IllegalStateException();
         }
-        return inputContentBuffer.hasRemaining() || httpHeader.isExpectContent();
+        return inputContentBuffer.hasRemaining() || getUnmappedSpillSize() > 0 || httpHeader.isExpectContent();
 
     }
 
@@ -518,13 +640,15 @@ public class InputBuffer {
         }
 
         if (length > 0) {
-            final int remaining = length - inputContentBuffer.remaining();
+            final int remaining = length - available();
 
             if (remaining > 0) {
-                fill(remaining);
+                readContent(remaining);
             }
+
+            mapSpilledContent(length);
         } else {
-            fill(-1);
+            readContent(-1);
         }
     }
 
@@ -762,6 +886,7 @@ public class InputBuffer {
         readAheadLimit = -1;
         markPos = -1;
 
+        closeSpillChannel();
         inputContentBuffer = buffer;
     }
 
@@ -1042,7 +1167,8 @@ public class InputBuffer {
 
     /**
      * <p>
-     * Used to add additional HTTP message chunk content to {@link #inputContentBuffer}.
+     * Used to add additional content to {@link #inputContentBuffer}, either by mapping the spilled content or by reading
+     * HTTP message chunks.
      * </p>
      *
      * @param requestedLen how much content should attempt to be read, <code>-1</code> means read till the end of the
@@ -1053,6 +1179,27 @@ public class InputBuffer {
      * @throws IOException if an I/O error occurs while reading content
      */
     private int fill(final int requestedLen) throws IOException {
+        final int mapped = mapSpilledContent(requestedLen);
+        if (mapped > 0) {
+            return mapped;
+        }
+
+        return readContent(requestedLen);
+    }
+
+    /**
+     * <p>
+     * Used to add additional HTTP message chunk content to {@link #inputContentBuffer}.
+     * </p>
+     *
+     * @param requestedLen how much content should attempt to be read, <code>-1</code> means read till the end of the
+     * message.
+     *
+     * @return the number of bytes actually read
+     *
+     * @throws IOException if an I/O error occurs while reading content
+     */
+    private int readContent(final int requestedLen) throws IOException {
 
         int read = 0;
         while ((requestedLen == -1 || read < requestedLen) && httpHeader.isExpectContent()) {
@@ -1081,6 +1228,9 @@ public class InputBuffer {
             }
         }
 
+        // the content read might have been spilled
+        mapSpilledContent(requestedLen);
+
         if (read > 0 || requestedLen == 0) {
             return read;
         }
@@ -1121,7 +1271,7 @@ public class InputBuffer {
         }
 
         // 3) If we don't expect more data - return what we've read so far
-        if (!httpHeader.isExpectContent()) {
+        if (!httpHeader.isExpectContent() && getUnmappedSpillSize() == 0) {
             dst.flip();
             return read > 0 ? read : -1;
         }
@@ -1132,14 +1282,17 @@ public class InputBuffer {
         boolean isNeedMoreInput = false; // true, if content in composite buffer is not enough to produce even 1 char
         boolean last = false;
 
-        while (read < requestedLen && httpHeader.isExpectContent()) {
+        while (read < requestedLen && (httpHeader.isExpectContent() || getUnmappedSpillSize() > 0)) {
 
             if (isNeedMoreInput || !inputContentBuffer.hasRemaining()) {
-                final HttpContent c = blockingRead();
-                updateInputContentBuffer(c.getContent());
-                last = c.isLast();
+                if (mapSpilledContent(inputContentBuffer.remaining() + 1) == 0) {
+                    final HttpContent c = blockingRead();
+                    updateInputContentBuffer(c.getContent());
+                    last = c.isLast();
 
-                c.recycle();
+                    c.recycle();
+                    mapSpilledContent(inputContentBuffer.remaining() + 1);
+                }
                 isNeedMoreInput = false;
             }
 
@@ -1165,7 +1318,7 @@ public class InputBuffer {
                 isNeedMoreInput = true;
             }
 
-            if (last || result == CoderResult.OVERFLOW) {
+            if (last && getUnmappedSpillSize() == 0 || result == CoderResult.OVERFLOW) {
                 break;
             }
         }
@@ -1231,11 +1384,25 @@ public class InputBuffer {
 
         buffer.allowBufferDispose(true);
 
+        if (spillChannel != null) {
+            if (inputContentBuffer.hasRemaining() || readAheadLimit > 0 || getUnmappedSpillSize() > 0) {
+                if (spill(buffer)) {
+                    return;
+                }
+            } else {
+                // the spilled content has been read off, so switch back to the memory buffering
+                closeSpillChannel();
+            }
+        }
+
         if (inputContentBuffer == null) {
             inputContentBuffer = buffer;
         } else if (inputContentBuffer.hasRemaining() || readAheadLimit > 0) { // if the stream is marked - we can't dispose the inputContentBuffer, even if it's
                                                                               // been read off
             toCompositeInputContentBuffer().append(buffer);
+            if (spillThreshold >= 0 && inputContentBuffer.remaining() > spillThreshold) {
+                startSpilling();
+            }
         } else {
             inputContentBuffer.tryDispose();
             inputContentBuffer = buffer;
@@ -1243,6 +1410,193 @@ public class InputBuffer {
 
     }
 
+    /**
+     * Moves the buffered content to a new spill file and maps it back as {@link #inputContentBuffer}. If the spill file
+     * can't be created, the content stays buffered in memory.
+     */
+    private void startSpilling() {
+        // the marked content has to stay available
+        final int keep = getMarkedSize();
+
+        final FileChannel channel;
+        try {
+            final Path file = spillDirectory != null ? Files.createTempFile(spillDirectory.toPath(), "grizzly-input", ".tmp")
+                    : Files.createTempFile("grizzly-input", ".tmp");
+            try {
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Can not create the spill file, the request content will be buffered in memory", e);
+            spillThreshold = -1;
+            return;
+        }
+
+        if (LOGGER.isLoggable(LOGGER_LEVEL)) {
+            log("InputBuffer %s starts spilling. Ready content: %s", this, inputContentBuffer);
+        }
+
+        spillChannel = channel;
+        final Buffer buffer = inputContentBuffer;
+        final int position = buffer.position();
+        buffer.position(position - keep);
+        try {
+            writeSpill(buffer);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Can not write the spill file, the request content will be buffered in memory", e);
+            buffer.position(position);
+            closeSpillChannel();
+            spillThreshold = -1;
+            return;
+        }
+
+        buffer.tryDispose();
+        inputContentBuffer = Buffers.EMPTY_BUFFER;
+        if (readAheadLimit > 0) {
+            markPos = 0;
+        }
+
+        try {
+            mapSpilledContent(keep + 1);
+        } catch (IOException e) {
+            throw new IllegalStateException("Can not map the spilled content", e);
+        }
+        inputContentBuffer.position(keep);
+    }
+
+    /**
+     * Writes the passed {@link Buffer} to the spill file. If the write fails, all the spilled content gets mapped and the
+     * spilling is turned off.
+     *
+     * @return <tt>true</tt> if the content has been spilled, or <tt>false</tt> if it has to be buffered in memory.
+     */
+    private boolean spill(final Buffer buffer) {
+        try {
+            writeSpill(buffer);
+            buffer.tryDispose();
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Can not write the spill file, the request content will be buffered in memory", e);
+        }
+
+        mapAllSpilledContent();
+        closeSpillChannel();
+        spillThreshold = -1;
+        return false;
+    }
+
+    private void writeSpill(final Buffer buffer) throws IOException {
+        final ByteBufferArray array = buffer.toByteBufferArray();
+        final ByteBuffer[] byteBuffers = array.getArray();
+        final int size = array.size();
+
+        int written = 0;
+        try {
+            for (int i = 0; i < size; i++) {
+                final ByteBuffer byteBuffer = byteBuffers[i];
+                while (byteBuffer.hasRemaining()) {
+                    final int n = spillChannel.write(byteBuffer, spillWritePosition);
+                    spillWritePosition += n;
+                    written += n;
+                }
+            }
+        } finally {
+            array.restore();
+            array.recycle();
+            buffer.position(buffer.position() + written);
+        }
+    }
+
+    /**
+     * Maps the next window of the spilled content as {@link #inputContentBuffer}, if the current mapping has less than the
+     * requested content left. The new mapping starts at the current read position, or at the mark, if the stream is marked.
+     *
+     * @param requestedLen the amount of content the mapping should have, <code>-1</code> means all the spilled content.
+     *
+     * @return the number of bytes, which became available.
+     */
+    private int mapSpilledContent(final int requestedLen) throws IOException {
+        final int remaining = inputContentBuffer.remaining();
+        if (getUnmappedSpillSize() == 0 || requestedLen != -1 && remaining >= Math.max(requestedLen, 1)) {
+            return 0;
+        }
+
+        final int keep = getMarkedSize();
+        final long start = spillMappedPosition - remaining - keep;
+        final long window = keep + Math.max((long) SPILL_MAPPING_SIZE, requestedLen == -1 ? Integer.MAX_VALUE : requestedLen);
+        final int size = (int) Math.min(Math.min(spillWritePosition - start, window), Integer.MAX_VALUE);
+
+        final MappedByteBuffer mappedBuffer = spillChannel.map(MapMode.READ_ONLY, start, size);
+        spillMappings.add(mappedBuffer);
+        final ByteBufferWrapper mapping = new ByteBufferWrapper(mappedBuffer);
+        // the mapping could be shared with the Buffers returned by readBuffer(), so it's released on recycle()
+        mapping.allowBufferDispose(false);
+        mapping.position(keep);
+
+        inputContentBuffer.tryDispose();
+        inputContentBuffer = mapping;
+        spillMappedPosition = start + size;
+        if (keep > 0) {
+            markPos = 0;
+        }
+
+        return mapping.remaining() - remaining;
+    }
+
+    /**
+     * Maps all the spilled content, which hasn't been mapped yet, so {@link #inputContentBuffer} contains all the
+     * available bytes.
+     */
+    private void mapAllSpilledContent() {
+        if (getUnmappedSpillSize() > 0) {
+            try {
+                mapSpilledContent(-1);
+            } catch (IOException e) {
+                throw new IllegalStateException("Can not map the spilled content", e);
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes between the mark and the current position of {@link #inputContentBuffer}.
+     */
+    private int getMarkedSize() {
+        return readAheadLimit > 0 && markPos >= 0 ? Math.max(inputContentBuffer.position() - markPos, 0) : 0;
+    }
+
+    /**
+     * @return the number of spilled bytes, which haven't been mapped yet.
+     */
+    private long getUnmappedSpillSize() {
+        return spillWritePosition - spillMappedPosition;
+    }
+
+    /**
+     * Unmaps the spill file regions, so the memory and the deleted spill files are released without waiting for the GC.
+     */
+    private void releaseSpillMappings() {
+        for (int i = 0; i < spillMappings.size(); i++) {
+            MappedBuffers.unmap(spillMappings.get(i));
+        }
+        spillMappings.clear();
+    }
+
+    private void closeSpillChannel() {
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Can not close the spill file", e);
+            }
+
+            spillChannel = null;
+            spillWritePosition = 0;
+            spillMappedPosition = 0;
+        }
+    }
+
     /**
      * @param size the amount of data that must be available for a {@link ReadHandler} to be notified.
      * @param available the amount of data currently available.
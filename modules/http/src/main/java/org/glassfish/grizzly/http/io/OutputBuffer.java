@@ -25,6 +25,7 @@ import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -64,6 +65,7 @@ import org.glassfish.grizzly.http.util.HeaderValue;
 import org.glassfish.grizzly.http.util.MimeType;
 import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.ByteBufferArray;
 import org.glassfish.grizzly.memory.CompositeBuffer;
 import org.glassfish.grizzly.memory.MemoryManager;
 import org.glassfish.grizzly.threadpool.Threads;
@@ -283,6 +285,36 @@ public class OutputBuffer {
         return size;
     }
 
+    /**
+     * Updates the {@link MessageDigest} with the content, which has been written, but not flushed yet. The buffered
+     * characters are encoded first, the buffered content itself is passed to the digest as it is, without copying.
+     *
+     * @param digest the {@link MessageDigest} to update.
+     * @throws IOException if the buffered characters could not be encoded.
+     */
+    public void digestBufferedContent(final MessageDigest digest) throws IOException {
+        if (charsArrayLength > 0) {
+            flushCharsToBuf(false);
+        }
+
+        if (compositeBuffer != null && compositeBuffer.hasRemaining()) {
+            final ByteBufferArray byteBufferArray = compositeBuffer.toByteBufferArray();
+            try {
+                final ByteBuffer[] byteBuffers = byteBufferArray.getArray();
+                for (int i = 0, size = byteBufferArray.size(); i < size; i++) {
+                    digest.update(byteBuffers[i]);
+                }
+            } finally {
+                byteBufferArray.restore();
+                byteBufferArray.recycle();
+            }
+        }
+
+        if (currentBuffer != null && currentBuffer.position() > 0) {
+            digest.update(currentBuffer.toByteBuffer(0, currentBuffer.position()));
+        }
+    }
+
     /**
      * Recycle the output buffer. This should be called when closing the connection.
      */
@@ -588,8 +620,11 @@ public class OutputBuffer {
         if (outputHeader.getContentType() == null) {
             outputHeader.setContentType(MimeType.getByFilename(file.getName()));
         }
-        // set Content-Encoding to identity to prevent compression
-        outputHeader.setHeader(Header.ContentEncoding, HeaderValue.IDENTITY);
+        // set Content-Encoding to identity to prevent compression,
+        // unless the file is already encoded
+        if (!outputHeader.containsHeader(Header.ContentEncoding)) {
+            outputHeader.setHeader(Header.ContentEncoding, HeaderValue.IDENTITY);
+        }
 
         try {
             flush(); // commit the headers, then send the file
@@ -1162,6 +1197,10 @@ public class OutputBuffer {
     }
 
     private void notifyCommit() throws IOException {
+        if (lifeCycleListeners.isEmpty()) {
+            return;
+        }
+
         // the collection is not synchronized and may be accessed in parallel
         final LifeCycleListener[] array = lifeCycleListeners.toArray(new LifeCycleListener[lifeCycleListeners.size()]);
         for (LifeCycleListener lifeCycleListener : array) {
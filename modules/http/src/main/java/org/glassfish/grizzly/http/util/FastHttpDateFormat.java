@@ -17,11 +17,8 @@
 
 package org.glassfish.grizzly.http.util;
 
-import static org.glassfish.grizzly.http.util.HttpCodecUtils.toCheckedByteArray;
-
 import java.io.UnsupportedEncodingException;
 import java.text.DateFormat;
-import java.text.FieldPosition;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -29,7 +26,6 @@ import java.util.Locale;
 import java.util.TimeZone;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.glassfish.grizzly.utils.Charsets;
 
@@ -47,8 +43,6 @@ public final class FastHttpDateFormat {
 
     private static final TimeZone GMT_TIME_ZONE = TimeZone.getTimeZone("GMT");
 
-    private static final SimpleDateFormatter FORMATTER = new SimpleDateFormatter();
-
     /**
      * HTTP date format.
      */
@@ -62,7 +56,6 @@ public final class FastHttpDateFormat {
     private static final class SimpleDateFormatter {
         private final Date date;
         private final SimpleDateFormat f;
-        private final FieldPosition pos = new FieldPosition(-1);
 
         public SimpleDateFormatter() {
             date = new Date();
@@ -74,11 +67,6 @@ public final class FastHttpDateFormat {
             date.setTime(timeMillis);
             return f.format(date);
         }
-
-        public StringBuffer formatTo(final long timeMillis, final StringBuffer buffer) {
-            date.setTime(timeMillis);
-            return f.format(date, buffer, pos);
-        }
     }
 
     /**
@@ -99,20 +87,6 @@ public final class FastHttpDateFormat {
         }
     };
 
-    /**
-     * Instant on which the currentDate object was generated.
-     */
-    private static volatile long nextGeneration;
-
-    private static final AtomicBoolean isGeneratingNow = new AtomicBoolean();
-
-    private static final StringBuffer currentDateBuffer = new StringBuffer();
-
-    /**
-     * Current formatted date as byte[].
-     */
-    private static byte[] currentDateBytes;
-
     /**
      * Current formatted date.
      */
@@ -150,24 +124,11 @@ public final class FastHttpDateFormat {
 
     /**
      * Get the current date in HTTP format.
+     *
+     * @see HttpClock#getHttpDateBytes()
      */
     public static byte[] getCurrentDateBytes() {
-        final long now = System.currentTimeMillis();
-        final long diff = now - nextGeneration;
-
-        if (diff > 0 && (diff > 5000 || !isGeneratingNow.get() && isGeneratingNow.compareAndSet(false, true))) {
-            synchronized (FORMAT) {
-                if (now > nextGeneration) {
-                    currentDateBuffer.setLength(0);
-                    FORMATTER.formatTo(now, currentDateBuffer);
-                    currentDateBytes = toCheckedByteArray(currentDateBuffer);
-                    nextGeneration = now + 1000;
-                }
-
-                isGeneratingNow.set(false);
-            }
-        }
-        return currentDateBytes;
+        return HttpClock.getInstance().getHttpDateBytes();
     }
 
     /**
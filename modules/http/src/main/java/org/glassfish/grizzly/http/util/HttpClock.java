@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.util;
+
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.glassfish.grizzly.utils.Charsets;
+
+/**
+ * The clock, which provides the current time formatted as the HTTP-date, the Common Log Format date and the ISO-8601
+ * date. The dates are formatted once per second, when the clock is first asked for them in the second, directly as
+ * ASCII bytes, and shared by all the threads, so the code, which writes the dates on every request, neither formats
+ * nor allocates anything.
+ * <p>
+ * The returned byte arrays are shared and must not be modified.
+ */
+public final class HttpClock {
+    private static final byte[][] DAYS = { bytes("Sun"), bytes("Mon"), bytes("Tue"), bytes("Wed"), bytes("Thu"), bytes("Fri"), bytes("Sat") };
+
+    private static final byte[][] MONTHS = { bytes("Jan"), bytes("Feb"), bytes("Mar"), bytes("Apr"), bytes("May"), bytes("Jun"), bytes("Jul"),
+            bytes("Aug"), bytes("Sep"), bytes("Oct"), bytes("Nov"), bytes("Dec") };
+
+    private static final ConcurrentMap<String, HttpClock> CLOCKS = new ConcurrentHashMap<>();
+
+    private static final HttpClock DEFAULT = getInstance(TimeZone.getDefault());
+
+    private final TimeZone timeZone;
+
+    private volatile Tick current;
+
+    private HttpClock(final TimeZone timeZone) {
+        this.timeZone = (TimeZone) timeZone.clone();
+    }
+
+    /**
+     * @return the clock, which formats the local dates in the default time zone.
+     */
+    public static HttpClock getInstance() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return the clock, which formats the local dates, i.e. the Common Log Format and the ISO-8601 ones, in the given time
+     * zone. The HTTP-date is always in GMT.
+     */
+    public static HttpClock getInstance(final TimeZone timeZone) {
+        final HttpClock clock = CLOCKS.get(timeZone.getID());
+        if (clock != null) {
+            return clock;
+        }
+
+        final HttpClock newClock = new HttpClock(timeZone);
+        final HttpClock existing = CLOCKS.putIfAbsent(timeZone.getID(), newClock);
+        return existing != null ? existing : newClock;
+    }
+
+    /**
+     * @return the time zone of the local dates.
+     */
+    public TimeZone getTimeZone() {
+        return (TimeZone) timeZone.clone();
+    }
+
+    /**
+     * @return the {@link Tick} of the current second.
+     */
+    public Tick getTick() {
+        return getTick(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the {@link Tick} of the second the given time belongs to. It's formatted only if it's not the latest second
+     * the clock has been asked for.
+     *
+     * @param timeMillis the time in milliseconds since the epoch.
+     */
+    public Tick getTick(final long timeMillis) {
+        final long second = Math.floorDiv(timeMillis, 1000L);
+
+        final Tick tick = current;
+        if (tick != null && tick.second == second) {
+            return tick;
+        }
+
+        final Tick newTick = new Tick(second, timeZone.getOffset(second * 1000L));
+        if (tick == null || second > tick.second) {
+            current = newTick;
+        }
+
+        return newTick;
+    }
+
+    /**
+     * @return the current HTTP-date, for example <tt>Sun, 06 Nov 1994 08:49:37 GMT</tt>.
+     */
+    public byte[] getHttpDateBytes() {
+        return getTick().httpDate;
+    }
+
+    /**
+     * @return the current Common Log Format date, for example <tt>06/Nov/1994:08:49:37 +0000</tt>.
+     */
+    public byte[] getClfDateBytes() {
+        return getTick().clfDate;
+    }
+
+    /**
+     * @return the current ISO-8601 date, for example <tt>1994-11-06T08:49:37+00:00</tt>.
+     */
+    public byte[] getIsoDateBytes() {
+        return getTick().isoDate;
+    }
+
+    private static byte[] bytes(final String s) {
+        return s.getBytes(Charsets.ASCII_CHARSET);
+    }
+
+    /**
+     * The dates of a second.
+     */
+    public static final class Tick {
+        private final long second;
+        private final byte[] httpDate;
+        private final byte[] clfDate;
+        private final byte[] isoDate;
+
+        private Tick(final long second, final int offsetMillis) {
+            this.second = second;
+
+            final DateFields utc = new DateFields(second);
+            httpDate = new byte[29];
+            int pos = put(httpDate, 0, DAYS[utc.dayOfWeek]);
+            httpDate[pos++] = ',';
+            httpDate[pos++] = ' ';
+            pos = put2(httpDate, pos, utc.day);
+            httpDate[pos++] = ' ';
+            pos = put(httpDate, pos, MONTHS[utc.month - 1]);
+            httpDate[pos++] = ' ';
+            pos = put4(httpDate, pos, utc.year);
+            httpDate[pos++] = ' ';
+            pos = putTime(httpDate, pos, utc);
+            httpDate[pos++] = ' ';
+            httpDate[pos++] = 'G';
+            httpDate[pos++] = 'M';
+            httpDate[pos] = 'T';
+
+            final int offsetMinutes = offsetMillis / 60000;
+            final DateFields local = offsetMinutes == 0 ? utc : new DateFields(second + offsetMinutes * 60L);
+            final int absoluteOffset = Math.abs(offsetMinutes);
+            final byte sign = (byte) (offsetMinutes < 0 ? '-' : '+');
+
+            clfDate = new byte[26];
+            pos = put2(clfDate, 0, local.day);
+            clfDate[pos++] = '/';
+            pos = put(clfDate, pos, MONTHS[local.month - 1]);
+            clfDate[pos++] = '/';
+            pos = put4(clfDate, pos, local.year);
+            clfDate[pos++] = ':';
+            pos = putTime(clfDate, pos, local);
+            clfDate[pos++] = ' ';
+            clfDate[pos++] = sign;
+            pos = put2(clfDate, pos, absoluteOffset / 60);
+            put2(clfDate, pos, absoluteOffset % 60);
+
+            isoDate = new byte[25];
+            pos = put4(isoDate, 0, local.year);
+            isoDate[pos++] = '-';
+            pos = put2(isoDate, pos, local.month);
+            isoDate[pos++] = '-';
+            pos = put2(isoDate, pos, local.day);
+            isoDate[pos++] = 'T';
+            pos = putTime(isoDate, pos, local);
+            isoDate[pos++] = sign;
+            pos = put2(isoDate, pos, absoluteOffset / 60);
+            isoDate[pos++] = ':';
+            put2(isoDate, pos, absoluteOffset % 60);
+        }
+
+        /**
+         * @return the start of the second in milliseconds since the epoch.
+         */
+        public long getTimeMillis() {
+            return second * 1000L;
+        }
+
+        /**
+         * @return the HTTP-date, for example <tt>Sun, 06 Nov 1994 08:49:37 GMT</tt>.
+         */
+        public byte[] getHttpDate() {
+            return httpDate;
+        }
+
+        /**
+         * @return the Common Log Format date, for example <tt>06/Nov/1994:08:49:37 +0000</tt>.
+         */
+        public byte[] getClfDate() {
+            return clfDate;
+        }
+
+        /**
+         * @return the ISO-8601 date, for example <tt>1994-11-06T08:49:37+00:00</tt>.
+         */
+        public byte[] getIsoDate() {
+            return isoDate;
+        }
+
+        private static int putTime(final byte[] array, int pos, final DateFields fields) {
+            pos = put2(array, pos, fields.hour);
+            array[pos++] = ':';
+            pos = put2(array, pos, fields.minute);
+            array[pos++] = ':';
+            return put2(array, pos, fields.second);
+        }
+
+        private static int put(final byte[] array, final int pos, final byte[] value) {
+            System.arraycopy(value, 0, array, pos, value.length);
+            return pos + value.length;
+        }
+
+        private static int put2(final byte[] array, final int pos, final int value) {
+            array[pos] = (byte) ('0' + value / 10);
+            array[pos + 1] = (byte) ('0' + value % 10);
+            return pos + 2;
+        }
+
+        private static int put4(final byte[] array, final int pos, final int value) {
+            put2(array, pos, value / 100 % 100);
+            return put2(array, pos + 2, value % 100);
+        }
+    }
+
+    /**
+     * The calendar fields of a second since the epoch, in the proleptic Gregorian calendar.
+     */
+    private static final class DateFields {
+        private final int year;
+        private final int month;
+        private final int day;
+        private final int dayOfWeek;
+        private final int hour;
+        private final int minute;
+        private final int second;
+
+        private DateFields(final long epochSecond) {
+            final long days = Math.floorDiv(epochSecond, 86400L);
+            final int secondOfDay = (int) Math.floorMod(epochSecond, 86400L);
+            hour = secondOfDay / 3600;
+            minute = secondOfDay / 60 % 60;
+            second = secondOfDay % 60;
+            // 1970-01-01 was Thursday
+            dayOfWeek = (int) Math.floorMod(days + 4, 7L);
+
+            // the civil date of the day count, the years start on March 1st
+            final long z = days + 719468;
+            final long era = Math.floorDiv(z, 146097L);
+            final long dayOfEra = z - era * 146097;
+            final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+            final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+            final long monthIndex = (5 * dayOfYear + 2) / 153;
+            day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+            month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+            year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.Protocol;
 import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.utils.Charsets;
 
@@ -84,7 +85,7 @@ public class HttpStatus {
     }
 
     public static HttpStatus newHttpStatus(final int statusCode, final String reasonPhrase) {
-        return new HttpStatus(statusCode, reasonPhrase);
+        return new HttpStatus(statusCode, reasonPhrase, true);
     }
 
     /**
@@ -95,7 +96,8 @@ public class HttpStatus {
     public static HttpStatus getHttpStatus(final int statusCode) {
         HttpStatus status = statusMessages.get(statusCode);
         if (status == null) {
-            status = new HttpStatus(statusCode, "CUSTOM");
+            // the transient status, so the status lines are not pre-encoded
+            status = new HttpStatus(statusCode, "CUSTOM", false);
         }
 
         return status;
@@ -107,12 +109,24 @@ public class HttpStatus {
     private final String reasonPhrase;
     private final byte[] reasonPhraseBytes;
     private final byte[] statusBytes;
+    // the status lines indexed by the Protocol ordinal
+    private final byte[][] statusLineBytes;
 
-    private HttpStatus(final int status, final String reasonPhrase) {
+    private HttpStatus(final int status, final String reasonPhrase, final boolean encodeStatusLines) {
         this.status = status;
         this.reasonPhrase = reasonPhrase;
         reasonPhraseBytes = reasonPhrase.getBytes(Charsets.ASCII_CHARSET);
         statusBytes = Integer.toString(status).getBytes(Charsets.ASCII_CHARSET);
+
+        if (encodeStatusLines) {
+            final Protocol[] protocols = Protocol.values();
+            statusLineBytes = new byte[protocols.length][];
+            for (final Protocol protocol : protocols) {
+                statusLineBytes[protocol.ordinal()] = (protocol.getProtocolString() + ' ' + status + ' ' + reasonPhrase).getBytes(Charsets.ASCII_CHARSET);
+            }
+        } else {
+            statusLineBytes = null;
+        }
     }
 
     // ---------------------------------------------------------- Public Methods
@@ -149,6 +163,14 @@ public class HttpStatus {
         return reasonPhraseBytes;
     }
 
+    /**
+     * @return the bytes of the status line, i.e. the protocol, status code and reason phrase separated by spaces, without
+     * the trailing CRLF, or <tt>null</tt> if the status line is not pre-encoded.
+     */
+    public byte[] getStatusLineBytes(final Protocol protocol) {
+        return statusLineBytes != null ? statusLineBytes[protocol.ordinal()] : null;
+    }
+
     /**
      * Sets the status and reason phrase on the specified response.
      * 
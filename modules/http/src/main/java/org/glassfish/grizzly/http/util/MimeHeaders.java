@@ -106,6 +106,26 @@ public class MimeHeaders {
 
     public static DataChunk NOOP_CHUNK = new DataChunk.Immutable(null);
 
+    /**
+     * The number of headers, starting from which the lookups by name use the hash index instead of the linear scan.
+     * Negative value disables the index.
+     */
+    public static final int INDEX_THRESHOLD = Integer.getInteger(MimeHeaders.class.getName() + ".index-threshold", 8);
+
+    // the name hashes of the well-known headers, computed from their pre-encoded lower-case bytes
+    private static final int[] HEADER_HASHES;
+    static {
+        final Header[] knownHeaders = Header.values();
+        HEADER_HASHES = new int[knownHeaders.length];
+        for (final Header header : knownHeaders) {
+            int hash = 0;
+            for (final byte b : header.getLowerCaseBytes()) {
+                hash = hashName(hash, b);
+            }
+            HEADER_HASHES[header.ordinal()] = hash;
+        }
+    }
+
     /**
      * The header fields.
      */
@@ -119,6 +139,14 @@ public class MimeHeaders {
 
     private int maxNumHeaders = MAX_NUM_HEADERS_DEFAULT;
 
+    /**
+     * The open-addressed name hash index: the slots keep the index + 1 of the first header with the name hash, the
+     * headers starting from indexedCount haven't been added yet. Removing the header resets the index.
+     */
+    private int[] indexSlots;
+    private int[] indexHashes;
+    private int indexedCount;
+
     /**
      * The header names {@link Iterable}.
      */
@@ -161,6 +189,7 @@ public class MimeHeaders {
         count = 0;
         mark = 0;
         marked = false;
+        resetIndex();
 
     }
 
@@ -185,6 +214,7 @@ public class MimeHeaders {
             return;
         }
         this.maxNumHeaders = source.maxNumHeaders;
+        resetIndex();
         this.count = source.count;
         if (headers.length < count) {
             MimeHeaderField tmp[] = new MimeHeaderField[count * 2];
@@ -203,6 +233,8 @@ public class MimeHeaders {
                 f = new MimeHeaderField();
                 headers[i] = f;
             }
+            f.nameHashed = sourceField.nameHashed;
+            f.nameHash = sourceField.nameHash;
             if (sourceField.nameB.type == DataChunk.Type.Buffer) {
                 copyBufferChunk(sourceField.nameB, f.nameB);
             } else {
@@ -299,13 +331,15 @@ public class MimeHeaders {
      * Find the index of a header with the given name.
      */
     public int indexOf(String name, int fromIndex) {
-        // We can use a hash - but it's not clear how much
-        // benefit you can get - there is an overhead
-        // and the number of headers is small (4-5 ?)
-        // Another problem is that we'll pay the overhead
-        // of constructing the hashtable
+        // The number of headers is usually small, so the index is used only for the larger header sets
+        if (fromIndex == 0 && useIndex()) {
+            final int idx = lookupIndex(hashName(name));
+            if (idx == -1 || headers[idx].getName().equalsIgnoreCase(name)) {
+                return idx;
+            }
+            // the name hash collision, fall back to the scan
+        }
 
-        // A custom search tree may be better
         for (int i = fromIndex; i < count; i++) {
             if (headers[i].getName().equalsIgnoreCase(name)) {
                 return i;
@@ -318,14 +352,14 @@ public class MimeHeaders {
      * Find the index of a header with the given name.
      */
     public int indexOf(final Header header, final int fromIndex) {
-        // We can use a hash - but it's not clear how much
-        // benefit you can get - there is an overhead
-        // and the number of headers is small (4-5 ?)
-        // Another problem is that we'll pay the overhead
-        // of constructing the hashtable
-
-        // A custom search tree may be better
         final byte[] bytes = header.getLowerCaseBytes();
+        if (fromIndex == 0 && useIndex()) {
+            final int idx = lookupIndex(HEADER_HASHES[header.ordinal()]);
+            if (idx == -1 || headers[idx].getName().equalsIgnoreCaseLowerCase(bytes)) {
+                return idx;
+            }
+        }
+
         for (int i = fromIndex; i < count; i++) {
             if (headers[i].getName().equalsIgnoreCaseLowerCase(bytes)) {
                 return i;
@@ -454,6 +488,18 @@ public class MimeHeaders {
         return mhf.getValue();
     }
 
+    /**
+     * Create a new named header using un-translated byte[] and the name hash computed by the parser with
+     * {@link #hashName(int, byte)}. The conversion to chars can be delayed until encoding is known.
+     */
+    public DataChunk addValue(final byte[] buffer, final int startN, final int len, final int nameHash) {
+        final DataChunk value = addValue(buffer, startN, len);
+        if (value != NOOP_CHUNK) {
+            headers[count - 1].setNameHash(nameHash);
+        }
+        return value;
+    }
+
     /**
      * Create a new named header using un-translated Buffer. The conversion to chars can be delayed until encoding is known.
      */
@@ -466,6 +512,18 @@ public class MimeHeaders {
         return mhf.getValue();
     }
 
+    /**
+     * Create a new named header using un-translated Buffer and the name hash computed by the parser with
+     * {@link #hashName(int, byte)}. The conversion to chars can be delayed until encoding is known.
+     */
+    public DataChunk addValue(final Buffer buffer, final int startN, final int len, final int nameHash) {
+        final DataChunk value = addValue(buffer, startN, len);
+        if (value != NOOP_CHUNK) {
+            headers[count - 1].setNameHash(nameHash);
+        }
+        return value;
+    }
+
     /**
      * Allow "set" operations - return a DataChunk container for the header value ( existing header or new if this .
      */
@@ -518,12 +576,8 @@ public class MimeHeaders {
      * such field is in the header, an arbitrary one is returned.
      */
     public DataChunk getValue(String name) {
-        for (int i = 0; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCase(name)) {
-                return headers[i].getValue();
-            }
-        }
-        return null;
+        final int idx = indexOf(name, 0);
+        return idx >= 0 ? headers[idx].getValue() : null;
     }
 
     /**
@@ -531,13 +585,8 @@ public class MimeHeaders {
      * such field is in the header, an arbitrary one is returned.
      */
     public DataChunk getValue(final Header header) {
-        final byte[] bytes = header.getLowerCaseBytes();
-        for (int i = 0; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCaseLowerCase(bytes)) {
-                return headers[i].getValue();
-            }
-        }
-        return null;
+        final int idx = indexOf(header, 0);
+        return idx >= 0 ? headers[idx].getValue() : null;
     }
 
     // bad shortcut - it'll convert to string ( too early probably,
@@ -636,6 +685,120 @@ public class MimeHeaders {
         headers[idx] = headers[count - 1];
         headers[count - 1] = mh;
         count--;
+        resetIndex();
+    }
+
+    // ----------------------------------------------------- Name hash index
+
+    /**
+     * Folds the next byte of the header name into the case-insensitive name hash, starting from <tt>0</tt>. Lets the
+     * parser compute the hash of the header name while scanning it.
+     */
+    public static int hashName(final int hash, final byte b) {
+        return 31 * hash + Ascii.toLower(b);
+    }
+
+    private static int hashName(final String name) {
+        int hash = 0;
+        for (int i = 0, len = name.length(); i < len; i++) {
+            hash = 31 * hash + Ascii.toLower(name.charAt(i));
+        }
+        return hash;
+    }
+
+    private static int hashName(final DataChunk name) {
+        int hash = 0;
+        switch (name.getType()) {
+        case Buffer: {
+            final BufferChunk bc = name.getBufferChunk();
+            final Buffer buffer = bc.getBuffer();
+            for (int i = bc.getStart(), end = bc.getEnd(); i < end; i++) {
+                hash = hashName(hash, buffer.get(i));
+            }
+            return hash;
+        }
+        case Bytes: {
+            final ByteChunk bc = name.getByteChunk();
+            final byte[] bytes = bc.getBuffer();
+            for (int i = bc.getStart(), end = bc.getEnd(); i < end; i++) {
+                hash = hashName(hash, bytes[i]);
+            }
+            return hash;
+        }
+        case Chars: {
+            final CharChunk cc = name.getCharChunk();
+            final char[] chars = cc.getBuffer();
+            for (int i = cc.getStart(), end = cc.getEnd(); i < end; i++) {
+                hash = 31 * hash + Ascii.toLower(chars[i]);
+            }
+            return hash;
+        }
+        case String:
+            return hashName(name.toString());
+        default:
+            return hash;
+        }
+    }
+
+    private boolean useIndex() {
+        return INDEX_THRESHOLD >= 0 && count >= INDEX_THRESHOLD;
+    }
+
+    private void resetIndex() {
+        if (indexedCount > 0) {
+            Arrays.fill(indexSlots, 0);
+            indexedCount = 0;
+        }
+    }
+
+    /**
+     * Returns the index of the first header with the name hash, or <tt>-1</tt> if there is no such header, adding the
+     * headers added since the previous lookup to the index.
+     */
+    private int lookupIndex(final int hash) {
+        if (indexSlots == null || indexSlots.length < count * 2) {
+            int size = 16;
+            while (size < count * 2) {
+                size <<= 1;
+            }
+            indexSlots = new int[size];
+            indexHashes = new int[size];
+            indexedCount = 0;
+        }
+
+        final int mask = indexSlots.length - 1;
+        for (int i = indexedCount; i < count; i++) {
+            final MimeHeaderField field = headers[i];
+            if (!field.nameHashed) {
+                field.setNameHash(hashName(field.getName()));
+            }
+
+            int slot = spread(field.nameHash) & mask;
+            while (indexSlots[slot] != 0) {
+                if (indexHashes[slot] == field.nameHash) {
+                    // the first header with the hash is indexed already
+                    break;
+                }
+                slot = slot + 1 & mask;
+            }
+            if (indexSlots[slot] == 0) {
+                indexSlots[slot] = i + 1;
+                indexHashes[slot] = field.nameHash;
+            }
+        }
+        indexedCount = count;
+
+        for (int slot = spread(hash) & mask; indexSlots[slot] != 0; slot = slot + 1 & mask) {
+            if (indexHashes[slot] == hash) {
+                return indexSlots[slot] - 1;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ hash >>> 16;
     }
 
     // ----------------------------------------------------- Max Header Handling
@@ -804,6 +967,9 @@ final class MimeHeaderField {
 
     private boolean isSerialized;
 
+    int nameHash;
+    boolean nameHashed;
+
     /**
      * Creates a new, uninitialized header field.
      */
@@ -812,6 +978,7 @@ final class MimeHeaderField {
 
     public void recycle() {
         isSerialized = false;
+        nameHashed = false;
         nameB.recycle();
         valueB.recycle();
     }
@@ -828,6 +995,11 @@ final class MimeHeaderField {
         return isSerialized;
     }
 
+    void setNameHash(final int nameHash) {
+        this.nameHash = nameHash;
+        this.nameHashed = true;
+    }
+
     public void setSerialized(boolean isSerialized) {
         this.isSerialized = isSerialized;
     }
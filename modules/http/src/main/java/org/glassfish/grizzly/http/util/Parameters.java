@@ -21,6 +21,7 @@ import java.io.CharConversionException;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Set;
@@ -30,8 +31,18 @@ import java.util.logging.Logger;
 import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.localization.LogMessages;
+import org.glassfish.grizzly.memory.HeapBuffer;
+import org.glassfish.grizzly.utils.Charsets;
 
 /**
+ * The request parameters, parsed from the query string and the form data.
+ * <p>
+ * In the {@link #setLazy(boolean) lazy} mode the parameters, which are parsed from a {@link Buffer}, are not decoded
+ * right away, but indexed as the byte ranges of their names and values in the original {@link Buffer}.
+ * {@link #getParameter(String)} compares the requested name with the raw bytes and decodes only the value it returns,
+ * so a handler, which reads a few parameters out of many, doesn't pay for the decoding of the rest. The methods, which
+ * need all the parameters, like {@link #getParameterNames()}, decode the indexed parameters at once.
+ *
  * @author Costin Manolache
  */
 public final class Parameters {
@@ -65,6 +76,27 @@ public final class Parameters {
     private int limit = -1;
     private int parameterCount = 0;
 
+    // The index of the lazily parsed parameters. Each parameter takes RANGE_SIZE ints in the ranges array: name start,
+    // name end, value start, value end and the flags; the buffer and the charset are kept in the parallel arrays.
+    private static final int RANGE_SIZE = 5;
+    private static final int DECODE_NAME = 1;
+    private static final int DECODE_VALUE = 2;
+    private static final int HAS_VALUE = 4;
+    private static final int INVALID = 8;
+    private static final Charset ISO_8859_1_CHARSET = Charsets.lookupCharset("ISO-8859-1");
+
+    private boolean lazy;
+    private int rangeCount;
+    private int[] ranges = new int[INITIAL_SIZE * RANGE_SIZE];
+    private Buffer[] rangeBuffers = new Buffer[INITIAL_SIZE];
+    private Charset[] rangeCharsets = new Charset[INITIAL_SIZE];
+    private String[] rangeValues = new String[INITIAL_SIZE];
+
+    // The copy of the transient content, like the form data, the lazily parsed parameters refer to
+    private byte[] ownedContent;
+    private Buffer ownedBuffer;
+    private int ownedLength;
+
     public void setQuery(final DataChunk queryBC) {
         this.queryDC = queryBC;
     }
@@ -77,6 +109,23 @@ public final class Parameters {
         this.limit = limit;
     }
 
+    /**
+     * @return <tt>true</tt>, if the parameters parsed from a {@link Buffer} are decoded only when requested.
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Sets the lazy mode, in which the parameters parsed from a {@link Buffer} are indexed as the byte ranges of the
+     * original content and decoded only when requested. The content must not be changed or released until the
+     * parameters are recycled, see {@link #processTransientParameters(Buffer, int, int)} for the content, which can't
+     * be kept.
+     */
+    public void setLazy(final boolean lazy) {
+        this.lazy = lazy;
+    }
+
     public void setEncoding(final Charset encoding) {
         this.encoding = encoding;
         if (LOGGER.isLoggable(Level.FINEST)) {
@@ -109,6 +158,8 @@ public final class Parameters {
         queryStringEncoding = null;
         parameterCount = 0;
         decodedQuery.recycle();
+        clearRanges();
+        ownedLength = 0;
 
     }
     // -------------------- Sub-request support --------------------
@@ -173,6 +224,8 @@ public final class Parameters {
         if (key == null) {
             return;
         }
+        // keep the order, in which the parameters have been added
+        materialize();
         ArrayList<String> values;
         if (paramHashValues.containsKey(key)) {
             values = paramHashValues.get(key);
@@ -186,6 +239,7 @@ public final class Parameters {
 
     public String[] getParameterValues(String name) {
         handleQueryParameters();
+        materialize();
         final ArrayList<String> values;
         // sub-request
         if (currentChild != null) {
@@ -200,6 +254,7 @@ public final class Parameters {
 
     public Set<String> getParameterNames() {
         handleQueryParameters();
+        materialize();
         // Slow - the original code
         if (currentChild != null) {
             currentChild.merge();
@@ -231,6 +286,7 @@ public final class Parameters {
 
         // Local parameters first - they take precedence as in spec.
         handleQueryParameters();
+        materialize();
         // we already merged with the parent
         if (didMerge) {
             return;
@@ -256,6 +312,14 @@ public final class Parameters {
 
     // Shortcut.
     public String getParameter(final String name) {
+        if (rangeCount > 0) {
+            if (paramHashValues.isEmpty()) {
+                return lookup(name);
+            }
+
+            materialize();
+        }
+
         ArrayList<String> values = paramHashValues.get(name);
         if (values != null) {
             if (values.isEmpty()) {
@@ -327,6 +391,8 @@ public final class Parameters {
             return;
         }
 
+        materialize();
+
         parameterCount++;
         if (limit > -1 && parameterCount > limit) {
             // Processing this parameter will push us over the limit. ISE is
@@ -366,6 +432,40 @@ public final class Parameters {
         processParameters(buffer, start, len, encoding);
     }
 
+    /**
+     * Process the parameters of the content, which is going to be released before the parameters are recycled, like the
+     * form data read from the request body. In the {@link #setLazy(boolean) lazy} mode the content is copied, so the
+     * indexed parameters don't refer to the released memory.
+     */
+    public void processTransientParameters(final Buffer buffer, final int start, final int len) {
+        if (!lazy || len <= 0) {
+            processParameters(buffer, start, len, encoding);
+            return;
+        }
+
+        final int offset = ownedLength;
+        if (ownedContent == null || ownedContent.length < offset + len) {
+            final byte[] content = new byte[Math.max(offset + len, ownedContent == null ? 256 : ownedContent.length * 2)];
+            if (offset > 0) {
+                System.arraycopy(ownedContent, 0, content, 0, offset);
+            }
+            ownedContent = content;
+            ownedBuffer = null;
+        }
+
+        final int position = buffer.position();
+        buffer.position(start);
+        buffer.get(ownedContent, offset, len);
+        buffer.position(position);
+        ownedLength = offset + len;
+
+        if (ownedBuffer == null) {
+            ownedBuffer = HeapBuffer.wrap(ownedContent);
+        }
+        // the previously indexed parameters keep referring to the same array
+        processParameters(ownedBuffer, offset, len, encoding);
+    }
+
     public void processParameters(final Buffer buffer, final int start, final int len, final Charset enc) {
 
         if (LOGGER.isLoggable(Level.FINEST)) {
@@ -454,6 +554,12 @@ public final class Parameters {
                 continue;
                 // invalid chunk - it's better to ignore
             }
+            if (lazy) {
+                addRange(buffer, enc, nameStart, nameEnd, valueStart, valueEnd,
+                        (decodeName ? DECODE_NAME : 0) | (decodeValue ? DECODE_VALUE : 0) | (valueStart != -1 ? HAS_VALUE : 0));
+                continue;
+            }
+
             tmpName.setBufferChunk(buffer, nameStart, nameEnd);
             tmpValue.setBufferChunk(buffer, valueStart, valueEnd);
 
@@ -508,6 +614,243 @@ public final class Parameters {
         }
     }
 
+    // -------------------- Lazy parameters --------------------
+
+    private void addRange(final Buffer buffer, final Charset enc, final int nameStart, final int nameEnd, final int valueStart, final int valueEnd,
+            final int flags) {
+        parameterCount++;
+
+        if (rangeCount == rangeBuffers.length) {
+            final int newSize = rangeCount * 2;
+            ranges = Arrays.copyOf(ranges, newSize * RANGE_SIZE);
+            rangeBuffers = Arrays.copyOf(rangeBuffers, newSize);
+            rangeCharsets = Arrays.copyOf(rangeCharsets, newSize);
+            rangeValues = Arrays.copyOf(rangeValues, newSize);
+        }
+
+        final int idx = rangeCount * RANGE_SIZE;
+        ranges[idx] = nameStart;
+        ranges[idx + 1] = nameEnd;
+        ranges[idx + 2] = valueStart;
+        ranges[idx + 3] = valueEnd;
+        ranges[idx + 4] = flags;
+        rangeBuffers[rangeCount] = buffer;
+        rangeCharsets[rangeCount] = enc;
+        rangeCount++;
+    }
+
+    private void clearRanges() {
+        Arrays.fill(rangeBuffers, 0, rangeCount, null);
+        Arrays.fill(rangeCharsets, 0, rangeCount, null);
+        Arrays.fill(rangeValues, 0, rangeCount, null);
+        rangeCount = 0;
+    }
+
+    /**
+     * Returns the first value of the indexed parameter, decoding only the names, which have to be compared, and the
+     * returned value.
+     */
+    private String lookup(final String name) {
+        if (name == null) {
+            return null;
+        }
+
+        final boolean ascii = isAscii(name);
+        for (int i = 0; i < rangeCount; i++) {
+            if (ascii ? nameEquals(i, name) : name.equals(decodeName(i))) {
+                final String value = decodeValue(i);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Compares the indexed name with the ASCII name byte by byte. The name, which has to be URL decoded, is decoded in
+     * place once.
+     */
+    private boolean nameEquals(final int i, final String name) {
+        final int idx = i * RANGE_SIZE;
+        int flags = ranges[idx + 4];
+        if ((flags & INVALID) != 0) {
+            return false;
+        }
+
+        final Buffer buffer = rangeBuffers[i];
+        if ((flags & DECODE_NAME) != 0) {
+            tmpName.setBufferChunk(buffer, ranges[idx], ranges[idx + 1]);
+            try {
+                URLDecoder.decode(tmpName, true);
+                ranges[idx + 1] = tmpName.getEnd();
+                flags &= ~DECODE_NAME;
+            } catch (Exception e) {
+                logLazyDecodeFailure(e);
+                flags |= INVALID;
+            } finally {
+                tmpName.recycle();
+            }
+
+            ranges[idx + 4] = flags;
+            if ((flags & INVALID) != 0) {
+                return false;
+            }
+        }
+
+        final int start = ranges[idx];
+        final int length = name.length();
+        if (ranges[idx + 1] - start != length) {
+            return false;
+        }
+
+        for (int j = 0; j < length; j++) {
+            if ((buffer.get(start + j) & 0xFF) != name.charAt(j)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private String decodeName(final int i) {
+        final int idx = i * RANGE_SIZE;
+        final int flags = ranges[idx + 4];
+        if ((flags & INVALID) != 0) {
+            return null;
+        }
+
+        tmpName.setBufferChunk(rangeBuffers[i], ranges[idx], ranges[idx + 1]);
+        try {
+            if ((flags & DECODE_NAME) != 0) {
+                final String name = lazyDecode(tmpName, rangeCharsets[i], true);
+                ranges[idx + 1] = tmpName.getEnd();
+                ranges[idx + 4] = flags & ~DECODE_NAME;
+                return name;
+            }
+
+            return lazyDecode(tmpName, rangeCharsets[i], false);
+        } catch (Exception e) {
+            logLazyDecodeFailure(e);
+            ranges[idx + 4] = flags | INVALID;
+            return null;
+        } finally {
+            tmpName.recycle();
+        }
+    }
+
+    /**
+     * Decodes the value once, the value which has to be URL decoded is decoded in place.
+     */
+    private String decodeValue(final int i) {
+        if (rangeValues[i] != null) {
+            return rangeValues[i];
+        }
+
+        final int idx = i * RANGE_SIZE;
+        final int flags = ranges[idx + 4];
+        if ((flags & INVALID) != 0) {
+            return null;
+        }
+        if ((flags & HAS_VALUE) == 0) {
+            return rangeValues[i] = "";
+        }
+
+        tmpValue.setBufferChunk(rangeBuffers[i], ranges[idx + 2], ranges[idx + 3]);
+        try {
+            return rangeValues[i] = lazyDecode(tmpValue, rangeCharsets[i], (flags & DECODE_VALUE) != 0);
+        } catch (Exception e) {
+            logLazyDecodeFailure(e);
+            ranges[idx + 4] = flags | INVALID;
+            return null;
+        } finally {
+            tmpValue.recycle();
+        }
+    }
+
+    /**
+     * Decodes all the indexed parameters into the map, for the operations, which need all of them.
+     */
+    private void materialize() {
+        if (rangeCount == 0) {
+            return;
+        }
+
+        for (int i = 0; i < rangeCount; i++) {
+            final String name = decodeName(i);
+            if (name == null) {
+                continue;
+            }
+            final String value = decodeValue(i);
+            if (value == null) {
+                continue;
+            }
+
+            ArrayList<String> values = paramHashValues.get(name);
+            if (values == null) {
+                values = new ArrayList<>(1);
+                paramHashValues.put(name, values);
+            }
+            values.add(value);
+        }
+
+        clearRanges();
+    }
+
+    /**
+     * Decodes the chunk the same way {@link #processParameters(Buffer, int, int, Charset)} does, but converts the ASCII
+     * content of the ASCII compatible charsets directly, without allocating the charset decoder.
+     */
+    private String lazyDecode(final BufferChunk bc, Charset enc, final boolean urlDecode) throws IOException {
+        if (urlDecode) {
+            URLDecoder.decode(bc, true);
+        } else if (enc == null) {
+            enc = DEFAULT_CHARSET;
+        }
+
+        final Buffer buffer = bc.getBuffer();
+        final int start = bc.getStart();
+        final int length = bc.getLength();
+        if (enc != null && !enc.equals(ISO_8859_1_CHARSET)) {
+            if (!enc.equals(Charsets.UTF8_CHARSET) && !enc.equals(Charsets.ASCII_CHARSET)) {
+                return bc.toString(enc);
+            }
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(start + i) < 0) {
+                    return bc.toString(enc);
+                }
+            }
+        }
+
+        final CharChunk cc = tmpValueC;
+        cc.allocate(length, -1);
+        final char[] cbuf = cc.getBuffer();
+        for (int i = 0; i < length; i++) {
+            cbuf[i] = (char) (buffer.get(start + i) & 0xff);
+        }
+
+        final String result = new String(cbuf, 0, length);
+        cc.recycle();
+        return result;
+    }
+
+    private static boolean isAscii(final String s) {
+        for (int i = 0, len = s.length(); i < len; i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void logLazyDecodeFailure(final Exception e) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Parameter decoding failed: " + e.getMessage(), e);
+        }
+    }
+
     private String urlDecode(final BufferChunk bc, final Charset enc) throws IOException {
 //        if (urlDec == null) {
 //            urlDec = new UDecoder();
@@ -648,6 +991,7 @@ public final class Parameters {
      * Debug purpose
      */
     public String paramsAsString() {
+        materialize();
         StringBuilder sb = new StringBuilder();
         for (final String s : paramHashValues.keySet()) {
             // END PWC 6057385
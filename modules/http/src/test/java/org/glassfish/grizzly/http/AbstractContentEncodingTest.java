@@ -0,0 +1,412 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.http.util.DataChunk;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HttpStatus;
+import org.glassfish.grizzly.impl.FutureImpl;
+import org.glassfish.grizzly.impl.SafeFutureImpl;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.nio.transport.TCPNIOServerConnection;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.utils.Charsets;
+import org.glassfish.grizzly.utils.ChunkingFilter;
+import org.junit.Test;
+
+/**
+ * The common tests of a {@link ContentEncoding}: the encoded requests and responses are passed through the server and
+ * client filter chains, which split them into network chunks of 1 to 10 bytes.
+ */
+public abstract class AbstractContentEncodingTest {
+    private static final int MAX_NETWORK_CHUNK_SIZE = 10;
+
+    private final FutureImpl<Throwable> exception = SafeFutureImpl.create();
+
+    /**
+     * @return the content-encoding name.
+     */
+    protected abstract String getEncoding();
+
+    protected abstract ContentEncoding createContentEncoding(EncodingFilter encodingFilter);
+
+    /**
+     * Compresses the request content sent by the client.
+     */
+    protected abstract byte[] compress(byte[] content) throws IOException;
+
+    /**
+     * @return <tt>false</tt> if the {@link ContentEncoding} can only encode, so the tests of the encoded requests are
+     * skipped, and the responses are decoded by {@link #decode(byte[])}.
+     */
+    protected boolean isDecodingSupported() {
+        return true;
+    }
+
+    /**
+     * Decodes the response content, if the {@link ContentEncoding} can't decode it.
+     */
+    protected byte[] decode(final byte[] content) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Test
+    public void testResponse() throws Throwable {
+        final ExpectedResult result = new ExpectedResult();
+        result.addHeader("content-encoding", getEncoding());
+        result.setContent("Echo: <nothing>");
+
+        final Supplier<HttpPacket> request = () -> newRequest("GET").header("accept-encoding", getEncoding()).build();
+
+        doTest(request, result, createServerContentEncoding(false), createClientContentEncoding(false));
+    }
+
+    @Test
+    public void testLargeResponse() throws Throwable {
+        final String reqString = generateBigString(100000);
+        final byte[] content = reqString.getBytes(Charsets.UTF8_CHARSET);
+
+        final ExpectedResult result = new ExpectedResult();
+        result.addHeader("content-encoding", getEncoding());
+        result.setContent("Echo: " + reqString);
+
+        final Supplier<HttpPacket> request = () -> newContent(
+                newRequest("POST").header("accept-encoding", getEncoding()).contentLength(content.length).build(), content);
+
+        doTest(request, result, createServerContentEncoding(false), createClientContentEncoding(false));
+    }
+
+    @Test
+    public void testRequest() throws Throwable {
+        assumeTrue(isDecodingSupported());
+
+        final String reqString = "Compressed hello. Works?";
+        final byte[] compressed = compress(reqString.getBytes(Charsets.UTF8_CHARSET));
+        final ExpectedResult result = new ExpectedResult();
+        result.addHeader("!content-encoding", getEncoding());
+        result.setContent("Echo: " + reqString);
+
+        final Supplier<HttpPacket> request = () -> newContent(
+                newRequest("POST").header("content-encoding", getEncoding()).contentLength(compressed.length).build(), compressed);
+
+        doTest(request, result, createServerContentEncoding(true), createClientContentEncoding(true));
+    }
+
+    @Test
+    public void testRequestResponse() throws Throwable {
+        assumeTrue(isDecodingSupported());
+
+        final String reqString = generateBigString(16384);
+        final byte[] compressed = compress(reqString.getBytes(Charsets.UTF8_CHARSET));
+        final ExpectedResult result = new ExpectedResult();
+        result.addHeader("content-encoding", getEncoding());
+        result.setContent("Echo: " + reqString);
+
+        final Supplier<HttpPacket> request = () -> newContent(newRequest("POST").header("accept-encoding", getEncoding())
+                .header("content-encoding", getEncoding()).contentLength(compressed.length).build(), compressed);
+
+        doTest(request, result, createServerContentEncoding(true), createClientContentEncoding(false));
+    }
+
+    @Test
+    public void testRequestResponseChunkedXferEncoding() throws Throwable {
+        assumeTrue(isDecodingSupported());
+
+        final String reqString = generateBigString(16384);
+        final byte[] compressed = compress(reqString.getBytes(Charsets.UTF8_CHARSET));
+        final ExpectedResult result = new ExpectedResult();
+        result.addHeader("content-encoding", getEncoding());
+        result.setContent("Echo: " + reqString);
+
+        final Supplier<HttpPacket> request = () -> newContent(newRequest("POST").header("accept-encoding", getEncoding())
+                .header("content-encoding", getEncoding()).chunked(true).build(), compressed);
+
+        doTest(request, result, createServerContentEncoding(true), createClientContentEncoding(false));
+    }
+
+    // --------------------------------------------------------- Private Methods
+
+    /**
+     * Creates the server {@link ContentEncoding}, which encodes the response, if the client accepts the encoding.
+     */
+    private ContentEncoding createServerContentEncoding(final boolean decodeRequest) {
+        return createContentEncoding(new EncodingFilter() {
+            @Override
+            public boolean applyEncoding(HttpHeader httpPacket) {
+                final HttpRequestPacket httpRequest = ((HttpResponsePacket) httpPacket).getRequest();
+                final DataChunk bc = httpRequest.getHeaders().getValue("accept-encoding");
+
+                return bc != null && bc.indexOf(getEncoding(), 0) != -1;
+            }
+
+            @Override
+            public boolean applyDecoding(HttpHeader httpPacket) {
+                return decodeRequest;
+            }
+        });
+    }
+
+    /**
+     * Creates the client {@link ContentEncoding}, which decodes the response, or <tt>null</tt> if the response is
+     * decoded by {@link #decode(byte[])}.
+     */
+    private ContentEncoding createClientContentEncoding(final boolean skipResponseDecoding) {
+        if (!isDecodingSupported()) {
+            return null;
+        }
+
+        return createContentEncoding(new EncodingFilter() {
+            @Override
+            public boolean applyEncoding(HttpHeader httpPacket) {
+                return false;
+            }
+
+            @Override
+            public boolean applyDecoding(HttpHeader httpPacket) {
+                return !skipResponseDecoding;
+            }
+        });
+    }
+
+    private HttpRequestPacket.Builder newRequest(final String method) {
+        return HttpRequestPacket.builder().method(method).header("Host", "localhost").uri("/path").protocol(Protocol.HTTP_1_1);
+    }
+
+    private static HttpContent newContent(final HttpRequestPacket request, final byte[] content) {
+        return HttpContent.builder(request).last(true).content(Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, content)).build();
+    }
+
+    private void doTest(Supplier<HttpPacket> requestFactory, ExpectedResult expectedResult, ContentEncoding serverContentEncoding,
+            ContentEncoding clientContentEncoding) throws Throwable {
+        for (int networkChunkSize = 1; networkChunkSize <= MAX_NETWORK_CHUNK_SIZE; networkChunkSize++) {
+            doTest(requestFactory.get(), expectedResult, serverContentEncoding, clientContentEncoding, networkChunkSize);
+        }
+    }
+
+    private void doTest(HttpPacket request, ExpectedResult expectedResult, ContentEncoding serverContentEncoding, ContentEncoding clientContentEncoding,
+            int networkChunkSize) throws Throwable {
+
+        final FutureImpl<Boolean> testResult = SafeFutureImpl.create();
+        final FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(new ChunkingFilter(networkChunkSize));
+
+        final HttpServerFilter httpServerFilter = new HttpServerFilter();
+        httpServerFilter.addContentEncoding(serverContentEncoding);
+        filterChainBuilder.add(httpServerFilter);
+        filterChainBuilder.add(new SimpleResponseFilter());
+
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+        transport.setProcessor(filterChainBuilder.build());
+
+        final TCPNIOTransport ctransport = TCPNIOTransportBuilder.newInstance().build();
+        try {
+            final TCPNIOServerConnection serverConnection = transport.bind(0);
+            transport.start();
+
+            final FilterChainBuilder clientFilterChainBuilder = FilterChainBuilder.stateless();
+            clientFilterChainBuilder.add(new TransportFilter());
+            clientFilterChainBuilder.add(new ChunkingFilter(networkChunkSize));
+
+            final HttpClientFilter httpClientFilter = new HttpClientFilter();
+            if (clientContentEncoding != null) {
+                httpClientFilter.addContentEncoding(clientContentEncoding);
+            }
+            clientFilterChainBuilder.add(httpClientFilter);
+            clientFilterChainBuilder.add(new ClientFilter(request, testResult, expectedResult));
+            ctransport.setProcessor(clientFilterChainBuilder.build());
+
+            ctransport.start();
+
+            final Future<Connection> connectFuture = ctransport.connect("localhost", ((InetSocketAddress) serverConnection.getLocalAddress()).getPort());
+            Connection connection = null;
+            try {
+                connection = connectFuture.get(10, TimeUnit.SECONDS);
+                testResult.get(10, TimeUnit.SECONDS);
+            } finally {
+                if (connection != null) {
+                    connection.closeSilently();
+                }
+            }
+        } finally {
+            transport.shutdownNow();
+            ctransport.shutdownNow();
+            reportThreadErrors();
+        }
+    }
+
+    private void reportThreadErrors() throws Throwable {
+        final Throwable t = exception.getResult();
+        if (t != null) {
+            throw t;
+        }
+    }
+
+    private static String generateBigString(final int size) {
+        final Random r = new Random(size);
+
+        final StringBuilder sb = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            sb.append((char) ('A' + r.nextInt('Z' - 'A')));
+        }
+
+        return sb.toString();
+    }
+
+    private class ClientFilter extends BaseFilter {
+        private final Logger logger = Grizzly.logger(ClientFilter.class);
+
+        private final HttpPacket request;
+        private final FutureImpl<Boolean> testResult;
+        private final ExpectedResult expectedResult;
+
+        ClientFilter(HttpPacket request, FutureImpl<Boolean> testResult, ExpectedResult expectedResult) {
+            this.request = request;
+            this.testResult = testResult;
+            this.expectedResult = expectedResult;
+        }
+
+        @Override
+        public NextAction handleConnect(FilterChainContext ctx) throws IOException {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Connected... Sending the request: {0}", request);
+            }
+
+            ctx.write(request);
+
+            return ctx.getStopAction();
+        }
+
+        @Override
+        public NextAction handleRead(FilterChainContext ctx) throws IOException {
+            final HttpContent httpContent = ctx.getMessage();
+
+            if (httpContent.isLast()) {
+                try {
+                    final HttpResponsePacket response = (HttpResponsePacket) httpContent.getHttpHeader();
+                    assertEquals(200, response.getStatus());
+                    assertEquals("HTTP/1.1", response.getProtocol().getProtocolString());
+
+                    for (Map.Entry<String, String> entry : expectedResult.getExpectedHeaders().entrySet()) {
+                        if (entry.getKey().charAt(0) != '!') {
+                            assertTrue("Missing header: " + entry.getKey(), response.containsHeader(entry.getKey()));
+                            assertEquals(entry.getValue().toLowerCase(), response.getHeader(entry.getKey()).toLowerCase());
+                        } else {
+                            assertFalse("Header should not be present: " + entry.getKey().substring(1),
+                                    response.containsHeader(entry.getKey().substring(1)));
+                        }
+                    }
+
+                    final Buffer content = httpContent.getContent();
+                    byte[] bytes = new byte[content.remaining()];
+                    content.get(bytes);
+                    if (!isDecodingSupported() && response.containsHeader(Header.ContentEncoding)) {
+                        bytes = decode(bytes);
+                    }
+                    assertEquals("Unexpected content", expectedResult.getContent(), new String(bytes, Charsets.UTF8_CHARSET));
+
+                    testResult.result(Boolean.TRUE);
+                } catch (Throwable t) {
+                    testResult.result(Boolean.FALSE);
+                    exception.result(t);
+                }
+            }
+
+            return ctx.getStopAction(httpContent);
+        }
+
+        @Override
+        public NextAction handleClose(FilterChainContext ctx) throws IOException {
+            return ctx.getStopAction();
+        }
+    }
+
+    private static final class SimpleResponseFilter extends BaseFilter {
+        @Override
+        public NextAction handleRead(FilterChainContext ctx) throws IOException {
+            final HttpContent httpContent = ctx.getMessage();
+
+            if (httpContent.isLast()) {
+                final HttpRequestPacket request = (HttpRequestPacket) httpContent.getHttpHeader();
+
+                final HttpResponsePacket response = request.getResponse();
+                HttpStatus.OK_200.setValues(response);
+                response.setChunked(true);
+
+                final Buffer requestContent = httpContent.getContent();
+
+                final StringBuilder sb = new StringBuilder("Echo: ").append(requestContent.hasRemaining() ? requestContent.toStringContent() : "<nothing>");
+                final MemoryManager mm = ctx.getMemoryManager();
+
+                final HttpContent responseContent = HttpContent.builder(response).last(true).content(Buffers.wrap(mm, sb.toString())).build();
+
+                ctx.write(responseContent);
+                return ctx.getStopAction();
+            }
+
+            return ctx.getStopAction(httpContent);
+        }
+    }
+
+    private static final class ExpectedResult {
+        private final Map<String, String> expectedHeaders = new HashMap<>();
+        private String content;
+
+        void addHeader(String name, String value) {
+            expectedHeaders.put(name, value);
+        }
+
+        Map<String, String> getExpectedHeaders() {
+            return Collections.unmodifiableMap(expectedHeaders);
+        }
+
+        String getContent() {
+            return content;
+        }
+
+        void setContent(String content) {
+            this.content = content;
+        }
+    }
+}
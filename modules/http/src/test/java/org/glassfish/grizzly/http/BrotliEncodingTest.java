@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.glassfish.grizzly.compression.spi.CompressionProviders;
+import org.glassfish.grizzly.compression.spi.Compressor;
+
+/**
+ * Test the {@link BrotliContentEncoding}. There is no built-in brotli decoder, so the responses are decoded by the
+ * {@link SimpleBrotliDecoder}, which understands the subset of RFC 7932 used by the built-in brotli compressor.
+ */
+public class BrotliEncodingTest extends AbstractContentEncodingTest {
+    @Override
+    protected String getEncoding() {
+        return BrotliContentEncoding.NAME;
+    }
+
+    @Override
+    protected ContentEncoding createContentEncoding(final EncodingFilter encodingFilter) {
+        return new BrotliContentEncoding(encodingFilter);
+    }
+
+    @Override
+    protected byte[] compress(final byte[] content) throws IOException {
+        final Compressor compressor = CompressionProviders.get(BrotliContentEncoding.NAME).createCompressor(-1);
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] compressed = compressor.compress(content, 0, content.length);
+            out.write(compressed, 0, compressed.length);
+            final byte[] last = compressor.finish();
+            out.write(last, 0, last.length);
+            return out.toByteArray();
+        } finally {
+            compressor.close();
+        }
+    }
+
+    @Override
+    protected boolean isDecodingSupported() {
+        return false;
+    }
+
+    @Override
+    protected byte[] decode(final byte[] content) throws IOException {
+        return new SimpleBrotliDecoder(content).decode();
+    }
+
+    /**
+     * The brotli decoder of the streams with a single block type and a single prefix code per category, no context
+     * modeling, explicit distances only and no static dictionary references.
+     */
+    private static final class SimpleBrotliDecoder {
+        private static final int[] INSERT_LENGTH_BASE = { 0, 1, 2, 3, 4, 5, 6, 8, 10, 14, 18, 26, 34, 50, 66, 98, 130, 194, 322, 578, 1090, 2114,
+                6210, 22594 };
+        private static final int[] INSERT_LENGTH_BITS = { 0, 0, 0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 7, 8, 9, 10, 12, 14, 24 };
+        private static final int[] COPY_LENGTH_BASE = { 2, 3, 4, 5, 6, 7, 8, 9, 10, 12, 14, 18, 22, 30, 38, 54, 70, 102, 134, 198, 326, 582, 1094,
+                2118 };
+        private static final int[] COPY_LENGTH_BITS = { 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 7, 8, 9, 10, 24 };
+
+        // the (insert length code >> 3, copy length code >> 3) of the insert-and-copy length code cells, starting at 128
+        private static final int[][] COMMAND_CELLS = { { 0, 0 }, { 0, 1 }, { 1, 0 }, { 1, 1 }, { 0, 2 }, { 2, 0 }, { 1, 2 }, { 2, 1 }, { 2, 2 } };
+
+        private static final int[] CODE_LENGTH_ORDER = { 1, 2, 3, 4, 0, 5, 17, 6, 16, 7, 8, 9, 10, 11, 12, 13, 14, 15 };
+
+        private final byte[] input;
+        private int bytePosition;
+        private int bitPosition;
+
+        private byte[] output = new byte[1024];
+        private int outputLength;
+
+        SimpleBrotliDecoder(final byte[] input) {
+            this.input = input;
+        }
+
+        byte[] decode() throws IOException {
+            // WBITS, the window size doesn't matter, the whole output is kept
+            if (readBits(1) == 1 && readBits(3) == 0 && readBits(3) == 1) {
+                throw new IOException("Invalid WBITS");
+            }
+
+            for (;;) {
+                final boolean isLast = readBits(1) == 1;
+                if (isLast && readBits(1) == 1) {
+                    // ISLASTEMPTY
+                    break;
+                }
+
+                final int nibbles = readBits(2) + 4;
+                if (nibbles == 7) {
+                    throw new IOException("Metadata meta-blocks are not supported");
+                }
+                final int length = readBits(nibbles * 4) + 1;
+
+                if (!isLast && readBits(1) == 1) {
+                    // ISUNCOMPRESSED
+                    if (bitPosition != 0) {
+                        bitPosition = 0;
+                        bytePosition++;
+                    }
+                    for (int i = 0; i < length; i++) {
+                        write(input[bytePosition++]);
+                    }
+                } else {
+                    decodeCompressedMetaBlock(length);
+                }
+
+                if (isLast) {
+                    break;
+                }
+            }
+
+            return Arrays.copyOf(output, outputLength);
+        }
+
+        private void decodeCompressedMetaBlock(final int length) throws IOException {
+            // NBLTYPESL, NBLTYPESI, NBLTYPESD, NPOSTFIX, NDIRECT
+            if (readBits(3) != 0 || readBits(6) != 0) {
+                throw new IOException("Block switching and distance parameters are not supported");
+            }
+            // the context mode
+            readBits(2);
+            // NTREESL, NTREESD
+            if (readBits(2) != 0) {
+                throw new IOException("Context maps are not supported");
+            }
+
+            final PrefixCode literalCode = readPrefixCode(256);
+            final PrefixCode commandCode = readPrefixCode(704);
+            final PrefixCode distanceCode = readPrefixCode(64);
+
+            int remaining = length;
+            while (remaining > 0) {
+                final int command = commandCode.decode(this);
+                if (command < 128) {
+                    throw new IOException("Implicit distances are not supported");
+                }
+
+                final int[] cell = COMMAND_CELLS[command - 128 >> 6];
+                final int insertCode = (cell[0] << 3) + (command >> 3 & 7);
+                final int copyCode = (cell[1] << 3) + (command & 7);
+                final int insertLength = INSERT_LENGTH_BASE[insertCode] + readBits(INSERT_LENGTH_BITS[insertCode]);
+                final int copyLength = COPY_LENGTH_BASE[copyCode] + readBits(COPY_LENGTH_BITS[copyCode]);
+
+                for (int i = 0; i < insertLength; i++) {
+                    write((byte) literalCode.decode(this));
+                }
+                remaining -= insertLength;
+                if (remaining <= 0) {
+                    // the meta-block ends after the literals, the copy length is not used
+                    break;
+                }
+
+                final int code = distanceCode.decode(this);
+                if (code < 16) {
+                    throw new IOException("The distance cache is not supported");
+                }
+                final int extraBits = 1 + (code - 16 >> 1);
+                final int distance = ((2 + (code - 16 & 1)) << extraBits) - 4 + readBits(extraBits) + 1;
+                if (distance > outputLength) {
+                    throw new IOException("Static dictionary references are not supported");
+                }
+
+                for (int i = 0; i < copyLength; i++) {
+                    write(output[outputLength - distance]);
+                }
+                remaining -= copyLength;
+            }
+
+            if (remaining != 0) {
+                throw new IOException("Invalid meta-block length");
+            }
+        }
+
+        private PrefixCode readPrefixCode(final int alphabetSize) throws IOException {
+            final int hskip = readBits(2);
+            if (hskip == 1) {
+                // the simple prefix code
+                if (readBits(2) != 0) {
+                    throw new IOException("Simple prefix codes of more than one symbol are not supported");
+                }
+                return new PrefixCode(readBits(32 - Integer.numberOfLeadingZeros(alphabetSize - 1)));
+            }
+
+            final int[] codeLengthLengths = new int[CODE_LENGTH_ORDER.length];
+            int space = 32;
+            int codes = 0;
+            int lastSymbol = 0;
+            for (int i = hskip; i < CODE_LENGTH_ORDER.length && space > 0; i++) {
+                final int length = readCodeLengthLength();
+                codeLengthLengths[CODE_LENGTH_ORDER[i]] = length;
+                if (length != 0) {
+                    space -= 32 >> length;
+                    codes++;
+                    lastSymbol = CODE_LENGTH_ORDER[i];
+                }
+            }
+
+            final PrefixCode codeLengthCode = codes == 1 ? new PrefixCode(lastSymbol) : new PrefixCode(codeLengthLengths);
+
+            final int[] lengths = new int[alphabetSize];
+            space = 32768;
+            for (int symbol = 0; symbol < alphabetSize && space > 0; symbol++) {
+                final int length = codeLengthCode.decode(this);
+                if (length > 15) {
+                    throw new IOException("Repeated code lengths are not supported");
+                }
+
+                lengths[symbol] = length;
+                if (length != 0) {
+                    space -= 32768 >> length;
+                }
+            }
+
+            if (space != 0) {
+                throw new IOException("Incomplete prefix code");
+            }
+
+            return new PrefixCode(lengths);
+        }
+
+        private int readCodeLengthLength() {
+            switch (readBits(2)) {
+            case 0:
+                return 0;
+            case 1:
+                return 4;
+            case 2:
+                return 3;
+            default:
+                if (readBits(1) == 0) {
+                    return 2;
+                }
+                return readBits(1) == 0 ? 1 : 5;
+            }
+        }
+
+        private int readBits(final int n) {
+            int value = 0;
+            for (int i = 0; i < n; i++) {
+                value |= (input[bytePosition] >> bitPosition & 1) << i;
+                if (++bitPosition == 8) {
+                    bitPosition = 0;
+                    bytePosition++;
+                }
+            }
+
+            return value;
+        }
+
+        private void write(final byte b) {
+            if (outputLength == output.length) {
+                output = Arrays.copyOf(output, output.length << 1);
+            }
+            output[outputLength++] = b;
+        }
+    }
+
+    /**
+     * The canonical prefix code, the code bits are read starting from the most significant one.
+     */
+    private static final class PrefixCode {
+        private final int[] lengthCounts = new int[16];
+        private final int[] symbols;
+
+        /**
+         * Creates the code of a single symbol, which takes no bits.
+         */
+        PrefixCode(final int symbol) {
+            symbols = new int[] { symbol };
+        }
+
+        PrefixCode(final int[] lengths) {
+            int count = 0;
+            for (int length : lengths) {
+                if (length != 0) {
+                    lengthCounts[length]++;
+                    count++;
+                }
+            }
+
+            symbols = new int[count];
+            int i = 0;
+            for (int length = 1; length < lengthCounts.length; length++) {
+                for (int symbol = 0; symbol < lengths.length; symbol++) {
+                    if (lengths[symbol] == length) {
+                        symbols[i++] = symbol;
+                    }
+                }
+            }
+        }
+
+        int decode(final SimpleBrotliDecoder decoder) throws IOException {
+            if (symbols.length == 1) {
+                return symbols[0];
+            }
+
+            int code = 0;
+            int first = 0;
+            int index = 0;
+            for (int length = 1; length < lengthCounts.length; length++) {
+                code |= decoder.readBits(1);
+                final int count = lengthCounts[length];
+                if (code - first < count) {
+                    return symbols[index + code - first];
+                }
+
+                index += count;
+                first = first + count << 1;
+                code <<= 1;
+            }
+
+            throw new IOException("Invalid prefix code");
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http;
+
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HttpStatus;
+import org.glassfish.grizzly.nio.transport.TCPNIOConnection;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.utils.Charsets;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link HeaderTemplate} serialization.
+ */
+public class HeaderTemplateTest extends TestCase {
+    private static final Logger LOGGER = Logger.getLogger(HeaderTemplateTest.class.getName());
+
+    private static final HeaderTemplate TEMPLATE = HeaderTemplate.builder().header(Header.Server, "grizzly").header(Header.ContentType, "application/json")
+            .header("X-Api-Version", "2").build();
+
+    private HttpServerFilter httpServerFilter;
+    private TCPNIOConnection connection;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        httpServerFilter = new HttpServerFilter();
+        connection = new TCPNIOConnection(TCPNIOTransportBuilder.newInstance().build(), null);
+    }
+
+    public void testTemplateEncoded() throws Exception {
+        final HttpResponsePacket response = createResponse();
+        response.setHeaderTemplate(TEMPLATE);
+
+        final String encoded = encode(response);
+        assertTrue(encoded, encoded.startsWith("HTTP/1.1 200 OK\r\n"));
+        assertTrue(encoded, encoded.contains("Server: grizzly\r\nContent-Type: application/json\r\nX-Api-Version: 2\r\n"));
+        assertTrue(encoded, encoded.contains("Content-Length: 0\r\n"));
+        assertTrue(encoded, encoded.contains("Date: "));
+        assertTrue(encoded, encoded.endsWith("\r\n\r\n"));
+    }
+
+    public void testMessageHeaderOverridesTemplate() throws Exception {
+        final HttpResponsePacket response = createResponse();
+        response.setHeaderTemplate(TEMPLATE);
+        response.setHeader(Header.Server, "custom");
+
+        final String encoded = encode(response);
+        assertEquals(encoded, 1, count(encoded, "Server: "));
+        assertTrue(encoded, encoded.contains("Server: custom\r\n"));
+        assertTrue(encoded, encoded.contains("Content-Type: application/json\r\nX-Api-Version: 2\r\n"));
+    }
+
+    public void testDefaultTemplate() throws Exception {
+        httpServerFilter.setDefaultResponseContentType("text/plain");
+        httpServerFilter.setDefaultResponseHeaderTemplate(TEMPLATE);
+
+        final String encoded = encode(createResponse());
+        assertEquals(encoded, 1, count(encoded, "Content-Type: "));
+        assertTrue(encoded, encoded.contains("Content-Type: application/json\r\n"));
+        assertTrue(encoded, encoded.contains("Server: grizzly\r\n"));
+
+        final HttpResponsePacket response = createResponse();
+        final HeaderTemplate own = HeaderTemplate.builder().header("X-Own", "yes").build();
+        response.setHeaderTemplate(own);
+        final String encodedOwn = encode(response);
+        assertTrue(encodedOwn, encodedOwn.contains("X-Own: yes\r\n"));
+        assertFalse(encodedOwn, encodedOwn.contains("Server: grizzly"));
+        assertTrue(encodedOwn, encodedOwn.contains("Content-Type: text/plain\r\n"));
+    }
+
+    public void testStatusLine() throws Exception {
+        HttpResponsePacket response = createResponse();
+        response.setStatus(HttpStatus.NOT_FOUND_404);
+        assertTrue(encode(response).startsWith("HTTP/1.1 404 Not Found\r\n"));
+
+        response = createResponse();
+        response.setStatus(404);
+        response.setReasonPhrase("Gone Fishing");
+        assertTrue(encode(response).startsWith("HTTP/1.1 404 Gone Fishing\r\n"));
+
+        response = createResponse();
+        response.setStatus(599);
+        assertTrue(encode(response).startsWith("HTTP/1.1 599 CUSTOM\r\n"));
+    }
+
+    public void testVariableHeadersRejected() {
+        for (final Header header : new Header[] { Header.ContentLength, Header.TransferEncoding, Header.Connection, Header.Date, Header.ContentEncoding }) {
+            try {
+                HeaderTemplate.builder().header(header.toString().toLowerCase(), "x");
+                fail(header + " must be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    public void testThroughput() throws Exception {
+        final int iterations = 200000;
+        for (int round = 0; round < 2; round++) {
+            final long plain = measure(iterations, false);
+            final long templated = measure(iterations, true);
+            if (round == 1) {
+                LOGGER.info(String.format("Response header encoding: headers %d ns/op, template %d ns/op", plain / iterations, templated / iterations));
+            }
+        }
+    }
+
+    // --------------------------------------------------------- Private Methods
+
+    private long measure(final int iterations, final boolean useTemplate) throws Exception {
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            final HttpResponsePacket response = createResponse();
+            if (useTemplate) {
+                response.setHeaderTemplate(TEMPLATE);
+            } else {
+                response.setHeader(Header.Server, "grizzly");
+                response.setHeader(Header.ContentType, "application/json");
+                response.setHeader("X-Api-Version", "2");
+            }
+            final FilterChainContext ctx = FilterChainContext.create(connection);
+            httpServerFilter.encodeHttpPacket(ctx, response).tryDispose();
+            ctx.completeAndRecycle();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private HttpResponsePacket createResponse() {
+        final HttpRequestPacket request = HttpRequestPacket.builder().method(Method.GET).uri("/api").protocol(Protocol.HTTP_1_1).header("Host", "localhost")
+                .build();
+        final HttpResponsePacket response = HttpResponsePacket.builder(request).protocol(Protocol.HTTP_1_1).build();
+        response.setContentLength(0);
+        return response;
+    }
+
+    private String encode(final HttpResponsePacket response) {
+        final FilterChainContext ctx = FilterChainContext.create(connection);
+        final Buffer buffer = httpServerFilter.encodeHttpPacket(ctx, response);
+        final String encoded = buffer.toStringContent(Charsets.ASCII_CHARSET);
+        buffer.tryDispose();
+        return encoded;
+    }
+
+    private static int count(final String s, final String pattern) {
+        int count = 0;
+        for (int idx = s.indexOf(pattern); idx >= 0; idx = s.indexOf(pattern, idx + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.grizzly.http;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link KeepAliveSlots} limit of the kept objects.
+ */
+public class KeepAliveSlotsTest extends TestCase {
+
+    public void testTakeOffered() {
+        final KeepAliveSlots<Object> slots = new KeepAliveSlots<>(2);
+        final KeepAliveSlots.Slot<Object> slot = slots.newSlot();
+        final Object object = new Object();
+
+        assertNull(slot.take());
+        assertTrue(slot.offer(object));
+        assertFalse(slot.offer(new Object()));
+        assertEquals(1, slots.getFilledSlots());
+
+        assertSame(object, slot.take());
+        assertNull(slot.take());
+        assertEquals(0, slots.getFilledSlots());
+    }
+
+    public void testFilledSlotsLimit() {
+        final KeepAliveSlots<Object> slots = new KeepAliveSlots<>(2);
+        final KeepAliveSlots.Slot<Object> slot1 = slots.newSlot();
+        final KeepAliveSlots.Slot<Object> slot2 = slots.newSlot();
+        final KeepAliveSlots.Slot<Object> slot3 = slots.newSlot();
+
+        assertTrue(slot1.offer(new Object()));
+        assertTrue(slot2.offer(new Object()));
+        // the object goes to the ThreadCache instead
+        assertFalse(slot3.offer(new Object()));
+        assertEquals(2, slots.getFilledSlots());
+
+        assertNotNull(slot1.take());
+        assertTrue(slot3.offer(new Object()));
+        assertEquals(2, slots.getFilledSlots());
+    }
+
+    public void testClose() {
+        final KeepAliveSlots<Object> slots = new KeepAliveSlots<>(1);
+        final KeepAliveSlots.Slot<Object> slot1 = slots.newSlot();
+        final KeepAliveSlots.Slot<Object> slot2 = slots.newSlot();
+
+        assertTrue(slot1.offer(new Object()));
+        slot1.close();
+        assertEquals(0, slots.getFilledSlots());
+        assertNull(slot1.take());
+
+        // the request recycled after the connection is closed is not kept
+        assertFalse(slot1.offer(new Object()));
+        assertEquals(0, slots.getFilledSlots());
+
+        assertTrue(slot2.offer(new Object()));
+        slot2.close();
+        slot2.close();
+        assertEquals(0, slots.getFilledSlots());
+    }
+}
@@ -23,17 +23,21 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.Charset;
 import java.util.Iterator;
 import java.util.Set;
 
+import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.http.util.Constants;
 import org.glassfish.grizzly.http.util.DataChunk;
 import org.glassfish.grizzly.http.util.Parameters;
 import org.glassfish.grizzly.http.util.UEncoder;
 import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.HeapBuffer;
 import org.glassfish.grizzly.memory.MemoryManager;
 import org.glassfish.grizzly.utils.Charsets;
 import org.junit.Test;
@@ -68,6 +72,118 @@ public class ParametersTest {
         doTestProcessParametersByteArrayIntInt(4, SIMPLE, NO_VALUE, EMPTY_VALUE, UTF8);
     }
 
+    @Test
+    public void testLazyProcessParametersByteArrayIntInt() {
+        doTestProcessParametersByteArrayIntInt(true, -1, SIMPLE, SIMPLE_MULTIPLE, NO_VALUE, EMPTY_VALUE, EMPTY, UTF8);
+        doTestProcessParametersByteArrayIntInt(true, -1, UTF8, SIMPLE, SIMPLE_MULTIPLE, NO_VALUE, EMPTY_VALUE, EMPTY);
+
+        doTestProcessParametersByteArrayIntInt(true, 1, SIMPLE, NO_VALUE, EMPTY_VALUE, UTF8);
+        doTestProcessParametersByteArrayIntInt(true, 4, SIMPLE, NO_VALUE, EMPTY_VALUE, UTF8);
+    }
+
+    @Test
+    public void testLazyGetParameter() {
+        final String query = "a=1&b=x%20y&a=2&c&d=&%C3%A4=%C3%B6&e+f=g+h&bad=%zz&bad=ok&=novalue";
+
+        final Parameters eager = new Parameters();
+        final Parameters lazy = new Parameters();
+        lazy.setLazy(true);
+        for (Parameters p : new Parameters[] { eager, lazy }) {
+            p.setQueryStringEncoding(Charsets.UTF8_CHARSET);
+            final DataChunk queryDC = DataChunk.newInstance();
+            queryDC.setBuffer(Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, query));
+            p.setQuery(queryDC);
+            p.handleQueryParameters();
+        }
+
+        for (String name : new String[] { "a", "b", "c", "d", "\u00e4", "e f", "bad", "", "missing" }) {
+            assertEquals(name, eager.getParameter(name), lazy.getParameter(name));
+            // the decoded value is cached
+            assertEquals(name, eager.getParameter(name), lazy.getParameter(name));
+        }
+
+        // the explicitly added parameters follow the parsed ones
+        lazy.addParameter("a", "3");
+        assertArrayEquals(new String[] { "1", "2", "3" }, lazy.getParameterValues("a"));
+        assertArrayEquals(eager.getParameterValues("bad"), lazy.getParameterValues("bad"));
+        assertEquals(eager.getParameterNames(), lazy.getParameterNames());
+
+        lazy.recycle();
+        assertNull(lazy.getParameter("a"));
+    }
+
+    @Test
+    public void testLazyTransientParameters() {
+        final Parameters p = new Parameters();
+        p.setLazy(true);
+        p.setEncoding(Charsets.UTF8_CHARSET);
+
+        final Buffer form = Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, "xx name=value&other=%41");
+        p.processTransientParameters(form, 3, form.remaining() - 3);
+        // the form data might be released, once it has been processed
+        for (int i = 0; i < form.limit(); i++) {
+            form.put(i, (byte) '.');
+        }
+
+        assertEquals("value", p.getParameter("name"));
+        assertEquals("A", p.getParameter("other"));
+    }
+
+    /**
+     * Compares the memory allocated by the lookup of a single parameter out of many in the eager and the lazy modes.
+     */
+    @Test
+    public void testLazyGetParameterAllocation() {
+        final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(allocationMXBean.isThreadAllocatedMemorySupported());
+        allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            sb.append(i == 0 ? "" : "&").append("param").append(i).append("=value%20").append(i);
+        }
+        final byte[] query = sb.toString().getBytes(Charsets.ASCII_CHARSET);
+
+        final long eagerBytes = measureGetParameterAllocation(allocationMXBean, false, query);
+        final long lazyBytes = measureGetParameterAllocation(allocationMXBean, true, query);
+
+        assertTrue("eager=" + eagerBytes + " lazy=" + lazyBytes, lazyBytes * 10 < eagerBytes);
+    }
+
+    private static long measureGetParameterAllocation(final com.sun.management.ThreadMXBean allocationMXBean, final boolean lazy,
+            final byte[] query) {
+        final Parameters p = new Parameters();
+        p.setLazy(lazy);
+        final DataChunk queryDC = DataChunk.newInstance();
+        final byte[] work = new byte[query.length];
+        final Buffer content = HeapBuffer.wrap(work);
+        final long threadId = Thread.currentThread().getId();
+
+        final int warmUp = 2000;
+        final int iterations = 2000;
+        long allocated = 0;
+        for (int i = 0; i < warmUp + iterations; i++) {
+            // the parameters are URL decoded in place, so every iteration starts with the fresh copy
+            System.arraycopy(query, 0, work, 0, query.length);
+            queryDC.setBuffer(content);
+            final long before = allocationMXBean.getThreadAllocatedBytes(threadId);
+
+            p.setQuery(queryDC);
+            p.setQueryStringEncoding(Charsets.UTF8_CHARSET);
+            p.handleQueryParameters();
+            assertEquals("value 25", p.getParameter("param25"));
+
+            if (i >= warmUp) {
+                allocated += allocationMXBean.getThreadAllocatedBytes(threadId) - before;
+            }
+            p.recycle();
+        }
+
+        return allocated / iterations;
+    }
+
     // Make sure the inner Parameter class behaves correctly
     @Test
     public void testInternal() {
@@ -136,6 +252,10 @@ public class ParametersTest {
     }
 
     private long doTestProcessParametersByteArrayIntInt(int limit, Parameter... parameters) {
+        return doTestProcessParametersByteArrayIntInt(false, limit, parameters);
+    }
+
+    private long doTestProcessParametersByteArrayIntInt(boolean lazy, int limit, Parameter... parameters) {
 
         // Build the byte array
         StringBuilder input = new StringBuilder();
@@ -154,6 +274,7 @@ public class ParametersTest {
         Parameters p = new Parameters();
         p.setEncoding(Charsets.UTF8_CHARSET);
         p.setLimit(limit);
+        p.setLazy(lazy);
 
         long start = System.nanoTime();
         p.processParameters(Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, data), 0, data.length);
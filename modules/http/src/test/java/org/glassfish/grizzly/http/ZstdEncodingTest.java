@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.glassfish.grizzly.compression.spi.CompressionProviders;
+import org.glassfish.grizzly.compression.spi.Compressor;
+
+/**
+ * Test the {@link ZstdContentEncoding}.
+ */
+public class ZstdEncodingTest extends AbstractContentEncodingTest {
+    @Override
+    protected String getEncoding() {
+        return ZstdContentEncoding.NAME;
+    }
+
+    @Override
+    protected ContentEncoding createContentEncoding(final EncodingFilter encodingFilter) {
+        return new ZstdContentEncoding(encodingFilter);
+    }
+
+    @Override
+    protected byte[] compress(final byte[] content) throws IOException {
+        final Compressor compressor = CompressionProviders.get(ZstdContentEncoding.NAME).createCompressor(-1);
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] compressed = compressor.compress(content, 0, content.length);
+            out.write(compressed, 0, compressed.length);
+            final byte[] last = compressor.finish();
+            out.write(last, 0, last.length);
+            return out.toByteArray();
+        } finally {
+            compressor.close();
+        }
+    }
+}
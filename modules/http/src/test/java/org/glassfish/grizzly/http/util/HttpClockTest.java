@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/**
+ * Test the {@link HttpClock}.
+ */
+public class HttpClockTest {
+
+    @Test
+    public void testFormatsMatchSimpleDateFormat() {
+        final Random random = new Random(42);
+        for (String zone : new String[] { "UTC", "JST", "PST", "Asia/Kolkata", "America/St_Johns" }) {
+            final TimeZone timeZone = TimeZone.getTimeZone(zone);
+            final HttpClock clock = HttpClock.getInstance(timeZone);
+
+            final SimpleDateFormat http = format("EEE, dd MMM yyyy HH:mm:ss 'GMT'", TimeZone.getTimeZone("GMT"));
+            final SimpleDateFormat clf = format("dd/MMM/yyyy:HH:mm:ss Z", timeZone);
+            final SimpleDateFormat iso = format("yyyy-MM-dd'T'HH:mm:ssXXX", timeZone);
+
+            for (int i = 0; i < 1000; i++) {
+                // from 1970 to 2100, including the leap days
+                final long time = i == 0 ? 951782400000L : (long) (random.nextDouble() * 4102444800000L);
+                final Date date = new Date(time);
+                final HttpClock.Tick tick = clock.getTick(time);
+
+                assertEquals(http.format(date), string(tick.getHttpDate()));
+                assertEquals(clf.format(date), string(tick.getClfDate()));
+                assertEquals(iso.format(date).replace("Z", "+00:00"), string(tick.getIsoDate()));
+            }
+        }
+    }
+
+    @Test
+    public void testCurrentSecondIsShared() {
+        final HttpClock clock = HttpClock.getInstance(TimeZone.getTimeZone("Europe/Paris"));
+        assertSame(clock, HttpClock.getInstance(TimeZone.getTimeZone("Europe/Paris")));
+
+        final long now = System.currentTimeMillis() / 1000 * 1000;
+        final HttpClock.Tick tick = clock.getTick(now + 1000);
+        assertSame(tick, clock.getTick(now + 1999));
+        assertEquals(now + 1000, tick.getTimeMillis());
+
+        // the earlier seconds are formatted, but don't replace the latest one
+        clock.getTick(now);
+        assertSame(tick, clock.getTick(now + 1500));
+    }
+
+    private static SimpleDateFormat format(final String pattern, final TimeZone timeZone) {
+        final SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setTimeZone(timeZone);
+        return format;
+    }
+
+    private static String string(final byte[] bytes) {
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
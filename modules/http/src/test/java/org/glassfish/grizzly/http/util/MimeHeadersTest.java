@@ -16,6 +16,7 @@
 
 package org.glassfish.grizzly.http.util;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -131,4 +132,64 @@ public class MimeHeadersTest {
         Assert.assertArrayEquals(expectedValuesSet2, list.toArray(new String[list.size()]));
     }
 
+    @Test
+    public void testIndexedLookup() throws Exception {
+        final MimeHeaders headers = new MimeHeaders();
+        // the names are hashed by the parser
+        addParsed(headers, "Host", "localhost");
+        addParsed(headers, "User-Agent", "test");
+        addParsed(headers, "Accept", "*/*");
+        addParsed(headers, "X-Forwarded-For", "10.0.0.1");
+        addParsed(headers, "x-forwarded-for", "10.0.0.2");
+        // "a~" and "b_" have the same name hash
+        addParsed(headers, "a~", "collision-1");
+        addParsed(headers, "b_", "collision-2");
+        headers.addValue(Header.ContentType).setString("text/plain");
+        headers.addValue("Custom-String").setString("string");
+        for (int i = 0; i < 10; i++) {
+            addParsed(headers, "X-Header-" + i, String.valueOf(i));
+        }
+        Assert.assertTrue(headers.size() >= MimeHeaders.INDEX_THRESHOLD);
+
+        Assert.assertEquals("localhost", headers.getHeader(Header.Host));
+        Assert.assertEquals("localhost", headers.getHeader("HOST"));
+        Assert.assertEquals("test", headers.getHeader("user-agent"));
+        Assert.assertEquals("text/plain", headers.getHeader("content-type"));
+        Assert.assertEquals("string", headers.getHeader("custom-string"));
+        Assert.assertEquals("collision-1", headers.getHeader("A~"));
+        Assert.assertEquals("collision-2", headers.getHeader("b_"));
+        Assert.assertEquals("7", headers.getHeader("x-header-7"));
+        Assert.assertNull(headers.getHeader(Header.Cookie));
+        Assert.assertNull(headers.getHeader("x-header-10"));
+
+        // the first header is found by the index, the rest by the scan
+        final int first = headers.indexOf("X-FORWARDED-FOR", 0);
+        Assert.assertEquals("10.0.0.1", headers.getValue(first).toString());
+        Assert.assertEquals("10.0.0.2", headers.getValue(headers.indexOf("X-FORWARDED-FOR", first + 1)).toString());
+
+        // the headers added after the lookup are indexed on the next lookup
+        headers.addValue("Late").setString("late");
+        Assert.assertEquals("late", headers.getHeader("late"));
+
+        // removal moves the last header
+        headers.removeHeader("host");
+        Assert.assertNull(headers.getHeader(Header.Host));
+        Assert.assertEquals("late", headers.getHeader("late"));
+        Assert.assertEquals("*/*", headers.getHeader(Header.Accept));
+
+        headers.recycle();
+        Assert.assertNull(headers.getHeader("late"));
+        addParsed(headers, "Host", "example.com");
+        Assert.assertEquals("example.com", headers.getHeader(Header.Host));
+    }
+
+    private static void addParsed(final MimeHeaders headers, final String name, final String value) {
+        final byte[] bytes = name.getBytes(StandardCharsets.ISO_8859_1);
+        int hash = 0;
+        for (byte b : bytes) {
+            hash = MimeHeaders.hashName(hash, b);
+        }
+        headers.addValue(bytes, 0, bytes.length, hash).setString(value);
+    }
+
 }
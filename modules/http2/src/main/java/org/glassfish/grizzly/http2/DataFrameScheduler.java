@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http2;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deficit round-robin scheduler of the outbound DATA queued in {@link Http2SessionOutputSink}.
+ * <p>
+ * Every stream with pending data has its own FIFO of {@link Http2OutputQueueRecord}s. Streams take turns in the order
+ * they became active; each time a stream comes to the front it is credited with a quantum proportional to its RFC 7540
+ * weight, and it may send up to that many bytes before it has to yield to the next stream. This way a bulk transfer
+ * can't delay the responses of other streams by more than one quantum, and no stream is ever starved.
+ * <p>
+ * The stream dependency tree is not taken into account, all the streams are scheduled as siblings.
+ * <p>
+ * The scheduler is thread-safe, however only one thread at a time is expected to consume its records, as it's guarded
+ * by the writer lock of {@link Http2SessionOutputSink}.
+ */
+final class DataFrameScheduler {
+    static final int DEFAULT_WEIGHT = 16;
+
+    // the number of bytes a stream with the weight of 1 may send per round
+    static final int QUANTUM_PER_WEIGHT = 1024;
+
+    private final ArrayDeque<StreamQueue> activeStreams = new ArrayDeque<>();
+
+    /**
+     * Adds the record to the end of the stream's queue.
+     *
+     * @param stream the {@link Http2Stream} the record belongs to.
+     * @param record the {@link Http2OutputQueueRecord}.
+     */
+    synchronized void offer(final Http2Stream stream, final Http2OutputQueueRecord record) {
+        StreamQueue streamQueue = stream.scheduledData;
+        if (streamQueue == null) {
+            streamQueue = new StreamQueue(stream);
+            stream.scheduledData = streamQueue;
+            activeStreams.addLast(streamQueue);
+        }
+
+        streamQueue.records.addLast(record);
+    }
+
+    /**
+     * Returns the first record of the stream, whose turn it is to send data, crediting the stream with a new quantum if
+     * it has just come to the front. The amount of data the stream is currently allowed to send is returned by
+     * {@link #allowance()}.
+     *
+     * @return the next record to serialize or <code>null</code> if there are no queued records.
+     */
+    synchronized Http2OutputQueueRecord peek() {
+        final StreamQueue streamQueue = activeStreams.peekFirst();
+        if (streamQueue == null) {
+            return null;
+        }
+
+        if (streamQueue.deficit <= 0) {
+            streamQueue.deficit += quantum(streamQueue.stream);
+        }
+
+        return streamQueue.records.peekFirst();
+    }
+
+    /**
+     * @return the number of bytes the stream returned by {@link #peek()} is allowed to send before yielding its turn.
+     */
+    synchronized int allowance() {
+        final StreamQueue streamQueue = activeStreams.peekFirst();
+        return streamQueue != null ? streamQueue.deficit : 0;
+    }
+
+    /**
+     * Charges the stream in turn for the serialized bytes and moves on to the next stream if its quantum is exhausted or
+     * it has no more data to send.
+     *
+     * @param record the record returned by {@link #peek()}.
+     * @param serializedBytes the number of bytes serialized from the record.
+     */
+    synchronized void onSerialized(final Http2OutputQueueRecord record, final int serializedBytes) {
+        final StreamQueue streamQueue = activeStreams.peekFirst();
+        assert streamQueue != null && streamQueue.records.peekFirst() == record;
+
+        streamQueue.deficit -= serializedBytes;
+        if (record.isFinished()) {
+            streamQueue.records.pollFirst();
+        }
+
+        if (streamQueue.records.isEmpty()) {
+            activeStreams.pollFirst();
+            streamQueue.stream.scheduledData = null;
+        } else if (streamQueue.deficit <= 0) {
+            streamQueue.deficit = 0;
+            activeStreams.addLast(activeStreams.pollFirst());
+        }
+    }
+
+    /**
+     * @return <code>true</code> if there are no queued records.
+     */
+    synchronized boolean isEmpty() {
+        return activeStreams.isEmpty();
+    }
+
+    /**
+     * Removes all the queued records.
+     *
+     * @return the removed records.
+     */
+    synchronized List<Http2OutputQueueRecord> drain() {
+        final List<Http2OutputQueueRecord> records = new ArrayList<>();
+        for (StreamQueue streamQueue : activeStreams) {
+            records.addAll(streamQueue.records);
+            streamQueue.stream.scheduledData = null;
+        }
+
+        activeStreams.clear();
+        return records;
+    }
+
+    private static int quantum(final Http2Stream stream) {
+        final int weight = stream.getPriority();
+        return (weight >= 1 && weight <= 256 ? weight : DEFAULT_WEIGHT) * QUANTUM_PER_WEIGHT;
+    }
+
+    static final class StreamQueue {
+        private final Http2Stream stream;
+        private final ArrayDeque<Http2OutputQueueRecord> records = new ArrayDeque<>(2);
+        private int deficit;
+
+        private StreamQueue(final Http2Stream stream) {
+            this.stream = stream;
+        }
+    }
+}
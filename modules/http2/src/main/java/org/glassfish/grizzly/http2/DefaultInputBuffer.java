@@ -23,7 +23,6 @@ import java.io.IOException;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.logging.Level;
@@ -54,8 +53,11 @@ class DefaultInputBuffer implements StreamInputBuffer {
 
     private final BlockingQueue<InputElement> inputQueue = new LinkedTransferQueue<>();
 
-    // true, if the input is closed
-    private final AtomicBoolean inputClosed = new AtomicBoolean();
+    // 1, if the input is closed
+    private static final AtomicIntegerFieldUpdater<DefaultInputBuffer> inputClosedUpdater
+        = AtomicIntegerFieldUpdater.newUpdater(DefaultInputBuffer.class, "inputClosed");
+    @SuppressWarnings("unused")
+    private volatile int inputClosed;
 
     // the termination flag. When is not null contains the reason why input was terminated.
     // when the flag is not null - poll0() will return -1.
@@ -112,7 +114,7 @@ class DefaultInputBuffer implements StreamInputBuffer {
      */
     @Override
     public boolean offer(final Buffer data, final boolean isLast) {
-        if (inputClosed.get()) {
+        if (inputClosed == 1) {
             // if input is closed - just ignore the message
             data.tryDispose();
 
@@ -131,7 +133,7 @@ class DefaultInputBuffer implements StreamInputBuffer {
 
         if (isLastData) {
             // mark the input buffer as closed
-            inputClosed.set(true);
+            inputClosed = 1;
         }
 
         // if the stream had been terminated by this time but the element wasn't
@@ -313,7 +315,7 @@ class DefaultInputBuffer implements StreamInputBuffer {
      */
     @Override
     public void close(final Termination termination) {
-        if (inputClosed.compareAndSet(false, true)) {
+        if (inputClosedUpdater.compareAndSet(this, 0, 1)) {
             if (termination.isSessionClosed()) {
                 return;
             }
@@ -330,7 +332,7 @@ class DefaultInputBuffer implements StreamInputBuffer {
     public void terminate(final Termination termination) {
         final boolean isSet = closeFlagUpdater.compareAndSet(this, null, termination);
 
-        if (inputClosed.compareAndSet(false, true)) {
+        if (inputClosedUpdater.compareAndSet(this, 0, 1)) {
             if (!termination.isSessionClosed()) {
                 offer0(new InputElement(termination, true, true));
             }
@@ -25,7 +25,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.logging.Logger;
 
 import org.glassfish.grizzly.Buffer;
@@ -65,18 +65,22 @@ class DefaultOutputSink implements StreamOutputSink {
 
     private static final OutputQueueRecord TERMINATING_QUEUE_RECORD = new OutputQueueRecord(null, null, true, true);
 
-    // async output queue
-    final TaskQueue<OutputQueueRecord> outputQueue = TaskQueue.createTaskQueue(new TaskQueue.MutableMaxQueueSize() {
+    private static final TaskQueue.MutableMaxQueueSize OUTPUT_QUEUE_SIZE = new TaskQueue.MutableMaxQueueSize() {
 
         @Override
         public int getMaxQueueSize() {
             return MAX_OUTPUT_QUEUE_SIZE;
         }
-    });
+    };
+
+    // async output queue
+    final TaskQueue<OutputQueueRecord> outputQueue = TaskQueue.createTaskQueue(OUTPUT_QUEUE_SIZE);
 
     // the space (in bytes) in flow control window, that still could be used.
     // in other words the number of bytes, which could be sent to the peer
-    private final AtomicInteger availStreamWindowSize;
+    private static final AtomicIntegerFieldUpdater<DefaultOutputSink> availStreamWindowSizeUpdater
+        = AtomicIntegerFieldUpdater.newUpdater(DefaultOutputSink.class, "availStreamWindowSize");
+    private volatile int availStreamWindowSize;
 
     // true, if last output frame has been queued
     private volatile boolean isLastFrameQueued;
@@ -89,7 +93,9 @@ class DefaultOutputSink implements StreamOutputSink {
     private final Http2Stream stream;
 
     // counter for unflushed writes
-    private final AtomicInteger unflushedWritesCounter = new AtomicInteger();
+    private static final AtomicIntegerFieldUpdater<DefaultOutputSink> unflushedWritesCounterUpdater
+        = AtomicIntegerFieldUpdater.newUpdater(DefaultOutputSink.class, "unflushedWritesCounter");
+    private volatile int unflushedWritesCounter;
     // sync object to count/notify flush handlers
     private final Object flushHandlersSync = new Object();
     // flush handlers queue
@@ -98,7 +104,7 @@ class DefaultOutputSink implements StreamOutputSink {
     DefaultOutputSink(final Http2Stream stream) {
         this.stream = stream;
         http2Session = stream.getHttp2Session();
-        availStreamWindowSize = new AtomicInteger(stream.getPeerWindowSize());
+        availStreamWindowSize = stream.getPeerWindowSize();
     }
 
     @Override
@@ -132,12 +138,12 @@ class DefaultOutputSink implements StreamOutputSink {
     @Override
     public void onPeerWindowUpdate(final int delta) throws Http2StreamException {
 
-        final int currentWindow = availStreamWindowSize.get();
+        final int currentWindow = availStreamWindowSize;
         if (delta > 0 && currentWindow > 0 && currentWindow + delta < 0) {
             throw new Http2StreamException(stream.getId(), ErrorCode.FLOW_CONTROL_ERROR, "Session flow-control window overflow.");
         }
         // update the available window size
-        availStreamWindowSize.addAndGet(delta);
+        availStreamWindowSizeUpdater.addAndGet(this, delta);
 
         // try to write until window limit allows
         while ((isWantToWrite() && !outputQueue.isEmpty())
@@ -198,7 +204,7 @@ class DefaultOutputSink implements StreamOutputSink {
                 flushToConnectionOutputSink(dataChunkToSend, completionHandler, isLast);
 
                 // update the available window size bytes counter
-                availStreamWindowSize.addAndGet(-dataChunkToSendSize);
+                availStreamWindowSizeUpdater.addAndGet(this, -dataChunkToSendSize);
                 releaseWriteQueueSpace(dataChunkToSendSize, isZeroSizeData, outputQueueRecord == null);
 
                 outputQueue.doNotify();
@@ -282,7 +288,7 @@ class DefaultOutputSink implements StreamOutputSink {
                     if (response.isAcknowledgement()) {
                         response.acknowledged();
                         response.getHeaders().clear();
-                        unflushedWritesCounter.incrementAndGet();
+                        unflushedWritesCounterUpdater.incrementAndGet(this);
                         flushToConnectionOutputSink(headerFrames, completionHandler, messageCloner, false);
                         LOGGER.finest("Acknowledgement has been sent.");
                         return null;
@@ -293,7 +299,7 @@ class DefaultOutputSink implements StreamOutputSink {
 
                 if (dontSendPayload || httpContent == null) {
                     // if we don't expect any HTTP payload, mark this frame as last and return
-                    unflushedWritesCounter.incrementAndGet();
+                    unflushedWritesCounterUpdater.incrementAndGet(this);
                     flushToConnectionOutputSink(headerFrames, completionHandler, messageCloner, dontSendPayload);
                     sendTrailers = false;
                     LOGGER.finest(() -> "Nothing to send; dontSendPayload=" + dontSendPayload);
@@ -312,7 +318,7 @@ class DefaultOutputSink implements StreamOutputSink {
             Buffer data = httpContent.getContent();
             final int dataSize = data.remaining();
 
-            unflushedWritesCounter.incrementAndGet();
+            unflushedWritesCounterUpdater.incrementAndGet(this);
             final FlushCompletionHandler flushCompletionHandler = new FlushCompletionHandler(completionHandler);
             final boolean isZeroSizeData = dataSize == 0;
             final int spaceToReserve = isZeroSizeData ? ZERO_QUEUE_RECORD_SIZE : dataSize;
@@ -419,7 +425,7 @@ class DefaultOutputSink implements StreamOutputSink {
         if (data.hasRemaining() || isLast) {
             final int dataChunkToSendSize = data.remaining();
             // update the available window size bytes counter
-            availStreamWindowSize.addAndGet(-dataChunkToSendSize);
+            availStreamWindowSizeUpdater.addAndGet(this, -dataChunkToSendSize);
             releaseWriteQueueSpace(dataChunkToSendSize, isZeroSizeData, isRecordNull);
             return data;
         }
@@ -437,11 +443,11 @@ class DefaultOutputSink implements StreamOutputSink {
     public void flush(final CompletionHandler<Http2Stream> completionHandler) {
 
         // check if there are pending unflushed data
-        if (unflushedWritesCounter.get() > 0) {
+        if (unflushedWritesCounter > 0) {
             // if yes - synchronize do disallow decrease counter from other thread (increasing is ok)
             synchronized (flushHandlersSync) {
                 // double check the pending flushes counter
-                final int counterNow = unflushedWritesCounter.get();
+                final int counterNow = unflushedWritesCounter;
                 if (counterNow > 0) {
                     // if there are pending flushes
                     if (flushHandlersQueue == null) {
@@ -474,7 +480,7 @@ class DefaultOutputSink implements StreamOutputSink {
         // take a snapshot of the current output window state and check if we
         // can fit "size" into window.
         // Make sure we return positive value or zero, because availStreamWindowSize could be negative.
-        return Math.max(0, Math.min(availStreamWindowSize.get(), (int) size));
+        return Math.max(0, Math.min(availStreamWindowSize, (int) size));
     }
 
     private Buffer splitOutputBufferIfNeeded(final Buffer buffer, final int length) {
@@ -562,7 +568,7 @@ class DefaultOutputSink implements StreamOutputSink {
      */
     @Override
     public int getUnflushedWritesCount() {
-        return unflushedWritesCounter.get();
+        return unflushedWritesCounter;
     }
 
     private boolean isTerminated() {
@@ -571,14 +577,14 @@ class DefaultOutputSink implements StreamOutputSink {
 
     private void writeEmptyFin() {
         if (!isTerminated()) {
-            unflushedWritesCounter.incrementAndGet();
+            unflushedWritesCounterUpdater.incrementAndGet(this);
             flushToConnectionOutputSink(Buffers.EMPTY_BUFFER, new FlushCompletionHandler(null), true);
         }
     }
 
     private boolean isWantToWrite() {
         // update the available window size
-        final int availableWindowSizeBytesNow = availStreamWindowSize.get();
+        final int availableWindowSizeBytesNow = availStreamWindowSize;
 
         // get the current peer's window size limit
         final int windowSizeLimit = stream.getPeerWindowSize();
@@ -629,7 +635,7 @@ class DefaultOutputSink implements StreamOutputSink {
                 flushToConnectionOutputSink(dataChunkToSend, chunkedCompletionHandler, isLast);
 
                 // update the available window size bytes counter
-                availStreamWindowSize.addAndGet(-dataChunkToSendSize);
+                availStreamWindowSizeUpdater.addAndGet(this, -dataChunkToSendSize);
                 releaseWriteQueueSpace(dataChunkToSendSize, isZeroSizeData, outputQueueRecord == null);
             } else if (isZeroSizeData && outputQueueRecord == null) {
                 // if it's atomic and no remainder left - don't forget to release ATOMIC_QUEUE_RECORD_SIZE
@@ -676,7 +682,7 @@ class DefaultOutputSink implements StreamOutputSink {
                 }
             }
             flushToConnectionOutputSink(trailerFrames, completionHandler, null, true);
-            unflushedWritesCounter.incrementAndGet();
+            unflushedWritesCounterUpdater.incrementAndGet(this);
         } catch (IOException ex) {
             LOGGER.log(WARNING, "Error sending trailers.", ex);
         } finally {
@@ -781,7 +787,7 @@ class DefaultOutputSink implements StreamOutputSink {
         @Override
         protected void done0() {
             synchronized (flushHandlersSync) { // synchronize with flush()
-                unflushedWritesCounter.decrementAndGet();
+                unflushedWritesCounterUpdater.decrementAndGet(DefaultOutputSink.this);
                 if (flushHandlersQueue == null || !flushHandlersQueue.nextBundle()) {
                     return;
                 }
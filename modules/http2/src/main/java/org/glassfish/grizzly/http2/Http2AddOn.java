@@ -88,6 +88,10 @@ public class Http2AddOn implements AddOn {
         final int codecFilterIdx = builder.indexOfType(org.glassfish.grizzly.http.HttpServerFilter.class);
         final Http2ServerFilter http2HandlerFilter = new Http2ServerFilter(http2Configuration);
         http2HandlerFilter.setLocalMaxFramePayloadSize(http2Configuration.getMaxFramePayloadSize());
+        if (codecFilterIdx >= 0) {
+            http2HandlerFilter.setDefaultResponseHeaderTemplate(
+                    ((org.glassfish.grizzly.http.HttpServerFilter) builder.get(codecFilterIdx)).getDefaultResponseHeaderTemplate());
+        }
         builder.add(codecFilterIdx + 1, http2HandlerFilter);
         return http2HandlerFilter;
     }
@@ -364,7 +364,7 @@ public abstract class Http2BaseFilter extends HttpBaseFilter {
             break;
         }
         case PriorityFrame.TYPE: {
-            processPriorityFrame(frame);
+            processPriorityFrame(http2Session, frame);
             break;
         }
         case HeadersFrame.TYPE:
@@ -401,7 +401,7 @@ public abstract class Http2BaseFilter extends HttpBaseFilter {
 
     }
 
-    private void processPriorityFrame(final Http2Frame frame) throws Http2SessionException, Http2StreamException {
+    private void processPriorityFrame(final Http2Session http2Session, final Http2Frame frame) throws Http2SessionException, Http2StreamException {
         final int streamId = frame.getStreamId();
         try {
             if (streamId == 0) {
@@ -413,6 +413,10 @@ public abstract class Http2BaseFilter extends HttpBaseFilter {
             if (streamId == ((PriorityFrame) frame).getStreamDependency()) {
                 throw new Http2SessionException(ErrorCode.PROTOCOL_ERROR, "PRIORITY frame dependent on itself.");
             }
+            final Http2Stream stream = http2Session.getStream(streamId);
+            if (stream != null) {
+                stream.setPriority(((PriorityFrame) frame).getWeight() + 1);
+            }
         } finally {
             frame.recycle();
         }
@@ -531,6 +535,8 @@ public abstract class Http2BaseFilter extends HttpBaseFilter {
         PingFrame pingFrame = (PingFrame) frame;
 
         if (pingFrame.isAckSet()) {
+            http2Session.getWindowAutoTuner().onPingAck(pingFrame.getOpaqueData());
+            pingFrame.recycle();
             return;
         }
 
@@ -884,6 +890,7 @@ public abstract class Http2BaseFilter extends HttpBaseFilter {
 
         // Always ACK the data to maintain flow-control state
         http2Session.ackConsumedData(data.remaining());
+        http2Session.getWindowAutoTuner().onDataFrameReceived();
 
         // If we're going away, ignore any frames for streams greater than the last stream ID from the goaway frame.
         if (ignoreFrameForStreamId(http2Session, streamId)) {
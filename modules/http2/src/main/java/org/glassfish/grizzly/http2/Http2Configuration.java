@@ -33,6 +33,8 @@ public class Http2Configuration {
     public static final float DEFAULT_STREAMS_HIGH_WATER_MARK = 0.5f;
     public static final float DEFAULT_STREAMS_CLEAN_PERCENTAGE = 0.5f;
     public static final int DEFAULT_CLEAN_FREQUENCY_CHECK = 50;
+    public static final int DEFAULT_MAX_WINDOW_SIZE = 16 * 1024 * 1024;
+    public static final long DEFAULT_WINDOW_MEMORY_BUDGET = 64L * 1024 * 1024;
 
     private volatile int maxConcurrentStreams;
     private volatile int initialWindowSize;
@@ -44,6 +46,9 @@ public class Http2Configuration {
     private volatile boolean disableCipherCheck;
     private volatile boolean priorKnowledge;
     private volatile boolean pushEnabled;
+    private volatile boolean windowAutoTuning;
+    private volatile int maxWindowSize;
+    private volatile long windowMemoryBudget;
     private final ExecutorService executorService;
     private final ThreadPoolConfig threadPoolConfig;
 
@@ -62,6 +67,9 @@ public class Http2Configuration {
         streamsHighWaterMark = builder.streamsHighWaterMark;
         cleanPercentage = builder.cleanPercentage;
         cleanFrequencyCheck = builder.cleanFrequencyCheck;
+        windowAutoTuning = builder.windowAutoTuning;
+        maxWindowSize = builder.maxWindowSize;
+        windowMemoryBudget = builder.windowMemoryBudget;
     }
 
     // --------------------------------------------------------- Public Methods
@@ -230,6 +238,56 @@ public class Http2Configuration {
         this.cleanFrequencyCheck = cleanFrequencyCheck;
     }
 
+    /**
+     * @return <code>true</code> if connection and stream receive windows are grown automatically based on the measured
+     * round-trip time and the data consumption rate. If not explicitly configured, this returns <code>false</code>.
+     */
+    public boolean isWindowAutoTuning() {
+        return windowAutoTuning;
+    }
+
+    /**
+     * Enables or disables receive window auto-tuning. When enabled, a window, which is consumed by the peer in less than
+     * two round-trips, is doubled (up to {@link #getMaxWindowSize()}), so the window follows the bandwidth-delay product
+     * of the link instead of stalling the peer at {@link #getInitialWindowSize()}.
+     *
+     * @see WindowAutoTuner
+     */
+    public void setWindowAutoTuning(final boolean windowAutoTuning) {
+        this.windowAutoTuning = windowAutoTuning;
+    }
+
+    /**
+     * @return the maximum size, in bytes, an auto-tuned connection or stream receive window can reach. If not explicitly
+     * configured, this returns {@value #DEFAULT_MAX_WINDOW_SIZE}.
+     */
+    public int getMaxWindowSize() {
+        return maxWindowSize;
+    }
+
+    /**
+     * Sets the maximum size, in bytes, an auto-tuned connection or stream receive window can reach.
+     */
+    public void setMaxWindowSize(final int maxWindowSize) {
+        this.maxWindowSize = maxWindowSize;
+    }
+
+    /**
+     * @return the maximum number of bytes, by which all the auto-tuned receive windows of a single session can grow beyond
+     * their initial sizes. If not explicitly configured, this returns {@value #DEFAULT_WINDOW_MEMORY_BUDGET}.
+     */
+    public long getWindowMemoryBudget() {
+        return windowMemoryBudget;
+    }
+
+    /**
+     * Sets the maximum number of bytes, by which all the auto-tuned receive windows of a single session can grow beyond
+     * their initial sizes. This bounds the amount of data a single peer may have buffered in memory.
+     */
+    public void setWindowMemoryBudget(final long windowMemoryBudget) {
+        this.windowMemoryBudget = windowMemoryBudget;
+    }
+
     /**
      * @return the thread pool configuration for servicing HTTP/2 streams, if any.
      */
@@ -257,6 +315,9 @@ public class Http2Configuration {
         private float streamsHighWaterMark = DEFAULT_STREAMS_HIGH_WATER_MARK;
         private float cleanPercentage = DEFAULT_STREAMS_CLEAN_PERCENTAGE;
         private int cleanFrequencyCheck = DEFAULT_CLEAN_FREQUENCY_CHECK;
+        private boolean windowAutoTuning;
+        private int maxWindowSize = DEFAULT_MAX_WINDOW_SIZE;
+        private long windowMemoryBudget = DEFAULT_WINDOW_MEMORY_BUDGET;
         private ThreadPoolConfig threadPoolConfig;
         private ExecutorService executorService;
 
@@ -362,6 +423,30 @@ public class Http2Configuration {
             return this;
         }
 
+        /**
+         * @see #setWindowAutoTuning(boolean)
+         */
+        public Http2ConfigurationBuilder windowAutoTuning(final boolean val) {
+            windowAutoTuning = val;
+            return this;
+        }
+
+        /**
+         * @see #setMaxWindowSize(int)
+         */
+        public Http2ConfigurationBuilder maxWindowSize(final int val) {
+            maxWindowSize = val;
+            return this;
+        }
+
+        /**
+         * @see #setWindowMemoryBudget(long)
+         */
+        public Http2ConfigurationBuilder windowMemoryBudget(final long val) {
+            windowMemoryBudget = val;
+            return this;
+        }
+
         /**
          * @return a new {@link Http2Configuration} instances based on the values of this builder.
          */
@@ -23,6 +23,7 @@ import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.filterchain.Filter;
 import org.glassfish.grizzly.http2.frames.Http2Frame;
 import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.CompositeBuffer;
 import org.glassfish.grizzly.memory.MemoryManager;
 
 /**
@@ -82,23 +83,67 @@ public class Http2FrameCodec {
         return resultBuffer;
     }
 
+    /**
+     * Serializes the frames into a single {@link CompositeBuffer}, which can be flushed with one gathering write. The
+     * headers of all the frames are serialized into one shared {@link Buffer}, the frame payloads are referenced, not
+     * copied. Consecutive frames without payload share the same segment of the header buffer.
+     *
+     * @param http2Session the {@link Http2Session} the frames belong to.
+     * @param frames the frames to serialize, the list is cleared once the frames are serialized and recycled.
+     * @return the serialized frames.
+     */
     public Buffer serializeAndRecycle(final Http2Session http2Session, final List<Http2Frame> frames) {
 
-        Buffer resultBuffer = null;
-
+        final MemoryManager memoryManager = http2Session.getMemoryManager();
         final int framesCount = frames.size();
 
+        int headersLength = 0;
+        for (int i = 0; i < framesCount; i++) {
+            headersLength += Math.max(0, frames.get(i).getSerializedHeaderLength());
+        }
+
+        final Buffer headers = headersLength > 0 ? memoryManager.allocate(headersLength) : null;
+        final CompositeBuffer resultBuffer = CompositeBuffer.newBuffer(memoryManager);
+        int segmentStart = 0;
+
         for (int i = 0; i < framesCount; i++) {
             final Http2Frame frame = frames.get(i);
             NetLogger.log(NetLogger.Context.TX, http2Session, frame);
-            final Buffer buffer = frame.toBuffer(http2Session.getMemoryManager());
+
+            final Buffer payload;
+            if (frame.getSerializedHeaderLength() >= 0) {
+                payload = frame.serializeHeaderTo(headers);
+            } else {
+                // the frame doesn't support split serialization, so it's serialized as a whole
+                payload = frame.toBuffer(memoryManager);
+            }
             frame.recycle();
 
-            resultBuffer = Buffers.appendBuffers(http2Session.getMemoryManager(), resultBuffer, buffer);
+            if (payload != null) {
+                if (payload.hasRemaining()) {
+                    if (headers != null && headers.position() > segmentStart) {
+                        resultBuffer.append(headers.slice(segmentStart, headers.position()));
+                        segmentStart = headers.position();
+                    }
+                    resultBuffer.append(payload);
+                } else {
+                    payload.tryDispose();
+                }
+            }
+        }
+
+        if (headers != null && headers.position() > segmentStart) {
+            // the last segment owns the header buffer, so it's disposed after all the preceding slices are written
+            headers.limit(headers.position());
+            headers.position(segmentStart);
+            headers.allowBufferDispose(true);
+            resultBuffer.append(headers);
         }
 
         frames.clear();
 
+        resultBuffer.allowBufferDispose(true);
+        resultBuffer.allowInternalBuffersDispose(true);
         return resultBuffer;
     }
 
@@ -79,6 +79,17 @@ public class Http2OutputQueueRecord extends AsyncQueueRecord<WriteResult> {
         return buffer == null;
     }
 
+    /**
+     * @return the number of output queue bytes occupied by the not yet serialized part of the record.
+     */
+    int getQueuedSize() {
+        if (buffer == null) {
+            return 0;
+        }
+
+        return isZeroSizeData ? 1 : buffer.remaining();
+    }
+
     int serializeTo(final List<Http2Frame> frames, final int maxDataSize) {
 
         final int recordSize = buffer.remaining();
@@ -50,6 +50,7 @@ import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.filterchain.FilterChainEvent;
 import org.glassfish.grizzly.filterchain.NextAction;
 import org.glassfish.grizzly.filterchain.ShutdownEvent;
+import org.glassfish.grizzly.http.HeaderTemplate;
 import org.glassfish.grizzly.http.HttpBrokenContentException;
 import org.glassfish.grizzly.http.HttpContent;
 import org.glassfish.grizzly.http.HttpContext;
@@ -174,6 +175,8 @@ public class Http2ServerFilter extends Http2BaseFilter {
     // Known "undefined" methods are: GET, HEAD, DELETE
     private boolean allowPayloadForUndefinedHttpMethods;
 
+    private HeaderTemplate defaultResponseHeaderTemplate;
+
     private final Attribute<Connection> CIPHER_CHECKED = AttributeBuilder.DEFAULT_ATTRIBUTE_BUILDER.createAttribute("BLACK_LIST_CIPHER_SUITE_CHEKCED");
 
     private final Collection<Connection> activeConnections = new HashSet<>(1024);
@@ -212,6 +215,24 @@ public class Http2ServerFilter extends Http2BaseFilter {
         this.allowPayloadForUndefinedHttpMethods = allowPayloadForUndefinedHttpMethods;
     }
 
+    /**
+     * @return the {@link HeaderTemplate}, which is sent with every response, which doesn't have its own template, or
+     * <tt>null</tt>.
+     */
+    public HeaderTemplate getDefaultResponseHeaderTemplate() {
+        return defaultResponseHeaderTemplate;
+    }
+
+    /**
+     * Sets the {@link HeaderTemplate}, which is sent with every response, which doesn't have its own template set with
+     * {@link HttpHeader#setHeaderTemplate(HeaderTemplate)}.
+     *
+     * @param defaultResponseHeaderTemplate the {@link HeaderTemplate}, or <tt>null</tt>.
+     */
+    public void setDefaultResponseHeaderTemplate(final HeaderTemplate defaultResponseHeaderTemplate) {
+        this.defaultResponseHeaderTemplate = defaultResponseHeaderTemplate;
+    }
+
     @Override
     public NextAction handleAccept(final FilterChainContext ctx) throws IOException {
         if (!shuttingDown.get()) {
@@ -622,7 +643,8 @@ public class Http2ServerFilter extends Http2BaseFilter {
             return;
         }
 
-        stream = http2Session.acceptStream(request, headersFrame.getStreamId(), headersFrame.getStreamDependency(), headersFrame.isExclusive(), 0);
+        final int weight = headersFrame.isFlagSet(HeadersFrame.PRIORITIZED) ? headersFrame.getWeight() + 1 : 0;
+        stream = http2Session.acceptStream(request, headersFrame.getStreamId(), headersFrame.getStreamDependency(), headersFrame.isExclusive(), weight);
         if (stream == null) { // GOAWAY has been sent, so ignoring this request
             request.recycle();
             return;
@@ -863,6 +885,12 @@ public class Http2ServerFilter extends Http2BaseFilter {
         if (!response.containsHeader(Header.Date)) {
             response.getHeaders().addValue(Header.Date).setBytes(FastHttpDateFormat.getCurrentDateBytes());
         }
+
+        final HeaderTemplate headerTemplate = response.getHeaderTemplate() != null ? response.getHeaderTemplate()
+                : defaultResponseHeaderTemplate;
+        if (headerTemplate != null) {
+            headerTemplate.copyTo(response.getHeaders());
+        }
     }
 
     private void enableOpReadNow(final FilterChainContext ctx) {
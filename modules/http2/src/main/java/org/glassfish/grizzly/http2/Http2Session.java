@@ -24,10 +24,8 @@ import static org.glassfish.grizzly.http2.frames.SettingsFrame.SETTINGS_MAX_HEAD
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -107,7 +105,7 @@ public class Http2Session {
 
     private final AtomicInteger concurrentStreamsCount = new AtomicInteger(0);
 
-    private final TreeMap<Integer, Http2Stream> streamsMap = new TreeMap<>();
+    private final StreamMap streamsMap = new StreamMap();
 
     // (Optimization) We may read several DataFrames belonging to the same
     // Http2Stream, so in order to not process every DataFrame separately -
@@ -136,6 +134,8 @@ public class Http2Session {
 
     private final Http2Configuration http2Configuration;
 
+    private final WindowAutoTuner windowAutoTuner;
+
     private volatile int streamsHighWaterMark;
     private int checkCount;
 
@@ -179,6 +179,7 @@ public class Http2Session {
         this.handlerFilter = handlerFilter;
 
         this.http2Configuration = handlerFilter.getConfiguration();
+        this.windowAutoTuner = new WindowAutoTuner(this, http2Configuration);
 
         if (this.http2Configuration.getMaxConcurrentStreams() != -1) {
             this.setLocalMaxConcurrentStreams(this.http2Configuration.getMaxConcurrentStreams());
@@ -452,6 +453,13 @@ public class Http2Session {
         return outputSink.getAvailablePeerConnectionWindowSize();
     }
 
+    /**
+     * @return the {@link WindowAutoTuner} of this session, which also keeps the flow-control statistics.
+     */
+    public WindowAutoTuner getWindowAutoTuner() {
+        return windowAutoTuner;
+    }
+
     /**
      * @return the maximum number of concurrent streams allowed for this session by our side.
      */
@@ -638,15 +646,12 @@ public class Http2Session {
         // close streams that rank above the last stream ID specified by the GOAWAY frame.
         // Allow other streams to continue processing. Once the concurrent stream count reaches zero,
         // the session will be closed.
-        Map<Integer, Http2Stream> invalidStreams = streamsMap.subMap(goingAwayLastStreamId, false, Integer.MAX_VALUE, true);
-        if (!invalidStreams.isEmpty()) {
-            // needs to iterate over copied list to prevent
-            // bug #1995 - ConcurrentModificationException
-            List<Http2Stream> closedStreams = new ArrayList<>(invalidStreams.values());
-            for (final Http2Stream stream : closedStreams) {
-                stream.closedRemotely();
-                deregisterStream();
-            }
+        // the returned list is a snapshot, so it's safe to close the streams while iterating
+        // (bug #1995 - ConcurrentModificationException)
+        final List<Http2Stream> invalidStreams = streamsMap.valuesAbove(goingAwayLastStreamId);
+        for (final Http2Stream stream : invalidStreams) {
+            stream.closedRemotely();
+            deregisterStream();
         }
     }
 
@@ -1070,12 +1075,7 @@ public class Http2Session {
             if (!isCloseSession) {
                 if (checkCount++ > http2Configuration.getCleanFrequencyCheck() && streamsMap.size() > streamsHighWaterMark) {
                     checkCount = 0;
-                    for (final Iterator<Map.Entry<Integer, Http2Stream>> streamIds = streamsMap.entrySet().iterator(); streamIds.hasNext(); ) {
-                        final Map.Entry<Integer, Http2Stream> entry = streamIds.next();
-                        if (entry.getValue().isClosed()) {
-                            streamIds.remove();
-                        }
-                    }
+                    streamsMap.removeClosed();
                 }
             }
         }
@@ -1184,10 +1184,11 @@ public class Http2Session {
             // ACK HTTP2 connection flow control
             final int windowSize = getLocalConnectionWindowSize();
 
-            // if not forced - send update window message only in case currentUnackedBytes > windowSize / 2
-            if (currentUnackedBytes > windowSize / 3 && unackedReadBytes.compareAndSet(currentUnackedBytes, 0)) {
+            // if not forced - send update window message only in case currentUnackedBytes > windowSize / 3
+            if (currentUnackedBytes > WindowAutoTuner.connectionWindowUpdateThreshold(windowSize)
+                    && unackedReadBytes.compareAndSet(currentUnackedBytes, 0)) {
 
-                sendWindowUpdate(0, currentUnackedBytes);
+                sendWindowUpdate(0, windowAutoTuner.onConnectionWindowUpdate(currentUnackedBytes, windowSize));
             }
 
             if (stream != null) {
@@ -1196,10 +1197,10 @@ public class Http2Session {
                 final int streamWindowSize = stream.getLocalWindowSize();
 
                 // send update window message only in case currentUnackedBytes > windowSize / 2
-                if (streamUnackedBytes > 0 && streamUnackedBytes > streamWindowSize / 2
+                if (streamUnackedBytes > 0 && streamUnackedBytes > WindowAutoTuner.streamWindowUpdateThreshold(streamWindowSize)
                         && Http2Stream.unackedReadBytesUpdater.compareAndSet(stream, streamUnackedBytes, 0)) {
 
-                    sendWindowUpdate(stream.getId(), streamUnackedBytes);
+                    sendWindowUpdate(stream.getId(), windowAutoTuner.onStreamWindowUpdate(stream, streamUnackedBytes));
                 }
             }
         }
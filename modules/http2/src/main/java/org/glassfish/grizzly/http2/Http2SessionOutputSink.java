@@ -20,6 +20,7 @@
 
 package org.glassfish.grizzly.http2;
 
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -61,6 +62,10 @@ public class Http2SessionOutputSink {
         }
     });
 
+    // the DATA records of the output queue, scheduled fairly among the streams
+    private final DataFrameScheduler scheduler = new DataFrameScheduler();
+    private volatile boolean isClosed;
+
     private final AtomicInteger availConnectionWindowSize;
     private final List<Http2Frame> tmpFramesList = new LinkedList<>();
     private final AtomicBoolean writerLock = new AtomicBoolean();
@@ -162,15 +167,22 @@ public class Http2SessionOutputSink {
             writeDownStream(headerFrames);
         }
 
-        final int dataSize = data.remaining();
-
         if (messageCloner != null) {
             data = messageCloner.clone(http2Session.getConnection(), data);
         }
 
         final Http2OutputQueueRecord record = new Http2OutputQueueRecord(stream.getId(), data, completionHandler, isLast);
-        outputQueue.offer(record);
-        outputQueue.reserveSpace(record.isZeroSizeData() ? 1 : dataSize);
+        outputQueue.reserveSpace(record.getQueuedSize());
+        scheduler.offer(stream, record);
+
+        if (isClosed) {
+            failQueuedRecords();
+            return;
+        }
+
+        if (availConnectionWindowSize.get() <= 0) {
+            http2Session.getWindowAutoTuner().onSendWindowStall();
+        }
 
         flushOutputQueue();
     }
@@ -203,7 +215,7 @@ public class Http2SessionOutputSink {
             // gather all available output data frames
             while (availWindowSize > bytesToTransfer && queueSize > queueSizeToFree) {
 
-                final Http2OutputQueueRecord record = outputQueue.poll();
+                final Http2OutputQueueRecord record = scheduler.peek();
                 if (record == null) {
                     // keep this warning for now - should be reported when null record is spotted
                     LOGGER.log(Level.WARNING, "UNEXPECTED NULL RECORD. Queue-size: {0} "
@@ -213,16 +225,13 @@ public class Http2SessionOutputSink {
                     break;
                 }
                 final int serializedBytes = record.serializeTo(tmpFramesList,
-                    Math.min(MAX_FRAME_PAYLOAD_SIZE, availWindowSize - bytesToTransfer));
+                    Math.min(Math.min(MAX_FRAME_PAYLOAD_SIZE, availWindowSize - bytesToTransfer), scheduler.allowance()));
+                scheduler.onSerialized(record, serializedBytes);
                 bytesToTransfer += serializedBytes;
                 queueSizeToFree += serializedBytes;
 
-                if (record.isFinished()) {
-                    if (record.isZeroSizeData()) {
-                        queueSizeToFree++;
-                    }
-                } else {
-                    outputQueue.setCurrentElement(record);
+                if (record.isFinished() && record.isZeroSizeData()) {
+                    queueSizeToFree++;
                 }
 
                 final CompletionHandler<WriteResult> recordCompletionHandler = record.getCompletionHandler();
@@ -264,6 +273,12 @@ public class Http2SessionOutputSink {
 
             // release the writer lock, so other thread can start to write
             writerLock.set(false);
+            if (isClosed) {
+                // the sink might have been closed while we were holding the lock
+                failQueuedRecords();
+                break;
+            }
+
             if (breakNow) {
                 break;
             }
@@ -279,7 +294,39 @@ public class Http2SessionOutputSink {
     }
 
     public void close() {
+        isClosed = true;
         outputQueue.onClose();
+        failQueuedRecords();
+    }
+
+    /**
+     * Fails the records queued in the scheduler. The records can be drained only by the writer lock owner, if the lock
+     * is taken - the owner drains the records once it releases the lock and sees the sink closed.
+     */
+    private void failQueuedRecords() {
+        if (!writerLock.compareAndSet(false, true)) {
+            return;
+        }
+
+        final List<Http2OutputQueueRecord> records;
+        try {
+            records = scheduler.drain();
+        } finally {
+            writerLock.set(false);
+        }
+
+        if (!records.isEmpty()) {
+            int queueSizeToFree = 0;
+            for (Http2OutputQueueRecord record : records) {
+                queueSizeToFree += record.getQueuedSize();
+            }
+            outputQueue.releaseSpaceAndNotify(queueSizeToFree);
+
+            final IOException error = new IOException("Connection closed");
+            for (Http2OutputQueueRecord record : records) {
+                record.notifyFailure(error);
+            }
+        }
     }
 
 }
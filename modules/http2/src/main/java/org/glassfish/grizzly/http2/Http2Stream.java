@@ -83,7 +83,8 @@ public class Http2Stream implements AttributeStorage, OutputSink, Closeable {
     private final HttpRequestPacket request;
     private final int streamId;
     private final int parentStreamId;
-    private final int priority;
+    // RFC 7540 weight [1..256], any other value means the default weight
+    private volatile int priority;
     private final boolean exclusive;
 
     private final Http2Session http2Session;
@@ -99,6 +100,14 @@ public class Http2Stream implements AttributeStorage, OutputSink, Closeable {
     @SuppressWarnings("unused")
     private volatile int unackedReadBytes;
 
+    // the local (receive) window size of this stream, may be grown by WindowAutoTuner
+    volatile int localWindowSize;
+    // the timestamp of the last WINDOW_UPDATE sent for this stream
+    long lastWindowUpdateNanos;
+
+    // the outbound DATA of this stream queued in the DataFrameScheduler, guarded by the scheduler
+    DataFrameScheduler.StreamQueue scheduledData;
+
     // closeReasonRef, "null" value means the connection is open.
     private static final AtomicReferenceFieldUpdater<Http2Stream, CloseReason> closeReasonUpdater
         = AtomicReferenceFieldUpdater.newUpdater(Http2Stream.class, CloseReason.class, "closeReason");
@@ -157,6 +166,8 @@ public class Http2Stream implements AttributeStorage, OutputSink, Closeable {
         this.exclusive = exclusive;
         this.priority = priority;
         this.state = State.IDLE;
+        this.localWindowSize = http2Session.getLocalStreamWindowSize();
+        this.lastWindowUpdateNanos = System.nanoTime();
 
         inputBuffer = new DefaultInputBuffer(this);
         outputSink = new DefaultOutputSink(this);
@@ -179,6 +190,9 @@ public class Http2Stream implements AttributeStorage, OutputSink, Closeable {
         this.priority = priority;
 
         this.exclusive = false;
+        this.localWindowSize = http2Session.getLocalStreamWindowSize();
+        this.lastWindowUpdateNanos = System.nanoTime();
+
         inputBuffer = http2Session.isServer() ? new UpgradeInputBuffer(this) : new DefaultInputBuffer(this);
         outputSink = http2Session.isServer() ? new DefaultOutputSink(this) : new UpgradeOutputSink(http2Session);
 
@@ -194,7 +208,7 @@ public class Http2Stream implements AttributeStorage, OutputSink, Closeable {
     }
 
     public int getLocalWindowSize() {
-        return http2Session.getLocalStreamWindowSize();
+        return localWindowSize;
     }
 
     /**
@@ -226,11 +240,17 @@ public class Http2Stream implements AttributeStorage, OutputSink, Closeable {
         return parentStreamId;
     }
 
-    @SuppressWarnings("unused")
     public int getPriority() {
         return priority;
     }
 
+    /**
+     * Updates the stream weight, when the peer sends a PRIORITY frame.
+     */
+    void setPriority(final int priority) {
+        this.priority = priority;
+    }
+
     public boolean isPushStream() {
         return (streamId & 1) == 0;
     }
@@ -634,6 +654,7 @@ public class Http2Stream implements AttributeStorage, OutputSink, Closeable {
     private void closeStream() {
         // TODO ensure stream proper transitions to CLOSED state
         // Http2StreamState.close(this);
+        http2Session.getWindowAutoTuner().onStreamClosed(this);
         http2Session.deregisterStream();
     }
 
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The registry of the {@link Http2Session} streams, keyed by the stream ID.
+ * <p>
+ * The stream IDs and the streams are stored in two parallel open-addressed (linear probing) arrays, so neither boxed
+ * keys nor map entries are allocated per stream. The stream ID <code>0</code> marks a free slot, as it never identifies
+ * a stream.
+ * <p>
+ * The map is modified by one thread at a time (under the session lock), while {@link #get(int)} may be called
+ * concurrently without locking. The table is never modified in a way, which could hide an already registered stream
+ * from a concurrent reader: removals and resizes build a new table and publish it as a whole.
+ */
+final class StreamMap {
+    private static final int MIN_CAPACITY = 16;
+
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private int size;
+
+    /**
+     * @return the {@link Http2Stream} with the given ID, or <code>null</code> if there is no such stream registered.
+     */
+    Http2Stream get(final int streamId) {
+        final Table t = table;
+        final int mask = t.ids.length - 1;
+
+        for (int i = index(streamId, mask);; i = i + 1 & mask) {
+            final int id = t.ids[i];
+            if (id == streamId) {
+                return t.streams[i];
+            } else if (id == 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Registers the stream, replacing the stream registered with the same ID, if any.
+     */
+    void put(final int streamId, final Http2Stream stream) {
+        Table t = table;
+        if (size + 1 > t.ids.length >> 1) {
+            t = rehash(t, t.ids.length << 1, false);
+            table = t;
+        }
+
+        if (t.insert(streamId, stream)) {
+            size++;
+        }
+    }
+
+    /**
+     * Removes all the streams, which are closed.
+     *
+     * @return the number of removed streams.
+     */
+    int removeClosed() {
+        // the stream may get closed concurrently, so the size is taken from the streams the new table actually keeps
+        Table newTable = rehash(table, capacityFor(size), true);
+        final int closed = size - newTable.size;
+        if (closed > 0) {
+            final int capacity = capacityFor(newTable.size);
+            if (capacity < newTable.ids.length) {
+                newTable = rehash(newTable, capacity, false);
+            }
+
+            size = newTable.size;
+            table = newTable;
+        }
+
+        return closed;
+    }
+
+    /**
+     * @return the number of registered streams.
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the snapshot of the registered streams.
+     */
+    List<Http2Stream> values() {
+        return valuesAbove(0);
+    }
+
+    /**
+     * @return the snapshot of the registered streams, whose ID is greater than the given one.
+     */
+    List<Http2Stream> valuesAbove(final int streamId) {
+        final Table t = table;
+        final List<Http2Stream> values = new ArrayList<>(size);
+        for (int i = 0; i < t.ids.length; i++) {
+            if (t.ids[i] > streamId) {
+                values.add(t.streams[i]);
+            }
+        }
+
+        return values;
+    }
+
+    private static Table rehash(final Table t, final int capacity, final boolean skipClosed) {
+        final Table newTable = new Table(capacity);
+        for (int i = 0; i < t.ids.length; i++) {
+            final Http2Stream stream = t.streams[i];
+            if (stream != null && !(skipClosed && stream.isClosed())) {
+                newTable.insert(t.ids[i], stream);
+            }
+        }
+
+        return newTable;
+    }
+
+    private static int capacityFor(final int size) {
+        int capacity = MIN_CAPACITY;
+        while (size > capacity >> 2) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    private static int index(final int streamId, final int mask) {
+        // the stream IDs are sequential and have the same parity, so spread them with the Fibonacci hashing
+        final int h = streamId * 0x9E3779B9;
+        return (h ^ h >>> 16) & mask;
+    }
+
+    private static final class Table {
+        private final int[] ids;
+        private final Http2Stream[] streams;
+        private int size;
+
+        private Table(final int capacity) {
+            ids = new int[capacity];
+            streams = new Http2Stream[capacity];
+        }
+
+        /**
+         * @return <code>true</code> if the stream has been added, or <code>false</code> if it replaced the stream
+         * registered with the same ID.
+         */
+        private boolean insert(final int streamId, final Http2Stream stream) {
+            final int mask = ids.length - 1;
+
+            for (int i = index(streamId, mask);; i = i + 1 & mask) {
+                final int id = ids[i];
+                if (id == streamId || id == 0) {
+                    // the stream is stored before its ID, a racing reader may still see no stream and treat it as unknown
+                    streams[i] = stream;
+                    ids[i] = streamId;
+                    if (id == 0) {
+                        size++;
+                        return true;
+                    }
+
+                    return false;
+                }
+            }
+        }
+    }
+}
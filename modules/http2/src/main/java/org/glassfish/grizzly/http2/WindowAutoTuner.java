@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http2;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.http2.frames.PingFrame;
+
+/**
+ * Receive window auto-tuning and flow-control statistics of a single {@link Http2Session}.
+ * <p>
+ * The round-trip time of the session is sampled with PING frames while DATA frames are arriving. Every time a
+ * WINDOW_UPDATE is about to be sent, for the connection or for a stream, the time elapsed since the previous update of
+ * the same window is compared with the round-trip time: if the peer consumed the window in less than two round-trips,
+ * the window is limiting the throughput (the bandwidth-delay product of the link is larger than the window), so it gets
+ * doubled, up to {@link Http2Configuration#getMaxWindowSize()}. The total growth of all the windows of the session is
+ * bounded by {@link Http2Configuration#getWindowMemoryBudget()}.
+ * <p>
+ * Window stalls are counted whether or not auto-tuning is enabled.
+ */
+public class WindowAutoTuner {
+    private static final Logger LOGGER = Grizzly.logger(WindowAutoTuner.class);
+
+    // high 32 bits of the opaque data of the PING frames sent to sample RTT
+    static final long RTT_PING_MARKER = 0x47525a59L << 32;
+
+    private static final long RTT_SAMPLE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Http2Session http2Session;
+    private final boolean enabled;
+    private final int maxWindowSize;
+    private final long windowMemoryBudget;
+
+    // the number of bytes the session windows have grown beyond their initial sizes
+    private long grantedWindowBytes;
+
+    private final AtomicBoolean rttPingInFlight = new AtomicBoolean();
+    private volatile long rttPingOpaqueData;
+    private volatile long rttPingSentNanos;
+    private volatile long lastRttSampleNanos;
+    private volatile long smoothedRttNanos;
+    private int rttPingSequence;
+
+    private long lastConnectionWindowUpdateNanos = System.nanoTime();
+
+    private final AtomicLong receiveWindowStalls = new AtomicLong();
+    private final AtomicLong sendWindowStalls = new AtomicLong();
+    private final AtomicLong windowIncreases = new AtomicLong();
+
+    WindowAutoTuner(final Http2Session http2Session, final Http2Configuration configuration) {
+        this.http2Session = http2Session;
+        this.enabled = configuration.isWindowAutoTuning();
+        this.maxWindowSize = configuration.getMaxWindowSize();
+        this.windowMemoryBudget = configuration.getWindowMemoryBudget();
+    }
+
+    // --------------------------------------------------------- Public Methods
+
+    /**
+     * @return <code>true</code> if receive windows of the session are auto-tuned.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the smoothed round-trip time of the session in the given unit, or <code>-1</code> if it hasn't been
+     * sampled yet.
+     */
+    public long getSmoothedRtt(final TimeUnit unit) {
+        final long rtt = smoothedRttNanos;
+        return rtt == 0 ? -1 : unit.convert(rtt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of times the peer had exhausted a receive window (connection or stream) of this session before
+     * the window was updated.
+     */
+    public long getReceiveWindowStalls() {
+        return receiveWindowStalls.get();
+    }
+
+    /**
+     * @return the number of times outbound data had to be queued because the peer's connection window was exhausted.
+     */
+    public long getSendWindowStalls() {
+        return sendWindowStalls.get();
+    }
+
+    /**
+     * @return the number of times a receive window of this session has been grown.
+     */
+    public long getWindowIncreases() {
+        return windowIncreases.get();
+    }
+
+    /**
+     * @return the number of bytes the receive windows of this session have currently grown beyond their initial sizes.
+     */
+    public synchronized long getGrantedWindowBytes() {
+        return grantedWindowBytes;
+    }
+
+    // ------------------------------------------------------- Package Methods
+
+    /**
+     * Called for every inbound DATA frame, starts a new round-trip time sample if needed.
+     */
+    void onDataFrameReceived() {
+        if (!enabled) {
+            return;
+        }
+
+        final long now = System.nanoTime();
+        if (smoothedRttNanos != 0 && now - lastRttSampleNanos < RTT_SAMPLE_INTERVAL_NANOS) {
+            return;
+        }
+
+        if (rttPingInFlight.compareAndSet(false, true)) {
+            final long opaqueData;
+            synchronized (this) {
+                opaqueData = RTT_PING_MARKER | (++rttPingSequence & 0xffffffffL);
+            }
+            rttPingOpaqueData = opaqueData;
+            rttPingSentNanos = System.nanoTime();
+            http2Session.getOutputSink().writeDownStream(PingFrame.builder().opaqueData(opaqueData).build());
+        }
+    }
+
+    /**
+     * Called for every PING frame acknowledged by the peer.
+     *
+     * @return <code>true</code> if the PING is the one in flight, sent by this tuner.
+     */
+    boolean onPingAck(final long opaqueData) {
+        if (!rttPingInFlight.get() || opaqueData != rttPingOpaqueData) {
+            return false;
+        }
+
+        final long now = System.nanoTime();
+        final long sentNanos = rttPingSentNanos;
+        if (!rttPingInFlight.compareAndSet(true, false)) {
+            return false;
+        }
+        rttPingOpaqueData = 0;
+
+        onRttSample(Math.max(1, now - sentNanos), now);
+        return true;
+    }
+
+    void onRttSample(final long sampleNanos, final long now) {
+        final long srtt = smoothedRttNanos;
+        // RFC 6298 style smoothing, alpha = 1/8
+        smoothedRttNanos = srtt == 0 ? sampleNanos : srtt - (srtt >> 3) + (sampleNanos >> 3);
+        lastRttSampleNanos = now;
+    }
+
+    /**
+     * Called when outbound DATA has been queued while the peer's connection window is exhausted.
+     */
+    void onSendWindowStall() {
+        sendWindowStalls.incrementAndGet();
+    }
+
+    /**
+     * Called right before the connection WINDOW_UPDATE is sent.
+     *
+     * @param consumed the number of bytes to be acknowledged.
+     * @param windowSize the current connection receive window size.
+     *
+     * @return the window size increment to send to the peer.
+     */
+    int onConnectionWindowUpdate(final int consumed, final int windowSize) {
+        if (isStalled(consumed, windowSize, connectionWindowUpdateThreshold(windowSize))) {
+            receiveWindowStalls.incrementAndGet();
+        }
+
+        if (!enabled) {
+            return consumed;
+        }
+
+        final int growth;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            growth = calculateGrowth(windowSize, now - lastConnectionWindowUpdateNanos);
+            lastConnectionWindowUpdateNanos = now;
+            grantedWindowBytes += growth;
+        }
+
+        if (growth > 0) {
+            http2Session.setLocalConnectionWindowSize(windowSize + growth);
+            onWindowGrown(0, windowSize + growth);
+        }
+
+        return consumed + growth;
+    }
+
+    /**
+     * Called right before the stream WINDOW_UPDATE is sent.
+     *
+     * @param stream the {@link Http2Stream}.
+     * @param consumed the number of bytes to be acknowledged.
+     *
+     * @return the window size increment to send to the peer.
+     */
+    int onStreamWindowUpdate(final Http2Stream stream, final int consumed) {
+        final int windowSize = stream.getLocalWindowSize();
+        if (isStalled(consumed, windowSize, streamWindowUpdateThreshold(windowSize))) {
+            receiveWindowStalls.incrementAndGet();
+        }
+
+        if (!enabled) {
+            return consumed;
+        }
+
+        final int growth;
+        synchronized (this) {
+            if (stream.isClosed()) {
+                return consumed;
+            }
+            final long now = System.nanoTime();
+            growth = calculateGrowth(windowSize, now - stream.lastWindowUpdateNanos);
+            stream.lastWindowUpdateNanos = now;
+            stream.localWindowSize = windowSize + growth;
+            grantedWindowBytes += growth;
+        }
+
+        if (growth > 0) {
+            onWindowGrown(stream.getId(), windowSize + growth);
+        }
+
+        return consumed + growth;
+    }
+
+    /**
+     * Called once the stream is closed, returns the window growth of the stream to the session budget.
+     */
+    synchronized void onStreamClosed(final Http2Stream stream) {
+        final int growth = stream.localWindowSize - http2Session.getLocalStreamWindowSize();
+        if (growth > 0) {
+            grantedWindowBytes -= growth;
+            stream.localWindowSize -= growth;
+        }
+    }
+
+    /**
+     * @return the number of consumed bytes, which has to be exceeded before the connection WINDOW_UPDATE is sent.
+     */
+    static int connectionWindowUpdateThreshold(final int windowSize) {
+        return windowSize / 3;
+    }
+
+    /**
+     * @return the number of consumed bytes, which has to be exceeded before the stream WINDOW_UPDATE is sent.
+     */
+    static int streamWindowUpdateThreshold(final int windowSize) {
+        return windowSize / 2;
+    }
+
+    // -------------------------------------------------------- Private Methods
+
+    /*
+     * The WINDOW_UPDATE is normally sent right after the consumed bytes exceed the threshold. If, by the time it's sent,
+     * the peer has less than half of the threshold left in the window, the peer runs out of the window before the update
+     * reaches it.
+     */
+    private static boolean isStalled(final int consumed, final int windowSize, final int threshold) {
+        return windowSize - consumed <= threshold / 2;
+    }
+
+    /*
+     * This method has to be called while holding the tuner's lock.
+     */
+    private int calculateGrowth(final int windowSize, final long sinceLastUpdateNanos) {
+        final long rtt = smoothedRttNanos;
+        if (rtt == 0 || sinceLastUpdateNanos >= 2 * rtt || windowSize >= maxWindowSize) {
+            return 0;
+        }
+
+        final long budgetLeft = windowMemoryBudget - grantedWindowBytes;
+        return (int) Math.max(0, Math.min(Math.min(windowSize, maxWindowSize - windowSize), budgetLeft));
+    }
+
+    private void onWindowGrown(final int streamId, final int newWindowSize) {
+        windowIncreases.incrementAndGet();
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Http2Session. Auto-tuned receive window of stream {0} to {1} bytes (srtt={2}us)",
+                    new Object[] { streamId, newWindowSize, TimeUnit.NANOSECONDS.toMicros(smoothedRttNanos) });
+        }
+    }
+}
@@ -90,6 +90,18 @@ public class ContinuationFrame extends HeaderBlockFragment {
         return cb;
     }
 
+    @Override
+    public int getSerializedHeaderLength() {
+        return FRAME_HEADER_SIZE;
+    }
+
+    @Override
+    public Buffer serializeHeaderTo(final Buffer buffer) {
+        serializeFrameHeader(buffer);
+
+        return compressedHeaders;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
@@ -150,15 +150,9 @@ public class DataFrame extends Http2Frame {
     @Override
     public Buffer toBuffer(final MemoryManager memoryManager) {
 
-        final boolean isPadded = isFlagSet(PADDED);
-        final int extraHeaderLen = isPadded ? 1 : 0;
-        final Buffer buffer = memoryManager.allocate(FRAME_HEADER_SIZE + extraHeaderLen);
+        final Buffer buffer = memoryManager.allocate(getSerializedHeaderLength());
 
-        serializeFrameHeader(buffer);
-
-        if (isPadded) {
-            buffer.put((byte) (padLength & 0xff));
-        }
+        serializeHeaderTo(buffer);
 
         buffer.trim();
         final CompositeBuffer cb = CompositeBuffer.newBuffer(memoryManager, buffer, data);
@@ -169,6 +163,22 @@ public class DataFrame extends Http2Frame {
         return cb;
     }
 
+    @Override
+    public int getSerializedHeaderLength() {
+        return FRAME_HEADER_SIZE + (isFlagSet(PADDED) ? 1 : 0);
+    }
+
+    @Override
+    public Buffer serializeHeaderTo(final Buffer buffer) {
+        serializeFrameHeader(buffer);
+
+        if (isFlagSet(PADDED)) {
+            buffer.put((byte) (padLength & 0xff));
+        }
+
+        return data;
+    }
+
     @Override
     protected Map<Integer, String> getFlagNamesMap() {
         return FLAG_NAMES_MAP;
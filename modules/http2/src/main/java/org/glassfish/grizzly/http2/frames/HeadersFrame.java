@@ -159,30 +159,37 @@ public class HeadersFrame extends HeaderBlockHead {
 
     @Override
     public Buffer toBuffer(final MemoryManager memoryManager) {
-        final boolean isPadded = isFlagSet(PADDED);
-        final boolean isPrioritySet = isFlagSet(PRIORITIZED);
+        final Buffer buffer = memoryManager.allocate(getSerializedHeaderLength());
+
+        serializeHeaderTo(buffer);
 
-        final int extraHeaderLen = (isPadded ? 1 : 0) + (isPrioritySet ? 5 : 0);
+        buffer.trim();
+        final CompositeBuffer cb = CompositeBuffer.newBuffer(memoryManager, buffer, compressedHeaders);
 
-        final Buffer buffer = memoryManager.allocate(FRAME_HEADER_SIZE + extraHeaderLen);
+        cb.allowBufferDispose(true);
+        cb.allowInternalBuffersDispose(true);
+        return cb;
+    }
 
+    @Override
+    public int getSerializedHeaderLength() {
+        return FRAME_HEADER_SIZE + (isFlagSet(PADDED) ? 1 : 0) + (isFlagSet(PRIORITIZED) ? 5 : 0);
+    }
+
+    @Override
+    public Buffer serializeHeaderTo(final Buffer buffer) {
         serializeFrameHeader(buffer);
 
-        if (isPadded) {
+        if (isFlagSet(PADDED)) {
             buffer.put((byte) (padLength & 0xff));
         }
 
-        if (isPrioritySet) {
+        if (isFlagSet(PRIORITIZED)) {
             buffer.putInt(streamDependency);
             buffer.put((byte) (weight & 0xff));
         }
 
-        buffer.trim();
-        final CompositeBuffer cb = CompositeBuffer.newBuffer(memoryManager, buffer, compressedHeaders);
-
-        cb.allowBufferDispose(true);
-        cb.allowInternalBuffersDispose(true);
-        return cb;
+        return compressedHeaders;
     }
 
     @Override
@@ -48,6 +48,28 @@ public abstract class Http2Frame implements Cacheable {
 
     public abstract Buffer toBuffer(final MemoryManager memoryManager);
 
+    /**
+     * @return the number of bytes {@link #serializeHeaderTo(Buffer)} puts into the destination buffer, or <code>-1</code>
+     * if the frame can only be serialized using {@link #toBuffer(MemoryManager)}.
+     */
+    public int getSerializedHeaderLength() {
+        return -1;
+    }
+
+    /**
+     * Serializes the frame header along with the frame type specific fields into the given {@link Buffer}, which may be
+     * shared by several frames. The frame payload, if any, is not copied, but returned so it could be written right after
+     * the serialized header.
+     *
+     * @param buffer the destination {@link Buffer}, which must have at least {@link #getSerializedHeaderLength()} bytes
+     * remaining.
+     *
+     * @return the payload {@link Buffer} or <code>null</code>, if the frame has no payload outside the serialized header.
+     */
+    public Buffer serializeHeaderTo(final Buffer buffer) {
+        throw new UnsupportedOperationException();
+    }
+
     public boolean isFlagSet(final int flag) {
         return (flags & flag) == flag;
     }
@@ -119,15 +119,27 @@ public class PingFrame extends Http2Frame {
 
     @Override
     public Buffer toBuffer(final MemoryManager memoryManager) {
-        final Buffer buffer = memoryManager.allocate(FRAME_HEADER_SIZE + 8);
+        final Buffer buffer = memoryManager.allocate(getSerializedHeaderLength());
 
-        serializeFrameHeader(buffer);
-        buffer.putLong(opaqueData);
+        serializeHeaderTo(buffer);
         buffer.trim();
 
         return buffer;
     }
 
+    @Override
+    public int getSerializedHeaderLength() {
+        return FRAME_HEADER_SIZE + 8;
+    }
+
+    @Override
+    public Buffer serializeHeaderTo(final Buffer buffer) {
+        serializeFrameHeader(buffer);
+        buffer.putLong(opaqueData);
+
+        return null;
+    }
+
     // ---------------------------------------------------------- Nested Classes
 
     public static class PingFrameBuilder extends Http2FrameBuilder<PingFrameBuilder> {
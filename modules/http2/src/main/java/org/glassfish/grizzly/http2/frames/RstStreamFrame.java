@@ -104,15 +104,27 @@ public class RstStreamFrame extends Http2Frame {
 
     @Override
     public Buffer toBuffer(final MemoryManager memoryManager) {
-        final Buffer buffer = memoryManager.allocate(FRAME_HEADER_SIZE + 4);
+        final Buffer buffer = memoryManager.allocate(getSerializedHeaderLength());
 
-        serializeFrameHeader(buffer);
-        buffer.putInt(errorCode.getCode());
+        serializeHeaderTo(buffer);
         buffer.trim();
 
         return buffer;
     }
 
+    @Override
+    public int getSerializedHeaderLength() {
+        return FRAME_HEADER_SIZE + 4;
+    }
+
+    @Override
+    public Buffer serializeHeaderTo(final Buffer buffer) {
+        serializeFrameHeader(buffer);
+        buffer.putInt(errorCode.getCode());
+
+        return null;
+    }
+
     // ---------------------------------------------------------- Nested Classes
     public static class RstStreamFrameBuilder extends Http2FrameBuilder<RstStreamFrameBuilder> {
 
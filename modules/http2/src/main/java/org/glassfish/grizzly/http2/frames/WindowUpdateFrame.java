@@ -105,16 +105,27 @@ public class WindowUpdateFrame extends Http2Frame {
 
     @Override
     public Buffer toBuffer(final MemoryManager memoryManager) {
-        final Buffer buffer = memoryManager.allocate(FRAME_HEADER_SIZE + 4);
-
-        serializeFrameHeader(buffer);
-        buffer.putInt(windowSizeIncrement & 0x7fffffff);
+        final Buffer buffer = memoryManager.allocate(getSerializedHeaderLength());
 
+        serializeHeaderTo(buffer);
         buffer.trim();
 
         return buffer;
     }
 
+    @Override
+    public int getSerializedHeaderLength() {
+        return FRAME_HEADER_SIZE + 4;
+    }
+
+    @Override
+    public Buffer serializeHeaderTo(final Buffer buffer) {
+        serializeFrameHeader(buffer);
+        buffer.putInt(windowSizeIncrement & 0x7fffffff);
+
+        return null;
+    }
+
     // ---------------------------------------------------------- Nested Classes
 
     public static class WindowUpdateFrameBuilder extends Http2FrameBuilder<WindowUpdateFrameBuilder> {
@@ -19,6 +19,9 @@ package org.glassfish.grizzly.http2.hpack;
 import static java.lang.String.format;
 
 import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.glassfish.grizzly.Buffer;
 
@@ -30,13 +33,14 @@ import org.glassfish.grizzly.Buffer;
  */
 public final class Huffman {
 
-    // TODO: check if reset is done in both reader and writer
-
+    /**
+     * Decodes Huffman encoded strings with a finite state machine which consumes the input 4 bits at a time, instead of
+     * walking the code tree one bit at a time. Each state of the automaton is an internal node of the code tree, see
+     * {@link Huffman#buildDecodeTable()}.
+     */
     static final class Reader {
 
-        private Node curr; // position in the trie
-        private int len; // length of the path from the root to 'curr'
-        private int p; // byte probe
+        private int state; // current state of the automaton, 0 stands for the root of the code tree
 
         {
             reset();
@@ -50,74 +54,73 @@ public final class Huffman {
         // not, for more informative exceptions.
         void read(Buffer source, Appendable destination, boolean reportEOS, boolean isLast) {
 
-            Node c = curr;
-            int l = len;
-            /*
-             * Since ByteBuffer is itself stateful, its position is remembered here NOT as a part of Reader's state, but to set it
-             * back in the case of a failure
-             */
-            int pos = source.position();
+            final int[] table = INSTANCE.decodeTable;
+            int s = state;
 
             while (source.hasRemaining()) {
-                int d = source.get();
-                for (; p != 0; p >>= 1) {
-                    c = c.getChild(p & d);
-                    l++;
-                    if (c.isLeaf()) {
-                        if (reportEOS && c.isEOSPath) {
-                            throw new IllegalArgumentException("Encountered EOS");
-                        }
-                        try {
-                            destination.append(c.getChar());
-                        } catch (RuntimeException | Error e) {
-                            source.position(pos);
-                            throw e;
-                        } catch (IOException e) {
-                            source.position(pos);
-                            throw new RuntimeException(e);
-                        }
-                        c = INSTANCE.root;
-                        l = 0;
+                /*
+                 * Since ByteBuffer is itself stateful, its position is remembered here NOT as a part of Reader's state, but to set it
+                 * back in the case of a failure
+                 */
+                final int pos = source.position();
+                final int d = source.get() & 0xff;
+                final int high = table[s << 4 | d >>> 4];
+                final int low = table[(high & STATE_MASK) << 4 | d & 0x0f];
+                try {
+                    if ((high & FLAG_SYMBOL) != 0) {
+                        emit(high, destination, reportEOS);
                     }
-                    curr = c;
-                    len = l;
+                    if ((low & FLAG_SYMBOL) != 0) {
+                        emit(low, destination, reportEOS);
+                    }
+                } catch (RuntimeException | Error e) {
+                    source.position(pos);
+                    throw e;
+                } catch (IOException e) {
+                    source.position(pos);
+                    throw new RuntimeException(e);
                 }
-                resetProbe();
-                pos++;
+                s = low & STATE_MASK;
+                state = s;
             }
             if (!isLast) {
                 return; // it's too early to jump to any conclusions, let's wait
             }
-            if (c.isLeaf()) {
+            if (s == 0) {
                 return; // it's perfectly ok, no extra padding bits
             }
-            if (c.isEOSPath && len <= 7) {
+            final int len = INSTANCE.stateDepths[s];
+            final boolean isEOSPath = INSTANCE.stateEOSPaths[s];
+            if (isEOSPath && len <= 7) {
                 return; // it's ok, some extra padding bits
             }
-            if (c.isEOSPath) {
+            if (isEOSPath) {
                 throw new IllegalArgumentException("Padding is too long (len=" + len + ") " + "or unexpected end of data");
             }
             throw new IllegalArgumentException("Not a EOS prefix padding or unexpected end of data");
         }
 
         public void reset() {
-            curr = INSTANCE.root;
-            len = 0;
-            resetProbe();
+            state = 0;
         }
 
-        private void resetProbe() {
-            p = 0x80;
+        private static void emit(int transition, Appendable destination, boolean reportEOS) throws IOException {
+            if (reportEOS && (transition & FLAG_EOS) != 0) {
+                throw new IllegalArgumentException("Encountered EOS");
+            }
+            destination.append((char) (transition >>> SYMBOL_SHIFT));
         }
     }
 
+    /**
+     * Encodes strings with the Huffman code. Codes are accumulated in a 64-bit register and flushed to the destination as
+     * whole 32-bit words whenever possible, falling back to single bytes only near the end of the destination buffer.
+     */
     static final class Writer {
 
         private int pos; // position in 'source'
-        private int avail = 8; // number of least significant bits available in 'curr'
-        private int curr; // next byte to put to the destination
-        private int rem; // number of least significant bits in 'code' yet to be processed
-        private int code; // current code being written
+        private long bits; // pending code bits, only the 'bitCount' least significant ones are meaningful
+        private int bitCount; // number of pending bits in 'bits', never exceeds 61 (31 + the longest code)
 
         private CharSequence source;
         private int end;
@@ -133,38 +136,31 @@ public final class Huffman {
         }
 
         public boolean write(Buffer destination) {
-            for (; pos < end; pos++) {
-                if (rem == 0) {
-                    Code desc = INSTANCE.codeOf(source.charAt(pos));
-                    rem = desc.length;
-                    code = desc.code;
+            while (true) {
+                if (bitCount >= 32 && !flushWords(destination)) {
+                    return false;
                 }
-                while (rem > 0) {
-                    if (rem < avail) {
-                        curr |= code << avail - rem;
-                        avail -= rem;
-                        rem = 0;
-                    } else {
-                        int c = curr | code >>> rem - avail;
-                        if (destination.hasRemaining()) {
-                            destination.put((byte) c);
-                        } else {
-                            return false;
-                        }
-                        curr = c;
-                        code <<= 32 - rem + avail; // throw written bits off the cliff (is this Sparta?)
-                        code >>>= 32 - rem + avail; // return to the position
-                        rem -= avail;
-                        curr = 0;
-                        avail = 8;
-                    }
+                if (pos >= end) {
+                    break;
+                }
+                final Code desc = INSTANCE.codeOf(source.charAt(pos++));
+                bits = bits << desc.length | desc.code;
+                bitCount += desc.length;
+            }
+
+            while (bitCount >= 8) {
+                if (!destination.hasRemaining()) {
+                    return false;
                 }
+                destination.put((byte) (bits >>> bitCount - 8));
+                bitCount -= 8;
             }
 
-            if (avail < 8) { // have to pad
+            if (bitCount > 0) { // have to pad with the most significant bits of EOS, which are all ones
                 if (destination.hasRemaining()) {
-                    destination.put((byte) (curr | INSTANCE.EOS.code >>> INSTANCE.EOS.length - avail));
-                    avail = 8;
+                    final int padding = 8 - bitCount;
+                    destination.put((byte) (bits << padding | (1 << padding) - 1));
+                    bitCount = 0;
                 } else {
                     return false;
                 }
@@ -177,11 +173,25 @@ public final class Huffman {
             source = null;
             end = -1;
             pos = -1;
-            avail = 8;
-            curr = 0;
-            code = 0;
+            bits = 0;
+            bitCount = 0;
             return this;
         }
+
+        private boolean flushWords(Buffer destination) {
+            while (bitCount >= 32) {
+                if (destination.remaining() >= 4 && destination.order() == ByteOrder.BIG_ENDIAN) {
+                    destination.putInt((int) (bits >>> bitCount - 32));
+                    bitCount -= 32;
+                } else if (destination.hasRemaining()) {
+                    destination.put((byte) (bits >>> bitCount - 8));
+                    bitCount -= 8;
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 
     /**
@@ -191,6 +201,16 @@ public final class Huffman {
 
     private final Code EOS = new Code(0x3fffffff, 30);
     private final Code[] codes = new Code[257];
+
+    // Decoding automaton, 16 transitions (one per nibble value) per state, see buildDecodeTable()
+    static final int STATE_MASK = 0xff;
+    static final int FLAG_SYMBOL = 0x100;
+    static final int FLAG_EOS = 0x200;
+    static final int SYMBOL_SHIFT = 16;
+
+    private final int[] decodeTable;
+    private final int[] stateDepths;
+    private final boolean[] stateEOSPaths;
     private final Node root = new Node() {
         @Override
         public String toString() {
@@ -459,6 +479,53 @@ public final class Huffman {
         addChar(255, 0x3ffffee, 26);
         addEOS(256, EOS.code, EOS.length);
         // @formatter:on
+
+        final List<Node> states = new ArrayList<>(256);
+        states.add(root);
+        for (int i = 0; i < states.size(); i++) {
+            final Node node = states.get(i);
+            node.state = i;
+            for (Node child : new Node[] { node.left, node.right }) {
+                if (!child.isLeaf()) {
+                    child.depth = node.depth + 1;
+                    states.add(child);
+                }
+            }
+        }
+        if (states.size() > STATE_MASK + 1) {
+            throw new IllegalStateException("Too many states: " + states.size());
+        }
+        stateDepths = new int[states.size()];
+        stateEOSPaths = new boolean[states.size()];
+        decodeTable = new int[states.size() << 4];
+        buildDecodeTable(states);
+    }
+
+    /**
+     * Builds the transition table of the decoding automaton. A transition is an {@code int} which contains the next state
+     * in its lowest 8 bits, the {@link #FLAG_SYMBOL} and {@link #FLAG_EOS} flags and the decoded symbol starting from
+     * {@link #SYMBOL_SHIFT}. As the shortest code is 5 bits long, at most one symbol is decoded per nibble.
+     */
+    private void buildDecodeTable(List<Node> states) {
+        for (Node node : states) {
+            stateDepths[node.state] = node.depth;
+            stateEOSPaths[node.state] = node.isEOSPath;
+            for (int nibble = 0; nibble < 16; nibble++) {
+                Node curr = node;
+                int transition = 0;
+                for (int p = 0x8; p != 0; p >>= 1) {
+                    curr = curr.getChild(nibble & p);
+                    if (curr.isLeaf()) {
+                        transition |= FLAG_SYMBOL | curr.getChar() << SYMBOL_SHIFT;
+                        if (curr.isEOSPath) {
+                            transition |= FLAG_EOS;
+                        }
+                        curr = root;
+                    }
+                }
+                decodeTable[node.state << 4 | nibble] = transition | curr.state;
+            }
+        }
     }
 
     /**
@@ -558,6 +625,9 @@ public final class Huffman {
         boolean charIsSet;
         char c;
 
+        int state; // state of the decoding automaton, meaningful for non-leaf nodes only
+        int depth; // length of the path from the root
+
         Node getChild(int selector) {
             if (isLeaf()) {
                 throw new IllegalStateException("This is a leaf node");
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.glassfish.grizzly.http2.frames.DataFrame;
+import org.glassfish.grizzly.http2.frames.Http2Frame;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.junit.Test;
+
+/**
+ * Test {@link DataFrameScheduler}.
+ */
+public class DataFrameSchedulerTest {
+
+    private static final int MAX_FRAME = 16384;
+
+    @Test
+    public void testSmallStreamIsNotBlockedByBulkStream() {
+        final DataFrameScheduler scheduler = new DataFrameScheduler();
+        final Http2Stream bulk = mockStream(1, 0);
+        final Http2Stream small = mockStream(3, 0);
+
+        scheduler.offer(bulk, newRecord(bulk, 1024 * 1024));
+        scheduler.offer(small, newRecord(small, 100));
+
+        final List<Integer> order = drain(scheduler);
+        // the bulk stream may only send its default quantum before the small one is served
+        assertEquals(1, (int) order.get(0));
+        assertEquals(3, (int) order.get(1));
+        assertTrue(scheduler.isEmpty());
+    }
+
+    @Test
+    public void testBandwidthIsSharedByWeight() {
+        final DataFrameScheduler scheduler = new DataFrameScheduler();
+        final Http2Stream heavy = mockStream(1, 64);
+        final Http2Stream light = mockStream(3, 16);
+
+        scheduler.offer(heavy, newRecord(heavy, 1024 * 1024));
+        scheduler.offer(light, newRecord(light, 1024 * 1024));
+
+        int heavyBytes = 0;
+        int lightBytes = 0;
+        for (int i = 0; i < 50; i++) {
+            final Http2OutputQueueRecord record = scheduler.peek();
+            final List<Http2Frame> frames = new ArrayList<>();
+            final int bytes = record.serializeTo(frames, Math.min(MAX_FRAME, scheduler.allowance()));
+            if (((DataFrame) frames.get(0)).getStreamId() == 1) {
+                heavyBytes += bytes;
+            } else {
+                lightBytes += bytes;
+            }
+            scheduler.onSerialized(record, bytes);
+        }
+
+        assertEquals(4.0, (double) heavyBytes / lightBytes, 0.5);
+    }
+
+    @Test
+    public void testRecordsOfStreamKeepOrder() {
+        final DataFrameScheduler scheduler = new DataFrameScheduler();
+        final Http2Stream stream = mockStream(1, 0);
+        final Http2OutputQueueRecord first = newRecord(stream, 10);
+        final Http2OutputQueueRecord second = newRecord(stream, 0);
+
+        scheduler.offer(stream, first);
+        scheduler.offer(stream, second);
+
+        assertSame(first, scheduler.peek());
+        scheduler.onSerialized(first, first.serializeTo(new ArrayList<>(), MAX_FRAME));
+        assertSame(second, scheduler.peek());
+        scheduler.onSerialized(second, second.serializeTo(new ArrayList<>(), MAX_FRAME));
+        assertNull(scheduler.peek());
+    }
+
+    @Test
+    public void testDrain() {
+        final DataFrameScheduler scheduler = new DataFrameScheduler();
+        final Http2Stream stream1 = mockStream(1, 0);
+        final Http2Stream stream2 = mockStream(3, 0);
+        scheduler.offer(stream1, newRecord(stream1, 10));
+        scheduler.offer(stream2, newRecord(stream2, 10));
+        scheduler.offer(stream1, newRecord(stream1, 10));
+
+        // partially serialized record
+        final Http2OutputQueueRecord first = scheduler.peek();
+        scheduler.onSerialized(first, first.serializeTo(new ArrayList<>(), 4));
+
+        final List<Http2OutputQueueRecord> records = scheduler.drain();
+        assertEquals(3, records.size());
+        int queuedSize = 0;
+        for (Http2OutputQueueRecord record : records) {
+            queuedSize += record.getQueuedSize();
+        }
+        assertEquals(26, queuedSize);
+        assertTrue(scheduler.isEmpty());
+        assertNull(scheduler.peek());
+    }
+
+    private static List<Integer> drain(final DataFrameScheduler scheduler) {
+        final List<Integer> streamOrder = new ArrayList<>();
+        Http2OutputQueueRecord record;
+        while ((record = scheduler.peek()) != null) {
+            final List<Http2Frame> frames = new ArrayList<>();
+            final int bytes = record.serializeTo(frames, Math.min(MAX_FRAME, scheduler.allowance()));
+            final int streamId = frames.get(0).getStreamId();
+            if (streamOrder.isEmpty() || streamOrder.get(streamOrder.size() - 1) != streamId) {
+                streamOrder.add(streamId);
+            }
+            scheduler.onSerialized(record, bytes);
+        }
+        return streamOrder;
+    }
+
+    private static Http2Stream mockStream(final int id, final int weight) {
+        final Http2Stream stream = mock(Http2Stream.class);
+        doReturn(id).when(stream).getId();
+        doReturn(weight).when(stream).getPriority();
+        return stream;
+    }
+
+    private static Http2OutputQueueRecord newRecord(final Http2Stream stream, final int size) {
+        return new Http2OutputQueueRecord(stream.getId(), MemoryManager.DEFAULT_MEMORY_MANAGER.allocate(size), null, true);
+    }
+}
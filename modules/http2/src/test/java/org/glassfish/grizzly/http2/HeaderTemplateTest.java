@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.grizzly.http2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.SocketConnectorHandler;
+import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.FilterChain;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.http.HeaderTemplate;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.Method;
+import org.glassfish.grizzly.http.Protocol;
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Checks the {@link HeaderTemplate} headers are sent with the HTTP/2 responses.
+ */
+public class HeaderTemplateTest extends AbstractHttp2Test {
+
+    private static final int PORT = 18916;
+
+    private HttpServer httpServer;
+
+    @After
+    public void tearDown() {
+        if (httpServer != null) {
+            httpServer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDefaultTemplate() throws Exception {
+        httpServer = createServer(null, PORT, false);
+        httpServer.getServerConfiguration().setDefaultResponseHeaderTemplate(HeaderTemplate.builder()
+                .header(Header.ContentType, "application/json").header("X-Api-Version", "2").header(Header.CacheControl, "no-store").build());
+        httpServer.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                response.setHeader(Header.CacheControl, "max-age=60");
+                response.getWriter().write("{}");
+            }
+        }, "/api");
+        httpServer.start();
+
+        final HttpResponsePacket response = get("/api");
+        assertEquals(200, response.getStatus());
+        assertEquals("application/json", response.getHeader(Header.ContentType));
+        assertEquals("2", response.getHeader("X-Api-Version"));
+        // the response header takes precedence over the template one
+        assertEquals("max-age=60", response.getHeader(Header.CacheControl));
+        assertEquals(1, count(response, Header.CacheControl.toString()));
+    }
+
+    @Test
+    public void testResponseTemplate() throws Exception {
+        httpServer = createServer(null, PORT, false);
+        final HeaderTemplate template = HeaderTemplate.builder().header("X-Frame-Options", "DENY").build();
+        httpServer.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                response.setHeaderTemplate(template);
+                response.setContentType("text/plain");
+                response.getWriter().write("ok");
+            }
+        }, "/page");
+        httpServer.start();
+
+        final HttpResponsePacket response = get("/page");
+        assertEquals(200, response.getStatus());
+        assertEquals("DENY", response.getHeader("X-Frame-Options"));
+        assertTrue(response.getHeader(Header.ContentType).startsWith("text/plain"));
+    }
+
+    // -------------------------------------------------------- Private Methods
+
+    private HttpResponsePacket get(final String uri) throws Exception {
+        final LinkedBlockingQueue<HttpResponsePacket> responses = new LinkedBlockingQueue<>();
+        final FilterChain clientChain = createClientFilterChainAsBuilder(false, true, new BaseFilter() {
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx) throws IOException {
+                final HttpContent httpContent = ctx.getMessage();
+                if (httpContent.isLast()) {
+                    responses.offer((HttpResponsePacket) httpContent.getHttpHeader());
+                }
+                return ctx.getStopAction();
+            }
+        }).build();
+
+        final TCPNIOTransport transport = httpServer.getListener("grizzly").getTransport();
+        final SocketConnectorHandler connectorHandler = TCPNIOConnectorHandler.builder(transport).processor(clientChain).build();
+        final Future<Connection> connectFuture = connectorHandler.connect("localhost", PORT);
+        final Connection<?> connection = connectFuture.get(10, TimeUnit.SECONDS);
+        try {
+            final HttpRequestPacket request = HttpRequestPacket.builder().method(Method.GET).uri(uri).protocol(Protocol.HTTP_2_0)
+                    .host("localhost:" + PORT).build();
+            connection.write(HttpContent.builder(request).last(true).build());
+
+            final HttpResponsePacket response = responses.poll(10, TimeUnit.SECONDS);
+            assertNotNull(response);
+            return response;
+        } finally {
+            connection.closeSilently();
+        }
+    }
+
+    private static int count(final HttpResponsePacket response, final String name) {
+        int count = 0;
+        for (@SuppressWarnings("unused") final String value : response.getHeaders().values(name)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http2;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http2.frames.DataFrame;
+import org.glassfish.grizzly.http2.frames.ErrorCode;
+import org.glassfish.grizzly.http2.frames.GoAwayFrame;
+import org.glassfish.grizzly.http2.frames.Http2Frame;
+import org.glassfish.grizzly.http2.frames.PingFrame;
+import org.glassfish.grizzly.http2.frames.RstStreamFrame;
+import org.glassfish.grizzly.http2.frames.WindowUpdateFrame;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.CompositeBuffer;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.junit.Test;
+
+/**
+ * Test {@link Http2FrameCodec} serialization.
+ */
+public class Http2FrameCodecTest {
+
+    private static final MemoryManager MM = MemoryManager.DEFAULT_MEMORY_MANAGER;
+
+    @Test
+    public void testFrameListSerializedAsSingleComposite() {
+        final Http2Session session = mock(Http2Session.class);
+        doReturn(MM).when(session).getMemoryManager();
+
+        final List<Http2Frame> frames = new ArrayList<>();
+        frames.add(WindowUpdateFrame.builder().streamId(0).windowSizeIncrement(1000).build());
+        frames.add(PingFrame.builder().opaqueData(42).build());
+        frames.add(DataFrame.builder().streamId(1).data(Buffers.wrap(MM, "hello")).build());
+        frames.add(DataFrame.builder().streamId(3).data(Buffers.wrap(MM, "world")).endStream(true).build());
+        frames.add(DataFrame.builder().streamId(1).data(Buffers.EMPTY_BUFFER).endStream(true).build());
+        frames.add(GoAwayFrame.builder().lastStreamId(3).errorCode(ErrorCode.NO_ERROR).build());
+        frames.add(RstStreamFrame.builder().streamId(5).errorCode(ErrorCode.CANCEL).build());
+
+        final List<Http2Frame> expectedFrames = new ArrayList<>();
+        expectedFrames.add(WindowUpdateFrame.builder().streamId(0).windowSizeIncrement(1000).build());
+        expectedFrames.add(PingFrame.builder().opaqueData(42).build());
+        expectedFrames.add(DataFrame.builder().streamId(1).data(Buffers.wrap(MM, "hello")).build());
+        expectedFrames.add(DataFrame.builder().streamId(3).data(Buffers.wrap(MM, "world")).endStream(true).build());
+        expectedFrames.add(DataFrame.builder().streamId(1).data(Buffers.EMPTY_BUFFER).endStream(true).build());
+        expectedFrames.add(GoAwayFrame.builder().lastStreamId(3).errorCode(ErrorCode.NO_ERROR).build());
+        expectedFrames.add(RstStreamFrame.builder().streamId(5).errorCode(ErrorCode.CANCEL).build());
+
+        Buffer expected = null;
+        for (Http2Frame frame : expectedFrames) {
+            expected = Buffers.appendBuffers(MM, expected, frame.toBuffer(MM));
+        }
+
+        final Buffer result = new Http2FrameCodec().serializeAndRecycle(session, frames);
+
+        assertTrue(frames.isEmpty());
+        assertTrue(result.isComposite());
+        assertEquals(expected.toStringContent(ISO_8859_1), result.toStringContent(ISO_8859_1));
+
+        // [WINDOW_UPDATE+PING+DATA header] [hello] [DATA header] [world] [DATA header] [GOAWAY] [RST_STREAM]
+        assertEquals(7, ((CompositeBuffer) result).toBufferArray().size());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test {@link StreamMap}.
+ */
+public class StreamMapTest {
+
+    @Test
+    public void testPutGet() {
+        final StreamMap map = new StreamMap();
+        assertTrue(map.isEmpty());
+
+        final Http2Stream[] streams = new Http2Stream[1000];
+        for (int i = 0; i < streams.length; i++) {
+            streams[i] = stream(2 * i + 1, false);
+            map.put(2 * i + 1, streams[i]);
+        }
+
+        assertEquals(streams.length, map.size());
+        for (int i = 0; i < streams.length; i++) {
+            assertSame(streams[i], map.get(2 * i + 1));
+            assertNull(map.get(2 * i + 2));
+        }
+
+        final Http2Stream replacement = stream(7, false);
+        map.put(7, replacement);
+        assertEquals(streams.length, map.size());
+        assertSame(replacement, map.get(7));
+    }
+
+    @Test
+    public void testRemoveClosed() {
+        final StreamMap map = new StreamMap();
+        for (int i = 1; i <= 200; i++) {
+            map.put(i, stream(i, i % 3 != 0));
+        }
+
+        assertEquals(134, map.removeClosed());
+        assertEquals(66, map.size());
+        for (int i = 1; i <= 200; i++) {
+            if (i % 3 == 0) {
+                assertEquals(i, map.get(i).getId());
+            } else {
+                assertNull(map.get(i));
+            }
+        }
+
+        assertEquals(0, map.removeClosed());
+    }
+
+    @Test
+    public void testValuesAbove() {
+        final StreamMap map = new StreamMap();
+        for (int i = 1; i <= 21; i += 2) {
+            map.put(i, stream(i, false));
+        }
+
+        assertEquals(11, map.values().size());
+
+        final List<Http2Stream> above = map.valuesAbove(15);
+        assertEquals(3, above.size());
+        for (Http2Stream stream : above) {
+            assertTrue(stream.getId() > 15);
+        }
+    }
+
+    private static Http2Stream stream(final int id, final boolean closed) {
+        final Http2Stream stream = mock(Http2Stream.class);
+        doReturn(id).when(stream).getId();
+        doReturn(closed).when(stream).isClosed();
+        return stream;
+    }
+}
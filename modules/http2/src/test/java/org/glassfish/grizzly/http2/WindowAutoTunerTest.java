@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.filterchain.DefaultFilterChain;
+import org.glassfish.grizzly.filterchain.Filter;
+import org.glassfish.grizzly.filterchain.FilterChain;
+import org.glassfish.grizzly.memory.ByteBufferManager;
+import org.junit.Test;
+
+/**
+ * Test {@link WindowAutoTuner}.
+ */
+public class WindowAutoTunerTest {
+
+    private static final long RTT = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    public void testWindowsNotGrownWhenDisabled() {
+        final Http2Session session = newSession(Http2Configuration.builder().build());
+        final WindowAutoTuner tuner = session.getWindowAutoTuner();
+        tuner.onRttSample(RTT, System.nanoTime());
+
+        assertEquals(65535, tuner.onConnectionWindowUpdate(65535, 65535));
+        assertEquals(65535, session.getLocalConnectionWindowSize());
+        assertEquals(1, tuner.getReceiveWindowStalls());
+        assertEquals(0, tuner.getWindowIncreases());
+    }
+
+    @Test
+    public void testConnectionWindowGrowsUpToMax() {
+        final Http2Session session = newSession(Http2Configuration.builder().windowAutoTuning(true).maxWindowSize(200000).build());
+        final WindowAutoTuner tuner = session.getWindowAutoTuner();
+        assertEquals(-1, tuner.getSmoothedRtt(TimeUnit.NANOSECONDS));
+
+        // no RTT sample yet
+        assertEquals(30000, tuner.onConnectionWindowUpdate(30000, session.getLocalConnectionWindowSize()));
+        assertEquals(65535, session.getLocalConnectionWindowSize());
+
+        tuner.onRttSample(RTT, System.nanoTime());
+        assertEquals(RTT, tuner.getSmoothedRtt(TimeUnit.NANOSECONDS));
+
+        assertEquals(30000 + 65535, tuner.onConnectionWindowUpdate(30000, session.getLocalConnectionWindowSize()));
+        assertEquals(131070, session.getLocalConnectionWindowSize());
+
+        assertEquals(30000 + 200000 - 131070, tuner.onConnectionWindowUpdate(30000, session.getLocalConnectionWindowSize()));
+        assertEquals(200000, session.getLocalConnectionWindowSize());
+
+        assertEquals(30000, tuner.onConnectionWindowUpdate(30000, session.getLocalConnectionWindowSize()));
+        assertEquals(2, tuner.getWindowIncreases());
+        assertEquals(200000 - 65535, tuner.getGrantedWindowBytes());
+    }
+
+    @Test
+    public void testStreamWindowGrowthBoundedByBudget() {
+        final Http2Session session = newSession(Http2Configuration.builder().windowAutoTuning(true).windowMemoryBudget(100000).build());
+        final WindowAutoTuner tuner = session.getWindowAutoTuner();
+        tuner.onRttSample(RTT, System.nanoTime());
+
+        final Http2Stream stream1 = mockStream(session);
+        final Http2Stream stream2 = mockStream(session);
+
+        assertEquals(40000 + 65535, tuner.onStreamWindowUpdate(stream1, 40000));
+        assertEquals(131070, stream1.localWindowSize);
+
+        assertEquals(40000 + 100000 - 65535, tuner.onStreamWindowUpdate(stream2, 40000));
+        assertEquals(100000, tuner.getGrantedWindowBytes());
+
+        assertEquals(40000, tuner.onStreamWindowUpdate(stream1, 40000));
+
+        tuner.onStreamClosed(stream1);
+        assertEquals(100000 - 65535, tuner.getGrantedWindowBytes());
+        assertEquals(65535, stream1.localWindowSize);
+    }
+
+    @Test
+    public void testStallCountedAgainstUpdateThreshold() {
+        final Http2Session session = newSession(Http2Configuration.builder().windowAutoTuning(true).build());
+        final WindowAutoTuner tuner = session.getWindowAutoTuner();
+
+        // the connection WINDOW_UPDATE is sent once more than a third of the window is consumed
+        tuner.onConnectionWindowUpdate(WindowAutoTuner.connectionWindowUpdateThreshold(65535) + 1, 65535);
+        assertEquals(0, tuner.getReceiveWindowStalls());
+        tuner.onConnectionWindowUpdate(65535 - WindowAutoTuner.connectionWindowUpdateThreshold(65535) / 2, 65535);
+        assertEquals(1, tuner.getReceiveWindowStalls());
+
+        final Http2Stream stream = mockStream(session);
+        tuner.onStreamWindowUpdate(stream, WindowAutoTuner.streamWindowUpdateThreshold(65535) + 1);
+        assertEquals(1, tuner.getReceiveWindowStalls());
+        tuner.onStreamWindowUpdate(stream, stream.localWindowSize - WindowAutoTuner.streamWindowUpdateThreshold(stream.localWindowSize) / 2);
+        assertEquals(2, tuner.getReceiveWindowStalls());
+    }
+
+    @Test
+    public void testForeignPingAckIgnored() {
+        final Http2Session session = newSession(Http2Configuration.builder().windowAutoTuning(true).build());
+        final WindowAutoTuner tuner = session.getWindowAutoTuner();
+
+        assertFalse(tuner.onPingAck(42));
+        assertFalse(tuner.onPingAck(WindowAutoTuner.RTT_PING_MARKER | 1));
+        assertEquals(-1, tuner.getSmoothedRtt(TimeUnit.NANOSECONDS));
+        assertTrue(tuner.isEnabled());
+    }
+
+    private static Http2Stream mockStream(final Http2Session session) {
+        final Http2Stream stream = mock(Http2Stream.class);
+        stream.localWindowSize = session.getLocalStreamWindowSize();
+        stream.lastWindowUpdateNanos = System.nanoTime();
+        doAnswer(invocation -> stream.localWindowSize).when(stream).getLocalWindowSize();
+        return stream;
+    }
+
+    private static Http2Session newSession(final Http2Configuration configuration) {
+        final FilterChain filterChain = new DefaultFilterChain();
+        filterChain.add(mock(Filter.class));
+        final Connection<?> connection = mock(Connection.class);
+        doReturn(filterChain).when(connection).getProcessor();
+        doReturn(new ByteBufferManager()).when(connection).getMemoryManager();
+        return new Http2Session(connection, true, new Http2ServerFilter(configuration));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.grizzly.http2.hpack;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.junit.Test;
+
+public class HuffmanTest {
+
+    private static final MemoryManager MM = MemoryManager.DEFAULT_MEMORY_MANAGER;
+
+    // RFC 7541, Appendix C.4.1 - C.4.3
+    private static final String[][] VECTORS = {
+            { "www.example.com", "f1e3c2e5f23a6ba0ab90f4ff" },
+            { "no-cache", "a8eb10649cbf" },
+            { "custom-key", "25a849e95ba97d7f" },
+            { "custom-value", "25a849e95bb8e8b4bf" },
+            { "302", "6402" },
+            { "private", "aec3771a4b" },
+            { "Mon, 21 Oct 2013 20:13:21 GMT", "d07abe941054d444a8200595040b8166e082a62d1bff" },
+            { "https://www.example.com", "9d29ad171863c78f0b97c8e9ae82ae43d3" } };
+
+    // ----------------------------------------------------------- Test Methods
+
+    @Test
+    public void encodeRfcVectors() {
+        for (String[] vector : VECTORS) {
+            assertArrayEquals(vector[0], fromHex(vector[1]), encode(vector[0], 64));
+            assertEquals(vector[0], fromHex(vector[1]).length, Huffman.INSTANCE.lengthOf(vector[0]));
+        }
+    }
+
+    @Test
+    public void decodeRfcVectors() {
+        for (String[] vector : VECTORS) {
+            assertEquals(vector[1], vector[0], decode(fromHex(vector[1]), Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void roundTripAllSymbols() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 256; i++) {
+            sb.append((char) i);
+        }
+        for (int i = 255; i >= 0; i--) {
+            sb.append((char) i);
+        }
+        final String value = sb.toString();
+        final byte[] encoded = encode(value, 1024);
+        assertEquals(Huffman.INSTANCE.lengthOf(value), encoded.length);
+        assertEquals(value, decode(encoded, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void fragmentedInputAndOutput() {
+        final String value = "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8";
+        final byte[] expected = encode(value, 256);
+        for (int chunk = 1; chunk < 9; chunk++) {
+            assertArrayEquals(expected, encode(value, chunk));
+            assertEquals(value, decode(expected, chunk));
+        }
+    }
+
+    @Test
+    public void paddingTooLong() {
+        // 'a' (00011) followed by 11 bits of EOS prefix
+        assertDecodingFails(new byte[] { 0x1f, (byte) 0xff });
+    }
+
+    @Test
+    public void paddingIsNotEOSPrefix() {
+        // 'a' (00011) followed by 000 padding
+        assertDecodingFails(new byte[] { 0x18 });
+    }
+
+    @Test
+    public void explicitEOS() {
+        assertDecodingFails(new byte[] { (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff });
+    }
+
+    // -------------------------------------------------------- Private Methods
+
+    private static byte[] encode(String value, int chunk) {
+        final Huffman.Writer writer = new Huffman.Writer().from(value, 0, value.length());
+        final Buffer result = MM.allocate(4096);
+        final Buffer out = MM.allocate(chunk);
+        boolean done;
+        do {
+            out.clear();
+            done = writer.write(out);
+            out.flip();
+            if (!done) {
+                assertTrue(out.hasRemaining());
+            }
+            result.put(out);
+        } while (!done);
+        result.flip();
+        final byte[] bytes = new byte[result.remaining()];
+        result.get(bytes);
+        return bytes;
+    }
+
+    private static String decode(byte[] encoded, int chunk) {
+        final Huffman.Reader reader = new Huffman.Reader();
+        final StringBuilder sb = new StringBuilder();
+        for (int offset = 0; offset < encoded.length; offset += chunk) {
+            final int length = Math.min(chunk, encoded.length - offset);
+            final Buffer in = Buffers.wrap(MM, encoded, offset, length);
+            reader.read(in, sb, offset + length == encoded.length);
+            assertFalse(in.hasRemaining());
+        }
+        return sb.toString();
+    }
+
+    private static void assertDecodingFails(byte[] encoded) {
+        try {
+            decode(encoded, encoded.length);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static byte[] fromHex(String hex) {
+        final byte[] result = new byte[hex.length() / 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return result;
+    }
+}
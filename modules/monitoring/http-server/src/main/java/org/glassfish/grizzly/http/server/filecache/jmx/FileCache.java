@@ -58,6 +58,11 @@ public class FileCache extends JmxObject {
      */
     private final AtomicLong cacheMissCount = new AtomicLong();
 
+    /**
+     * The number of cache evictions.
+     */
+    private final AtomicLong cacheEvictionCount = new AtomicLong();
+
     /**
      * The number of cache errors.
      */
@@ -222,6 +227,26 @@ public class FileCache extends JmxObject {
         return cacheMissCount.get();
     }
 
+    /**
+     * @return the ratio of cache hits to all cache lookups, or <code>0</code> if there were no lookups.
+     */
+    @ManagedAttribute(id="cache-hit-ratio")
+    @Description("The ratio of cache hits to all cache lookups.")
+    public double getCacheHitRatio() {
+        final long hits = cacheHitCount.get();
+        final long lookups = hits + cacheMissCount.get();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return the total number of entries evicted to make room for more frequently requested resources.
+     */
+    @ManagedAttribute(id="cache-eviction-count")
+    @Description("The total number of entries evicted to make room for more frequently requested resources.")
+    public long getCacheEvictionCount() {
+        return cacheEvictionCount.get();
+    }
+
     /**
      * @return the total number of cache errors.
      */
@@ -249,6 +274,24 @@ public class FileCache extends JmxObject {
         return fileCache.getMappedCacheSize();
     }
 
+    /**
+     * @return the number of bytes of the cached files currently mapped to memory.
+     */
+    @ManagedAttribute(id="mapped-bytes")
+    @Description("The number of bytes of the cached files currently mapped to memory.")
+    public long getMappedBytes() {
+        return fileCache.getMappedBytes();
+    }
+
+    /**
+     * @return the estimated number of mapped bytes resident in physical memory.
+     */
+    @ManagedAttribute(id="resident-mapped-bytes")
+    @Description("The estimated number of mapped bytes resident in physical memory.")
+    public long getResidentMappedBytes() {
+        return fileCache.getResidentMappedBytes();
+    }
+
 
     // ---------------------------------------------------------- Nested Classes
 
@@ -274,6 +317,11 @@ public class FileCache extends JmxObject {
             }
         }
 
+        @Override
+        public void onEntryEvictedEvent(org.glassfish.grizzly.http.server.filecache.FileCache fileCache, FileCacheEntry entry) {
+            cacheEvictionCount.incrementAndGet();
+        }
+
         @Override
         public void onEntryHitEvent(org.glassfish.grizzly.http.server.filecache.FileCache fileCache, FileCacheEntry entry) {
             cacheHitCount.incrementAndGet();
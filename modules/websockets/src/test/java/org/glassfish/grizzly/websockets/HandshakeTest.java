@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.grizzly.websockets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.glassfish.grizzly.PortRange;
+import org.junit.Test;
+
+/**
+ * Checks the server side handshake, which creates the {@link DefaultWebSocket} with the default
+ * {@link WebSocketApplication#createSocket}.
+ */
+public class HandshakeTest {
+
+    private static final int PORT = 9120;
+
+    @Test
+    public void testDefaultSocket() throws Exception {
+        final AtomicReference<WebSocket> serverSocket = new AtomicReference<>();
+        final CountDownLatch connected = new CountDownLatch(1);
+        final CountDownLatch echoed = new CountDownLatch(1);
+
+        final WebSocketServer server = new WebSocketServer("0.0.0.0", new PortRange(PORT));
+        server.register("", "/handshake", new WebSocketApplication() {
+
+            @Override
+            public void onConnect(final WebSocket socket) {
+                serverSocket.set(socket);
+                connected.countDown();
+            }
+
+            @Override
+            public void onMessage(final WebSocket socket, final String text) {
+                socket.send(text);
+            }
+        });
+
+        final AtomicReference<String> echo = new AtomicReference<>();
+        final WebSocketClient client = new WebSocketClient("ws://localhost:" + PORT + "/handshake?q=1", new WebSocketAdapter() {
+            @Override
+            public void onMessage(final WebSocket socket, final String text) {
+                echo.set(text);
+                echoed.countDown();
+            }
+        });
+        try {
+            server.start();
+            client.connect(5, TimeUnit.SECONDS);
+            assertTrue(connected.await(10, TimeUnit.SECONDS));
+
+            final WebSocket socket = serverSocket.get();
+            assertTrue(socket instanceof DefaultWebSocket);
+            assertNotNull(((DefaultWebSocket) socket).getUpgradeRequest());
+            assertEquals("1", ((DefaultWebSocket) socket).getUpgradeRequest().getParameter("q"));
+
+            client.send("hello");
+            assertTrue(echoed.await(10, TimeUnit.SECONDS));
+            assertEquals("hello", echo.get());
+        } finally {
+            client.close();
+            server.stop();
+        }
+    }
+}